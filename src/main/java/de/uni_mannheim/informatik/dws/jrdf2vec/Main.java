@@ -5,14 +5,26 @@ import de.uni_mannheim.informatik.dws.jrdf2vec.training.Gensim;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecConfiguration;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecType;
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.*;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtSession;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.distributed.WalkCoordinator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.distributed.WalkWorker;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntityOrdering;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light.SubgraphExtractor;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light.WalkGenerationManagerLight;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetricsReporter;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.IDegreeCappingWalkGenerator;
 
 import java.io.File;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Mini command line tool for server application.
@@ -86,6 +98,11 @@ public class Main {
      */
     private static File walkDirectory = null;
 
+    /**
+     * Suffix of the run token file that a coordinator without local workers writes next to the walk directory.
+     */
+    private static final String RUN_TOKEN_FILE_SUFFIX = "_run_token";
+
     /**
      * In some cases, some walks may have already been generated. In such cases, the {@code oldWalkDirectory} can be provided.
      * Note that {@code oldWalkDirectory} must be different from {@link Main#walkDirectory}.
@@ -118,6 +135,56 @@ public class Main {
      */
     private static boolean isOnlyWalks = false;
 
+    /**
+     * If true, walk files are checkpointed so that an interrupted walk generation can be resumed.
+     */
+    private static boolean isCheckpointing = false;
+
+    /**
+     * Light mode: only load the neighbourhood of the light entities.
+     */
+    private static boolean isExtractSubgraph = false;
+
+    /**
+     * If true, the training stages are pipelined (see {@link RDF2Vec#setPipelined(boolean)}).
+     */
+    private static boolean isPipelined = false;
+
+    /**
+     * Number of entities after which a walk file is sealed (checkpointing only).
+     */
+    private static int checkpointInterval = WalkGenerationManager.DEFAULT_CHECKPOINT_INTERVAL;
+
+    /**
+     * Maximal number of candidate edges per hop; the neighbours of hub nodes are sampled. Values &lt; 1: no cap.
+     */
+    private static int maxDegree = IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT;
+
+    /**
+     * Order in which the entities are processed; null: default order of the entity selector.
+     */
+    private static EntityOrdering entityOrdering = null;
+
+    /**
+     * If true, random walks and mid walks are generated in lockstep batches.
+     */
+    private static boolean isLockstepWalking = false;
+
+    /**
+     * Heap budget in bytes for the adjacency lists of frequently visited nodes (HDT only); values &lt; 1: no hot tier.
+     */
+    private static long hotTierBudget = 0;
+
+    /**
+     * Filter on the walked edges; null: all edges are walked.
+     */
+    private static WalkFilter walkFilter = null;
+
+    /**
+     * Reporter that dumps the walk metrics to a file. Null if no metrics are written.
+     */
+    private static WalkMetricsReporter metricsReporter = null;
+
     /**
      * If true, only the training step is executed.
      */
@@ -195,7 +262,26 @@ public class Main {
                 System.out.println("Writing file: " + DEFAULT_MERGE_FILE);
                 fileToWrite = DEFAULT_MERGE_FILE;
             }
-            WalkMerger.mergeWalks(walkDirectory, fileToWrite);
+            long bucketBudget = WalkMerger.DEFAULT_BUCKET_BUDGET;
+            String shuffleMemoryText = getValue("-shuffleMemory", args);
+            if (shuffleMemoryText != null) {
+                try {
+                    bucketBudget = Long.parseLong(shuffleMemoryText) << 20;
+                } catch (NumberFormatException nfe) {
+                    System.out.println("Could not parse the shuffle memory. Using default (" +
+                            (WalkMerger.DEFAULT_BUCKET_BUDGET >> 20) + " MB).");
+                }
+            }
+            WalkMerger.mergeWalks(new File(walkDirectory), new File(fileToWrite),
+                    containsIgnoreCase("-shuffle", args), 0, Runtime.getRuntime().availableProcessors(),
+                    bucketBudget);
+            return;
+        }
+
+        // build the side indices of HDT files
+        String hdtIndexPath = getValue("-buildHdtIndex", args);
+        if (hdtIndexPath != null) {
+            buildHdtIndices(new File(hdtIndexPath), getValue("-threads", args));
             return;
         }
 
@@ -363,6 +449,89 @@ public class Main {
             }
         }
 
+        isExtractSubgraph = containsIgnoreCase("-extractSubgraph", args);
+
+        isPipelined = containsIgnoreCase("-pipelined", args);
+
+        isCheckpointing = containsIgnoreCase("-checkpoint", args);
+        String checkpointIntervalText = getValue("-checkpointInterval", args);
+        if (checkpointIntervalText != null) {
+            isCheckpointing = true;
+            try {
+                checkpointInterval = Integer.parseInt(checkpointIntervalText);
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the checkpoint interval. Using default (" +
+                        WalkGenerationManager.DEFAULT_CHECKPOINT_INTERVAL + ").");
+                checkpointInterval = WalkGenerationManager.DEFAULT_CHECKPOINT_INTERVAL;
+            }
+        }
+        if (isCheckpointing) {
+            System.out.println("Checkpointing enabled (interval: " + checkpointInterval + " entities).");
+        }
+
+        String maxDegreeText = getValue("-maxDegree", args);
+        if (maxDegreeText != null) {
+            try {
+                maxDegree = Integer.parseInt(maxDegreeText);
+                System.out.println("Capping the number of candidate edges per hop at " + maxDegree + ".");
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the maximal degree. The degree is not capped.");
+                maxDegree = IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT;
+            }
+        }
+
+        String entityOrderingText = getValue("-entityOrder", args);
+        if (entityOrderingText != null) {
+            entityOrdering = EntityOrdering.getOrderingFromString(entityOrderingText);
+            if (entityOrdering == null) {
+                System.out.println("Could not parse the entity order (expected none, dictionary, or bfs). Using " +
+                        "the default order.");
+            } else {
+                System.out.println("Entity order: " + entityOrdering);
+            }
+        }
+
+        isLockstepWalking = containsIgnoreCase("-lockstep", args);
+        if (isLockstepWalking) System.out.println("Lockstep walking enabled.");
+
+        String hotTierText = getValue("-hotTier", args);
+        if (hotTierText != null) {
+            try {
+                hotTierBudget = Long.parseLong(hotTierText) * 1024L * 1024L;
+                System.out.println("Hot tier budget: " + hotTierText + " MB.");
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the hot tier budget (expected megabytes). No hot tier is used.");
+                hotTierBudget = 0;
+            }
+        }
+
+        String filterFilePath = getValue("-filter", args);
+        if (filterFilePath != null) {
+            walkFilter = WalkFilter.read(new File(filterFilePath));
+            if (walkFilter != null) System.out.println("Walk filter: " + walkFilter);
+        }
+
+        String metricsFilePath = getValue("-metrics", args);
+        if (metricsFilePath != null) {
+            int metricsInterval = WalkMetricsReporter.DEFAULT_INTERVAL;
+            String metricsIntervalText = getValue("-metricsInterval", args);
+            if (metricsIntervalText != null) {
+                try {
+                    metricsInterval = Integer.parseInt(metricsIntervalText);
+                } catch (NumberFormatException nfe) {
+                    System.out.println("Could not parse the metrics interval. Using default (" +
+                            WalkMetricsReporter.DEFAULT_INTERVAL + ").");
+                }
+            }
+            String[] workerValues = getValues("-worker", 2, args);
+            if (workerValues != null) {
+                // every worker writes its own metrics file
+                metricsFilePath = getWorkerMetricsFilePath(metricsFilePath, workerValues[0]);
+            }
+            metricsReporter = new WalkMetricsReporter(new File(metricsFilePath), metricsInterval);
+            metricsReporter.start();
+        }
+
         String threadsText = getValue("-threads", args);
         if (threadsText != null) {
             try {
@@ -502,8 +671,58 @@ public class Main {
             walkGenerationMode = (walkGenerationMode == null) ? WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE : walkGenerationMode;
         }
 
+        // build a missing HDT index up front so that its progress can be reported
+        if (knowledgeGraphFile != null && knowledgeGraphFile.getName().toLowerCase().endsWith(".hdt") &&
+                !HdtSession.isIndexUpToDate(knowledgeGraphFile)) {
+            System.out.println("The HDT file is not indexed yet. Building the index...");
+            HdtSession.buildIndices(Collections.singletonList(knowledgeGraphFile), 1, System.out::println);
+        }
+
         Instant before, after;
 
+        // ------------------------------------
+        //     distributed walk generation
+        // ------------------------------------
+        String[] workerValues = getValues("-worker", 2, args);
+        if (workerValues != null) {
+            String coordinatorText = getValue("-coordinator", args);
+            String runTokenFileText = getValue("-runTokenFile", args);
+            printIfIgnoredOptionsExist();
+            runWalkWorker(workerValues, coordinatorText, runTokenFileText);
+            return;
+        }
+
+        String distributedText = getValue("-distributed", args);
+        if (distributedText != null) {
+            boolean isLocalWorkers = !containsIgnoreCase("-noLocalWorkers", args);
+            String coordinatorPortText = getValue("-coordinatorPort", args);
+            printIfIgnoredOptionsExist();
+            before = Instant.now();
+            boolean isOk = runWalkCoordinator(args, distributedText, coordinatorPortText, isLocalWorkers);
+            after = Instant.now();
+            System.out.println("\nWalk Generation Time:");
+            System.out.println(Util.getDeltaTimeString(before, after));
+            if (!isOk) {
+                System.out.println("Distributed walk generation failed. No training is performed. Workers can be " +
+                        "restarted with -checkpoint to resume.");
+                return;
+            }
+            if (!isOnlyWalks) {
+                before = Instant.now();
+                String modelFilePathToWrite = walkDirectory.getAbsolutePath() + File.separator + "model.kv";
+                Gensim.getInstance().trainWord2VecModel(modelFilePathToWrite, walkDirectory.getAbsolutePath(),
+                        configuration);
+                if (isVectorTextFileGeneration) {
+                    Gensim.getInstance().writeModelAsTextFile(modelFilePathToWrite,
+                            walkDirectory.getAbsolutePath() + File.separator + "vectors.txt");
+                }
+                after = Instant.now();
+                System.out.println("\nTraining Time:");
+                System.out.println(Util.getDeltaTimeString(before, after));
+            }
+            return;
+        }
+
         // -------------------
         //    only training
         // -------------------
@@ -538,18 +757,37 @@ public class Main {
             // now distinguish light/non-light
             if (lightEntityFile != null) {
                 // light walk generation:
+                File graphFile = knowledgeGraphFile;
+                if (isExtractSubgraph) {
+                    graphFile = SubgraphExtractor.extractForWalks(knowledgeGraphFile,
+                            Util.readEntitiesFromFile(lightEntityFile), walkGenerationMode, depth, isEmbedText,
+                            RDF2VecLight.getSubgraphFile(walkDirectory));
+                }
                 WalkGenerationManagerLight generatorLight = new WalkGenerationManagerLight(
-                        knowledgeGraphFile.toURI(),
+                        graphFile.toURI(),
                         lightEntityFile,
                         isEmbedText,
                         existingWalkDirectory,
-                        walkDirectory);
+                        walkDirectory,
+                        walkFilter);
+                generatorLight.setCheckpointing(isCheckpointing);
+                generatorLight.setCheckpointInterval(checkpointInterval);
+                generatorLight.setMaxDegree(maxDegree);
                 generatorLight.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory);
                 generatorLight.close();
+                if (graphFile != knowledgeGraphFile) {
+                    Util.deleteFile(graphFile);
+                }
             } else {
                 // classic walk generation
                 WalkGenerationManager classicGenerator = new WalkGenerationManager(knowledgeGraphFile.toURI(),
-                        isEmbedText, true, existingWalkDirectory, walkDirectory);
+                        isEmbedText, true, existingWalkDirectory, walkDirectory, walkFilter);
+                classicGenerator.setCheckpointing(isCheckpointing);
+                classicGenerator.setCheckpointInterval(checkpointInterval);
+                classicGenerator.setMaxDegree(maxDegree);
+                if (entityOrdering != null) classicGenerator.setEntityOrdering(entityOrdering);
+                classicGenerator.setLockstepWalking(isLockstepWalking);
+                if (hotTierBudget > 0) classicGenerator.setHotTierBudget(hotTierBudget);
                 classicGenerator.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalks, depth, window, walkDirectory);
                 classicGenerator.close();
             }
@@ -591,6 +829,18 @@ public class Main {
             // setting the continuation walk directory
             if (existingWalkDirectory != null) rdf2vec.setExistingWalkDirectory(existingWalkDirectory);
 
+            // setting the checkpointing option
+            rdf2vec.setCheckpointing(isCheckpointing);
+            rdf2vec.setCheckpointInterval(checkpointInterval);
+            rdf2vec.setMaxDegree(maxDegree);
+            rdf2vec.setEntityOrdering(entityOrdering);
+            rdf2vec.setLockstepWalking(isLockstepWalking);
+            rdf2vec.setHotTierBudget(hotTierBudget);
+            rdf2vec.setWalkFilter(walkFilter);
+
+            // count the vocabulary while walking
+            rdf2vec.setPipelined(isPipelined);
+
             // set resource directory for python server files
             if (resourcesDirectory != null) rdf2vec.setPythonServerResourceDirectory(resourcesDirectory);
 
@@ -632,6 +882,9 @@ public class Main {
             // setting the text embedding option
             rdf2VecLight.setEmbedText(isEmbedText);
 
+            // only load the neighbourhood of the entities
+            rdf2VecLight.setSubgraphExtraction(isExtractSubgraph);
+
             // set vector text file
             rdf2VecLight.setVectorTextFileGeneration(isVectorTextFileGeneration);
 
@@ -652,6 +905,199 @@ public class Main {
 
         System.out.println("\nTraining Time:");
         System.out.println(rdf2VecInstance.getRequiredTimeForLastTrainingString());
+
+        if (rdf2VecInstance instanceof RDF2Vec && ((RDF2Vec) rdf2VecInstance).isPipelined()) {
+            System.out.println("\nVocabulary Counting Time:");
+            System.out.println(((RDF2Vec) rdf2VecInstance).getRequiredTimeForLastVocabularyCountingString());
+
+            System.out.println("\nExport Time:");
+            System.out.println(((RDF2Vec) rdf2VecInstance).getRequiredTimeForLastExportString());
+
+            System.out.println("\nExport Time Overlapped with Saving the Model:");
+            System.out.println(((RDF2Vec) rdf2VecInstance).getRequiredTimeForLastOverlappedExportString());
+        }
+    }
+
+    /**
+     * Build (or validate) the side indices of the given HDT file or of all HDT files in the given directory. The
+     * files are indexed in parallel; progress and the estimated time remaining are printed.
+     *
+     * @param hdtFileOrDirectory HDT file or directory containing HDT files.
+     * @param threadsText        Number of files that are indexed concurrently (may be null).
+     */
+    private static void buildHdtIndices(File hdtFileOrDirectory, String threadsText) {
+        List<File> hdtFiles = new ArrayList<>();
+        if (hdtFileOrDirectory.isDirectory()) {
+            File[] files = hdtFileOrDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.isFile() && file.getName().toLowerCase().endsWith(".hdt")) hdtFiles.add(file);
+                }
+            }
+        } else if (hdtFileOrDirectory.isFile()) {
+            hdtFiles.add(hdtFileOrDirectory);
+        }
+        if (hdtFiles.isEmpty()) {
+            System.out.println("No HDT file found: " + hdtFileOrDirectory.getAbsolutePath());
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threadsText != null) {
+            try {
+                threads = Integer.parseInt(threadsText);
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the number of threads. Using default (" + threads + ").");
+            }
+        }
+        Instant before = Instant.now();
+        boolean isOk = HdtSession.buildIndices(hdtFiles, threads, System.out::println);
+        System.out.println((isOk ? "HDT index(es) available." : "HDT index generation failed. Check the log.") +
+                "\nTime:\n" + Util.getDeltaTimeString(before, Instant.now()));
+    }
+
+    /**
+     * Run a worker of a distributed walk generation.
+     *
+     * @param workerValues       Worker index and number of workers.
+     * @param coordinatorAddress Address of the coordinator in the form {@code host:port}. May be null.
+     * @param runTokenFilePath   Path to the file with the run token of the coordinator. May be null; then, the run
+     *                           token is read from the environment variable
+     *                           {@link WalkCoordinator#RUN_TOKEN_VARIABLE}.
+     */
+    private static void runWalkWorker(String[] workerValues, String coordinatorAddress, String runTokenFilePath) {
+        int workerIndex;
+        int numberOfWorkers;
+        try {
+            workerIndex = Integer.parseInt(workerValues[0]);
+            numberOfWorkers = Integer.parseInt(workerValues[1]);
+        } catch (NumberFormatException nfe) {
+            System.out.println("Could not parse the worker options. The syntax is: -worker <index> <number_of_workers>");
+            return;
+        }
+        String coordinatorHost = null;
+        int coordinatorPort = -1;
+        String runToken = runTokenFilePath != null ? WalkWorker.readRunToken(new File(runTokenFilePath)) :
+                System.getenv(WalkCoordinator.RUN_TOKEN_VARIABLE);
+        if (coordinatorAddress != null) {
+            int separator = coordinatorAddress.lastIndexOf(':');
+            try {
+                coordinatorHost = coordinatorAddress.substring(0, separator);
+                coordinatorPort = Integer.parseInt(coordinatorAddress.substring(separator + 1));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                System.out.println("Could not parse the coordinator address (expected host:port). Running without " +
+                        "coordinator.");
+                coordinatorHost = null;
+            }
+            if (coordinatorHost != null && runToken == null) {
+                System.out.println("No run token given (-runTokenFile or " + WalkCoordinator.RUN_TOKEN_VARIABLE +
+                        "). The coordinator will not accept the progress reports of this worker.");
+            }
+        }
+        if (walkDirectory == null) walkDirectory = new File(WalkGenerationManager.DEFAULT_WALK_DIRECTORY);
+        if (lightEntityFile != null) {
+            System.out.println("The light mode is not supported by distributed workers. Ignoring -light.");
+        }
+        System.out.println("Running worker " + workerIndex + " of " + numberOfWorkers + ".");
+        WalkGenerationManager manager = new WalkGenerationManager(knowledgeGraphFile.toURI(), isEmbedText, true,
+                existingWalkDirectory, walkDirectory, walkFilter);
+        manager.setCheckpointing(isCheckpointing);
+        manager.setCheckpointInterval(checkpointInterval);
+        manager.setMaxDegree(maxDegree);
+        if (entityOrdering != null) manager.setEntityOrdering(entityOrdering);
+        manager.setLockstepWalking(isLockstepWalking);
+        if (hotTierBudget > 0) manager.setHotTierBudget(hotTierBudget);
+        WalkWorker worker = new WalkWorker(workerIndex, numberOfWorkers, coordinatorHost, coordinatorPort,
+                runToken);
+        worker.generateWalks(manager, walkGenerationMode, numberOfThreads, numberOfWalks, depth, window,
+                walkDirectory);
+    }
+
+    /**
+     * Derive the metrics file of a worker by appending the worker index to the file name (before the extension).
+     *
+     * @param metricsFilePath The metrics file path as specified by the user.
+     * @param workerIndex     The index of the worker.
+     * @return Metrics file path of the worker.
+     */
+    static String getWorkerMetricsFilePath(String metricsFilePath, String workerIndex) {
+        int separatorIndex = Math.max(metricsFilePath.lastIndexOf('/'), metricsFilePath.lastIndexOf(File.separatorChar));
+        int extensionIndex = metricsFilePath.lastIndexOf('.');
+        if (extensionIndex <= separatorIndex) {
+            return metricsFilePath + "_w" + workerIndex;
+        }
+        return metricsFilePath.substring(0, extensionIndex) + "_w" + workerIndex +
+                metricsFilePath.substring(extensionIndex);
+    }
+
+    /**
+     * Run the coordinator of a distributed walk generation.
+     *
+     * @param args                All arguments (passed on to local workers).
+     * @param distributedText     The number of workers.
+     * @param coordinatorPortText The port of the coordinator (may be null).
+     * @param isLocalWorkers      True if the workers shall be started as local processes.
+     * @return True if all workers finished successfully.
+     */
+    private static boolean runWalkCoordinator(String[] args, String distributedText, String coordinatorPortText,
+                                              boolean isLocalWorkers) {
+        int numberOfWorkers;
+        try {
+            numberOfWorkers = Integer.parseInt(distributedText);
+        } catch (NumberFormatException nfe) {
+            System.out.println("Could not parse the number of workers. The syntax is: -distributed <number_of_workers>");
+            return false;
+        }
+        int coordinatorPort = 0;
+        if (coordinatorPortText != null) {
+            try {
+                coordinatorPort = Integer.parseInt(coordinatorPortText);
+            } catch (NumberFormatException nfe) {
+                System.out.println("Could not parse the coordinator port. Using any free port.");
+            }
+        }
+        if (walkDirectory == null) walkDirectory = new File(WalkGenerationManager.DEFAULT_WALK_DIRECTORY);
+
+        try (WalkCoordinator coordinator = new WalkCoordinator(numberOfWorkers, coordinatorPort, !isLocalWorkers)) {
+            if (!coordinator.start()) return false;
+            if (isLocalWorkers) {
+                // the threads are split among the local workers
+                List<String> workerArguments = new ArrayList<>();
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i].equalsIgnoreCase("-distributed") || args[i].equalsIgnoreCase("-coordinatorPort")
+                            || args[i].equalsIgnoreCase("-threads") || args[i].equalsIgnoreCase("-walkDirectory")
+                            || args[i].equalsIgnoreCase("-walkDir")) {
+                        i++;
+                    } else if (!args[i].equalsIgnoreCase("-noLocalWorkers")) {
+                        workerArguments.add(args[i]);
+                    }
+                }
+                workerArguments.add("-threads");
+                workerArguments.add(String.valueOf(Math.max(1, numberOfThreads / numberOfWorkers)));
+                workerArguments.add("-walkDirectory");
+                workerArguments.add(walkDirectory.getAbsolutePath());
+                if (!coordinator.launchLocalWorkers(workerArguments, walkDirectory)) {
+                    return false;
+                }
+            } else {
+                // the run token file is placed next to the walk directory: walk directories are read for training
+                File runTokenFile = new File(walkDirectory.getAbsoluteFile().getParentFile(),
+                        walkDirectory.getName() + RUN_TOKEN_FILE_SUFFIX);
+                if (!coordinator.writeRunTokenFile(runTokenFile)) return false;
+                System.out.println("Waiting for " + numberOfWorkers + " workers. Start each worker with:\n" +
+                        "    -graph <kg_file> -walkDirectory <dir> [walk options] -worker <index> " +
+                        numberOfWorkers + " -coordinator <coordinator_host>:" + coordinator.getPort() +
+                        " -runTokenFile <token_file>\n" +
+                        "The run token has been written to " + runTokenFile.getAbsolutePath() + " (readable only " +
+                        "by you). Copy it to the worker machines or set the environment variable " +
+                        WalkCoordinator.RUN_TOKEN_VARIABLE + " of the workers to its content.");
+                try {
+                    return coordinator.awaitCompletion(10, TimeUnit.DAYS);
+                } finally {
+                    Util.deleteFile(runTokenFile);
+                }
+            }
+            return coordinator.awaitCompletion(10, TimeUnit.DAYS);
+        }
     }
 
     private static void convertToTfTsv(String[] args) {
@@ -1114,6 +1560,89 @@ public class Main {
                 "    generated. This does not work for MID_WALKS. If you do not need to generate additional walks\n" +
                 "    use -onlyTraining instead.\n\n" +
 
+                "    -checkpoint\n" +
+                "    Walk files are sealed periodically and recorded in a checkpoint log (walk_checkpoint.log) in the\n" +
+                "    walk directory. If the walk generation is interrupted, simply run the same command again with the\n" +
+                "    same walk directory: entities that have been completed are skipped and incomplete walk files are\n" +
+                "    regenerated. Each entity is written exactly once.\n\n" +
+
+                "    -checkpointInterval <number> (default: 100000)\n" +
+                "    The number of entities after which a walk file is sealed. Implies -checkpoint.\n\n" +
+
+                "    -buildHdtIndex <hdt_file_or_directory>\n" +
+                "    Builds (or validates) the side index (.hdt.index.v1-1) of the given HDT file or of all HDT files in\n" +
+                "    the given directory before running RDF2Vec. Multiple files are indexed in parallel (-threads);\n" +
+                "    progress and the estimated time remaining are printed. Stale indices (older than the HDT file)\n" +
+                "    are rebuilt.\n\n" +
+
+                "    -pipelined\n" +
+                "    Only for the classic mode. The python server is started and the vocabulary is counted while\n" +
+                "    the walks are generated so that the training skips its vocabulary pass over the walks. Tokens\n" +
+                "    below -minCount are pruned before the training starts. The vectors are exported in binary\n" +
+                "    format and converted to text in parallel while the server saves the model.\n\n" +
+
+                "    -extractSubgraph\n" +
+                "    Only for the light mode. Before the walks are generated, the knowledge graph is streamed to\n" +
+                "    determine the neighbourhood of the light entities that can be reached within the walk depth (in both\n" +
+                "    directions for mid walks). Only this subgraph is loaded into memory.\n\n" +
+
+                "    -maxDegree <number>\n" +
+                "    Caps the number of candidate edges per hop. If a walk reaches a hub node (e.g. a class with\n" +
+                "    millions of instances), a uniform sample of that many edges is drawn instead of loading all edges.\n" +
+                "    The transition probabilities remain unchanged while the cost per hop is bounded.\n" +
+                "    Supported for in-memory and HDT graphs.\n\n" +
+
+                "    -entityOrder <none|dictionary|bfs>\n" +
+                "    Order in which the entities are processed. The walk threads work on contiguous ranges of this\n" +
+                "    order, so a locality-aware order reduces page faults on memory-mapped graphs that do not fit into\n" +
+                "    memory. 'dictionary' (default for HDT) follows the dictionary IDs, 'bfs' follows a breadth-first\n" +
+                "    traversal of the graph that is computed once and cached next to the HDT file (<file>.bfs-order).\n\n" +
+
+                "    -lockstep\n" +
+                "    Generates random walks and mid walks in lockstep: the walks of a batch of entities advance one hop\n" +
+                "    at a time and the hops are sorted by node, so that walks on the same node share one lookup and the\n" +
+                "    lookups run in storage order. The adjacency lists of upcoming nodes are prefetched for HDT files.\n" +
+                "    Supported for in-memory and HDT graphs.\n\n" +
+
+                "    -hotTier <megabytes>\n" +
+                "    Keeps the adjacency lists of the most frequently visited nodes (the nodes with the highest degree)\n" +
+                "    of an HDT file on the heap, up to the given number of megabytes. All other lookups go to the\n" +
+                "    memory-mapped file, so the walk throughput gets close to in-memory graphs with bounded memory.\n\n" +
+
+                "    -filter <file>\n" +
+                "    Skips edges by their predicate. The file contains one rule per line: include-predicate <uri>,\n" +
+                "    exclude-predicate <uri>, include-namespace <prefix>, exclude-namespace <prefix> or exclude-literals\n" +
+                "    (no text walks); lines starting with # are comments. Excluded predicates and namespaces are never\n" +
+                "    walked; if there are include rules, only included predicates and namespaces are walked. In-memory\n" +
+                "    graphs drop the filtered triples while parsing, HDT files and TDB datasets skip them while\n" +
+                "    walking. The filter is also applied in the light mode.\n\n" +
+
+                "    -metrics <file>\n" +
+                "    Walk generation metrics (throughput, per-hop latency and candidates per walk generator, dictionary\n" +
+                "    decodes, queue depth, writer contention, bytes written, GC) are written periodically to the given\n" +
+                "    file. If the file ends with .json, JSON is written; otherwise the Prometheus text format is used.\n" +
+                "    The metrics are also available via JMX. Do not place the file in the walk directory. Distributed\n" +
+                "    workers append their index to the file name.\n\n" +
+
+                "    -metricsInterval <seconds> (default: 30)\n" +
+                "    The interval in which the metrics file is written.\n\n" +
+
+                "    -distributed <number_of_workers>\n" +
+                "    The walk generation is distributed among multiple worker processes. Each worker generates the\n" +
+                "    walks for a partition of the entities and writes its own walk files (walk_file_w<i>_<n>.txt.gz).\n" +
+                "    By default, the workers are started as local processes and the threads are split among them.\n" +
+                "    Use -noLocalWorkers (and optionally -coordinatorPort <port>) to start the workers yourself, e.g.,\n" +
+                "    on other machines with the same graph file:\n" +
+                "        -graph <kg_file> -walkDirectory <dir> -worker <index> <number_of_workers>\n" +
+                "            -coordinator <host>:<port> -runTokenFile <token_file>\n" +
+                "    The coordinator writes the run token into a file next to the walk directory that only you can\n" +
+                "    read; workers without the token are not accepted. Instead of -runTokenFile, the token can be\n" +
+                "    given in the environment variable JRDF2VEC_RUN_TOKEN (local workers obtain it that way).\n" +
+                "    Without -noLocalWorkers, the coordinator only listens on the loopback interface. Workers that\n" +
+                "    lose the connection to the coordinator register again.\n" +
+                "    Training starts once all workers are done (unless -onlyWalks is set). Workers on other\n" +
+                "    machines must write to a shared walk directory or their files must be copied before training.\n\n" +
+
                 "\n" +
 
                 "Additional Services\n" +
@@ -1160,7 +1689,10 @@ public class Main {
                 "D) Merge of All Walk Files Into One\n" +
                 "   By default, jRDF2vec serializes walks in different gzipped files. If you require one\n" +
                 "   uncompressed, file, you can use the `-mergeWalks` keyword. You need to provide a\n" +
-                "   `-walkDirectory <dir>` and you can optionally specify the output file using `-o <file_path>`\n\n" +
+                "   `-walkDirectory <dir>` and you can optionally specify the output file using `-o <file_path>`\n" +
+                "   (the merged file is gzipped if the path ends with `.gz`). Add `-shuffle` in order to shuffle\n" +
+                "   the walks (recommended for training). The shuffle uses temporary files next to the output\n" +
+                "   file and holds at most `-shuffleMemory <MB>` (default: 256) of uncompressed walks in memory.\n\n" +
                 "E) Generation of Tensorflow Projector Files\n" +
                 "   If you want to visualize your embedding space by using the Tensorflow Projector, you can do so\n" +
                 "   by converting your vectors.txt file to the two files required by the tool.\n" +
@@ -1204,6 +1736,19 @@ public class Main {
         isVectorTextFileGeneration = true;
         isOnlyTraining = false;
         isEmbedText = false;
+        isCheckpointing = false;
+        isExtractSubgraph = false;
+        isPipelined = false;
+        checkpointInterval = WalkGenerationManager.DEFAULT_CHECKPOINT_INTERVAL;
+        maxDegree = IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT;
+        entityOrdering = null;
+        isLockstepWalking = false;
+        hotTierBudget = 0;
+        walkFilter = null;
+        if (metricsReporter != null) {
+            metricsReporter.stop();
+            metricsReporter = null;
+        }
         Gensim.shutDown();
     }
 }
@@ -1,18 +1,26 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec;
 
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.VectorExportPipeline;
 import org.apache.jena.ontology.OntModel;
 import org.apache.jena.query.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Gensim;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecConfiguration;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntityOrdering;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.IDegreeCappingWalkGenerator;
 
 import java.io.File;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -81,6 +89,36 @@ public class RDF2Vec implements IRDF2Vec {
      */
     private String requiredTimeForLastTrainingString = null;
 
+    /**
+     * Variable which saves the time it took to merge and write the vocabulary after the walk generation (pipelined
+     * mode only) as String (for the last run). The tokens themselves are counted by the walk threads.
+     */
+    private String requiredTimeForLastVocabularyCountingString = null;
+
+    /**
+     * Variable which saves the time it took to export the vectors and to release the server as String (for the last
+     * run).
+     */
+    private String requiredTimeForLastExportString = null;
+
+    /**
+     * Variable which saves the part of the export time during which the server was still saving the model (pipelined
+     * mode only) as String (for the last run).
+     */
+    private String requiredTimeForLastOverlappedExportString = null;
+
+    /**
+     * If true, the stages are pipelined: the python server is started while the walks are generated, the walk
+     * threads count the vocabulary while writing the walks (so that the training does not need a counting pass over
+     * the walks), and the vectors are converted to text (in parallel) while the server saves the model.
+     */
+    private boolean isPipelined = false;
+
+    /**
+     * Interval in which the binary vector file of a pipelined training job is polled.
+     */
+    private static final long EXPORT_FILE_POLLING_INTERVAL_MILLISECONDS = 100;
+
     private static final WalkGenerationMode defaultWalkGenerationMode = WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE;
 
     /**
@@ -94,6 +132,41 @@ public class RDF2Vec implements IRDF2Vec {
      */
     boolean isVectorTextFileGeneration = true;
 
+    /**
+     * If true, the walk generation is checkpointed and can be resumed after an interruption.
+     */
+    private boolean isCheckpointing = false;
+
+    /**
+     * Number of entities after which a walk file is sealed (checkpointing only).
+     */
+    private int checkpointInterval = WalkGenerationManager.DEFAULT_CHECKPOINT_INTERVAL;
+
+    /**
+     * Maximal number of candidate edges per hop (hub nodes are sampled). Values &lt; 1 disable the cap.
+     */
+    private int maxDegree = IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT;
+
+    /**
+     * Order in which the entities are processed; null: default order of the entity selector.
+     */
+    private EntityOrdering entityOrdering;
+
+    /**
+     * If true, random walks and mid walks are generated in lockstep batches.
+     */
+    private boolean isLockstepWalking = false;
+
+    /**
+     * Heap budget in bytes for the adjacency lists of frequently visited nodes (HDT only); values &lt; 1: no hot tier.
+     */
+    private long hotTierBudget = 0;
+
+    /**
+     * Filter on the walked edges; null: all edges are walked.
+     */
+    private WalkFilter walkFilter;
+
     /**
      * Main constructor
      * @param knowledgeGraphUri The URI to the knowledge graph.
@@ -192,38 +265,149 @@ public class RDF2Vec implements IRDF2Vec {
         WalkGenerationManager walkGenerationManager;
         if (useFile) {
             walkGenerationManager = new WalkGenerationManager(getFile(this.knowledgeGraphUri).toURI(), isEmbedText(),
-                    true, existingWalkDirectory, this.walkDirectory);
+                    true, existingWalkDirectory, this.walkDirectory, walkFilter);
         } else {
-            walkGenerationManager = new WalkGenerationManager(this.ontModel, isEmbedText());
+            walkGenerationManager = new WalkGenerationManager(this.ontModel, isEmbedText(), walkFilter);
         }
 
+        walkGenerationManager.setCheckpointing(isCheckpointing);
+        walkGenerationManager.setCheckpointInterval(checkpointInterval);
+        walkGenerationManager.setMaxDegree(maxDegree);
+        if (entityOrdering != null) walkGenerationManager.setEntityOrdering(entityOrdering);
+        walkGenerationManager.setLockstepWalking(isLockstepWalking);
+        if (hotTierBudget > 0) walkGenerationManager.setHotTierBudget(hotTierBudget);
+        if (isPipelined) {
+            // the walk threads count the tokens while writing; tokens below min_count are pruned right away
+            walkGenerationManager.setVocabularyCounting(true);
+            walkGenerationManager.setVocabularyMinCount(configuration.getMinCount());
+        }
+        // the python server takes a while to start: start it while the walks are generated
+        CompletableFuture<Gensim> gensimStart = isPipelined ? CompletableFuture.supplyAsync(this::getGensim) : null;
         walkGenerationManager.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalksPerEntity, depth,
                 configuration.getWindowSize(), getWalkDirectory());
         walkGenerationManager.close();
+        if (isPipelined) {
+            this.requiredTimeForLastVocabularyCountingString =
+                    walkGenerationManager.getRequiredTimeForVocabularyString();
+        }
 
         Instant after = Instant.now();
         this.requiredTimeForLastWalkGenerationString = Util.getDeltaTimeString(before, after);
         LOGGER.info("Walks successfully generated. Starting training now...");
 
+        File vocabularyFile = walkGenerationManager.getVocabularyFile();
+        String fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
+        if (isPipelined) {
+            trainAndExportPipelined(gensimStart.join(), fileToWrite, vocabularyFile);
+            return fileToWrite;
+        }
+
         before = Instant.now();
-        Gensim gensim;
-        if (this.pythonServerResourceDirectory != null) {
-            gensim = Gensim.getInstance(this.pythonServerResourceDirectory);
-        } else gensim = Gensim.getInstance();
+        Gensim gensim = getGensim();
+        gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration,
+                vocabularyFile);
+        after = Instant.now();
+        this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
 
-        String fileToWrite = getWalkDirectory().getAbsolutePath() + File.separator + "model.kv";
-        gensim.trainWord2VecModel(fileToWrite, getWalkDirectory().getAbsolutePath(), this.configuration);
+        before = Instant.now();
         if (isVectorTextFileGeneration) {
-            gensim.writeModelAsTextFile(fileToWrite, getWalkDirectory().getAbsolutePath()
-                    + File.separator + "vectors.txt");
+            File vectorTextFile = new File(getWalkDirectory(), "vectors.txt");
+            gensim.writeModelAsTextFile(fileToWrite, vectorTextFile.getAbsolutePath());
         }
-        Gensim.shutDown();
+        Gensim.release();
         after = Instant.now();
-        this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
+        this.requiredTimeForLastExportString = Util.getDeltaTimeString(before, after);
 
         return fileToWrite;
     }
 
+    /**
+     * Pipelined training and export: the server writes the vectors in binary format before it saves the model; the
+     * binary file is converted to text (multi-threaded) while the model is still being saved.
+     *
+     * @param gensim         The started gensim instance.
+     * @param fileToWrite    The model file.
+     * @param vocabularyFile File with the token counts of the walks; may be null.
+     */
+    private void trainAndExportPipelined(Gensim gensim, String fileToWrite, File vocabularyFile) {
+        Instant before = Instant.now();
+        File binaryFile = isVectorTextFileGeneration ? new File(getWalkDirectory(), "vectors.bin") : null;
+        if (binaryFile != null) {
+            // the job signals the completed vectors by creating the file
+            binaryFile.delete();
+        }
+        CompletableFuture<Boolean> training = gensim.trainWord2VecModelAsync(fileToWrite,
+                getWalkDirectory().getAbsolutePath(), this.configuration, vocabularyFile, binaryFile);
+        CompletableFuture<Instant> trainingEnd = training.thenApply(isSuccess -> Instant.now());
+
+        Instant exportStart = null;
+        Instant exportEnd = null;
+        boolean isExported = false;
+        if (binaryFile != null) {
+            waitForFile(binaryFile, training);
+            if (binaryFile.exists()) {
+                exportStart = Instant.now();
+                isExported = VectorExportPipeline.fromWord2VecBinaryFile(binaryFile)
+                        .writeTxt(new File(getWalkDirectory(), "vectors.txt")).run();
+                exportEnd = Instant.now();
+            }
+        }
+        boolean isTrained = training.join();
+        Instant after = trainingEnd.join();
+        this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
+        if (!isTrained) {
+            LOGGER.error("The training failed.");
+        }
+
+        if (exportStart != null && exportStart.isBefore(after)) {
+            Instant overlapEnd = exportEnd.isBefore(after) ? exportEnd : after;
+            this.requiredTimeForLastOverlappedExportString = Util.getDeltaTimeString(exportStart, overlapEnd);
+        } else {
+            this.requiredTimeForLastOverlappedExportString = Util.getDeltaTimeString(Duration.ZERO);
+        }
+        if (binaryFile != null) {
+            if (!isExported && isTrained) {
+                LOGGER.error("Fast vector export failed. Falling back to the text export of the server.");
+                exportStart = Instant.now();
+                gensim.writeModelAsTextFile(fileToWrite, new File(getWalkDirectory(), "vectors.txt")
+                        .getAbsolutePath());
+                exportEnd = Instant.now();
+            }
+            binaryFile.delete();
+        }
+        Instant beforeRelease = Instant.now();
+        Gensim.release();
+        Duration export = Duration.between(beforeRelease, Instant.now());
+        if (exportStart != null) export = export.plus(Duration.between(exportStart, exportEnd));
+        this.requiredTimeForLastExportString = Util.getDeltaTimeString(export);
+    }
+
+    /**
+     * Wait until the given file exists or the given job is done.
+     *
+     * @param file The file.
+     * @param job  The job that creates the file.
+     */
+    private static void waitForFile(File file, Future<?> job) {
+        while (!file.exists() && !job.isDone()) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(EXPORT_FILE_POLLING_INTERVAL_MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The gensim instance (the server is started if it is not running).
+     */
+    private Gensim getGensim() {
+        if (this.pythonServerResourceDirectory != null) {
+            return Gensim.getInstance(this.pythonServerResourceDirectory);
+        } else return Gensim.getInstance();
+    }
+
     public URI getKnowledgeGraphUri() {
         return knowledgeGraphUri;
     }
@@ -293,6 +477,51 @@ public class RDF2Vec implements IRDF2Vec {
         this.pythonServerResourceDirectory = pythonServerResourceDirectory;
     }
 
+    /**
+     * This method returns the time it took to merge and write the vocabulary for the last run as String (pipelined
+     * mode only).
+     *
+     * @return The time it took to merge and write the vocabulary as String. Will never be null.
+     */
+    public String getRequiredTimeForLastVocabularyCountingString() {
+        if (this.requiredTimeForLastVocabularyCountingString == null) return "<vocabulary counting time not yet set>";
+        else return requiredTimeForLastVocabularyCountingString;
+    }
+
+    /**
+     * This method returns the time it took to export the vectors for the last run as String.
+     *
+     * @return The time it took to export the vectors for the last run as String. Will never be null.
+     */
+    public String getRequiredTimeForLastExportString() {
+        if (this.requiredTimeForLastExportString == null) return "<export time not yet set>";
+        else return requiredTimeForLastExportString;
+    }
+
+    /**
+     * This method returns the part of the export time of the last run during which the server was still saving the
+     * model as String (pipelined mode only).
+     *
+     * @return The overlapped export time as String. Will never be null.
+     */
+    public String getRequiredTimeForLastOverlappedExportString() {
+        if (this.requiredTimeForLastOverlappedExportString == null) return "<overlapped export time not yet set>";
+        else return requiredTimeForLastOverlappedExportString;
+    }
+
+    public boolean isPipelined() {
+        return isPipelined;
+    }
+
+    /**
+     * Enable or disable the pipelined mode (see {@link RDF2Vec#isPipelined}).
+     *
+     * @param pipelined True if the stages shall be pipelined.
+     */
+    public void setPipelined(boolean pipelined) {
+        isPipelined = pipelined;
+    }
+
     /**
      * This method returns the time it took to generate walks for the last run as String.
      *
@@ -398,4 +627,94 @@ public class RDF2Vec implements IRDF2Vec {
         }
     }
 
+    public boolean isCheckpointing() {
+        return isCheckpointing;
+    }
+
+    /**
+     * If enabled, the walk generation writes a checkpoint log to the walk directory. Re-running an interrupted
+     * training with the same walk directory resumes the walk generation.
+     *
+     * @param checkpointing True if checkpointing shall be enabled.
+     */
+    public void setCheckpointing(boolean checkpointing) {
+        isCheckpointing = checkpointing;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Cap the number of candidate edges per hop; the neighbours of hub nodes are sampled uniformly.
+     *
+     * @param maxDegree The maximal degree. Values &lt; 1 disable the cap.
+     */
+    public void setMaxDegree(int maxDegree) {
+        this.maxDegree = maxDegree;
+    }
+
+    public EntityOrdering getEntityOrdering() {
+        return entityOrdering;
+    }
+
+    /**
+     * Set the order in which the entities are processed. A locality-aware order reduces page faults on
+     * memory-mapped graphs that are larger than the memory.
+     *
+     * @param entityOrdering The ordering; null for the default order of the entity selector.
+     */
+    public void setEntityOrdering(EntityOrdering entityOrdering) {
+        this.entityOrdering = entityOrdering;
+    }
+
+    public boolean isLockstepWalking() {
+        return isLockstepWalking;
+    }
+
+    /**
+     * Generate random walks and mid walks in lockstep batches (see
+     * {@link WalkGenerationManager#setLockstepWalking(boolean)}).
+     *
+     * @param lockstepWalking True to enable lockstep walking.
+     */
+    public void setLockstepWalking(boolean lockstepWalking) {
+        isLockstepWalking = lockstepWalking;
+    }
+
+    public long getHotTierBudget() {
+        return hotTierBudget;
+    }
+
+    /**
+     * Keep the adjacency lists of frequently visited nodes on the heap (see
+     * {@link WalkGenerationManager#setHotTierBudget(long)}).
+     *
+     * @param hotTierBudget The heap budget in bytes; values &lt; 1 disable the hot tier.
+     */
+    public void setHotTierBudget(long hotTierBudget) {
+        this.hotTierBudget = hotTierBudget;
+    }
+
+    public WalkFilter getWalkFilter() {
+        return walkFilter;
+    }
+
+    /**
+     * Skip edges by their predicate (see {@link WalkFilter}). In-memory graphs drop the filtered triples while
+     * parsing; HDT files and TDB datasets skip them while walking.
+     *
+     * @param walkFilter The filter; null to walk all edges.
+     */
+    public void setWalkFilter(WalkFilter walkFilter) {
+        this.walkFilter = walkFilter;
+    }
 }
@@ -8,6 +8,7 @@ import de.uni_mannheim.informatik.dws.jrdf2vec.training.Gensim;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecConfiguration;
 import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecType;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light.SubgraphExtractor;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light.WalkGenerationManagerLight;
 
 import java.io.File;
@@ -89,6 +90,11 @@ public class RDF2VecLight implements IRDF2Vec {
 
     private File walkDirectory;
 
+    /**
+     * If true, only the neighbourhood of the entities is loaded into memory (see {@link SubgraphExtractor}).
+     */
+    private boolean isSubgraphExtraction = false;
+
     /**
      * Logger
      */
@@ -138,10 +144,18 @@ public class RDF2VecLight implements IRDF2Vec {
         }
 
         Instant before = Instant.now();
-        WalkGenerationManagerLight generatorLight = new WalkGenerationManagerLight(knowledgeGraphFile, entitiesFile, isEmbedText());
+        File graphFile = knowledgeGraphFile;
+        if (isSubgraphExtraction) {
+            graphFile = SubgraphExtractor.extractForWalks(knowledgeGraphFile, Util.readEntitiesFromFile(entitiesFile),
+                    walkGenerationMode, depth, isEmbedText(), getSubgraphFile(walkDirectory));
+        }
+        WalkGenerationManagerLight generatorLight = new WalkGenerationManagerLight(graphFile, entitiesFile, isEmbedText());
         generatorLight.generateWalks(walkGenerationMode, numberOfThreads, numberOfWalksPerEntity, depth,
                 configuration.getWindowSize(), this.walkDirectory);
         generatorLight.close();
+        if (graphFile != knowledgeGraphFile) {
+            Util.deleteFile(graphFile);
+        }
 
         Instant after = Instant.now();
         this.requiredTimeForLastWalkGenerationString = Util.getDeltaTimeString(before, after);
@@ -159,11 +173,22 @@ public class RDF2VecLight implements IRDF2Vec {
             gensim.writeModelAsTextFile(fileToWrite, this.getWalkDirectory().getAbsolutePath() +
                     File.separator + "vectors.txt", entitiesFile.getAbsolutePath());
         }
-        Gensim.shutDown();
+        Gensim.release();
         after = Instant.now();
         this.requiredTimeForLastTrainingString = Util.getDeltaTimeString(before, after);
     }
 
+    /**
+     * The subgraph is written next to (not into) the walk directory so that it is not used for training.
+     *
+     * @param walkDirectory The walk directory.
+     * @return File for the extracted subgraph.
+     */
+    public static File getSubgraphFile(File walkDirectory) {
+        File directory = walkDirectory.getAbsoluteFile();
+        return new File(directory.getParentFile(), directory.getName() + "_subgraph.nt");
+    }
+
     public File getEntitiesFile() {
         return entitiesFile;
     }
@@ -273,6 +298,20 @@ public class RDF2VecLight implements IRDF2Vec {
         else return requiredTimeForLastTrainingString;
     }
 
+    public boolean isSubgraphExtraction() {
+        return isSubgraphExtraction;
+    }
+
+    /**
+     * If enabled, a pre-pass determines the neighbourhood of the entities that can be reached by walks and only that
+     * subgraph is loaded into memory.
+     *
+     * @param subgraphExtraction True if the subgraph shall be extracted.
+     */
+    public void setSubgraphExtraction(boolean subgraphExtraction) {
+        isSubgraphExtraction = subgraphExtraction;
+    }
+
     @Override
     public void setWalkGenerationMode(WalkGenerationMode walkGenerationMode) {
         this.walkGenerationMode = walkGenerationMode;
@@ -3,9 +3,9 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.training;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.conn.HttpHostConnectException;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
@@ -17,8 +17,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 
@@ -67,9 +69,44 @@ public class Gensim {
     private static int port = DEFAULT_PORT;
 
     /**
-     * The time java waits for the python server before re-trying.
+     * The maximal time java waits for a newly started python server.
      */
-    private static final int WAIT_FOR_SERVER_SECONDS = 10;
+    private static final int SERVER_START_TIMEOUT_SECONDS = 100;
+
+    /**
+     * Initial interval for polling a starting server; the interval is doubled after every trial.
+     */
+    private static final long INITIAL_POLLING_INTERVAL_MILLISECONDS = 25;
+
+    /**
+     * Maximal interval for polling a starting server.
+     */
+    private static final long MAX_POLLING_INTERVAL_MILLISECONDS = 1000;
+
+    /**
+     * Timeout for checking whether a server is running.
+     */
+    private static final int SERVER_CHECK_TIMEOUT_MILLISECONDS = 2000;
+
+    /**
+     * If true, {@link Gensim#release()} keeps the server (and the models it has loaded) running so that subsequent
+     * trainings do not pay the startup cost again.
+     */
+    private static boolean isKeepServerRunning = false;
+
+    /**
+     * Interval in which the status of asynchronous training jobs is polled.
+     */
+    private static final long JOB_POLLING_INTERVAL_MILLISECONDS = 1000;
+
+    /**
+     * Executor that waits for asynchronous training jobs (daemon threads, i.e., the JVM can exit while polling).
+     */
+    private static final ExecutorService JOB_POLLING_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "gensim-job-polling");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Indicator whether vectors shall be cached. This means that vectors are cached locally and similarities are
@@ -166,7 +203,159 @@ public class Gensim {
      * @return True if training succeeded, else false.
      */
     public boolean trainWord2VecModel(String modelOrVectorPath, String trainingFilePath, Word2VecConfiguration configuration) {
+        return trainWord2VecModel(modelOrVectorPath, trainingFilePath, configuration, null);
+    }
+
+    /**
+     * Method to train a word2vec model. If token counts of the walks are available (see {@link VocabularyCounts}),
+     * gensim builds the vocabulary from them and skips the counting pass over the walks.
+     *
+     * @param modelOrVectorPath If a vector file is desired, the file ending '.kv' is required.
+     * @param trainingFilePath  The file path to the file that shall be used for training. The path can be a directory of walk files or a single walk file.
+     * @param configuration     The configuration for the training operation.
+     * @param vocabularyFile    File with the token counts of the walks; may be null.
+     * @return True if training succeeded, else false.
+     */
+    public boolean trainWord2VecModel(String modelOrVectorPath, String trainingFilePath,
+                                      Word2VecConfiguration configuration, File vocabularyFile) {
         HttpGet request = new HttpGet(serverUrl + "/train-word2vec");
+        addTrainingParametersToRequest(request, modelOrVectorPath, trainingFilePath, configuration);
+        if (vocabularyFile != null) {
+            request.addHeader("vocabulary_file", vocabularyFile.getAbsolutePath());
+        }
+
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                LOGGER.error("No server response.");
+                return false;
+            } else {
+                String resultString = EntityUtils.toString(entity);
+                if (resultString.startsWith("ERROR") || resultString.contains("500 Internal Server Error")) {
+                    LOGGER.error(resultString);
+                    return false;
+                }
+                boolean isSuccess = Boolean.parseBoolean(resultString);
+                // cached vectors of a previous model with the same path are outdated
+                if (isSuccess && vectorCache != null) vectorCache.clear();
+                return isSuccess;
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Problem with http request.", ioe);
+            return false;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link Gensim#trainWord2VecModel(String, String, Word2VecConfiguration)}: the training
+     * runs as job in a separate process of the python server which keeps answering other requests in the meantime.
+     * The returned future polls the status of the job.
+     *
+     * @param modelOrVectorPath If a vector file is desired, the file ending '.kv' is required.
+     * @param trainingFilePath  The file path to the file that shall be used for training. The path can be a directory
+     *                          of walk files or a single walk file.
+     * @param configuration     The configuration for the training operation.
+     * @return Future that completes with true if training succeeded, else with false.
+     */
+    public Future<Boolean> trainWord2VecModelAsync(String modelOrVectorPath, String trainingFilePath,
+                                                   Word2VecConfiguration configuration) {
+        return trainWord2VecModelAsync(modelOrVectorPath, trainingFilePath, configuration, null, null);
+    }
+
+    /**
+     * Non-blocking variant of {@link Gensim#trainWord2VecModel(String, String, Word2VecConfiguration, File)}. If an
+     * export file is given, the job writes the vectors to it in word2vec binary format before it saves the model, so
+     * that the vectors can be converted (see {@link de.uni_mannheim.informatik.dws.jrdf2vec.util.VectorExportPipeline})
+     * while the model is still being saved. The export file appears only when it is complete.
+     *
+     * @param modelOrVectorPath If a vector file is desired, the file ending '.kv' is required.
+     * @param trainingFilePath  The file path to the file that shall be used for training. The path can be a directory
+     *                          of walk files or a single walk file.
+     * @param configuration     The configuration for the training operation.
+     * @param vocabularyFile    File with the token counts of the walks; may be null.
+     * @param exportFile        File to which the vectors are written in word2vec binary format; may be null.
+     * @return Future that completes with true if training succeeded, else with false.
+     */
+    public CompletableFuture<Boolean> trainWord2VecModelAsync(String modelOrVectorPath, String trainingFilePath,
+                                                              Word2VecConfiguration configuration,
+                                                              File vocabularyFile, File exportFile) {
+        HttpGet request = new HttpGet(serverUrl + "/train-word2vec-async");
+        addTrainingParametersToRequest(request, modelOrVectorPath, trainingFilePath, configuration);
+        if (vocabularyFile != null) {
+            request.addHeader("vocabulary_file", vocabularyFile.getAbsolutePath());
+        }
+        if (exportFile != null) {
+            request.addHeader("export_file", exportFile.getAbsolutePath());
+        }
+        String jobId;
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                LOGGER.error("No server response.");
+                return CompletableFuture.completedFuture(false);
+            }
+            jobId = EntityUtils.toString(entity).trim();
+            if (jobId.startsWith("False") || jobId.contains("500 Internal Server Error")) {
+                LOGGER.error("The training job could not be started. Server returned: " + jobId);
+                return CompletableFuture.completedFuture(false);
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Problem with http request.", ioe);
+            return CompletableFuture.completedFuture(false);
+        }
+        LOGGER.info("Started training job " + jobId + ".");
+        // cached vectors of a previous model with the same path will be outdated
+        if (vectorCache != null) vectorCache.clear();
+        return CompletableFuture.supplyAsync(() -> waitForJob(jobId), JOB_POLLING_EXECUTOR);
+    }
+
+    /**
+     * Poll the status of the given job until it is finished.
+     *
+     * @param jobId The ID of the job.
+     * @return True if the job succeeded, else false.
+     */
+    private boolean waitForJob(String jobId) {
+        while (true) {
+            String status = getJobStatus(jobId);
+            if (status == null || status.equals("FAILED") || status.equals("UNKNOWN")) {
+                LOGGER.error("Training job " + jobId + " did not succeed. Status: " + status);
+                return false;
+            }
+            if (status.equals("SUCCEEDED")) return true;
+            try {
+                TimeUnit.MILLISECONDS.sleep(JOB_POLLING_INTERVAL_MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Obtain the status of a job started on the python server.
+     *
+     * @param jobId The ID of the job.
+     * @return RUNNING, SUCCEEDED, FAILED, or UNKNOWN; null if the server could not be reached.
+     */
+    public String getJobStatus(String jobId) {
+        HttpGet request = new HttpGet(serverUrl + "/job-status");
+        request.addHeader("job_id", jobId);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                LOGGER.error("No server response.");
+                return null;
+            }
+            return EntityUtils.toString(entity).trim();
+        } catch (IOException ioe) {
+            LOGGER.error("Problem with http request.", ioe);
+            return null;
+        }
+    }
+
+    private void addTrainingParametersToRequest(HttpGet request, String modelOrVectorPath, String trainingFilePath,
+                                                Word2VecConfiguration configuration) {
         if (modelOrVectorPath.endsWith(".kv")) {
             request.addHeader("vector_path", modelOrVectorPath);
             request.addHeader("model_path", modelOrVectorPath.substring(0, modelOrVectorPath.length() - 3));
@@ -186,23 +375,6 @@ public class Gensim {
         request.addHeader("sample", "" + configuration.getSample());
         request.addHeader("epochs", "" + configuration.getEpochs());
         request.addHeader("hierarchical_softmax", "" + configuration.isUseHierarchicalSoftmax());
-
-        try (CloseableHttpResponse response = httpClient.execute(request)) {
-            HttpEntity entity = response.getEntity();
-            if (entity == null) {
-                LOGGER.error("No server response.");
-                return false;
-            } else {
-                String resultString = EntityUtils.toString(entity);
-                if (resultString.startsWith("ERROR") || resultString.contains("500 Internal Server Error")) {
-                    LOGGER.error(resultString);
-                    return false;
-                } else return Boolean.parseBoolean(resultString);
-            }
-        } catch (IOException ioe) {
-            LOGGER.error("Problem with http request.", ioe);
-            return false;
-        }
     }
 
     /**
@@ -586,7 +758,20 @@ public class Gensim {
     }
 
     /**
-     * Shut down the service.
+     * Release the service after a training run: the server is shut down unless it shall be kept running
+     * (see {@link Gensim#setKeepServerRunning(boolean)}). In the latter case, models and vectors stay loaded in the
+     * server and the next {@link Gensim#getInstance()} call returns immediately.
+     */
+    public static void release() {
+        if (isKeepServerRunning) {
+            LOGGER.info("Keeping the python server running.");
+            return;
+        }
+        shutDown();
+    }
+
+    /**
+     * Shut down the service. A server that was already running before (and has been reused) is not terminated.
      */
     public static void shutDown() {
         isShutDown = true;
@@ -668,44 +853,40 @@ public class Gensim {
                     "Cannot start server. ABORTING.", e);
             return false;
         }
-        String pythonCommand = getPythonCommand();
 
-        List<String> command = new ArrayList<>(Arrays.asList(pythonCommand, canonicalPath));
-        command.add("" + Gensim.getPort());
-        ProcessBuilder pb = new ProcessBuilder(command);
-        updateEnvironmentPath(pb.environment(), pythonCommand);
-        try {
-            pb.inheritIO();
-            serverProcess = pb.start();
-            final int maxTrials = 10;
-            for (int i = 0; i < maxTrials; i++) {
-                HttpGet request = new HttpGet(serverUrl + "/melt_ml.html");
-                CloseableHttpClient httpClient = HttpClients.createDefault();
-                try (CloseableHttpResponse response = httpClient.execute(request)) {
-                    HttpEntity entity = response.getEntity();
-                    if (entity != null) {
-                        LOGGER.info("Server is running.");
-                        break;
-                    }
-                } catch (HttpHostConnectException hce) {
-                    LOGGER.info("Server is not yet running. Waiting " + WAIT_FOR_SERVER_SECONDS +" seconds. Trial {} " +
-                            "/ {}", i + 1, maxTrials);
-                    TimeUnit.SECONDS.sleep(WAIT_FOR_SERVER_SECONDS);
-                } catch (IOException ioe) {
-                    LOGGER.error("Problem with http request.", ioe);
-                }
-                httpClient.close();
-                if (i == maxTrials - 1) {
-                    LOGGER.error("Failed to start the gensim server after " + maxTrials + " trials.");
-                    isHookStarted = false;
-                    isShutDown = true;
-                    return false;
-                }
+        // reuse a compatible server that is already running on the port (e.g. started by a batch driver)
+        String expectedVersion = getServerScriptVersion();
+        String runningVersion = getRunningServerVersion();
+        serverProcess = null;
+        if (runningVersion != null) {
+            if (!runningVersion.equals(expectedVersion)) {
+                LOGGER.error("Another (incompatible) server is running on port " + getPort() + ". Stop it or " +
+                        "use a different port.");
+                isShutDown = true;
+                return false;
             }
-        } catch (IOException ex) {
-            LOGGER.error("Could not start python server.", ex);
-        } catch (InterruptedException e) {
-            LOGGER.error("Could not wait for python server.", e);
+            LOGGER.info("Reusing the python server that is already running on port " + getPort() + ".");
+        } else {
+            String pythonCommand = getPythonCommand();
+            List<String> command = new ArrayList<>(Arrays.asList(pythonCommand, canonicalPath));
+            command.add("" + Gensim.getPort());
+            ProcessBuilder pb = new ProcessBuilder(command);
+            updateEnvironmentPath(pb.environment(), pythonCommand);
+            try {
+                pb.inheritIO();
+                serverProcess = pb.start();
+            } catch (IOException ex) {
+                LOGGER.error("Could not start python server.", ex);
+                isShutDown = true;
+                return false;
+            }
+            if (!waitForServer()) {
+                isShutDown = true;
+                if (serverProcess.isAlive()) serverProcess.destroyForcibly();
+                serverProcess = null;
+                return false;
+            }
+            LOGGER.info("Server is running.");
         }
         vectorCache = new HashMap<>();
 
@@ -722,6 +903,83 @@ public class Gensim {
         return true;
     }
 
+    /**
+     * Poll the starting server with exponential backoff.
+     *
+     * @return True if the server is running, false if it did not start in time or its process terminated.
+     */
+    private boolean waitForServer() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SERVER_START_TIMEOUT_SECONDS);
+        long interval = INITIAL_POLLING_INTERVAL_MILLISECONDS;
+        while (true) {
+            if (getRunningServerVersion() != null) return true;
+            if (!serverProcess.isAlive()) {
+                LOGGER.error("The python server process terminated with exit code " + serverProcess.exitValue() +
+                        ".");
+                return false;
+            }
+            if (System.nanoTime() > deadline) {
+                LOGGER.error("Failed to start the gensim server within " + SERVER_START_TIMEOUT_SECONDS +
+                        " seconds.");
+                return false;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(interval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.error("Could not wait for python server.", e);
+                return false;
+            }
+            interval = Math.min(2 * interval, MAX_POLLING_INTERVAL_MILLISECONDS);
+        }
+    }
+
+    /**
+     * Obtain the version of the server that is running on the port.
+     *
+     * @return The version (hash of the server script), an empty string if a server of unknown version is running,
+     * or null if no server is running.
+     */
+    private String getRunningServerVersion() {
+        HttpGet request = new HttpGet(serverUrl + "/server-version");
+        request.setConfig(RequestConfig.custom()
+                .setConnectTimeout(SERVER_CHECK_TIMEOUT_MILLISECONDS)
+                .setSocketTimeout(SERVER_CHECK_TIMEOUT_MILLISECONDS)
+                .build());
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null || response.getStatusLine().getStatusCode() != 200) return "";
+            return EntityUtils.toString(entity).trim();
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Obtain the version of the server script shipped with this library, i.e., the SHA-256 hash of its bytes.
+     *
+     * @return Hex-encoded hash or an empty string if the script cannot be read.
+     */
+    private String getServerScriptVersion() {
+        try (InputStream stream = this.getClass().getResourceAsStream("/python_server.py")) {
+            if (stream == null) return "";
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[4096];
+            int readBytes;
+            while ((readBytes = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, readBytes);
+            }
+            StringBuilder result = new StringBuilder();
+            for (byte b : digest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            LOGGER.error("Could not determine the version of the server script.", e);
+            return "";
+        }
+    }
+
     /**
      * Returns the python command which is extracted from {@code file melt-resources/python_command.txt}.
      *
@@ -870,6 +1128,35 @@ public class Gensim {
         }
     }
 
+    /**
+     * Writes the vectors in word2vec binary format. Compared to {@link Gensim#writeModelAsTextFile(String, String)},
+     * no text formatting happens in python; the binary file can be converted into text, w2v, and TSV files in a
+     * single pass using {@link de.uni_mannheim.informatik.dws.jrdf2vec.util.VectorExportPipeline}.
+     *
+     * @param modelOrVectorPath The path to the model or vector file. Note that the vector file MUST end with .kv in
+     *                          order to be recognized as vector file.
+     * @param fileToWrite       The binary file that will be written.
+     * @return True if the file was written, else false.
+     */
+    public boolean writeModelAsBinaryFile(String modelOrVectorPath, String fileToWrite) {
+        HttpGet request = new HttpGet(serverUrl + "/write-model-as-binary-file");
+        addModelToRequest(request, modelOrVectorPath);
+        request.addHeader("file_to_write", fileToWrite);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                LOGGER.error("No server response.");
+            } else {
+                String resultString = EntityUtils.toString(entity);
+                if (resultString.startsWith("True")) return true;
+                LOGGER.error("An error occurred. Server returned: " + resultString);
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Problem with http request.", ioe);
+        }
+        return false;
+    }
+
     public File getResourcesDirectory() {
         return resourcesDirectory;
     }
@@ -959,4 +1246,18 @@ public class Gensim {
     public static String getServerUrl() {
         return serverUrl;
     }
+
+    public static boolean isKeepServerRunning() {
+        return isKeepServerRunning;
+    }
+
+    /**
+     * Keep the server running across training runs (e.g. when many models are trained in sequence). The server is
+     * then only shut down via {@link Gensim#shutDown()} or when the JVM terminates.
+     *
+     * @param keepServerRunning True if {@link Gensim#release()} shall not shut down the server.
+     */
+    public static void setKeepServerRunning(boolean keepServerRunning) {
+        isKeepServerRunning = keepServerRunning;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.training;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Token frequencies of a walk corpus together with the number of walks. Walks are tokenized exactly like the python
+ * server does it (split on single spaces). If the counts are handed over to the training, gensim can build its
+ * vocabulary from the counts and skips the extra pass over the walk corpus.
+ * <p>
+ * File format (UTF-8): the first line contains the number of walks; every further line contains a token and its
+ * count separated by a tab.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class VocabularyCounts {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VocabularyCounts.class);
+
+    /**
+     * Name of the vocabulary file within a walk directory. The python server does not treat files with this
+     * extension as walk files.
+     */
+    public static final String FILE_NAME = "walks.vocab";
+
+    /**
+     * Token to count (arrays of length 1 so that counts can be incremented without boxing).
+     */
+    private final Map<String, long[]> counts = new HashMap<>();
+
+    /**
+     * Number of walks (lines).
+     */
+    private long numberOfWalks = 0;
+
+    /**
+     * Count the tokens of the given walk.
+     *
+     * @param walk The walk (tokens separated by spaces).
+     */
+    public void addWalk(String walk) {
+        numberOfWalks++;
+        int start = 0;
+        for (int i = 0; i <= walk.length(); i++) {
+            if (i == walk.length() || walk.charAt(i) == ' ') {
+                add(walk.substring(start, i), 1);
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Add the given count for the token.
+     *
+     * @param token The token.
+     * @param count The count to be added.
+     */
+    public void add(String token, long count) {
+        long[] current = counts.get(token);
+        if (current == null) {
+            counts.put(token, new long[]{count});
+        } else {
+            current[0] += count;
+        }
+    }
+
+    /**
+     * Add all counts (and the number of walks) of the given instance.
+     *
+     * @param other The counts to be added.
+     */
+    public void addAll(VocabularyCounts other) {
+        numberOfWalks += other.numberOfWalks;
+        for (Map.Entry<String, long[]> entry : other.counts.entrySet()) {
+            add(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    /**
+     * Add the given number of walks (if the tokens are counted via {@link VocabularyCounts#add(String, long)}).
+     *
+     * @param numberOfWalks Number of walks to be added.
+     */
+    public void addNumberOfWalks(long numberOfWalks) {
+        this.numberOfWalks += numberOfWalks;
+    }
+
+    /**
+     * Remove all tokens that occur less than {@code minCount} times (like word2vec's {@code min_count}).
+     *
+     * @param minCount The minimal count of a token.
+     * @return The number of removed tokens.
+     */
+    public int prune(long minCount) {
+        int before = counts.size();
+        counts.values().removeIf(count -> count[0] < minCount);
+        return before - counts.size();
+    }
+
+    /**
+     * @param token The token.
+     * @return The count of the token (0 if unknown).
+     */
+    public long getCount(String token) {
+        long[] count = counts.get(token);
+        return count == null ? 0 : count[0];
+    }
+
+    public long getNumberOfWalks() {
+        return numberOfWalks;
+    }
+
+    /**
+     * @return Read-only view of the tokens.
+     */
+    public Set<String> getTokens() {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    /**
+     * @return The number of distinct tokens.
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Count the tokens of a walk file.
+     *
+     * @param walkFile Walk file (gzipped if the name ends with {@code gz}).
+     * @return The counts or null if the file could not be read.
+     */
+    public static VocabularyCounts countWalkFile(File walkFile) {
+        VocabularyCounts result = new VocabularyCounts();
+        try (InputStream in = walkFile.getName().endsWith("gz") ?
+                new GZIPInputStream(Files.newInputStream(walkFile.toPath()), 1 << 16) :
+                Files.newInputStream(walkFile.toPath());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                result.addWalk(line);
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not count the tokens of walk file " + walkFile.getAbsolutePath() + ".", ioe);
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Write the counts.
+     *
+     * @param fileToWrite The file to be written.
+     * @return True if the file was written, else false.
+     */
+    public boolean write(File fileToWrite) {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(fileToWrite.toPath()), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(Long.toString(numberOfWalks));
+            writer.write('\n');
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(Long.toString(entry.getValue()[0]));
+                writer.write('\n');
+            }
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write the vocabulary file.", ioe);
+            return false;
+        }
+    }
+
+    /**
+     * Read counts written by {@link VocabularyCounts#write(File)}.
+     *
+     * @param file The vocabulary file.
+     * @return The counts or null if the file could not be read.
+     */
+    public static VocabularyCounts read(File file) {
+        VocabularyCounts result = new VocabularyCounts();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file.toPath()),
+                StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (line == null) return result;
+            result.numberOfWalks = Long.parseLong(line.trim());
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf('\t');
+                if (separator < 0) continue;
+                result.add(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.error("Could not read the vocabulary file " + file.getAbsolutePath() + ".", e);
+            return null;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,756 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.util;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Input layer for (compressed) knowledge graph files. The compression is detected by the magic bytes of the file (not
+ * by its extension); gzip, bzip2 and zstd are supported.
+ * <p>
+ * Compressed files are decompressed in parallel where the format allows it: the members of a multi-member gzip file
+ * (e.g. written by bgzip), the streams of a multi-stream bzip2 file (e.g. written by pbzip2) and the frames of a
+ * multi-frame zstd file (e.g. written by pzstd) are independent of each other. Their start offsets are guessed by
+ * scanning for the magic bytes; the segments at these offsets are decoded by a shared thread pool while the consumer
+ * reads the preceding ones. Only segments that start exactly where the previous one ended are used, so wrong guesses
+ * cost time but never corrupt the output. If a segment cannot be decoded on its own (e.g. a single-member file that is
+ * larger than {@link CompressedInput#MAX_SEGMENT_COMPRESSED_SIZE}), the rest of the file is decompressed sequentially
+ * on a separate thread, which still overlaps decompression and parsing. The first segment of a file is decoded before
+ * any speculative decoding is scheduled, so files that cannot be split do not occupy the decoder pool at all.
+ */
+public class CompressedInput {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressedInput.class);
+
+    /**
+     * The supported compressions.
+     */
+    public enum Compression {
+        NONE,
+        GZIP,
+        BZIP2,
+        ZSTD
+    }
+
+    /**
+     * Segments with more compressed bytes are not decoded in parallel.
+     */
+    static final long MAX_SEGMENT_COMPRESSED_SIZE = 8L << 20;
+
+    /**
+     * Segments with more decompressed bytes are not decoded in parallel.
+     */
+    static final int MAX_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * Size of the blocks read ahead in sequential mode.
+     */
+    private static final int READ_AHEAD_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Number of blocks read ahead in sequential mode.
+     */
+    private static final int READ_AHEAD_BLOCKS = 8;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+
+    private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A50;
+
+    private static final byte[] BZIP2_BLOCK_MAGIC = {0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+
+    private static final byte[] BZIP2_END_OF_STREAM_MAGIC = {0x17, 0x72, 0x45, 0x38, 0x50, (byte) 0x90};
+
+    /**
+     * File name extensions of compressed files (lower case).
+     */
+    private static final String[] COMPRESSION_EXTENSIONS = {".gz", ".gzip", ".bz2", ".zst", ".zstd"};
+
+    /**
+     * Shared pool that decodes the segments of all open files.
+     */
+    private static final ExecutorService DECODER_EXECUTOR = createDecoderExecutor();
+
+    /**
+     * The sequential fallback is logged on info level only once per run.
+     */
+    private static final AtomicBoolean IS_FALLBACK_LOGGED = new AtomicBoolean(false);
+
+    private static ExecutorService createDecoderExecutor() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "decompression");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Detect the compression of the given file by its magic bytes.
+     *
+     * @param file The file.
+     * @return The compression ({@link Compression#NONE} if the file is not compressed or cannot be read).
+     */
+    public static Compression detect(File file) {
+        byte[] header = new byte[4];
+        int length;
+        try (InputStream in = new FileInputStream(file)) {
+            length = IOUtils.read(in, header);
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read the first bytes of file " + file.getAbsolutePath(), ioe);
+            return Compression.NONE;
+        }
+        return detect(header, length);
+    }
+
+    /**
+     * Detect the compression by the magic bytes.
+     *
+     * @param header The first bytes of the file.
+     * @param length The number of valid bytes in {@code header}.
+     * @return The compression.
+     */
+    public static Compression detect(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0x1F && (header[1] & 0xFF) == 0x8B && header[2] == 8) {
+            return Compression.GZIP;
+        }
+        if (length >= 4 && header[0] == 'B' && header[1] == 'Z' && header[2] == 'h' && header[3] >= '1'
+                && header[3] <= '9') {
+            return Compression.BZIP2;
+        }
+        if (length >= 4) {
+            int magic = readIntLittleEndian(header, 0);
+            if (magic == ZSTD_MAGIC || (magic & 0xFFFFFFF0) == ZSTD_SKIPPABLE_MAGIC) return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+    /**
+     * Remove the compression extension (if any) from the given file name, e.g. {@code dump.nt.bz2} becomes
+     * {@code dump.nt}. This allows to determine the RDF syntax of compressed files by their extension.
+     *
+     * @param fileName The file name.
+     * @return The file name without compression extension.
+     */
+    public static String getUncompressedName(String fileName) {
+        String lowerCaseName = fileName.toLowerCase();
+        for (String extension : COMPRESSION_EXTENSIONS) {
+            if (lowerCaseName.endsWith(extension)) return fileName.substring(0, fileName.length() - extension.length());
+        }
+        return fileName;
+    }
+
+    /**
+     * Open the given file for reading. Compressed files are decompressed in parallel (see class comment).
+     *
+     * @param file The file (compressed or uncompressed).
+     * @return Stream of the (decompressed) content. It is not thread-safe.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static InputStream open(File file) throws IOException {
+        return open(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Open the given file for reading.
+     *
+     * @param file            The file (compressed or uncompressed).
+     * @param numberOfThreads Up to twice this number of segments are decoded ahead of the consumer. If 1, the file
+     *                        is decompressed sequentially on the calling thread.
+     * @return Stream of the (decompressed) content. It is not thread-safe.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static InputStream open(File file, int numberOfThreads) throws IOException {
+        Compression compression = detect(file);
+        if (compression == Compression.NONE) {
+            return new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        }
+        LOGGER.info("Reading " + compression + " compressed file " + file.getName() + ".");
+        if (numberOfThreads <= 1) {
+            return openSequential(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE), compression);
+        }
+        return new SegmentInputStream(file, compression, 2 * numberOfThreads);
+    }
+
+    /**
+     * Open the given file for reading with {@link CompressedInput#open(File)} and decode it as UTF-8.
+     *
+     * @param file The file (compressed or uncompressed).
+     * @return Reader of the (decompressed) content.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static BufferedReader openReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    /**
+     * Decompress the given stream sequentially. Concatenated members, streams and frames are all decompressed.
+     */
+    private static InputStream openSequential(InputStream in, Compression compression) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GzipCompressorInputStream(in, true);
+            case BZIP2:
+                return new BZip2CompressorInputStream(in, true);
+            case ZSTD:
+                return new ZstdCompressorInputStream(in);
+            default:
+                return in;
+        }
+    }
+
+    private static int readIntLittleEndian(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    /**
+     * Check whether a segment of the given compression may start at {@code index}.
+     *
+     * @param bytes       Bytes of the file.
+     * @param index       Index of the potential start in {@code bytes}.
+     * @param compression The compression of the file.
+     * @return True if the bytes at {@code index} (at least 10 bytes must be available) are the magic bytes of a
+     * segment.
+     */
+    static boolean isSegmentCandidate(byte[] bytes, int index, Compression compression) {
+        switch (compression) {
+            case GZIP:
+                // the reserved flag bits must be 0
+                return (bytes[index] & 0xFF) == 0x1F && (bytes[index + 1] & 0xFF) == 0x8B && bytes[index + 2] == 8
+                        && (bytes[index + 3] & 0xE0) == 0;
+            case BZIP2:
+                if (bytes[index] != 'B' || bytes[index + 1] != 'Z' || bytes[index + 2] != 'h'
+                        || bytes[index + 3] < '1' || bytes[index + 3] > '9') return false;
+                return startsWith(bytes, index + 4, BZIP2_BLOCK_MAGIC)
+                        || startsWith(bytes, index + 4, BZIP2_END_OF_STREAM_MAGIC);
+            case ZSTD:
+                int magic = readIntLittleEndian(bytes, index);
+                return magic == ZSTD_MAGIC || (magic & 0xFFFFFFF0) == ZSTD_SKIPPABLE_MAGIC;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Decode the segment (gzip member, bzip2 stream or zstd frame) that starts at the given offset.
+     *
+     * @param channel     The file.
+     * @param offset      The start of the segment.
+     * @param compression The compression of the file.
+     * @return The segment or null if there is no valid segment at the offset or if it is too large.
+     */
+    static Segment decodeSegment(FileChannel channel, long offset, Compression compression) {
+        try {
+            ChannelInputStream in = new ChannelInputStream(channel, offset,
+                    Math.min(channel.size(), offset + MAX_SEGMENT_COMPRESSED_SIZE));
+            switch (compression) {
+                case GZIP:
+                    return decodeGzipMember(in, offset);
+                case BZIP2:
+                    return decodeBzip2Stream(in);
+                case ZSTD:
+                    return decodeZstdFrame(in, offset);
+                default:
+                    return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            // not a segment (or a broken one): the sequential fallback reports real errors
+            return null;
+        }
+    }
+
+    private static Segment decodeGzipMember(ChannelInputStream in, long offset) throws IOException {
+        if (in.read() != 0x1F || in.read() != 0x8B || in.read() != 8) return null;
+        int flags = in.read();
+        if (flags < 0 || (flags & 0xE0) != 0) return null;
+        // modification time, extra flags, operating system
+        in.skipFully(6);
+        if ((flags & 0x04) != 0) in.skipFully(in.read() | in.read() << 8);
+        if ((flags & 0x08) != 0) in.skipZeroTerminated();
+        if ((flags & 0x10) != 0) in.skipZeroTerminated();
+        if ((flags & 0x02) != 0) in.skipFully(2);
+
+        Inflater inflater = new Inflater(true);
+        CRC32 crc = new CRC32();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] input = new byte[BUFFER_SIZE];
+        byte[] output = new byte[BUFFER_SIZE];
+        try {
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    int read = in.read(input, 0, input.length);
+                    if (read < 0) return null;
+                    inflater.setInput(input, 0, read);
+                }
+                int inflated = inflater.inflate(output);
+                if (inflated == 0 && !inflater.finished() && !inflater.needsInput()) return null;
+                crc.update(output, 0, inflated);
+                out.write(output, 0, inflated);
+                if (out.size() > MAX_SEGMENT_SIZE) return null;
+            }
+            in.seek(in.getPosition() - inflater.getRemaining());
+        } catch (DataFormatException dfe) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+        long storedCrc = in.readIntLittleEndian() & 0xFFFFFFFFL;
+        long storedSize = in.readIntLittleEndian() & 0xFFFFFFFFL;
+        if (storedCrc != crc.getValue() || storedSize != (out.size() & 0xFFFFFFFFL)) return null;
+        return new Segment(out.toByteArray(), in.getPosition() - offset);
+    }
+
+    private static Segment decodeBzip2Stream(ChannelInputStream in) throws IOException {
+        // the bit reader of the stream reads no byte beyond the end of the stream, hence the compressed count is
+        // exactly the length of the stream
+        BZip2CompressorInputStream bzip = new BZip2CompressorInputStream(in, false);
+        byte[] data = readAtMost(bzip, MAX_SEGMENT_SIZE);
+        if (data == null) return null;
+        return new Segment(data, bzip.getCompressedCount());
+    }
+
+    private static Segment decodeZstdFrame(ChannelInputStream in, long offset) throws IOException {
+        int magic = in.readIntLittleEndian();
+        if ((magic & 0xFFFFFFF0) == ZSTD_SKIPPABLE_MAGIC) {
+            long size = in.readIntLittleEndian() & 0xFFFFFFFFL;
+            return new Segment(new byte[0], 8 + size);
+        }
+        if (magic != ZSTD_MAGIC) return null;
+
+        // determine the length of the frame from its header and the block headers
+        int descriptor = in.read();
+        if (descriptor < 0 || (descriptor & 0x08) != 0) return null;
+        int contentSizeFlag = descriptor >>> 6;
+        boolean isSingleSegment = (descriptor & 0x20) != 0;
+        boolean hasChecksum = (descriptor & 0x04) != 0;
+        int dictionaryIdSize = new int[]{0, 1, 2, 4}[descriptor & 0x03];
+        int contentSizeSize = new int[]{isSingleSegment ? 1 : 0, 2, 4, 8}[contentSizeFlag];
+        in.skipFully((isSingleSegment ? 0 : 1) + dictionaryIdSize + contentSizeSize);
+        boolean isLastBlock = false;
+        while (!isLastBlock) {
+            int header = in.read() | in.read() << 8 | in.read() << 16;
+            if (header < 0) return null;
+            isLastBlock = (header & 1) != 0;
+            int blockType = (header >>> 1) & 3;
+            int blockSize = header >>> 3;
+            if (blockType == 3) return null;
+            // RLE blocks consist of a single byte
+            in.skipFully(blockType == 1 ? 1 : blockSize);
+        }
+        if (hasChecksum) in.skipFully(4);
+        long length = in.getPosition() - offset;
+
+        in.seek(offset);
+        byte[] frame = new byte[(int) length];
+        if (IOUtils.read(in, frame) != length) return null;
+        byte[] data = readAtMost(new ZstdCompressorInputStream(new ByteArrayInputStream(frame)), MAX_SEGMENT_SIZE);
+        return data == null ? null : new Segment(data, length);
+    }
+
+    /**
+     * Read the stream completely.
+     *
+     * @return The content or null if the stream is longer than {@code maxLength}.
+     */
+    private static byte[] readAtMost(InputStream in, int maxLength) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            if (out.size() > maxLength) return null;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A decoded segment.
+     */
+    static class Segment {
+
+
+        final byte[] data;
+
+        /**
+         * The number of bytes of the segment in the file.
+         */
+        final long compressedLength;
+
+        Segment(byte[] data, long compressedLength) {
+            this.data = data;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    /**
+     * Buffered stream over a region of a file channel that can seek. Positional reads are used, so several streams
+     * may share one channel.
+     */
+    static class ChannelInputStream extends InputStream {
+
+
+        private final FileChannel channel;
+
+        /**
+         * End of the region (exclusive).
+         */
+        private final long limit;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        /**
+         * Position of {@code buffer[0]} in the file.
+         */
+        private long bufferStart;
+
+        private int bufferLength = 0;
+
+        private int bufferIndex = 0;
+
+        ChannelInputStream(FileChannel channel, long start, long limit) {
+            this.channel = channel;
+            this.bufferStart = start;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (bufferIndex == bufferLength && !fill()) return -1;
+            return buffer[bufferIndex++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (bufferIndex == bufferLength && !fill()) return -1;
+            int read = Math.min(len, bufferLength - bufferIndex);
+            System.arraycopy(buffer, bufferIndex, b, off, read);
+            bufferIndex += read;
+            return read;
+        }
+
+        private boolean fill() throws IOException {
+            bufferStart = getPosition();
+            bufferIndex = 0;
+            bufferLength = 0;
+            if (bufferStart >= limit) return false;
+            int read = channel.read(ByteBuffer.wrap(buffer, 0, (int) Math.min(buffer.length, limit - bufferStart)),
+                    bufferStart);
+            if (read <= 0) return false;
+            bufferLength = read;
+            return true;
+        }
+
+        long getPosition() {
+            return bufferStart + bufferIndex;
+        }
+
+        void seek(long position) {
+            bufferStart = position;
+            bufferIndex = 0;
+            bufferLength = 0;
+        }
+
+        void skipFully(long bytes) throws EOFException {
+            long target = getPosition() + bytes;
+            if (target > limit) throw new EOFException();
+            seek(target);
+        }
+
+        void skipZeroTerminated() throws IOException {
+            int b;
+            while ((b = read()) != 0) {
+                if (b < 0) throw new EOFException();
+            }
+        }
+
+        int readIntLittleEndian() throws IOException {
+            byte[] bytes = new byte[4];
+            if (IOUtils.read(this, bytes) != 4) throw new EOFException();
+            return CompressedInput.readIntLittleEndian(bytes, 0);
+        }
+    }
+
+    /**
+     * Stream over a compressed file whose segments are decoded in parallel.
+     */
+    private static class SegmentInputStream extends InputStream {
+
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private final long size;
+
+        private final Compression compression;
+
+        /**
+         * Maximal number of segments that are decoded ahead.
+         */
+        private final int window;
+
+        /**
+         * Scheduled decodings by offset.
+         */
+        private final TreeMap<Long, Future<Segment>> pending = new TreeMap<>();
+
+        /**
+         * Start of the next segment.
+         */
+        private long position = 0;
+
+        /**
+         * The file is scanned for segment candidates from here.
+         */
+        private long scanPosition = 0;
+
+        private final byte[] scanBuffer = new byte[BUFFER_SIZE + 16];
+
+        private byte[] current = new byte[0];
+
+        private int currentIndex = 0;
+
+        /**
+         * Sequential decompression of the rest of the file once a segment could not be decoded on its own.
+         */
+        private InputStream fallback;
+
+        SegmentInputStream(File file, Compression compression, int window) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            this.size = channel.size();
+            this.compression = compression;
+            this.window = window;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int read;
+            while ((read = read(b, 0, 1)) == 0) ;
+            return read < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (true) {
+                if (fallback != null) return fallback.read(b, off, len);
+                if (currentIndex < current.length) {
+                    int read = Math.min(len, current.length - currentIndex);
+                    System.arraycopy(current, currentIndex, b, off, read);
+                    currentIndex += read;
+                    return read;
+                }
+                if (!nextSegment()) return -1;
+            }
+        }
+
+        /**
+         * Move to the next segment.
+         *
+         * @return False if the end of the file is reached.
+         */
+        private boolean nextSegment() throws IOException {
+            if (position >= size) return false;
+            // speculate only once the first segment turned out to be decodable on its own
+            if (position > 0) schedule();
+            Future<Segment> future = pending.remove(position);
+            Segment segment;
+            if (future == null) {
+                segment = decodeSegment(channel, position, compression);
+            } else {
+                try {
+                    segment = future.get();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while decompressing " + file.getName());
+                } catch (ExecutionException ee) {
+                    segment = null;
+                }
+            }
+            if (segment == null) {
+                String message = "The segment of " + file.getName() + " at byte " + position + " cannot be decoded "
+                        + "on its own. The rest of the file is decompressed sequentially.";
+                if (IS_FALLBACK_LOGGED.compareAndSet(false, true)) LOGGER.info(message);
+                else LOGGER.debug(message);
+                cancelPending();
+                fallback = new ReadAheadInputStream(openSequential(new ChannelInputStream(channel, position, size),
+                        compression));
+                return true;
+            }
+            position += segment.compressedLength;
+            current = segment.data;
+            currentIndex = 0;
+            // decodings within the segment were wrong guesses
+            SortedMap<Long, Future<Segment>> obsolete = pending.headMap(position);
+            for (Future<Segment> f : obsolete.values()) f.cancel(false);
+            obsolete.clear();
+            scanPosition = Math.max(scanPosition, position);
+            return true;
+        }
+
+        /**
+         * Scan ahead for segment candidates and schedule their decoding.
+         */
+        private void schedule() throws IOException {
+            scanPosition = Math.max(scanPosition, position);
+            while (pending.size() < window && scanPosition < size) {
+                int length = channel.read(ByteBuffer.wrap(scanBuffer), scanPosition);
+                if (length <= 0) {
+                    scanPosition = size;
+                    break;
+                }
+                // the magic bytes of a segment are up to 10 bytes long; the last bytes of the buffer are checked as
+                // part of the next buffer (segments are longer than 10 bytes, so none starts in the last 10 bytes)
+                int index = 0;
+                for (; index + 10 <= length && pending.size() < window; index++) {
+                    if (isSegmentCandidate(scanBuffer, index, compression)) {
+                        long offset = scanPosition + index;
+                        pending.put(offset, DECODER_EXECUTOR.submit(() -> decodeSegment(channel, offset,
+                                compression)));
+                    }
+                }
+                if (index + 10 > length) {
+                    scanPosition = scanPosition + length >= size ? size : scanPosition + Math.max(1, index);
+                } else {
+                    scanPosition += index;
+                }
+            }
+        }
+
+        private void cancelPending() {
+            for (Future<Segment> future : pending.values()) future.cancel(false);
+            pending.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            cancelPending();
+            try {
+                if (fallback != null) fallback.close();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Stream that reads the given stream on a separate thread (ahead of the consumer).
+     */
+    private static class ReadAheadInputStream extends InputStream {
+
+
+        private static final byte[] END_OF_STREAM = new byte[0];
+
+        private final InputStream in;
+
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(READ_AHEAD_BLOCKS);
+
+        private final Thread reader;
+
+        private volatile IOException exception;
+
+        private byte[] block = new byte[0];
+
+        private int blockIndex = 0;
+
+        private boolean isEnd = false;
+
+        ReadAheadInputStream(InputStream in) {
+            this.in = in;
+            reader = new Thread(this::readAhead, "decompression-read-ahead");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readAhead() {
+            try {
+                while (true) {
+                    byte[] buffer = new byte[READ_AHEAD_BLOCK_SIZE];
+                    int read = IOUtils.read(in, buffer);
+                    if (read > 0) queue.put(read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+                    if (read < buffer.length) break;
+                }
+            } catch (IOException ioe) {
+                exception = ioe;
+            } catch (InterruptedException ie) {
+                // closed
+                return;
+            }
+            try {
+                queue.put(END_OF_STREAM);
+            } catch (InterruptedException ie) {
+                // closed
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int read;
+            while ((read = read(b, 0, 1)) == 0) ;
+            return read < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            if (blockIndex == block.length) {
+                if (isEnd) return -1;
+                try {
+                    block = queue.take();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for decompressed data.");
+                }
+                blockIndex = 0;
+                if (block == END_OF_STREAM) {
+                    isEnd = true;
+                    if (exception != null) throw exception;
+                    return -1;
+                }
+            }
+            int read = Math.min(len, block.length - blockIndex);
+            System.arraycopy(block, blockIndex, b, off, read);
+            blockIndex += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.interrupt();
+            in.close();
+        }
+    }
+}
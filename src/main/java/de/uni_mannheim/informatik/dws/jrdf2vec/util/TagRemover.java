@@ -3,12 +3,12 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
 
 /**
  * Simple class providing the service of removing the tags in a vector txt file.
  * If you want to additionally shorten the file with a positive entity list, use class {@link VectorFileReducer}.
+ * The file is processed as {@link VectorExportPipeline} stage.
  */
 public class TagRemover {
 
@@ -21,22 +21,7 @@ public class TagRemover {
 
     public static void removeTagsWriteNewFile(File vectorFile, File fileToWrite) {
         if (vectorFile.getName().endsWith(".txt")) {
-            try (
-                    BufferedWriter writer =
-                            new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToWrite),
-                                    StandardCharsets.UTF_8));
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(vectorFile),
-                            StandardCharsets.UTF_8))
-            ) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    writer.write(removeTagsFromVectorLine(line));
-                }
-            } catch (FileNotFoundException fnfe) {
-                LOGGER.error("File not found exception. ABORTING program.", fnfe);
-            } catch (IOException e) {
-                LOGGER.error("An IOException occurred. ABORTING program.", e);
-            }
+            VectorExportPipeline.fromTextFile(vectorFile).removeTags().writeTxt(fileToWrite).run();
         } else {
             System.out.println("Currently only TXT files are supported for tag removal.");
         }
@@ -17,9 +17,11 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
@@ -47,14 +49,23 @@ public class Util {
      * @return Human-readable string.
      */
     public static String getDeltaTimeString(Instant before, Instant after) {
+        return getDeltaTimeString(Duration.between(before, after));
+    }
 
-        // unfortunately Java 1.9 which is currently incompatible with coveralls maven plugin...
-        //long days = Duration.between(before, after).toDaysPart();
-        //long hours = Duration.between(before, after).toHoursPart();
-        //long minutes = Duration.between(before, after).toMinutesPart();
-        //long seconds = Duration.between(before, after).toSecondsPart();
+    /**
+     * Helper method. Formats the given time delta to a string with human readable time difference in days, hours,
+     * minutes, and seconds.
+     *
+     * @param delta The time delta.
+     * @return Human-readable string.
+     */
+    public static String getDeltaTimeString(Duration delta) {
 
-        Duration delta = Duration.between(before, after);
+        // unfortunately Java 1.9 which is currently incompatible with coveralls maven plugin...
+        //long days = delta.toDaysPart();
+        //long hours = delta.toHoursPart();
+        //long minutes = delta.toMinutesPart();
+        //long seconds = delta.toSecondsPart();
 
         long days = delta.toDays();
         long hours = days > 0 ? delta.toHours() % (days * 24) : delta.toHours();
@@ -393,6 +404,31 @@ public class Util {
         return result;
     }
 
+    /**
+     * Converts the tokens of one datatype property value into text walks of the form
+     * {@code entity predicate token token ...}. If there are more tokens than fit into a walk of the given depth,
+     * further walks are created.
+     *
+     * @param walks     The list to which the walks are added.
+     * @param entity    The entity (subject).
+     * @param predicate The datatype property.
+     * @param tokens    The tokens of the value.
+     * @param depth     The maximal number of walk components (entity and predicate included). If the depth is not
+     *                  &gt; 2, all tokens are written into a single walk.
+     */
+    public static void addTextWalks(List<String> walks, String entity, String predicate, List<String> tokens,
+                                    int depth) {
+        if (tokens.isEmpty()) return;
+        int tokensPerWalk = depth > 2 ? depth - 2 : tokens.size();
+        for (int start = 0; start < tokens.size(); start += tokensPerWalk) {
+            StringBuilder walk = new StringBuilder(entity).append(" ").append(predicate);
+            for (int i = start; i < Math.min(start + tokensPerWalk, tokens.size()); i++) {
+                walk.append(" ").append(tokens.get(i));
+            }
+            walks.add(walk.toString());
+        }
+    }
+
     /**
      * Returns true if the given parameter follows the schema of an anonymous node
      *
@@ -445,6 +481,34 @@ public class Util {
         return iterator.next();
     }
 
+    /**
+     * Draw distinct random indices from {@code [0, populationSize)} (uniform without replacement, Floyd's algorithm).
+     * The runtime depends only on the sample size, not on the population size. This method is thread-safe.
+     *
+     * @param populationSize The number of elements to draw from.
+     * @param sampleSize     The number of indices to be drawn.
+     * @return Sorted array of distinct indices; all indices if the sample size is not smaller than the population.
+     */
+    public static long[] randomSampleIndices(long populationSize, int sampleSize) {
+        if (populationSize <= 0 || sampleSize <= 0) return new long[0];
+        if (sampleSize >= populationSize) {
+            long[] result = new long[(int) populationSize];
+            for (int i = 0; i < result.length; i++) result[i] = i;
+            return result;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Long> drawn = new HashSet<>(sampleSize * 2);
+        for (long j = populationSize - sampleSize; j < populationSize; j++) {
+            long index = random.nextLong(j + 1);
+            if (!drawn.add(index)) drawn.add(j);
+        }
+        long[] result = new long[sampleSize];
+        int i = 0;
+        for (long index : drawn) result[i++] = index;
+        Arrays.sort(result);
+        return result;
+    }
+
     /**
      * Helper function to load files in class path that contain spaces.
      *
@@ -598,6 +662,24 @@ public class Util {
         }
     }
 
+    /**
+     * Syncs the given directory so that files created in (or renamed into) it survive a crash. Some platforms
+     * (e.g. Windows) cannot open directories; there, the failure is logged and ignored.
+     *
+     * @param directory The directory to be synced.
+     * @return True if the directory was synced, else false.
+     */
+    public static boolean syncDirectory(File directory) {
+        if (directory == null) return false;
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.debug("Could not sync directory " + directory.getAbsolutePath() + ".", ioe);
+            return false;
+        }
+    }
+
     /**
      * This method will remove a leading less-than and a trailing greater-than sign (tags).
      *
@@ -0,0 +1,772 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/**
+ * Streaming export of embedding vectors. A pipeline consists of
+ * <ul>
+ *     <li>one source: a vector text file (GloVe-style or word2vec text format), a word2vec binary file, or a
+ *     memory-mapped {@code .npy} weight matrix (float32, C order) together with a vocabulary file (one word per line
+ *     in the order of the matrix rows),</li>
+ *     <li>optional stages that are applied to the concepts: tag removal and filtering with a positive entity list,</li>
+ *     <li>one or more sinks: text vector file (GloVe-style), word2vec text file, and the two TSV files of the
+ *     <a href="http://projector.tensorflow.org/">tensorflow projector</a>.</li>
+ * </ul>
+ * The source is read exactly once. Rows are processed in chunks that are formatted in parallel and written in the
+ * order of the source. Values of text sources are copied as they are; binary values are formatted with
+ * {@link VectorExportPipeline#appendFloat(StringBuilder, float)}.
+ * <p>
+ * Example: {@code VectorExportPipeline.fromWord2VecBinaryFile(binary).removeTags().writeTxt(txt).writeW2v(w2v).run();}
+ */
+public class VectorExportPipeline {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VectorExportPipeline.class);
+
+    /**
+     * Default number of rows per chunk.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /**
+     * Width of the word2vec header if the number of vectors is not known in advance. The header is written as
+     * placeholder and overwritten (padded with spaces) once all vectors have been written.
+     */
+    private static final int W2V_HEADER_WIDTH = 40;
+
+    /**
+     * Powers of ten for float formatting.
+     */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private enum SourceType {TEXT, WORD2VEC_BINARY, NPY}
+
+    private final SourceType sourceType;
+
+    private final File sourceFile;
+
+    /**
+     * Vocabulary for {@code .npy} sources.
+     */
+    private final File vocabularyFile;
+
+    /**
+     * Stages that are applied to the concept of every row. A stage returns null if the row shall be dropped.
+     */
+    private final List<UnaryOperator<String>> stages = new ArrayList<>();
+
+    /**
+     * True if at least one stage may drop rows.
+     */
+    private boolean isFiltering = false;
+
+    private File txtFile;
+
+    private File w2vFile;
+
+    private File tsvVectorFile;
+
+    private File tsvMetadataFile;
+
+    private int numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private VectorExportPipeline(SourceType sourceType, File sourceFile, File vocabularyFile) {
+        this.sourceType = sourceType;
+        this.sourceFile = sourceFile;
+        this.vocabularyFile = vocabularyFile;
+    }
+
+    /**
+     * @param vectorTxtFile Vector text file in GloVe-style or word2vec text format.
+     * @return Pipeline reading the given file.
+     */
+    public static VectorExportPipeline fromTextFile(File vectorTxtFile) {
+        return new VectorExportPipeline(SourceType.TEXT, vectorTxtFile, null);
+    }
+
+    /**
+     * @param binaryFile Vector file in word2vec binary format (as written by
+     *                   {@code KeyedVectors.save_word2vec_format(path, binary=True)}).
+     * @return Pipeline reading the given file.
+     */
+    public static VectorExportPipeline fromWord2VecBinaryFile(File binaryFile) {
+        return new VectorExportPipeline(SourceType.WORD2VEC_BINARY, binaryFile, null);
+    }
+
+    /**
+     * @param npyFile        Weight matrix (float32, C order) such as the {@code .vectors.npy} file written by gensim.
+     * @param vocabularyFile The words of the matrix rows; one word per line in row order.
+     * @return Pipeline reading the given matrix.
+     */
+    public static VectorExportPipeline fromNpyFile(File npyFile, File vocabularyFile) {
+        return new VectorExportPipeline(SourceType.NPY, npyFile, vocabularyFile);
+    }
+
+    /**
+     * Remove the tags from the concepts ({@code <concept>} becomes {@code concept}).
+     *
+     * @return This pipeline.
+     */
+    public VectorExportPipeline removeTags() {
+        stages.add(VectorExportPipeline::removeTags);
+        return this;
+    }
+
+    /**
+     * Only keep the rows whose concept (after the stages added so far) is contained in the given set.
+     *
+     * @param concepts The concepts to be kept.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline filter(Set<String> concepts) {
+        stages.add(concept -> concepts.contains(concept) ? concept : null);
+        isFiltering = true;
+        return this;
+    }
+
+    /**
+     * @param fileToWrite Text vector file (GloVe-style) to be written.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline writeTxt(File fileToWrite) {
+        this.txtFile = fileToWrite;
+        return this;
+    }
+
+    /**
+     * @param fileToWrite Vector file in word2vec text format to be written.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline writeW2v(File fileToWrite) {
+        this.w2vFile = fileToWrite;
+        return this;
+    }
+
+    /**
+     * @param vectorFileToWrite   The vectors TSV file to be written.
+     * @param metadataFileToWrite The metadata TSV file to be written.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline writeTfProjectorTsv(File vectorFileToWrite, File metadataFileToWrite) {
+        this.tsvVectorFile = vectorFileToWrite;
+        this.tsvMetadataFile = metadataFileToWrite;
+        return this;
+    }
+
+    /**
+     * Run the pipeline.
+     *
+     * @return True if all files were written successfully, else false.
+     */
+    public boolean run() {
+        if (sourceFile == null || !sourceFile.isFile()) {
+            LOGGER.error("The vector file to be exported does not exist or is no file. ABORTING program.");
+            return false;
+        }
+        if (sourceType == SourceType.NPY && (vocabularyFile == null || !vocabularyFile.isFile())) {
+            LOGGER.error("The vocabulary file of the npy matrix does not exist or is no file. ABORTING program.");
+            return false;
+        }
+        if (txtFile == null && w2vFile == null && (tsvVectorFile == null || tsvMetadataFile == null)) {
+            LOGGER.error("No file to write has been specified. ABORTING program.");
+            return false;
+        }
+
+        boolean isTsv = tsvVectorFile != null && tsvMetadataFile != null;
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+        long numberOfWrittenVectors = 0;
+        int dimension;
+        boolean isW2vHeaderPatchRequired;
+        try (ChunkReader reader = createReader();
+             OutputStream txtStream = open(txtFile);
+             OutputStream w2vStream = open(w2vFile);
+             OutputStream tsvVectorStream = isTsv ? open(tsvVectorFile) : null;
+             OutputStream tsvMetadataStream = isTsv ? open(tsvMetadataFile) : null) {
+            dimension = reader.getDimension();
+            isW2vHeaderPatchRequired = isFiltering || reader.getNumberOfRows() < 0;
+            if (w2vStream != null) {
+                w2vStream.write((isW2vHeaderPatchRequired ? getPaddedW2vHeader(0, dimension) :
+                        reader.getNumberOfRows() + " " + dimension + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+
+            Deque<Future<FormattedChunk>> pending = new ArrayDeque<>();
+            Chunk chunk;
+            while ((chunk = reader.next()) != null) {
+                final Chunk chunkToFormat = chunk;
+                pending.add(executor.submit(() -> format(chunkToFormat, txtStream != null || w2vStream != null,
+                        tsvVectorStream != null)));
+                if (pending.size() >= 2 * numberOfThreads) {
+                    numberOfWrittenVectors += write(pending.poll().get(), txtStream, w2vStream, tsvVectorStream,
+                            tsvMetadataStream);
+                }
+            }
+            while (!pending.isEmpty()) {
+                numberOfWrittenVectors += write(pending.poll().get(), txtStream, w2vStream, tsvVectorStream,
+                        tsvMetadataStream);
+            }
+        } catch (IOException e) {
+            LOGGER.error("An IOException occurred while exporting the vectors. ABORTING program.", e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while exporting the vectors. ABORTING program.", e);
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.error("An error occurred while formatting the vectors. ABORTING program.", e);
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (w2vFile != null && isW2vHeaderPatchRequired) {
+            try (RandomAccessFile file = new RandomAccessFile(w2vFile, "rw")) {
+                file.write(getPaddedW2vHeader(numberOfWrittenVectors, dimension).getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                LOGGER.error("Could not write the header of the w2v file.", e);
+                return false;
+            }
+        }
+        LOGGER.info("Exported " + numberOfWrittenVectors + " vectors.");
+        return true;
+    }
+
+    private static String getPaddedW2vHeader(long numberOfVectors, int dimension) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(numberOfVectors).append(' ').append(dimension);
+        while (sb.length() < W2V_HEADER_WIDTH) sb.append(' ');
+        return sb.append('\n').toString();
+    }
+
+    private static OutputStream open(File file) throws FileNotFoundException {
+        return file == null ? null : new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+    }
+
+    private ChunkReader createReader() throws IOException {
+        switch (sourceType) {
+            case WORD2VEC_BINARY:
+                return new Word2VecBinaryChunkReader(sourceFile, chunkSize);
+            case NPY:
+                return new NpyChunkReader(sourceFile, vocabularyFile, chunkSize);
+            default:
+                return new TextChunkReader(sourceFile, chunkSize);
+        }
+    }
+
+    private static long write(FormattedChunk chunk, OutputStream txtStream, OutputStream w2vStream,
+                              OutputStream tsvVectorStream, OutputStream tsvMetadataStream) throws IOException {
+        if (txtStream != null) txtStream.write(chunk.lines);
+        if (w2vStream != null) w2vStream.write(chunk.lines);
+        if (tsvVectorStream != null) tsvVectorStream.write(chunk.tsvVectors);
+        if (tsvMetadataStream != null) tsvMetadataStream.write(chunk.tsvMetadata);
+        return chunk.numberOfRows;
+    }
+
+    /**
+     * Apply the stages and format the given chunk.
+     *
+     * @param chunk      The chunk.
+     * @param isLines    True if the space-separated lines are required.
+     * @param isTsv      True if the TSV lines are required.
+     * @return Formatted chunk.
+     */
+    private FormattedChunk format(Chunk chunk, boolean isLines, boolean isTsv) {
+        StringBuilder lines = new StringBuilder();
+        StringBuilder tsvVectors = new StringBuilder();
+        StringBuilder tsvMetadata = new StringBuilder();
+        int numberOfRows = 0;
+        for (int row = 0; row < chunk.size; row++) {
+            String concept = chunk.concepts[row];
+            for (UnaryOperator<String> stage : stages) {
+                concept = stage.apply(concept);
+                if (concept == null) break;
+            }
+            if (concept == null) continue;
+            numberOfRows++;
+            if (isLines) {
+                lines.append(concept);
+                appendValues(lines, chunk, row, ' ');
+                lines.append('\n');
+            }
+            if (isTsv) {
+                tsvMetadata.append(concept).append('\n');
+                int start = tsvVectors.length();
+                appendValues(tsvVectors, chunk, row, '\t');
+                // the values follow the concept in the lines, i.e., the first separator is not required here
+                if (tsvVectors.length() > start) tsvVectors.deleteCharAt(start);
+                tsvVectors.append('\n');
+            }
+        }
+        return new FormattedChunk(numberOfRows, lines.toString().getBytes(StandardCharsets.UTF_8),
+                tsvVectors.toString().getBytes(StandardCharsets.UTF_8),
+                tsvMetadata.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Append the values of the given row; every value is preceded by the separator.
+     */
+    private static void appendValues(StringBuilder sb, Chunk chunk, int row, char separator) {
+        if (chunk.rawValues != null) {
+            String values = chunk.rawValues[row];
+            if (values.isEmpty()) return;
+            sb.append(separator);
+            if (separator == ' ') {
+                sb.append(values);
+            } else {
+                sb.append(values.replace(' ', separator));
+            }
+        } else {
+            int offset = row * chunk.dimension;
+            for (int i = 0; i < chunk.dimension; i++) {
+                sb.append(separator);
+                appendFloat(sb, chunk.values[offset + i]);
+            }
+        }
+    }
+
+    /**
+     * Remove the tags of the given concept ({@code <concept>} becomes {@code concept}).
+     *
+     * @param concept The concept.
+     * @return Concept without tags.
+     */
+    static String removeTags(String concept) {
+        if (concept.length() > 1 && concept.startsWith("<") && concept.endsWith(">")) {
+            return concept.substring(1, concept.length() - 1);
+        }
+        return concept;
+    }
+
+    /**
+     * Append the given float in plain decimal notation with the smallest number of significant digits (six to nine)
+     * that parses back to the exact same float; nine digits are always sufficient. Trailing zeros are dropped. Very
+     * small and very large values as well as NaN and infinity are formatted with {@link Float#toString(float)}.
+     *
+     * @param sb    The builder to which the value shall be appended.
+     * @param value The value.
+     */
+    static void appendFloat(StringBuilder sb, float value) {
+        if (value == 0) {
+            sb.append(Float.floatToRawIntBits(value) < 0 ? "-0.0" : "0.0");
+            return;
+        }
+        float absolute = Math.abs(value);
+        if (Float.isNaN(value) || Float.isInfinite(value) || absolute < 1e-4f || absolute >= 1e7f) {
+            sb.append(value);
+            return;
+        }
+
+        // number of digits before the decimal point minus one: -4 to 6
+        double exact = absolute;
+        int exponent = 6;
+        while (exponent > -4 && exact < (exponent >= 0 ? POWERS_OF_TEN[exponent] :
+                1.0 / POWERS_OF_TEN[-exponent])) {
+            exponent--;
+        }
+        int start = sb.length();
+        for (int digits = Math.max(6, exponent + 1); digits <= 9; digits++) {
+            int decimals = digits - 1 - exponent;
+            long scaled = Math.round(exact * POWERS_OF_TEN[decimals]);
+            if (digits < 9) {
+                // cheap check first, the exact check (parsing) only for candidates
+                if ((float) (scaled / (double) POWERS_OF_TEN[decimals]) != absolute) continue;
+                appendDecimal(sb, value < 0, scaled, decimals);
+                if (Float.parseFloat(sb.substring(start)) == value) return;
+                sb.setLength(start);
+            } else {
+                appendDecimal(sb, value < 0, scaled, decimals);
+            }
+        }
+    }
+
+    /**
+     * Append {@code scaled / 10^decimals} in plain decimal notation without trailing zeros.
+     */
+    private static void appendDecimal(StringBuilder sb, boolean isNegative, long scaled, int decimals) {
+        long integerPart = scaled / POWERS_OF_TEN[decimals];
+        long fraction = scaled % POWERS_OF_TEN[decimals];
+        if (isNegative) sb.append('-');
+        sb.append(integerPart).append('.');
+        if (fraction == 0) {
+            sb.append('0');
+            return;
+        }
+        int length = decimals;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            length--;
+        }
+        for (int digits = numberOfDigits(fraction); digits < length; digits++) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    private static int numberOfDigits(long value) {
+        int result = 1;
+        while (result < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[result]) result++;
+        return result;
+    }
+
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * @param numberOfThreads Number of threads used for formatting. Must be positive.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            LOGGER.error("The number of threads must be positive. Using " + this.numberOfThreads + ".");
+            return this;
+        }
+        this.numberOfThreads = numberOfThreads;
+        return this;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize Number of rows per chunk. Must be positive.
+     * @return This pipeline.
+     */
+    public VectorExportPipeline setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            LOGGER.error("The chunk size must be positive. Using " + this.chunkSize + ".");
+            return this;
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * A number of rows read from the source. Either {@code rawValues} (text sources) or {@code values} (binary
+     * sources, {@code size * dimension} floats) is set.
+     */
+    private static class Chunk {
+
+        final String[] concepts;
+        String[] rawValues;
+        float[] values;
+        int dimension;
+        int size = 0;
+
+        Chunk(int capacity) {
+            concepts = new String[capacity];
+        }
+    }
+
+    private static class FormattedChunk {
+
+        final int numberOfRows;
+        final byte[] lines;
+        final byte[] tsvVectors;
+        final byte[] tsvMetadata;
+
+        FormattedChunk(int numberOfRows, byte[] lines, byte[] tsvVectors, byte[] tsvMetadata) {
+            this.numberOfRows = numberOfRows;
+            this.lines = lines;
+            this.tsvVectors = tsvVectors;
+            this.tsvMetadata = tsvMetadata;
+        }
+    }
+
+    private interface ChunkReader extends Closeable {
+
+        int getDimension();
+
+        /**
+         * @return The number of rows or -1 if not known in advance.
+         */
+        long getNumberOfRows();
+
+        /**
+         * @return The next chunk or null if the source is exhausted.
+         * @throws IOException If reading fails.
+         */
+        Chunk next() throws IOException;
+    }
+
+    /**
+     * Reads GloVe-style and word2vec text files. A first line consisting of two integers is treated as word2vec
+     * header. Blank lines are skipped.
+     */
+    private static class TextChunkReader implements ChunkReader {
+
+        private final BufferedReader reader;
+        private final int chunkSize;
+        private int dimension = 0;
+        private String bufferedLine;
+
+        TextChunkReader(File file, int chunkSize) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                    StandardCharsets.UTF_8), 1 << 16);
+            this.chunkSize = chunkSize;
+            String line;
+            do {
+                line = reader.readLine();
+            } while (line != null && line.trim().isEmpty());
+            if (line == null) return;
+            String[] tokens = line.trim().split(" +");
+            if (tokens.length == 2 && isInteger(tokens[0]) && isInteger(tokens[1])) {
+                dimension = Integer.parseInt(tokens[1]);
+            } else {
+                dimension = tokens.length - 1;
+                bufferedLine = line;
+            }
+        }
+
+        private static boolean isInteger(String token) {
+            if (token.isEmpty()) return false;
+            for (int i = 0; i < token.length(); i++) {
+                if (token.charAt(i) < '0' || token.charAt(i) > '9') return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public long getNumberOfRows() {
+            return -1;
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            Chunk chunk = new Chunk(chunkSize);
+            chunk.rawValues = new String[chunkSize];
+            while (chunk.size < chunkSize) {
+                String line;
+                if (bufferedLine != null) {
+                    line = bufferedLine;
+                    bufferedLine = null;
+                } else {
+                    line = reader.readLine();
+                }
+                if (line == null) break;
+                int end = line.length();
+                while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+                if (end == 0) continue;
+                int split = line.indexOf(' ');
+                if (split < 0 || split >= end) {
+                    chunk.concepts[chunk.size] = line.substring(0, end);
+                    chunk.rawValues[chunk.size] = "";
+                } else {
+                    chunk.concepts[chunk.size] = line.substring(0, split);
+                    chunk.rawValues[chunk.size] = line.substring(split + 1, end);
+                }
+                chunk.size++;
+            }
+            return chunk.size == 0 ? null : chunk;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads word2vec binary files: header line {@code <number of vectors> <dimension>}, then for every vector the
+     * word, a space, the little-endian float32 values, and an optional line break.
+     */
+    private static class Word2VecBinaryChunkReader implements ChunkReader {
+
+        private final DataInputStream stream;
+        private final int chunkSize;
+        private final long numberOfRows;
+        private final int dimension;
+        private final byte[] valueBuffer;
+        private long rowsRead = 0;
+        private byte[] wordBuffer = new byte[256];
+
+        Word2VecBinaryChunkReader(File file, int chunkSize) throws IOException {
+            this.stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+            this.chunkSize = chunkSize;
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            int b;
+            while ((b = stream.read()) != -1 && b != '\n') header.write(b);
+            String[] tokens = new String(header.toByteArray(), StandardCharsets.UTF_8).trim().split(" +");
+            try {
+                this.numberOfRows = Long.parseLong(tokens[0]);
+                this.dimension = Integer.parseInt(tokens[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                stream.close();
+                throw new IOException("Invalid word2vec header: " + Arrays.toString(tokens), e);
+            }
+            this.valueBuffer = new byte[4 * dimension];
+        }
+
+        @Override
+        public int getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public long getNumberOfRows() {
+            return numberOfRows;
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            int size = (int) Math.min(chunkSize, numberOfRows - rowsRead);
+            if (size <= 0) return null;
+            Chunk chunk = new Chunk(size);
+            chunk.dimension = dimension;
+            chunk.values = new float[size * dimension];
+            FloatBuffer floats = ByteBuffer.wrap(valueBuffer).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            for (int row = 0; row < size; row++) {
+                chunk.concepts[row] = readWord();
+                stream.readFully(valueBuffer);
+                floats.rewind();
+                floats.get(chunk.values, row * dimension, dimension);
+            }
+            chunk.size = size;
+            rowsRead += size;
+            return chunk;
+        }
+
+        private String readWord() throws IOException {
+            int length = 0;
+            int b;
+            while ((b = stream.read()) != ' ') {
+                if (b == -1) throw new EOFException("Unexpected end of the word2vec binary file.");
+                // line breaks after the values are optional
+                if (length == 0 && (b == '\n' || b == '\r')) continue;
+                if (length == wordBuffer.length) wordBuffer = Arrays.copyOf(wordBuffer, 2 * length);
+                wordBuffer[length++] = (byte) b;
+            }
+            return new String(wordBuffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    /**
+     * Reads a float32 {@code .npy} matrix (C order) chunk by chunk via memory mapping; the words are read from the
+     * vocabulary file.
+     */
+    private static class NpyChunkReader implements ChunkReader {
+
+        private final RandomAccessFile file;
+        private final BufferedReader vocabularyReader;
+        private final int chunkSize;
+        private final long numberOfRows;
+        private final int dimension;
+        private final long dataOffset;
+        private long rowsRead = 0;
+
+        NpyChunkReader(File npyFile, File vocabularyFile, int chunkSize) throws IOException {
+            this.file = new RandomAccessFile(npyFile, "r");
+            this.chunkSize = chunkSize;
+            try {
+                byte[] magic = new byte[8];
+                file.readFully(magic);
+                if (magic[0] != (byte) 0x93 || !new String(magic, 1, 5, StandardCharsets.ISO_8859_1).equals("NUMPY")) {
+                    throw new IOException("Not a npy file: " + npyFile.getAbsolutePath());
+                }
+                int headerLength;
+                if (magic[6] == 1) {
+                    headerLength = (file.read() & 0xff) | (file.read() & 0xff) << 8;
+                } else {
+                    headerLength = Integer.reverseBytes(file.readInt());
+                }
+                byte[] headerBytes = new byte[headerLength];
+                file.readFully(headerBytes);
+                this.dataOffset = file.getFilePointer();
+                String header = new String(headerBytes, StandardCharsets.ISO_8859_1);
+                if (!header.contains("'<f4'")) {
+                    throw new IOException("Only little-endian float32 matrices are supported. Header: " + header);
+                }
+                if (header.contains("'fortran_order': True")) {
+                    throw new IOException("Fortran order is not supported. Header: " + header);
+                }
+                int shapeStart = header.indexOf('(', header.indexOf("'shape'"));
+                int shapeEnd = header.indexOf(')', shapeStart);
+                String[] shape = header.substring(shapeStart + 1, shapeEnd).split(",");
+                if (shapeStart < 0 || shape.length < 2 || shape[1].trim().isEmpty()) {
+                    throw new IOException("A two-dimensional matrix is required. Header: " + header);
+                }
+                this.numberOfRows = Long.parseLong(shape[0].trim());
+                this.dimension = Integer.parseInt(shape[1].trim());
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                throw e instanceof IOException ? (IOException) e : new IOException("Invalid npy header.", e);
+            }
+            this.vocabularyReader = new BufferedReader(new InputStreamReader(new FileInputStream(vocabularyFile),
+                    StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getDimension() {
+            return dimension;
+        }
+
+        @Override
+        public long getNumberOfRows() {
+            return numberOfRows;
+        }
+
+        @Override
+        public Chunk next() throws IOException {
+            int size = (int) Math.min(chunkSize, numberOfRows - rowsRead);
+            if (size <= 0) return null;
+            Chunk chunk = new Chunk(size);
+            for (int row = 0; row < size; row++) {
+                String word = vocabularyReader.readLine();
+                if (word == null) {
+                    throw new IOException("The vocabulary file has fewer words than the matrix has rows (" +
+                            numberOfRows + ").");
+                }
+                chunk.concepts[row] = word;
+            }
+            chunk.dimension = dimension;
+            chunk.values = new float[size * dimension];
+            file.getChannel().map(FileChannel.MapMode.READ_ONLY, dataOffset + 4L * rowsRead * dimension,
+                    4L * size * dimension).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(chunk.values);
+            chunk.size = size;
+            rowsRead += size;
+            return chunk;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                vocabularyReader.close();
+            } finally {
+                file.close();
+            }
+        }
+    }
+}
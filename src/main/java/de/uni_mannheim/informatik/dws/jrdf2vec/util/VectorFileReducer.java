@@ -3,13 +3,13 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
 import java.util.Set;
 
 /**
  * Conceptually similar to {@link TagRemover} but additionally handles positive entity list (a.k.a. light option,
- * reduce option). For reasons of code simplicity, those have been split in two classes.
+ * reduce option). For reasons of code simplicity, those have been split in two classes. Both are stages of the
+ * {@link VectorExportPipeline}.
  */
 public class VectorFileReducer {
 
@@ -55,33 +55,12 @@ public class VectorFileReducer {
             return;
         }
 
-        File fileToWrite = new File(fileToWritePath);
-        try (
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToWrite),
-                        StandardCharsets.UTF_8));
-                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(textVectorFile),
-                        StandardCharsets.UTF_8))
-        ) {
-            Set<String> entities = Util.readEntitiesFromFile(entityFile, isRemoveTags);
-            String readLine;
-            if (isRemoveTags) {
-                while ((readLine = reader.readLine()) != null) {
-                    String concept = Util.removeTags(readLine.split(" ")[0]);
-                    if (entities.contains(concept)) {
-                        writer.write(TagRemover.removeTagsFromVectorLine(readLine));
-                    }
-                }
-            } else {
-                while ((readLine = reader.readLine()) != null) {
-                    String concept = readLine.split(" ")[0];
-                    if (entities.contains(concept)) {
-                        writer.write(readLine + "\n");
-                    }
-                }
-            }
-        } catch (IOException e) {
-            LOGGER.error("An error occurred while trying to write the file.", e);
+        Set<String> entities = Util.readEntitiesFromFile(entityFile, isRemoveTags);
+        VectorExportPipeline pipeline = VectorExportPipeline.fromTextFile(textVectorFile);
+        if (isRemoveTags) {
+            pipeline.removeTags();
         }
+        pipeline.filter(entities).writeTxt(new File(fileToWritePath)).run();
     }
 
 }
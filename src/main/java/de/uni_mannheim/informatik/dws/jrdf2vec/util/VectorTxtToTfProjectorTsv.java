@@ -3,8 +3,7 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
 
 /**
  * Converts a vectors.txt file to two tsv files that can be used for visualization via the
@@ -48,7 +47,7 @@ public class VectorTxtToTfProjectorTsv {
     /**
      * Converts a vector.txt file to a file that can be used for the
      * <a href="http://projector.tensorflow.org/">tensorflow projector</a>.
-     * @param vectorTxtFile The vectors.txt file. Will only work for GloVe-style format, not for .w2v format.
+     * @param vectorTxtFile The vectors.txt file (GloVe-style or .w2v text format).
      * @param vectorFileToWrite The vector file that shall be written.
      * @param metadataFileToWrite The metadata file that shall be written.
      */
@@ -63,40 +62,8 @@ public class VectorTxtToTfProjectorTsv {
                     "ABORTING program.");
             return;
         }
-        try (
-                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(vectorTxtFile),
-                        StandardCharsets.UTF_8));
-                BufferedWriter vectorWriter =
-                        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(vectorFileToWrite),
-                                StandardCharsets.UTF_8));
-                BufferedWriter metadataWriter =
-                        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(metadataFileToWrite),
-                                StandardCharsets.UTF_8));
-                ) {
-
-                //metadataWriter.write("Labels\n");
-                String line;
-                while((line = reader.readLine()) != null){
-                    String[] tokens = line.split(" ");
-                    metadataWriter.write(tokens[0] + "\n");
-                    StringBuilder sb = new StringBuilder();
-                    boolean isFirst = true;
-                    for(int i = 1; i < tokens.length; i++){
-                        if(isFirst){
-                            isFirst = false;
-                        } else {
-                            sb.append("\t");
-                        }
-                        sb.append(tokens[i]);
-                    }
-                    sb.append("\n");
-                    vectorWriter.write(sb.toString());
-                }
-        } catch (FileNotFoundException e) {
-            LOGGER.error("File not found exception occurred. ABORTING program.", e);
-        } catch (IOException e) {
-            LOGGER.error("IOException occurred. ABORTING program.", e);
-        }
+        VectorExportPipeline.fromTextFile(vectorTxtFile).writeTfProjectorTsv(vectorFileToWrite, metadataFileToWrite)
+                .run();
     }
 
 }
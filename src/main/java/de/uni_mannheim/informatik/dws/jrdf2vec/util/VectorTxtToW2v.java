@@ -3,17 +3,14 @@ package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-
-import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.getDimensionalityFromVectorTextFile;
-import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.getNumberOfNonBlancLines;
+import java.io.File;
 
 /**
  * Converts a vector.txt file as written by this framework (in the format of GloVe vectors) to the classic word2vec
  * format where the first line contains the number of elements and the dimension.
  *
- * The w2v file will be in UTF_8.
+ * The w2v file will be in UTF_8. The vector file is read only once (see {@link VectorExportPipeline}); the header is
+ * written as space-padded placeholder and completed at the end.
  */
 public class VectorTxtToW2v {
 
@@ -34,29 +31,7 @@ public class VectorTxtToW2v {
             return;
         }
 
-        try(
-                BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(vectorFile),
-                StandardCharsets.UTF_8));
-                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileToWrite),
-                        StandardCharsets.UTF_8))
-        ){
-            String line;
-            boolean isFirstLine = true;
-            int lines = getNumberOfNonBlancLines(vectorFile);
-            int dimension = getDimensionalityFromVectorTextFile(vectorFile);
-            while((line = reader.readLine()) != null){
-                if(isFirstLine){
-                    writer.write(lines + " " + dimension + "\n");
-                    isFirstLine = false;
-                }
-                writer.write(line + "\n");
-            }
-        } catch (FileNotFoundException e) {
-            LOGGER.error("FileNotFoundException. Could not complete program.", e);
-        } catch (IOException e) {
-            LOGGER.error("IOException occurred. Could not complete program.", e);
-        }
-
+        VectorExportPipeline.fromTextFile(vectorFile).writeW2v(fileToWrite).run();
     }
 
 }
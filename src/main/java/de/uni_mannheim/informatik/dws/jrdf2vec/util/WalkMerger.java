@@ -1,28 +1,120 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Walk merger: By default, walks are written to various gzipped files.
  * For some applications, a raw (potentially huge) text file is required.
  * This class offers the functionality to generate such a file from walks.
+ * <p>
+ * The gzipped walk files are decompressed in parallel; the merged file is written sequentially with large buffers.
+ * If the file to write ends with {@code .gz}, the merged file is gzipped.
+ * <p>
+ * By default, the walk files are concatenated in the order of their names, i.e., all walks of an entity stay
+ * adjacent (as they were written). Optionally, the walks can be shuffled
+ * which improves the convergence of word2vec's SGD. The shuffle works with bounded memory: walks are distributed
+ * randomly over temporary bucket files; every bucket is then shuffled in memory and appended to the merged file.
+ * The buckets are sized by the uncompressed size of the walks such that each fits into the bucket budget; a bucket
+ * that exceeds the budget nonetheless is split on disk into smaller buckets before it is read.
  */
 public class WalkMerger {
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WalkMerger.class);
 
+    /**
+     * Size of the blocks that are handed over from the decompressing threads to the writer.
+     */
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Maximal number of blocks per file that are decompressed ahead of the writer.
+     */
+    private static final int BLOCKS_PER_FILE = 4;
+
+    /**
+     * Buffer size for the merged file.
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 22;
+
+    /**
+     * Buffer size of every bucket file.
+     */
+    private static final int BUCKET_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Default maximal number of (uncompressed) bytes of a bucket that is shuffled in memory.
+     */
+    public static final long DEFAULT_BUCKET_BUDGET = 256L << 20;
+
+    /**
+     * Maximal number of bucket files that are open at the same time.
+     */
+    private static final int MAX_BUCKETS = 4096;
+
+    /**
+     * Marks the end of the block queue.
+     */
+    private static final byte[] END_OF_BLOCKS = new byte[0];
+
     public static void mergeWalks(String walkDirectoryPath, String fileToWrite) {
         mergeWalks(new File(walkDirectoryPath), new File(fileToWrite));
     }
 
     public static void mergeWalks(File walkDirectory, File fileToWrite) {
+        mergeWalks(walkDirectory, fileToWrite, false);
+    }
+
+    /**
+     * Merge the walks.
+     *
+     * @param walkDirectory The directory containing the gzipped walk files.
+     * @param fileToWrite   The merged file. If the file name ends with {@code .gz}, it is gzipped.
+     * @param isShuffle     True if the walks shall be shuffled.
+     */
+    public static void mergeWalks(File walkDirectory, File fileToWrite, boolean isShuffle) {
+        mergeWalks(walkDirectory, fileToWrite, isShuffle, 0, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Merge the walks.
+     *
+     * @param walkDirectory   The directory containing the gzipped walk files.
+     * @param fileToWrite     The merged file. If the file name ends with {@code .gz}, it is gzipped.
+     * @param isShuffle       True if the walks shall be shuffled.
+     * @param numberOfBuckets Number of temporary buckets for shuffling. If the number is not positive, it is derived
+     *                        from the uncompressed size of the walk files and the default bucket budget.
+     * @param numberOfThreads Number of threads used for decompression.
+     */
+    public static void mergeWalks(File walkDirectory, File fileToWrite, boolean isShuffle, int numberOfBuckets,
+                                  int numberOfThreads) {
+        mergeWalks(walkDirectory, fileToWrite, isShuffle, numberOfBuckets, numberOfThreads, DEFAULT_BUCKET_BUDGET);
+    }
+
+    /**
+     * Merge the walks.
+     *
+     * @param walkDirectory   The directory containing the gzipped walk files.
+     * @param fileToWrite     The merged file. If the file name ends with {@code .gz}, it is gzipped.
+     * @param isShuffle       True if the walks shall be shuffled.
+     * @param numberOfBuckets Number of temporary buckets for shuffling. If the number is not positive, it is derived
+     *                        from the uncompressed size of the walk files and the bucket budget.
+     * @param numberOfThreads Number of threads used for decompression.
+     * @param bucketBudget    Maximal number of (uncompressed) bytes that are shuffled in memory at once. Larger
+     *                        buckets are split before they are shuffled.
+     */
+    public static void mergeWalks(File walkDirectory, File fileToWrite, boolean isShuffle, int numberOfBuckets,
+                                  int numberOfThreads, long bucketBudget) {
         if (fileToWrite == null) {
             LOGGER.error("The provided file that shall be written is null. ABORTING program...");
             return;
@@ -30,33 +122,362 @@ public class WalkMerger {
         File[] files = getFiles(walkDirectory);
         if (files == null) return;
 
-        try (
-                OutputStreamWriter osw = new OutputStreamWriter(Files.newOutputStream(fileToWrite.toPath()), StandardCharsets.UTF_8);
-                BufferedWriter writer = new BufferedWriter(osw);
-        ) {
-            for (File file : files) {
-                if (!file.getAbsolutePath().endsWith(".gz")) {
-                    LOGGER.info("Skipping file '" + file.getName() + "'");
-                    continue;
+        List<File> walkFiles = new ArrayList<>();
+        for (File file : files) {
+            if (!file.getAbsolutePath().endsWith(".gz")) {
+                LOGGER.info("Skipping file '" + file.getName() + "'");
+                continue;
+            }
+            walkFiles.add(file);
+        }
+        Collections.sort(walkFiles);
+
+        if (numberOfThreads < 1) numberOfThreads = 1;
+        if (!isShuffle) {
+            try (OutputStream out = openOutput(fileToWrite)) {
+                decompressInParallel(walkFiles, numberOfThreads, out::write);
+            } catch (IOException ioe) {
+                LOGGER.error("An IOException occurred. File cannot be written.", ioe);
+            }
+            return;
+        }
+
+        bucketBudget = Math.max(1, bucketBudget);
+        if (numberOfBuckets < 1) {
+            // aim at half the budget so that few buckets exceed it by chance
+            long uncompressedSize = 0;
+            for (File file : walkFiles) uncompressedSize += estimateUncompressedSize(file);
+            numberOfBuckets = (int) Math.max(1, Math.min(MAX_BUCKETS, 2 * uncompressedSize / bucketBudget + 1));
+        }
+        numberOfBuckets = Math.min(MAX_BUCKETS, numberOfBuckets);
+        File bucketDirectory = new File(fileToWrite.getAbsoluteFile().getParentFile(),
+                fileToWrite.getName() + "_buckets");
+        try {
+            shuffle(walkFiles, fileToWrite, bucketDirectory, numberOfBuckets, numberOfThreads, bucketBudget);
+        } catch (IOException ioe) {
+            LOGGER.error("An IOException occurred. File cannot be written.", ioe);
+        } finally {
+            try {
+                FileUtils.deleteDirectory(bucketDirectory);
+            } catch (IOException ioe) {
+                LOGGER.warn("Could not delete the temporary bucket directory: " + bucketDirectory.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Estimate the uncompressed size of a gzipped file from the size field of its trailer (which holds the size
+     * modulo 2<sup>32</sup> of the last member).
+     *
+     * @param file The gzipped file.
+     * @return The estimated number of uncompressed bytes.
+     */
+    static long estimateUncompressedSize(File file) {
+        long compressedSize = file.length();
+        if (compressedSize < 4) return compressedSize;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(compressedSize - 4);
+            long size = 0;
+            for (int i = 0; i < 4; i++) {
+                size |= ((long) in.read()) << (8 * i);
+            }
+            // walks compress well; a smaller value indicates an overflow of the size field
+            return Math.max(size, compressedSize);
+        } catch (IOException ioe) {
+            return compressedSize;
+        }
+    }
+
+    /**
+     * Distribute the walks randomly over bucket files, shuffle every bucket in memory, and write the buckets to the
+     * file to write.
+     */
+    private static void shuffle(List<File> walkFiles, File fileToWrite, File bucketDirectory, int numberOfBuckets,
+                                int numberOfThreads, long bucketBudget) throws IOException {
+        bucketDirectory.mkdirs();
+        LOGGER.info("Shuffling the walks using " + numberOfBuckets + " buckets.");
+        Random random = new Random();
+        Buckets buckets = new Buckets(bucketDirectory, "bucket", numberOfBuckets);
+        try {
+            // phase 1: distribute the lines (all consumer calls come from this thread)
+            decompressInParallel(walkFiles, numberOfThreads, block -> buckets.distribute(block, random));
+        } finally {
+            buckets.close();
+        }
+
+        // phase 2: shuffle every bucket in memory
+        try (OutputStream out = openOutput(fileToWrite)) {
+            for (int i = 0; i < numberOfBuckets; i++) {
+                shuffleBucket(buckets.files[i], buckets.sizes[i], out, bucketBudget, random);
+            }
+        }
+    }
+
+    /**
+     * Shuffle a bucket file and append it to the output. A bucket that exceeds the budget is split randomly into
+     * smaller buckets first (the walks are streamed, not loaded).
+     *
+     * @param bucketFile   The bucket file; deleted afterwards.
+     * @param size         The size of the bucket file in bytes.
+     * @param out          The output.
+     * @param bucketBudget Maximal number of bytes that are shuffled in memory.
+     * @param random       Random number generator.
+     * @throws IOException If a bucket cannot be read or written.
+     */
+    private static void shuffleBucket(File bucketFile, long size, OutputStream out, long bucketBudget,
+                                      Random random) throws IOException {
+        if (size > bucketBudget) {
+            int numberOfParts = (int) Math.min(MAX_BUCKETS, 2 * size / bucketBudget + 1);
+            LOGGER.info("Bucket " + bucketFile.getName() + " (" + size + " bytes) exceeds the bucket budget. " +
+                    "Splitting it into " + numberOfParts + " buckets.");
+            Buckets parts = new Buckets(bucketFile.getParentFile(), bucketFile.getName(), numberOfParts);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(bucketFile.toPath()),
+                    BUCKET_BUFFER_SIZE)) {
+                readLineBlocks(in, block -> parts.distribute(block, random));
+            } finally {
+                parts.close();
+            }
+            Files.delete(bucketFile.toPath());
+            for (int i = 0; i < numberOfParts; i++) {
+                // parts of a single huge line cannot be split any further
+                if (parts.sizes[i] == size) {
+                    LOGGER.warn("Bucket " + parts.files[i].getName() + " cannot be split. Shuffling it in memory.");
+                    shuffleInMemory(parts.files[i], parts.sizes[i], out, random);
+                } else {
+                    shuffleBucket(parts.files[i], parts.sizes[i], out, bucketBudget, random);
                 }
+            }
+            return;
+        }
+        shuffleInMemory(bucketFile, size, out, random);
+    }
+
+    /**
+     * Shuffle the lines of a bucket file in memory (as bytes) and append them to the output.
+     *
+     * @param bucketFile The bucket file; deleted afterwards.
+     * @param size       The size of the bucket file in bytes.
+     * @param out        The output.
+     * @param random     Random number generator.
+     * @throws IOException If the bucket cannot be read.
+     */
+    private static void shuffleInMemory(File bucketFile, long size, OutputStream out, Random random)
+            throws IOException {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Bucket " + bucketFile.getName() + " is too large to be shuffled in memory.");
+        }
+        byte[] content = Files.readAllBytes(bucketFile.toPath());
+        int numberOfLines = 0;
+        for (byte b : content) {
+            if (b == '\n') numberOfLines++;
+        }
+        // start of every line; every line (including the last one) ends with a line break
+        int[] starts = new int[numberOfLines];
+        int line = 0;
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') continue;
+            starts[line++] = start;
+            start = i + 1;
+        }
+        for (int i = numberOfLines - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = starts[i];
+            starts[i] = starts[j];
+            starts[j] = swap;
+        }
+        for (int lineStart : starts) {
+            int end = lineStart;
+            while (content[end] != '\n') end++;
+            out.write(content, lineStart, end + 1 - lineStart);
+        }
+        Files.delete(bucketFile.toPath());
+    }
 
-                // now let's read the gzipped file and write its contents to our fileToWrite
-                try (
-                        InputStreamReader ir = new InputStreamReader(
-                                new GZIPInputStream(Files.newInputStream(file.toPath()))
-                        );
-                        BufferedReader reader = new BufferedReader(ir)
-                ) {
-                    String line;
-                    while((line = reader.readLine()) != null){
-                        writer.write(line + "\n");
+    /**
+     * A set of bucket files to which lines are distributed randomly.
+     */
+    private static class Buckets {
+
+
+        private final File[] files;
+
+        private final OutputStream[] streams;
+
+        /**
+         * Number of bytes written to every bucket.
+         */
+        private final long[] sizes;
+
+        Buckets(File directory, String prefix, int numberOfBuckets) throws IOException {
+            files = new File[numberOfBuckets];
+            streams = new OutputStream[numberOfBuckets];
+            sizes = new long[numberOfBuckets];
+            try {
+                for (int i = 0; i < numberOfBuckets; i++) {
+                    files[i] = new File(directory, prefix + "_" + i + ".txt");
+                    streams[i] = new BufferedOutputStream(new FileOutputStream(files[i]), BUCKET_BUFFER_SIZE);
+                }
+            } catch (IOException ioe) {
+                close();
+                throw ioe;
+            }
+        }
+
+        /**
+         * Write every line of the block to a random bucket.
+         *
+         * @param block  Complete lines.
+         * @param random Random number generator.
+         * @throws IOException If a bucket cannot be written.
+         */
+        void distribute(byte[] block, Random random) throws IOException {
+            int start = 0;
+            for (int i = 0; i < block.length; i++) {
+                if (block[i] != '\n') continue;
+                int bucket = random.nextInt(streams.length);
+                streams[bucket].write(block, start, i + 1 - start);
+                sizes[bucket] += i + 1 - start;
+                start = i + 1;
+            }
+        }
+
+        void close() throws IOException {
+            IOException exception = null;
+            for (OutputStream stream : streams) {
+                if (stream == null) continue;
+                try {
+                    stream.close();
+                } catch (IOException ioe) {
+                    exception = ioe;
+                }
+            }
+            if (exception != null) throw exception;
+        }
+    }
+
+    private static OutputStream openOutput(File fileToWrite) throws IOException {
+        OutputStream out = Files.newOutputStream(fileToWrite.toPath());
+        if (fileToWrite.getName().endsWith(".gz")) {
+            return new GZIPOutputStream(out, WRITE_BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(out, WRITE_BUFFER_SIZE);
+    }
+
+    /**
+     * Consumer of decompressed blocks. A block consists of complete lines (each terminated by a line break).
+     */
+    @FunctionalInterface
+    private interface BlockConsumer {
+
+        void accept(byte[] block) throws IOException;
+    }
+
+    /**
+     * Decompress the given files in parallel. The blocks are handed over to the consumer in the calling thread, file
+     * by file in the given order: every file has its own bounded queue, and the threads take the files in the given
+     * order, so the file the consumer waits for is always being decompressed.
+     *
+     * @param files           The gzipped files.
+     * @param numberOfThreads The number of decompressing threads.
+     * @param consumer        The consumer.
+     * @throws IOException If the consumer fails.
+     */
+    private static void decompressInParallel(List<File> files, int numberOfThreads, BlockConsumer consumer)
+            throws IOException {
+        if (files.isEmpty()) return;
+        int threads = Math.min(numberOfThreads, files.size());
+        List<BlockingQueue<byte[]>> queues = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) queues.add(new ArrayBlockingQueue<>(BLOCKS_PER_FILE));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger nextFile = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    int file;
+                    while ((file = nextFile.getAndIncrement()) < files.size()) {
+                        try {
+                            decompress(files.get(file), queues.get(file));
+                        } catch (RuntimeException re) {
+                            LOGGER.error("Failed to read file '" + files.get(file).getName() + "'. Program will " +
+                                    "continue.", re);
+                        }
+                        queues.get(file).put(END_OF_BLOCKS);
                     }
-                } catch (IOException ioe){
-                    LOGGER.error("Failed to read file '" + file.getName() + "'. Program will continue.");
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+
+        try {
+            for (BlockingQueue<byte[]> queue : queues) {
+                byte[] block;
+                while ((block = queue.take()) != END_OF_BLOCKS) {
+                    consumer.accept(block);
                 }
             }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while merging the walks.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Decompress the given file into blocks of complete lines.
+     *
+     * @param file  The gzipped file.
+     * @param queue The queue to which the blocks are added.
+     * @throws InterruptedException If interrupted while waiting for space in the queue.
+     */
+    private static void decompress(File file, BlockingQueue<byte[]> queue) throws InterruptedException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()), 1 << 16)) {
+            readLineBlocks(in, block -> {
+                try {
+                    queue.put(block);
+                } catch (InterruptedException ie) {
+                    throw new InterruptedIOException();
+                }
+            });
+        } catch (InterruptedIOException iioe) {
+            throw new InterruptedException();
         } catch (IOException ioe) {
-            LOGGER.error("An IOException occurred. File cannot be written.");
+            LOGGER.error("Failed to read file '" + file.getName() + "'. Program will continue.");
+        }
+    }
+
+    /**
+     * Read the given stream in blocks of complete lines. A missing line break at the end of the stream is added.
+     *
+     * @param in       The stream.
+     * @param consumer The consumer of the blocks.
+     * @throws IOException If the stream cannot be read or the consumer fails.
+     */
+    private static void readLineBlocks(InputStream in, BlockConsumer consumer) throws IOException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int length = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            if (length < buffer.length) continue;
+            int end = length;
+            while (end > 0 && buffer[end - 1] != '\n') end--;
+            if (end == 0) {
+                // line longer than the buffer
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                continue;
+            }
+            consumer.accept(Arrays.copyOf(buffer, end));
+            System.arraycopy(buffer, end, buffer, 0, length - end);
+            length -= end;
+        }
+        if (length > 0) {
+            byte[] block = Arrays.copyOf(buffer, buffer[length - 1] == '\n' ? length : length + 1);
+            block[block.length - 1] = '\n';
+            consumer.accept(block);
         }
     }
 
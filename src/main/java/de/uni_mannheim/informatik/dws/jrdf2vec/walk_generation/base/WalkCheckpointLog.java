@@ -0,0 +1,324 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Write-ahead log of sealed walk files. A walk file is only considered complete once a commit record for it has
+ * been appended (and synced) to this log. Each commit record lists the entities whose walks are contained in the
+ * file. After a crash, entities of committed files are skipped and uncommitted (possibly truncated) walk files are
+ * removed so that every entity is written exactly once.
+ * <p>
+ * Record layout (one record per sealed walk file):
+ * <pre>
+ * BEGIN &lt;phase&gt; &lt;file name&gt; &lt;number of entities&gt;
+ * E &lt;entity&gt;
+ * E ...
+ * COMMIT &lt;phase&gt; &lt;file name&gt;
+ * </pre>
+ * Records without a matching COMMIT line (torn writes) are ignored. A torn last line is cut off when the log is
+ * opened so that the next record starts on a new line.
+ */
+public class WalkCheckpointLog {
+
+
+    /**
+     * Default Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkCheckpointLog.class);
+
+    /**
+     * Name of the log file within the walk directory.
+     */
+    public static final String CHECKPOINT_FILE_NAME = "walk_checkpoint.log";
+
+    /**
+     * Pattern of the walk files written by the {@link WalkGenerationManager}.
+     */
+    private final Pattern walkFilePattern;
+
+    private static final String BEGIN = "BEGIN";
+    private static final String COMMIT = "COMMIT";
+    private static final String ENTITY = "E ";
+
+    /**
+     * The walk directory.
+     */
+    private final File walkDirectory;
+
+    /**
+     * The actual log file.
+     */
+    private final File logFile;
+
+    /**
+     * Phase to committed entities (as read from the log and as committed in this session).
+     */
+    private final Map<String, Set<String>> committedEntities = new HashMap<>();
+
+    /**
+     * Names of the committed walk files.
+     */
+    private final Set<String> committedFiles = new HashSet<>();
+
+    /**
+     * Constructor. Reads the existing log in the given directory if there is one.
+     *
+     * @param walkDirectory The directory in which walks (and the log) are written.
+     */
+    public WalkCheckpointLog(File walkDirectory) {
+        this(walkDirectory, null);
+    }
+
+    /**
+     * Constructor. Reads the existing log of the given shard if there is one. Walk files and logs of other shards
+     * in the same directory are not touched.
+     *
+     * @param walkDirectory The directory in which walks (and the log) are written.
+     * @param shardName     The name of the shard (see {@link WalkGenerationManager#setShardName(String)}). May be
+     *                      null.
+     */
+    public WalkCheckpointLog(File walkDirectory, String shardName) {
+        this.walkDirectory = walkDirectory;
+        this.logFile = new File(walkDirectory, (shardName == null) ? CHECKPOINT_FILE_NAME :
+                "walk_checkpoint_" + shardName + ".log");
+        this.walkFilePattern = getWalkFilePattern(shardName);
+        if (logFile.exists()) {
+            truncateTornLine();
+            readLog();
+        }
+    }
+
+    /**
+     * Get the pattern of the names of the walk files that the {@link WalkGenerationManager} writes. The first group
+     * is the file index.
+     *
+     * @param shardName The name of the shard (see {@link WalkGenerationManager#setShardName(String)}). May be null.
+     * @return The pattern.
+     */
+    public static Pattern getWalkFilePattern(String shardName) {
+        if (shardName == null) return Pattern.compile("walk_file_([0-9]+)\\.txt\\.gz");
+        return Pattern.compile("walk_file_" + Pattern.quote(shardName) + "_([0-9]+)\\.txt\\.gz");
+    }
+
+    /**
+     * Cuts the log back to its last complete line. Otherwise, a record appended after a torn write would be glued
+     * to the torn line and could not be read.
+     */
+    private void truncateTornLine() {
+        long length = logFile.length();
+        long end = length;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "r")) {
+            byte[] buffer = new byte[8192];
+            boolean found = false;
+            while (end > 0 && !found) {
+                int chunk = (int) Math.min(buffer.length, end);
+                file.seek(end - chunk);
+                file.readFully(buffer, 0, chunk);
+                int i = chunk;
+                while (i > 0 && buffer[i - 1] != '\n') i--;
+                found = i > 0;
+                end = end - chunk + i;
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read checkpoint log " + logFile.getAbsolutePath() + ".", ioe);
+            return;
+        }
+        if (end == length) return;
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(end);
+            file.getFD().sync();
+            LOGGER.info("Removed a torn line (" + (length - end) + " bytes) from checkpoint log " +
+                    logFile.getAbsolutePath() + ".");
+        } catch (IOException ioe) {
+            LOGGER.error("Could not truncate checkpoint log " + logFile.getAbsolutePath() + ".", ioe);
+        }
+    }
+
+    /**
+     * Read the log and keep only fully committed records.
+     */
+    private void readLog() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile),
+                StandardCharsets.UTF_8))) {
+            String line;
+            String phase = null;
+            String fileName = null;
+            int expectedEntities = 0;
+            List<String> entities = new ArrayList<>();
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(BEGIN + " ")) {
+                    String[] tokens = line.split(" ");
+                    if (tokens.length != 4) {
+                        phase = null;
+                        continue;
+                    }
+                    phase = tokens[1];
+                    fileName = tokens[2];
+                    try {
+                        expectedEntities = Integer.parseInt(tokens[3]);
+                    } catch (NumberFormatException nfe) {
+                        phase = null;
+                        continue;
+                    }
+                    entities = new ArrayList<>();
+                } else if (line.startsWith(COMMIT + " ")) {
+                    if (phase != null && line.equals(COMMIT + " " + phase + " " + fileName)
+                            && entities.size() == expectedEntities) {
+                        committedEntities.computeIfAbsent(phase, k -> new HashSet<>()).addAll(entities);
+                        committedFiles.add(fileName);
+                    }
+                    phase = null;
+                } else if (phase != null && line.startsWith(ENTITY)) {
+                    entities.add(unescape(line.substring(ENTITY.length())));
+                }
+            }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read checkpoint log " + logFile.getAbsolutePath() + ".", ioe);
+        }
+        LOGGER.info("Checkpoint log read: " + committedFiles.size() + " committed walk files.");
+    }
+
+    /**
+     * Appends a commit record for a sealed walk file. The record (and the directory entry of a new log) is synced to
+     * disk before this method returns.
+     *
+     * @param phase    The generation phase (e.g. structural walks or text walks).
+     * @param fileName The name of the sealed walk file.
+     * @param entities The entities whose walks are fully contained in the file.
+     * @return True if the commit was persisted, else false.
+     */
+    public synchronized boolean commit(String phase, String fileName, Collection<String> entities) {
+        StringBuilder record = new StringBuilder();
+        record.append(BEGIN).append(" ").append(phase).append(" ").append(fileName).append(" ")
+                .append(entities.size()).append("\n");
+        for (String entity : entities) {
+            record.append(ENTITY).append(escape(entity)).append("\n");
+        }
+        record.append(COMMIT).append(" ").append(phase).append(" ").append(fileName).append("\n");
+
+        if (logFile.getParentFile() != null) {
+            logFile.getParentFile().mkdirs();
+        }
+        boolean isNewLog = !logFile.exists();
+        try (FileOutputStream fos = new FileOutputStream(logFile, true)) {
+            fos.write(record.toString().getBytes(StandardCharsets.UTF_8));
+            fos.flush();
+            fos.getFD().sync();
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write checkpoint for walk file " + fileName + ".", ioe);
+            return false;
+        }
+        if (isNewLog) {
+            Util.syncDirectory(logFile.getAbsoluteFile().getParentFile());
+        }
+        committedEntities.computeIfAbsent(phase, k -> new HashSet<>()).addAll(entities);
+        committedFiles.add(fileName);
+        return true;
+    }
+
+    /**
+     * Get the entities that have already been committed for the given phase.
+     *
+     * @param phase The phase.
+     * @return Set of entities. Never null.
+     */
+    public synchronized Set<String> getCommittedEntities(String phase) {
+        Set<String> result = committedEntities.get(phase);
+        if (result == null) return new HashSet<>();
+        return new HashSet<>(result);
+    }
+
+    /**
+     * Get the names of all committed walk files.
+     *
+     * @return Set of file names.
+     */
+    public synchronized Set<String> getCommittedFiles() {
+        return new HashSet<>(committedFiles);
+    }
+
+    /**
+     * Deletes all walk files in the walk directory that are not committed. Those files stem from an interrupted
+     * run and may be truncated; their entities will be generated again.
+     *
+     * @return The number of files that were removed.
+     */
+    public synchronized int removeUncommittedWalkFiles() {
+        File[] files = walkDirectory.listFiles();
+        if (files == null) return 0;
+        int removed = 0;
+        for (File file : files) {
+            if (walkFilePattern.matcher(file.getName()).matches() && !committedFiles.contains(file.getName())) {
+                if (file.delete()) {
+                    LOGGER.info("Removed uncommitted walk file " + file.getName() + ".");
+                    removed++;
+                } else {
+                    LOGGER.error("Could not remove uncommitted walk file " + file.getName() + ".");
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Get the index that the next walk file shall use so that committed files are not overwritten.
+     *
+     * @return Next free walk file index.
+     */
+    public synchronized int getNextFileIndex() {
+        int next = 0;
+        for (String fileName : committedFiles) {
+            Matcher matcher = walkFilePattern.matcher(fileName);
+            if (matcher.matches()) {
+                next = Math.max(next, Integer.parseInt(matcher.group(1)) + 1);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Entities are written one per line; line breaks and backslashes are escaped.
+     *
+     * @param entity The entity to be escaped.
+     * @return Escaped entity.
+     */
+    static String escape(String entity) {
+        if (entity.indexOf('\\') < 0 && entity.indexOf('\n') < 0 && entity.indexOf('\r') < 0) {
+            return entity;
+        }
+        return entity.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Reverse operation of {@link WalkCheckpointLog#escape(String)}.
+     *
+     * @param line The line to be unescaped.
+     * @return Unescaped entity.
+     */
+    static String unescape(String line) {
+        if (line.indexOf('\\') < 0) return line;
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                if (next == 'n') sb.append('\n');
+                else if (next == 'r') sb.append('\r');
+                else sb.append(next);
+            } else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+}
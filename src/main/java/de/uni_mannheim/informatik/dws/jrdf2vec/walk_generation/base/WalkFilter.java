@@ -0,0 +1,187 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Declarative filter on the edges that are walked. Edges are filtered by their predicate; datatype triples (literals)
+ * can be dropped altogether.
+ * <p>
+ * A predicate is accepted if
+ * <ol>
+ *     <li>it is not an excluded predicate, and</li>
+ *     <li>it is an included predicate, or it is not in an excluded namespace and, if there are included predicates or
+ *     namespaces, it is in an included namespace.</li>
+ * </ol>
+ * Explicit predicates hence take precedence over namespaces. A namespace is a prefix of the predicate URI.
+ * <p>
+ * The filter is compiled by the walk generators: memory-based generators drop filtered triples while parsing, the
+ * HDT generators skip filtered edges by predicate ID and the TDB generator skips them while iterating the statements.
+ * The filter should not be changed after it has been handed to a walk generator.
+ * <p>
+ * Filter files contain one rule per line; lines starting with {@code #} are comments. URIs may be enclosed in angle
+ * brackets:
+ * <pre>
+ * exclude-predicate http://www.w3.org/2002/07/owl#sameAs
+ * exclude-namespace http://www.w3.org/ns/prov#
+ * include-namespace http://dbpedia.org/ontology/
+ * exclude-literals
+ * </pre>
+ */
+public class WalkFilter {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkFilter.class);
+
+    private final Set<String> includedPredicates = new HashSet<>();
+
+    private final Set<String> excludedPredicates = new HashSet<>();
+
+    private final List<String> includedNamespaces = new ArrayList<>();
+
+    private final List<String> excludedNamespaces = new ArrayList<>();
+
+    /**
+     * If true, datatype triples are dropped.
+     */
+    private boolean isExcludeLiterals = false;
+
+    /**
+     * Read a filter file (see class comment for the syntax).
+     *
+     * @param filterFile The filter file.
+     * @return The filter; null if the file could not be read or contains an invalid rule.
+     */
+    public static WalkFilter read(File filterFile) {
+        if (filterFile == null || !filterFile.isFile()) {
+            LOGGER.error("The filter file does not exist. No filter will be applied.");
+            return null;
+        }
+        try {
+            return parse(Files.readAllLines(filterFile.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.error("Could not read the filter file. No filter will be applied.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Parse filter rules (see class comment for the syntax).
+     *
+     * @param lines The rules, one per line.
+     * @return The filter; null if a rule is invalid.
+     */
+    public static WalkFilter parse(List<String> lines) {
+        WalkFilter result = new WalkFilter();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] tokens = line.split("\\s+");
+            if (tokens.length == 1 && tokens[0].equalsIgnoreCase("exclude-literals")) {
+                result.setExcludeLiterals(true);
+                continue;
+            }
+            if (tokens.length != 2) {
+                LOGGER.error("Invalid filter rule: '" + line + "'");
+                return null;
+            }
+            String uri = stripBrackets(tokens[1]);
+            switch (tokens[0].toLowerCase()) {
+                case "include-predicate":
+                    result.includePredicate(uri);
+                    break;
+                case "exclude-predicate":
+                    result.excludePredicate(uri);
+                    break;
+                case "include-namespace":
+                    result.includeNamespace(uri);
+                    break;
+                case "exclude-namespace":
+                    result.excludeNamespace(uri);
+                    break;
+                default:
+                    LOGGER.error("Invalid filter rule: '" + line + "'");
+                    return null;
+            }
+        }
+        return result;
+    }
+
+    private static String stripBrackets(String uri) {
+        if (uri.length() > 1 && uri.startsWith("<") && uri.endsWith(">")) return uri.substring(1, uri.length() - 1);
+        return uri;
+    }
+
+    /**
+     * Check whether edges with the given predicate are walked.
+     *
+     * @param predicate The predicate URI.
+     * @return True if the predicate is accepted.
+     */
+    public boolean isAccepted(String predicate) {
+        if (predicate == null) return false;
+        if (excludedPredicates.contains(predicate)) return false;
+        if (includedPredicates.contains(predicate)) return true;
+        for (String namespace : excludedNamespaces) {
+            if (predicate.startsWith(namespace)) return false;
+        }
+        if (includedPredicates.isEmpty() && includedNamespaces.isEmpty()) return true;
+        for (String namespace : includedNamespaces) {
+            if (predicate.startsWith(namespace)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the filter accepts every predicate (literals may still be excluded).
+     */
+    public boolean isAcceptingAllPredicates() {
+        return includedPredicates.isEmpty() && excludedPredicates.isEmpty() && includedNamespaces.isEmpty()
+                && excludedNamespaces.isEmpty();
+    }
+
+    public WalkFilter includePredicate(String predicate) {
+        includedPredicates.add(predicate);
+        return this;
+    }
+
+    public WalkFilter excludePredicate(String predicate) {
+        excludedPredicates.add(predicate);
+        return this;
+    }
+
+    public WalkFilter includeNamespace(String namespace) {
+        includedNamespaces.add(namespace);
+        return this;
+    }
+
+    public WalkFilter excludeNamespace(String namespace) {
+        excludedNamespaces.add(namespace);
+        return this;
+    }
+
+    public boolean isExcludeLiterals() {
+        return isExcludeLiterals;
+    }
+
+    public void setExcludeLiterals(boolean excludeLiterals) {
+        isExcludeLiterals = excludeLiterals;
+    }
+
+    @Override
+    public String toString() {
+        return "WalkFilter{" +
+                "includedPredicates=" + includedPredicates +
+                ", excludedPredicates=" + excludedPredicates +
+                ", includedNamespaces=" + includedNamespaces +
+                ", excludedNamespaces=" + excludedNamespaces +
+                ", isExcludeLiterals=" + isExcludeLiterals +
+                '}';
+    }
+}
@@ -1,12 +1,18 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.VocabularyCounts;
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.ContinuationEntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntityOrdering;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.IOrderedEntitySelector;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.MemoryEntitySelector;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.TdbEntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetrics;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.runnables.*;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.*;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.jena.ontology.OntModel;
 import org.javatuples.Pair;
 import org.slf4j.Logger;
@@ -15,11 +21,12 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
-import java.util.Set;
+import java.time.Instant;
+import java.util.*;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
 
 
@@ -87,6 +94,12 @@ public class WalkGenerationManager {
      */
     public Writer writer;
 
+    /**
+     * The file stream underneath {@link WalkGenerationManager#writer}. Closing the writer does not close this
+     * stream, so that the completed walk file can be synced before it is committed to the checkpoint log.
+     */
+    private FileOutputStream walkFileStream;
+
     /**
      * File path to the walk file to be written.
      */
@@ -94,6 +107,138 @@ public class WalkGenerationManager {
 
     File walkDirectory;
 
+    /**
+     * Number of walks after which a new walk file is started.
+     */
+    public static final int MAX_LINES_PER_FILE = 3000000;
+
+    /**
+     * Default number of entities after which the current walk file is sealed and checkpointed.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 100000;
+
+    /**
+     * Default maximal number of consecutive entities that are processed by one task (see
+     * {@link WalkGenerationManager#setEntityBatchSize(int)}).
+     */
+    public static final int DEFAULT_ENTITY_BATCH_SIZE = 64;
+
+    /**
+     * Default number of walks that are in flight in one lockstep batch (see
+     * {@link WalkGenerationManager#setLockstepWalking(boolean)}).
+     */
+    public static final int DEFAULT_LOCKSTEP_WALKS_IN_FLIGHT = 16384;
+
+    /**
+     * Checkpoint phase of the structural walks.
+     */
+    static final String PHASE_WALKS = "walks";
+
+    /**
+     * Checkpoint phase of the text walks.
+     */
+    static final String PHASE_TEXT_WALKS = "text";
+
+    /**
+     * If true, walk files are sealed periodically at entity boundaries and recorded in a {@link WalkCheckpointLog}.
+     * An interrupted run can then be resumed in the same walk directory.
+     */
+    private boolean isCheckpointing = false;
+
+    /**
+     * Number of entities after which the current walk file is sealed (only relevant if checkpointing is enabled).
+     */
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    /**
+     * Maximal number of consecutive entities that are processed by one task.
+     */
+    private int entityBatchSize = DEFAULT_ENTITY_BATCH_SIZE;
+
+    /**
+     * If true, random walks and mid walks are generated in lockstep batches (if the walk generator supports it).
+     */
+    private boolean isLockstepWalking = false;
+
+    /**
+     * Number of walks that are in flight in one lockstep batch.
+     */
+    private int lockstepWalksInFlight = DEFAULT_LOCKSTEP_WALKS_IN_FLIGHT;
+
+    /**
+     * Write-ahead log of sealed walk files. Null if checkpointing is disabled.
+     */
+    private WalkCheckpointLog checkpointLog;
+
+    /**
+     * The checkpoint phase that is currently being written.
+     */
+    private String checkpointPhase = PHASE_WALKS;
+
+    /**
+     * Entities whose walks are contained in the current (unsealed) walk file.
+     */
+    private List<String> currentFileEntities = new ArrayList<>();
+
+    /**
+     * Index of the walk file that is currently written.
+     */
+    private int currentFileIndex = 0;
+
+    /**
+     * Name of the walk file that is currently written.
+     */
+    private String currentFileName;
+
+    /**
+     * Optional name of the walk shard. If set, walk files are named {@code walk_file_<shard>_<n>.txt.gz} so that
+     * multiple managers (e.g. distributed workers) can write into the same walk directory.
+     */
+    private String shardName;
+
+    /**
+     * If true, the tokens of all written walks are counted and a vocabulary file ({@link VocabularyCounts#FILE_NAME})
+     * is written to the walk directory when the manager is closed.
+     */
+    private boolean isVocabularyCounting = false;
+
+    /**
+     * Tokens occurring less often are not written to the vocabulary file.
+     */
+    private long vocabularyMinCount = 1;
+
+    /**
+     * Token counts of the calling thread. Every walk thread counts into its own instance (no locking); the instances
+     * are merged when the manager is closed.
+     */
+    private final ThreadLocal<VocabularyCounts> threadVocabularyCounts = ThreadLocal.withInitial(() -> {
+        VocabularyCounts counts = new VocabularyCounts();
+        synchronized (this.allThreadVocabularyCounts) {
+            this.allThreadVocabularyCounts.add(counts);
+        }
+        return counts;
+    });
+
+    /**
+     * All thread-local token counts.
+     */
+    private final List<VocabularyCounts> allThreadVocabularyCounts = new ArrayList<>();
+
+    /**
+     * Names of the walk files written by this manager.
+     */
+    private final Set<String> writtenFileNames = new HashSet<>();
+
+    /**
+     * The vocabulary file that has been written. Null if none has been written (yet).
+     */
+    private File vocabularyFile;
+
+    /**
+     * The time it took to merge and write the vocabulary (the counting itself happens in the walk threads).
+     */
+    private String requiredTimeForVocabularyString;
+
     /**
      * Constructor
      *
@@ -110,8 +255,20 @@ public class WalkGenerationManager {
      * @param isGenerateTextWalks Indicator whether text shall also appear in the embedding space.
      */
     public WalkGenerationManager(OntModel ontModel, boolean isGenerateTextWalks) {
+        this(ontModel, isGenerateTextWalks, null);
+    }
+
+    /**
+     * Constructor for OntModel.
+     *
+     * @param ontModel            Model for which walks shall be generated.
+     * @param isGenerateTextWalks Indicator whether text shall also appear in the embedding space.
+     * @param walkFilter          Filter on the walked edges; null to walk all edges.
+     */
+    public WalkGenerationManager(OntModel ontModel, boolean isGenerateTextWalks, WalkFilter walkFilter) {
         this.walkGenerator = new JenaOntModelMemoryWalkGenerator();
         ((JenaOntModelMemoryWalkGenerator) this.walkGenerator).setParseDatatypeProperties(isGenerateTextWalks);
+        ((JenaOntModelMemoryWalkGenerator) this.walkGenerator).setWalkFilter(walkFilter);
         ((JenaOntModelMemoryWalkGenerator) this.walkGenerator).readDataFromOntModel(ontModel);
         this.entitySelector = new MemoryEntitySelector(((JenaOntModelMemoryWalkGenerator) walkGenerator).getData());
         this.setGenerateTextWalks(isGenerateTextWalks);
@@ -149,6 +306,25 @@ public class WalkGenerationManager {
      */
     public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
                                  boolean isSetEntitySelector, File existingWalks, File newWalkDirectory) {
+        this(knowledgeGraphResource, isGenerateTextWalks, isSetEntitySelector, existingWalks, newWalkDirectory, null);
+    }
+
+    /**
+     * Main Constructor
+     *
+     * @param knowledgeGraphResource A URI representing the graph for which an embedding shall be trained.
+     * @param isGenerateTextWalks    True if text shall also appear in the embedding space.
+     * @param isSetEntitySelector    If true, an entity selector will be chosen automatically.
+     * @param existingWalks          If existing walks shall be parsed, the existing walk directory can be specified here.
+     * @param newWalkDirectory       The new walk directory that is to be written. If there are existing walks, those will
+     *                               be copied if the file is not corrupted.
+     * @param walkFilter             Filter on the walked edges; null to walk all edges. In-memory graphs drop the
+     *                               filtered triples while parsing, disk-based graphs (HDT, TDB) skip them while
+     *                               walking.
+     */
+    public WalkGenerationManager(URI knowledgeGraphResource, boolean isGenerateTextWalks,
+                                 boolean isSetEntitySelector, File existingWalks, File newWalkDirectory,
+                                 WalkFilter walkFilter) {
         if (Util.uriIsFile(knowledgeGraphResource)) {
             File knowledgeGraphFile = new File(knowledgeGraphResource);
             if (!knowledgeGraphFile.exists()) {
@@ -158,11 +334,13 @@ public class WalkGenerationManager {
             if (knowledgeGraphFile.isDirectory()) {
                 // DIRECTORY OPTIONS
                 // (1) TDB
-                // (2) Directory with multiple NT files
+                // (2) Directory with multiple HDT files
+                // (3) Directory with multiple NT files
                 if (Util.isTdbDirectory(knowledgeGraphFile)) {
                     // (1) TDB
                     LOGGER.info("TDB directory recognized. Using disk-based TDB walk generator.");
                     this.walkGenerator = new TdbWalkGenerator(knowledgeGraphResource);
+                    ((TdbWalkGenerator) this.walkGenerator).setWalkFilter(walkFilter);
                     if (isSetEntitySelector) {
                         LOGGER.info("Setting TDB entity selector...");
                         EntitySelector entitySelector =
@@ -174,11 +352,31 @@ public class WalkGenerationManager {
                                     entitySelector);
                         }
                     }
+                } else if (!MultiHdtWalkGenerator.getHdtFiles(knowledgeGraphFile).isEmpty()) {
+                    // (2) HDT Directory
+                    LOGGER.info("Directory with HDT files recognized. Using the multi-HDT walk generator.");
+                    try {
+                        this.walkGenerator = new MultiHdtWalkGenerator(knowledgeGraphFile);
+                        ((MultiHdtWalkGenerator) this.walkGenerator).setWalkFilter(walkFilter);
+                    } catch (IOException ioe) {
+                        LOGGER.error("Could not open the HDT files in the directory. ABORT.", ioe);
+                        return;
+                    }
+                    if (isSetEntitySelector) {
+                        EntitySelector entitySelector = ((MultiHdtWalkGenerator) walkGenerator)::getEntities;
+                        if (existingWalks == null) {
+                            this.entitySelector = entitySelector;
+                        } else {
+                            this.entitySelector = new ContinuationEntitySelector(existingWalks, newWalkDirectory,
+                                    entitySelector);
+                        }
+                    }
                 } else {
-                    // (2) NT Directory
+                    // (3) NT Directory
                     LOGGER.warn("You specified a directory. Trying to parse files in the directory. The program will fail (later) " +
                             "if you use an entity selector that requires one ontology.");
                     this.walkGenerator = new NtMemoryWalkGenerator(isGenerateTextWalks);
+                    ((NtMemoryWalkGenerator) this.walkGenerator).setWalkFilter(walkFilter);
                     ((NtMemoryWalkGenerator) this.walkGenerator).readNtTriplesFromDirectoryMultiThreaded(knowledgeGraphFile, false);
                     if (isSetEntitySelector) {
                         EntitySelector entitySelector =
@@ -194,7 +392,8 @@ public class WalkGenerationManager {
             } else {
                 // knowledge graph resource is a file
                 // decide on parser depending on file ending
-                Pair<IWalkGenerator, EntitySelector> parserSelectorPair = WalkGeneratorManager.parseSingleFile(knowledgeGraphFile, isGenerateTextWalks);
+                Pair<IWalkGenerator, EntitySelector> parserSelectorPair = WalkGeneratorManager.parseSingleFile(knowledgeGraphFile, isGenerateTextWalks,
+                        walkFilter);
                 this.walkGenerator = parserSelectorPair.getValue0();
                 if (isSetEntitySelector) {
                     this.entitySelector = parserSelectorPair.getValue1();
@@ -210,6 +409,17 @@ public class WalkGenerationManager {
         }
     }
 
+    /**
+     * End the build phase of an in-memory graph before the walk threads are started, so that the threads read an
+     * immutable structure (see {@link TripleDataSetMemory#freeze()}).
+     */
+    private void freezeData() {
+        if (walkGenerator instanceof MemoryWalkGenerator) {
+            TripleDataSetMemory data = ((MemoryWalkGenerator) walkGenerator).getData();
+            if (data != null) data.freeze();
+        }
+    }
+
     /**
      * Constructor for path to triple file.
      *
@@ -229,7 +439,7 @@ public class WalkGenerationManager {
 
         // optionally generate text walks on top
         if (isGenerateTextWalks()) {
-            this.generateTextWalks(numberOfThreads, textWalkLength);
+            this.generateTextWalks(numberOfThreads, textWalkLength, walkDirectory);
         }
         this.close();
     }
@@ -257,16 +467,42 @@ public class WalkGenerationManager {
      */
     public void generateWalksForEntities(Set<String> entities, int numberOfThreads, int numberOfWalks, int walkLength,
                                          WalkGenerationMode mode) {
+        freezeData();
+        entities = initializeCheckpoint(entities, PHASE_WALKS);
         setOutputFileWriter();
 
+        boolean isLockstep = isLockstepApplicable(mode);
+
         // thread pool
+        int batchSize = isLockstep ? getLockstepBatchSize(entities.size(), numberOfThreads, numberOfWalks) :
+                getBatchSize(entities.size(), numberOfThreads);
         ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
                 0, TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(entities.size()));
+                new java.util.concurrent.ArrayBlockingQueue<>(Math.max(1, entities.size() / batchSize + 1)));
 
-        for (String entity : entities) {
-            DefaultEntityWalkRunnable th = new DefaultEntityWalkRunnable(this, entity, numberOfWalks, walkLength, mode);
-            pool.execute(th);
+        WalkMetrics.getInstance().setQueueDepthSupplier(() -> pool.getQueue().size());
+        if (isLockstep) {
+            List<String> batch = new ArrayList<>(batchSize);
+            for (String entity : entities) {
+                batch.add(entity);
+                if (batch.size() == batchSize) {
+                    pool.execute(new LockstepEntityWalkRunnable(this, batch, numberOfWalks, walkLength, mode));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pool.execute(new LockstepEntityWalkRunnable(this, batch, numberOfWalks, walkLength, mode));
+            }
+        } else {
+            List<Runnable> batch = new ArrayList<>(batchSize);
+            for (String entity : entities) {
+                batch.add(new DefaultEntityWalkRunnable(this, entity, numberOfWalks, walkLength, mode));
+                if (batch.size() == batchSize) {
+                    executeBatch(pool, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            executeBatch(pool, batch);
         }
 
         pool.shutdown();
@@ -276,7 +512,9 @@ public class WalkGenerationManager {
             LOGGER.error("Interrupted Exception");
             e.printStackTrace();
         }
+        WalkMetrics.getInstance().setQueueDepthSupplier(null);
         flushWriter();
+        sealCheckpointPhase();
     }
 
     public void generateTextWalks(int numberOfThreads, int walkLength) {
@@ -348,15 +586,23 @@ public class WalkGenerationManager {
      * @param walkLength      The length of each walks
      */
     public void generateTextWalksForEntities(Set<String> entities, int numberOfThreads, int walkLength) {
+        freezeData();
+        entities = initializeCheckpoint(entities, PHASE_TEXT_WALKS);
         setOutputFileWriter();
+        int batchSize = getBatchSize(entities.size(), numberOfThreads);
         ThreadPoolExecutor pool = new ThreadPoolExecutor(numberOfThreads, numberOfThreads,
                 0, TimeUnit.SECONDS,
-                new java.util.concurrent.ArrayBlockingQueue<>(entities.size()));
+                new java.util.concurrent.ArrayBlockingQueue<>(Math.max(1, entities.size() / batchSize + 1)));
+        WalkMetrics.getInstance().setQueueDepthSupplier(() -> pool.getQueue().size());
+        List<Runnable> batch = new ArrayList<>(batchSize);
         for (String entity : entities) {
-            DatatypeEntityWalkRunnable runnable = new DatatypeEntityWalkRunnable(this, entity,
-                    walkLength);
-            pool.execute(runnable);
+            batch.add(new DatatypeEntityWalkRunnable(this, entity, walkLength));
+            if (batch.size() == batchSize) {
+                executeBatch(pool, batch);
+                batch = new ArrayList<>(batchSize);
+            }
         }
+        executeBatch(pool, batch);
         pool.shutdown();
         try {
             pool.awaitTermination(timeout, timeoutUnit);
@@ -364,7 +610,193 @@ public class WalkGenerationManager {
             LOGGER.error("Interrupted Exception");
             e.printStackTrace();
         }
+        WalkMetrics.getInstance().setQueueDepthSupplier(null);
         flushWriter();
+        sealCheckpointPhase();
+    }
+
+    /**
+     * Determine the number of consecutive entities that are processed by one task. Consecutive entities are close to
+     * each other if the entity selector returns them in a locality-aware order (see {@link EntityOrdering}); with
+     * batches, the threads work on contiguous ranges. The batches are kept small enough so that every thread gets
+     * several of them.
+     *
+     * @param numberOfEntities The number of entities.
+     * @param numberOfThreads  The number of threads.
+     * @return The batch size (at least 1).
+     */
+    int getBatchSize(int numberOfEntities, int numberOfThreads) {
+        return Math.max(1, Math.min(entityBatchSize, numberOfEntities / (4 * Math.max(1, numberOfThreads))));
+    }
+
+    /**
+     * Determine the number of entities of one lockstep batch: as many entities as fit into the configured number of
+     * walks in flight, but small enough so that every thread gets several batches.
+     *
+     * @param numberOfEntities The number of entities.
+     * @param numberOfThreads  The number of threads.
+     * @param numberOfWalks    The number of walks per entity.
+     * @return The batch size (at least 1).
+     */
+    int getLockstepBatchSize(int numberOfEntities, int numberOfThreads, int numberOfWalks) {
+        int entitiesInFlight = Math.max(1, lockstepWalksInFlight / Math.max(1, numberOfWalks));
+        return Math.max(1, Math.min(entitiesInFlight, numberOfEntities / (4 * Math.max(1, numberOfThreads))));
+    }
+
+    /**
+     * @param mode The walk generation mode.
+     * @return True if lockstep walking is enabled and supported by the mode and the walk generator.
+     */
+    private boolean isLockstepApplicable(WalkGenerationMode mode) {
+        if (!isLockstepWalking) return false;
+        if (!LockstepEntityWalkRunnable.isModeSupported(mode)) {
+            LOGGER.info("Lockstep walking is not available for " + mode + ". Generating the walks per entity.");
+            return false;
+        }
+        if (!(walkGenerator instanceof ILockstepWalkCapability)) {
+            LOGGER.info("The walk generator does not support lockstep walking. Generating the walks per entity.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Run the given runnables one after another in one task of the pool.
+     */
+    private static void executeBatch(ThreadPoolExecutor pool, List<Runnable> batch) {
+        if (batch.isEmpty()) return;
+        pool.execute(() -> {
+            for (Runnable runnable : batch) runnable.run();
+        });
+    }
+
+    /**
+     * If checkpointing is enabled, the checkpoint log of the walk directory is read (or created), walk files of an
+     * interrupted run that have not been committed are removed, and entities that have already been committed are
+     * excluded.
+     *
+     * @param entities The entities for which walks shall be generated.
+     * @param phase    The checkpoint phase.
+     * @return The entities that still have to be processed.
+     */
+    private Set<String> initializeCheckpoint(Set<String> entities, String phase) {
+        this.checkpointPhase = phase;
+        if (!isCheckpointing) return entities;
+        if (this.walkDirectory == null) {
+            this.walkDirectory = new File(DEFAULT_WALK_DIRECTORY);
+        }
+        if (checkpointLog == null) {
+            checkpointLog = new WalkCheckpointLog(this.walkDirectory, shardName);
+            int removed = checkpointLog.removeUncommittedWalkFiles();
+            if (removed > 0) {
+                LOGGER.info("Removed " + removed + " uncommitted walk file(s) of a previous run.");
+            }
+            currentFileIndex = checkpointLog.getNextFileIndex();
+        }
+        Set<String> committed = checkpointLog.getCommittedEntities(phase);
+        if (committed.isEmpty()) return entities;
+        // keep the order of the entity selector
+        Set<String> result = new LinkedHashSet<>();
+        for (String entity : entities) {
+            if (!committed.contains(entity)) result.add(entity);
+        }
+        LOGGER.info("Resuming from checkpoint: " + (entities.size() - result.size()) + " entities already " +
+                "completed (phase: " + phase + "), " + result.size() + " remaining.");
+        return result;
+    }
+
+    /**
+     * Seals the current walk file at the end of a checkpoint phase so that the next phase starts in a new file.
+     */
+    private synchronized void sealCheckpointPhase() {
+        if (!isCheckpointing || writer == null) return;
+        sealCurrentFile();
+        openNewFile();
+    }
+
+    /**
+     * Closes the current walk file. If checkpointing is enabled, the file is synced to disk and committed to the
+     * checkpoint log afterwards. Empty walk files are removed in checkpointing mode.
+     */
+    private void sealCurrentFile() {
+        if (writer == null) return;
+        try {
+            closeWalkFile();
+        } catch (IOException e) {
+            LOGGER.error("Could not close walk file " + currentFileName + ".", e);
+            return;
+        }
+        if (isCheckpointing && checkpointLog != null) {
+            if (isCurrentFileEmpty()) {
+                if (!new File(walkDirectory, currentFileName).delete()) {
+                    LOGGER.warn("Could not remove empty walk file " + currentFileName + ".");
+                }
+            } else if (checkpointLog.commit(checkpointPhase, currentFileName, currentFileEntities)) {
+                LOGGER.info("Checkpoint written: " + currentFileName + " (" + currentFileEntities.size() +
+                        " entities).");
+            }
+            currentFileEntities = new ArrayList<>();
+        }
+        fileProcessedLines = 0;
+        currentFileIndex++;
+    }
+
+    /**
+     * Closes the writer (which completes the gzip stream) and the underlying file stream. If checkpointing is
+     * enabled, non-empty files are synced in between, i.e., before they are committed to the checkpoint log;
+     * otherwise a crash could leave a committed but truncated walk file behind.
+     *
+     * @throws IOException If the file could not be completed or synced.
+     */
+    private void closeWalkFile() throws IOException {
+        try {
+            writer.close();
+            if (isCheckpointing && !isCurrentFileEmpty()) {
+                syncWalkFile(walkFileStream, new File(walkDirectory, currentFileName));
+            }
+        } finally {
+            walkFileStream.close();
+        }
+    }
+
+    /**
+     * @return True if no walk has been written to the current walk file.
+     */
+    private boolean isCurrentFileEmpty() {
+        return currentFileEntities.isEmpty() && fileProcessedLines == 0;
+    }
+
+    /**
+     * Forces the content of a completed walk file (and its directory entry) to the storage device.
+     *
+     * @param stream The stream of the walk file.
+     * @param file   The walk file.
+     * @throws IOException If the file could not be synced.
+     */
+    void syncWalkFile(FileOutputStream stream, File file) throws IOException {
+        stream.getFD().sync();
+        Util.syncDirectory(file.getAbsoluteFile().getParentFile());
+    }
+
+    /**
+     * Opens a new walk file with the current file index.
+     */
+    private void openNewFile() {
+        currentFileName = (shardName == null) ? "walk_file_" + currentFileIndex + ".txt.gz" :
+                "walk_file_" + shardName + "_" + currentFileIndex + ".txt.gz";
+        File outputFile = new File(this.walkDirectory, currentFileName);
+        writtenFileNames.add(currentFileName);
+        if (outputFile.getParentFile() != null && outputFile.getParentFile().mkdirs()) {
+            LOGGER.info("Directory created.");
+        }
+        try {
+            this.walkFileStream = new FileOutputStream(outputFile, false);
+            this.writer = new OutputStreamWriter(new GZIPOutputStream(
+                    WalkMetrics.countCompressedBytes(new CloseShieldOutputStream(walkFileStream))),
+                    StandardCharsets.UTF_8);
+        } catch (Exception e1) {
+            LOGGER.error("Could not initialize writer. Aborting process.", e1);
+        }
     }
 
 
@@ -387,18 +819,7 @@ public class WalkGenerationManager {
     void setOutputFileWriter() {
         // only act if the writer has not yet been initialized.
         if (this.writer == null) {
-            File outputFile = new File(this.walkDirectory, "walk_file_0.txt.gz");
-            if (outputFile.getParentFile().mkdirs()) {
-                LOGGER.info("Directory created.");
-            }
-
-            // initialize the writer
-            try {
-                this.writer = new OutputStreamWriter(new GZIPOutputStream(
-                        new FileOutputStream(outputFile, false)), StandardCharsets.UTF_8);
-            } catch (Exception e1) {
-                LOGGER.error("Could not initialize writer. Aborting process.", e1);
-            }
+            openNewFile();
         }
     }
 
@@ -408,41 +829,65 @@ public class WalkGenerationManager {
      *
      * @param walksToWrite Entries that shall be written.
      */
-    public synchronized void writeToFile(List<String> walksToWrite) {
+    public void writeToFile(List<String> walksToWrite) {
+        writeToFile(null, walksToWrite);
+    }
+
+    /**
+     * Writes the walks of one entity. The walks of an entity are never split across walk files. If checkpointing
+     * is enabled, the entity is recorded as completed once the walk file it was written to has been sealed.
+     *
+     * @param entity       The entity for which the walks were generated (may be null if checkpointing is disabled).
+     * @param walksToWrite Entries that shall be written.
+     */
+    public void writeToFile(String entity, List<String> walksToWrite) {
         if(walksToWrite == null){
             LOGGER.error("walksToWrite null. No walk will be written.");
             return;
         }
+        if (isVocabularyCounting) {
+            VocabularyCounts counts = threadVocabularyCounts.get();
+            for (String walk : walksToWrite) counts.addWalk(walk);
+        }
+        long waitStart = WalkMetrics.writerWaitStart();
+        synchronized (this) {
+            WalkMetrics.writerWaitEnd(waitStart);
+            writeWalks(entity, walksToWrite);
+        }
+    }
+
+    /**
+     * Writes the walks of one entity. The caller must hold the lock of this manager.
+     *
+     * @param entity       The entity for which the walks were generated (may be null).
+     * @param walksToWrite Entries that shall be written.
+     */
+    private void writeWalks(String entity, List<String> walksToWrite) {
         processedEntities++;
         processedWalks += walksToWrite.size();
         fileProcessedLines += walksToWrite.size();
+        long characters = 0;
         for (String str : walksToWrite)
             try {
-                writer.write(str + "\n");
+                writer.write(str);
+                writer.write('\n');
+                characters += str.length() + 1;
             } catch (IOException e) {
                 e.printStackTrace();
             }
+        WalkMetrics.recordEntity(walksToWrite.size(), characters);
+        if (isCheckpointing && entity != null) {
+            currentFileEntities.add(entity);
+        }
         if (processedEntities % 1000 == 0) {
             LOGGER.info("TOTAL PROCESSED ENTITIES: " + processedEntities);
             LOGGER.info("TOTAL NUMBER OF PATHS : " + processedWalks);
         }
-        // flush the file
-        if (fileProcessedLines > 3000000) {
-            fileProcessedLines = 0;
-            try {
-                writer.flush();
-                writer.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            long tmpNM = (processedWalks / 3000000);
-            File newFile = new File(this.walkDirectory, "walk_file_" + tmpNM + ".txt.gz");
-            try {
-                writer = new OutputStreamWriter(new GZIPOutputStream(
-                        new FileOutputStream(newFile, false)), StandardCharsets.UTF_8);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        // seal the file and start a new one
+        if (fileProcessedLines > MAX_LINES_PER_FILE ||
+                (isCheckpointing && currentFileEntities.size() >= checkpointInterval)) {
+            sealCurrentFile();
+            openNewFile();
         }
     }
 
@@ -451,13 +896,266 @@ public class WalkGenerationManager {
      */
     public void close() {
         if (writer == null) return;
-        try {
-            writer.close();
-        } catch (IOException ioe) {
-            LOGGER.error("There was an error when closing the writer.", ioe);
+        if (isCheckpointing) {
+            sealCurrentFile();
+        } else {
+            try {
+                closeWalkFile();
+            } catch (IOException ioe) {
+                LOGGER.error("There was an error when closing the writer.", ioe);
+            }
         }
+        writer = null;
+        writeVocabulary();
         if (getWalkGenerator() instanceof ICloseableWalkGenerator) {
             ((ICloseableWalkGenerator) this.walkGenerator).close();
         }
     }
+
+    /**
+     * Merges the token counts of all threads and writes the vocabulary file (if vocabulary counting is enabled).
+     * Walk files of this manager's shard that have not been written in this run (e.g. walk files of a resumed run)
+     * are counted from disk; other files in the walk directory are ignored.
+     */
+    private void writeVocabulary() {
+        if (!isVocabularyCounting) return;
+        Instant before = Instant.now();
+        VocabularyCounts counts = new VocabularyCounts();
+        synchronized (allThreadVocabularyCounts) {
+            for (VocabularyCounts threadCounts : allThreadVocabularyCounts) {
+                counts.addAll(threadCounts);
+            }
+        }
+        File[] files = (walkDirectory == null) ? null : walkDirectory.listFiles();
+        if (files != null) {
+            Pattern walkFilePattern = WalkCheckpointLog.getWalkFilePattern(shardName);
+            for (File file : files) {
+                if (!file.isFile() || writtenFileNames.contains(file.getName())
+                        || !walkFilePattern.matcher(file.getName()).matches()) continue;
+                LOGGER.info("Counting the tokens of existing walk file " + file.getName() + ".");
+                VocabularyCounts fileCounts = VocabularyCounts.countWalkFile(file);
+                if (fileCounts == null) {
+                    LOGGER.error("The vocabulary file is not written.");
+                    return;
+                }
+                counts.addAll(fileCounts);
+            }
+        }
+        int pruned = counts.prune(vocabularyMinCount);
+        File file = new File(walkDirectory, VocabularyCounts.FILE_NAME);
+        if (counts.write(file)) {
+            vocabularyFile = file;
+            requiredTimeForVocabularyString = Util.getDeltaTimeString(before, Instant.now());
+            LOGGER.info("Vocabulary file written: " + counts.size() + " tokens (" + pruned + " tokens below the " +
+                    "minimal count removed).");
+        }
+    }
+
+    public boolean isCheckpointing() {
+        return isCheckpointing;
+    }
+
+    /**
+     * Enable or disable checkpointing. If enabled, walk files are sealed periodically and recorded in a
+     * {@link WalkCheckpointLog} within the walk directory. Starting a run in a walk directory that contains a
+     * checkpoint log resumes the interrupted run.
+     *
+     * @param checkpointing True if checkpointing shall be enabled.
+     */
+    public void setCheckpointing(boolean checkpointing) {
+        isCheckpointing = checkpointing;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * Set the number of entities after which the current walk file is sealed.
+     *
+     * @param checkpointInterval Number of entities (must be greater than 0).
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            LOGGER.error("The checkpoint interval must be greater than 0. Using default: " +
+                    DEFAULT_CHECKPOINT_INTERVAL);
+            this.checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+            return;
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Set the order in which the entities are processed (see {@link EntityOrdering}). Only supported if the entity
+     * selector implements {@link IOrderedEntitySelector}.
+     *
+     * @param ordering The ordering.
+     */
+    public void setEntityOrdering(EntityOrdering ordering) {
+        if (entitySelector instanceof IOrderedEntitySelector) {
+            ((IOrderedEntitySelector) entitySelector).setEntityOrdering(ordering);
+        } else if (ordering != null && ordering != EntityOrdering.NONE) {
+            LOGGER.warn("The entity selector does not support the entity ordering " + ordering + ". Ignoring it.");
+        }
+    }
+
+    public int getEntityBatchSize() {
+        return entityBatchSize;
+    }
+
+    /**
+     * Set the maximal number of consecutive entities that are processed by one task. Larger batches keep the
+     * threads on contiguous ranges of the entity order; smaller batches balance the load better.
+     *
+     * @param entityBatchSize The batch size. Values &lt; 1 are set to 1.
+     */
+    public void setEntityBatchSize(int entityBatchSize) {
+        this.entityBatchSize = Math.max(1, entityBatchSize);
+    }
+
+    public boolean isLockstepWalking() {
+        return isLockstepWalking;
+    }
+
+    /**
+     * If enabled, random walks and mid walks are generated in lockstep: the walks of a batch of entities (see
+     * {@link WalkGenerationManager#setLockstepWalksInFlight(int)}) advance one hop at a time, and the hops of each
+     * step are sorted by node so that the adjacency lookups are shared and run in storage order. This reduces random
+     * I/O on graphs that do not fit into memory. Ignored for other walk generation modes and for walk generators
+     * that do not implement {@link ILockstepWalkCapability}.
+     *
+     * @param lockstepWalking True to enable lockstep walking.
+     */
+    public void setLockstepWalking(boolean lockstepWalking) {
+        isLockstepWalking = lockstepWalking;
+    }
+
+    public int getLockstepWalksInFlight() {
+        return lockstepWalksInFlight;
+    }
+
+    /**
+     * Set the number of walks that are advanced together in one lockstep batch. More walks share more lookups but
+     * need more memory.
+     *
+     * @param lockstepWalksInFlight The number of walks. Values &lt; 1 are set to 1.
+     */
+    public void setLockstepWalksInFlight(int lockstepWalksInFlight) {
+        this.lockstepWalksInFlight = Math.max(1, lockstepWalksInFlight);
+    }
+
+    /**
+     * Cap the number of candidate edges per hop. Hubs (nodes with more edges than {@code maxDegree}) are sampled
+     * uniformly so that the cost per hop is bounded.
+     *
+     * @param maxDegree The maximal number of candidate edges per node and direction; values &lt; 1 disable the cap.
+     */
+    public void setMaxDegree(int maxDegree) {
+        if (walkGenerator instanceof IDegreeCappingWalkGenerator) {
+            ((IDegreeCappingWalkGenerator) walkGenerator).setMaxDegree(maxDegree);
+        } else if (maxDegree > 0) {
+            LOGGER.error("The walk generator does not support degree capping. The degree is not capped.");
+        }
+    }
+
+    public int getMaxDegree() {
+        if (walkGenerator instanceof IDegreeCappingWalkGenerator) {
+            return ((IDegreeCappingWalkGenerator) walkGenerator).getMaxDegree();
+        }
+        return IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT;
+    }
+
+    /**
+     * Keep the adjacency lists of the most frequently visited nodes on the heap (hot tier) and serve the remaining
+     * lookups from the memory-mapped file (see {@link HdtWalkGenerator#setHotTierBudget(long)}). Only supported for
+     * HDT files.
+     *
+     * @param budgetBytes The maximal heap size of the hot tier in bytes. Values &lt; 1 disable the hot tier.
+     */
+    public void setHotTierBudget(long budgetBytes) {
+        if (walkGenerator instanceof HdtWalkGenerator) {
+            ((HdtWalkGenerator) walkGenerator).setHotTierBudget(budgetBytes);
+        } else if (budgetBytes > 0) {
+            LOGGER.warn("A hot tier is only supported for single HDT files. All adjacency lists stay where they are.");
+        }
+    }
+
+    public String getShardName() {
+        return shardName;
+    }
+
+    /**
+     * Set the name of the walk shard. Must be set before the walk generation is started.
+     *
+     * @param shardName Shard name (must be usable in a file name); null for the default file names.
+     */
+    public void setShardName(String shardName) {
+        this.shardName = shardName;
+    }
+
+    public boolean isVocabularyCounting() {
+        return isVocabularyCounting;
+    }
+
+    /**
+     * Enable or disable the vocabulary counting. If enabled, the walk threads count the tokens of their walks and
+     * the counts are written to {@link VocabularyCounts#FILE_NAME} in the walk directory when the manager is closed.
+     * The training can then build its vocabulary from the counts instead of reading all walks an additional time.
+     * Must be set before the walk generation is started.
+     *
+     * @param vocabularyCounting True if the vocabulary shall be counted.
+     */
+    public void setVocabularyCounting(boolean vocabularyCounting) {
+        isVocabularyCounting = vocabularyCounting;
+    }
+
+    public long getVocabularyMinCount() {
+        return vocabularyMinCount;
+    }
+
+    /**
+     * Tokens that occur less often than the given count are not written to the vocabulary file (the counterpart of
+     * word2vec's {@code min_count}).
+     *
+     * @param vocabularyMinCount The minimal count.
+     */
+    public void setVocabularyMinCount(long vocabularyMinCount) {
+        this.vocabularyMinCount = vocabularyMinCount;
+    }
+
+    /**
+     * Get the time it took to merge and write the vocabulary when the manager was closed.
+     *
+     * @return The time as String or null if no vocabulary has been written.
+     */
+    public String getRequiredTimeForVocabularyString() {
+        return requiredTimeForVocabularyString;
+    }
+
+    /**
+     * Get the vocabulary file that has been written when the manager was closed.
+     *
+     * @return The vocabulary file or null if none has been written.
+     */
+    public File getVocabularyFile() {
+        return vocabularyFile;
+    }
+
+    /**
+     * Get the number of entities that have been processed so far.
+     *
+     * @return Number of processed entities.
+     */
+    public synchronized long getProcessedEntities() {
+        return processedEntities;
+    }
+
+    /**
+     * Get the number of walks that have been written so far.
+     *
+     * @return Number of written walks.
+     */
+    public synchronized long getProcessedWalks() {
+        return processedWalks;
+    }
 }
@@ -0,0 +1,58 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Flat, random-access edge array of one node of a {@link TripleDataSetMemory} while it is built. The array is
+ * read-only for callers (the {@link java.util.List} mutators throw {@link UnsupportedOperationException}), hence the
+ * data set hands it out without a wrapper; it is changed only by the data set through
+ * {@link EdgeArray#append(Triple)} and {@link EdgeArray#swapRemove(int)}.
+ */
+final class EdgeArray extends AbstractList<Triple> implements RandomAccess {
+
+
+    private Triple[] edges = new Triple[2];
+
+    private int size = 0;
+
+    /**
+     * Append an edge.
+     *
+     * @param edge The edge.
+     * @return The index of the edge.
+     */
+    int append(Triple edge) {
+        if (size == edges.length) {
+            edges = Arrays.copyOf(edges, size + (size >> 1) + 1);
+        }
+        edges[size] = edge;
+        return size++;
+    }
+
+    /**
+     * Remove the edge at the given index by moving the last edge to its place.
+     *
+     * @param index The index of the edge to be removed.
+     * @return The edge that has been moved to {@code index} or null if the last edge was removed.
+     */
+    Triple swapRemove(int index) {
+        int last = --size;
+        Triple moved = index == last ? null : edges[last];
+        edges[index] = edges[last];
+        edges[last] = null;
+        return moved;
+    }
+
+    @Override
+    public Triple get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index);
+        return edges[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
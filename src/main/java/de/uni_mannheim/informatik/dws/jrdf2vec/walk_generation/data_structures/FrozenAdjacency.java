@@ -0,0 +1,437 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import java.util.*;
+
+/**
+ * Immutable adjacency of the object triples of a {@link TripleDataSetMemory} (see
+ * {@link TripleDataSetMemory#freeze()}).
+ * <p>
+ * Nodes and predicates are identified by their dense ID in the {@link TermPool}. The edges of all nodes are stored
+ * as ID arrays per direction (compressed sparse rows): the outgoing edges of node {@code i} are the positions
+ * {@code [outOffsets[i], outOffsets[i + 1])} of {@code outPredicates} and {@code outObjects}, sorted by (predicate,
+ * object) ID; the incoming edges are stored in {@code inPredicates} and {@code inSubjects}, sorted by (predicate,
+ * subject) ID. The arrays are exactly as large as required. Ranges are found by binary search on the IDs;
+ * {@link Triple} instances are only created when an edge is read as triple. Walks read the IDs directly
+ * ({@link FrozenAdjacency#outDegree(int)}, {@link FrozenAdjacency#outObjectId(int, int)}, ...).
+ * <p>
+ * All fields are final and never written after construction, hence every thread that obtains a reference to an
+ * instance sees the complete structure, and reads are wait-free.
+ */
+final class FrozenAdjacency {
+
+
+    private final TermPool termPool;
+
+    private final int[] outOffsets;
+
+    private final int[] outPredicates;
+
+    private final int[] outObjects;
+
+    private final int[] inOffsets;
+
+    private final int[] inPredicates;
+
+    private final int[] inSubjects;
+
+    private final int numberOfSubjects;
+
+    private final int numberOfObjects;
+
+    private FrozenAdjacency(TermPool termPool, int[] outOffsets, int[] outPredicates, int[] outObjects,
+                            int[] inOffsets, int[] inPredicates, int[] inSubjects) {
+        this.termPool = termPool;
+        this.outOffsets = outOffsets;
+        this.outPredicates = outPredicates;
+        this.outObjects = outObjects;
+        this.inOffsets = inOffsets;
+        this.inPredicates = inPredicates;
+        this.inSubjects = inSubjects;
+        this.numberOfSubjects = countNodes(outOffsets);
+        this.numberOfObjects = countNodes(inOffsets);
+    }
+
+    /**
+     * Build the adjacency. The edge arrays are sorted by three stable counting sorts over the term IDs each, i.e.,
+     * in linear time.
+     *
+     * @param subjects   The subject ID of every (duplicate free) triple.
+     * @param predicates The predicate ID of every triple.
+     * @param objects    The object ID of every triple.
+     * @param termPool   The term pool of the IDs.
+     * @return The adjacency.
+     */
+    static FrozenAdjacency build(int[] subjects, int[] predicates, int[] objects, TermPool termPool) {
+        int n = subjects.length;
+        int numberOfTerms = termPool.size();
+        int[] identity = new int[n];
+        for (int i = 0; i < n; i++) identity[i] = i;
+
+        // least significant key first
+        int[] order = sort(sort(sort(identity, objects, numberOfTerms), predicates, numberOfTerms), subjects,
+                numberOfTerms);
+        int[] outPredicates = new int[n];
+        int[] outObjects = new int[n];
+        for (int i = 0; i < n; i++) {
+            outPredicates[i] = predicates[order[i]];
+            outObjects[i] = objects[order[i]];
+        }
+
+        order = sort(sort(sort(identity, subjects, numberOfTerms), predicates, numberOfTerms), objects,
+                numberOfTerms);
+        int[] inPredicates = new int[n];
+        int[] inSubjects = new int[n];
+        for (int i = 0; i < n; i++) {
+            inPredicates[i] = predicates[order[i]];
+            inSubjects[i] = subjects[order[i]];
+        }
+
+        return new FrozenAdjacency(termPool, offsets(subjects, numberOfTerms), outPredicates, outObjects,
+                offsets(objects, numberOfTerms), inPredicates, inSubjects);
+    }
+
+    /**
+     * Stable counting sort.
+     *
+     * @param order         Triple indices in their current order.
+     * @param keys          Key of every triple index.
+     * @param numberOfKeys  Keys are in {@code [0, numberOfKeys)}.
+     * @return Triple indices sorted by key.
+     */
+    private static int[] sort(int[] order, int[] keys, int numberOfKeys) {
+        int[] positions = offsets(keys, numberOfKeys);
+        int[] result = new int[order.length];
+        for (int index : order) {
+            result[positions[keys[index]]++] = index;
+        }
+        return result;
+    }
+
+    /**
+     * @return Array where entry {@code k} is the number of keys smaller than {@code k}.
+     */
+    private static int[] offsets(int[] keys, int numberOfKeys) {
+        int[] result = new int[numberOfKeys + 1];
+        for (int key : keys) result[key + 1]++;
+        for (int k = 0; k < numberOfKeys; k++) result[k + 1] += result[k];
+        return result;
+    }
+
+    private static int countNodes(int[] offsets) {
+        int result = 0;
+        for (int i = 0; i < offsets.length - 1; i++) {
+            if (offsets[i + 1] > offsets[i]) result++;
+        }
+        return result;
+    }
+
+    /**
+     * @param node The node.
+     * @return The dense ID of the node or {@link TermPool#NOT_FOUND} if it has no edges.
+     */
+    private int getNodeId(String node, int[] offsets) {
+        int id = termPool.lookup(node);
+        if (id < 0 || id >= offsets.length - 1 || offsets[id + 1] == offsets[id]) return TermPool.NOT_FOUND;
+        return id;
+    }
+
+    int getDegree(String node, boolean isOutgoing) {
+        int id = termPool.lookup(node);
+        return isOutgoing ? outDegree(id) : inDegree(id);
+    }
+
+    /**
+     * @param id The ID of the node (may be {@link TermPool#NOT_FOUND}).
+     * @return The number of edges in which the node is the subject.
+     */
+    int outDegree(int id) {
+        return degree(id, outOffsets);
+    }
+
+    /**
+     * @param id The ID of the node (may be {@link TermPool#NOT_FOUND}).
+     * @return The number of edges in which the node is the object.
+     */
+    int inDegree(int id) {
+        return degree(id, inOffsets);
+    }
+
+    private static int degree(int id, int[] offsets) {
+        if (id < 0 || id >= offsets.length - 1) return 0;
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * @return The predicate ID of the i-th outgoing edge of the node; the index is not checked against the degree.
+     */
+    int outPredicateId(int id, int index) {
+        return outPredicates[outOffsets[id] + index];
+    }
+
+    /**
+     * @return The object ID of the i-th outgoing edge of the node; the index is not checked against the degree.
+     */
+    int outObjectId(int id, int index) {
+        return outObjects[outOffsets[id] + index];
+    }
+
+    /**
+     * @return The predicate ID of the i-th incoming edge of the node; the index is not checked against the degree.
+     */
+    int inPredicateId(int id, int index) {
+        return inPredicates[inOffsets[id] + index];
+    }
+
+    /**
+     * @return The subject ID of the i-th incoming edge of the node; the index is not checked against the degree.
+     */
+    int inSubjectId(int id, int index) {
+        return inSubjects[inOffsets[id] + index];
+    }
+
+    /**
+     * Create the triple of the given edge.
+     *
+     * @param node       The ID of the node.
+     * @param position   The position of the edge in the edge arrays.
+     * @param isOutgoing True if {@code node} is the subject of the edge.
+     * @return The triple.
+     */
+    private Triple getTriple(int node, int position, boolean isOutgoing) {
+        if (isOutgoing) {
+            return new Triple(termPool.getTerm(node), termPool.getTerm(outPredicates[position]),
+                    termPool.getTerm(outObjects[position]));
+        }
+        return new Triple(termPool.getTerm(inSubjects[position]), termPool.getTerm(inPredicates[position]),
+                termPool.getTerm(node));
+    }
+
+    /**
+     * @return The i-th edge of the node; the index is not checked against the degree.
+     */
+    Triple getEdge(String node, int index, boolean isOutgoing) {
+        int[] offsets = isOutgoing ? outOffsets : inOffsets;
+        int id = getNodeId(node, offsets);
+        if (id < 0) return null;
+        return getTriple(id, offsets[id] + index, isOutgoing);
+    }
+
+    /**
+     * @return Read-only view of the edges of the node or null if there are none.
+     */
+    List<Triple> getEdges(String node, boolean isOutgoing) {
+        int[] offsets = isOutgoing ? outOffsets : inOffsets;
+        int id = getNodeId(node, offsets);
+        if (id < 0) return null;
+        return new EdgeList(id, offsets[id], offsets[id + 1], isOutgoing);
+    }
+
+    /**
+     * Get the edges of a node with the given predicate. The edges of a node are sorted by predicate ID, hence the
+     * range is found by binary search.
+     *
+     * @return Read-only view of the edges or null if there are none.
+     */
+    Set<Triple> getEdges(String node, String predicate, boolean isOutgoing) {
+        int[] offsets = isOutgoing ? outOffsets : inOffsets;
+        int id = getNodeId(node, offsets);
+        int predicateId = termPool.lookup(predicate);
+        if (id < 0 || predicateId < 0) return null;
+        int[] predicates = isOutgoing ? outPredicates : inPredicates;
+        int from = lowerBound(predicates, offsets[id], offsets[id + 1], predicateId);
+        int to = lowerBound(predicates, from, offsets[id + 1], predicateId + 1);
+        return from == to ? null : new EdgeSet(id, from, to, isOutgoing);
+    }
+
+    /**
+     * @return First index in {@code [from, to)} whose ID is &ge; {@code id}; the IDs in the range must be sorted.
+     */
+    private static int lowerBound(int[] ids, int from, int to, int id) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (ids[mid] < id) from = mid + 1;
+            else to = mid;
+        }
+        return from;
+    }
+
+    /**
+     * Check whether the edge range of one node and predicate contains an edge to the given neighbour.
+     *
+     * @param from       Start of the range.
+     * @param to         End of the range (exclusive).
+     * @param neighbour  The object (outgoing) or subject (incoming) of the edge.
+     * @param isOutgoing The direction of the range.
+     * @return True if the edge exists.
+     */
+    private boolean containsNeighbour(int from, int to, String neighbour, boolean isOutgoing) {
+        int neighbourId = termPool.lookup(neighbour);
+        if (neighbourId < 0) return false;
+        int[] neighbours = isOutgoing ? outObjects : inSubjects;
+        int index = lowerBound(neighbours, from, to, neighbourId);
+        return index < to && neighbours[index] == neighbourId;
+    }
+
+    boolean contains(Triple triple) {
+        int id = getNodeId(triple.subject, outOffsets);
+        int predicateId = termPool.lookup(triple.predicate);
+        if (id < 0 || predicateId < 0) return false;
+        int from = lowerBound(outPredicates, outOffsets[id], outOffsets[id + 1], predicateId);
+        int to = lowerBound(outPredicates, from, outOffsets[id + 1], predicateId + 1);
+        return containsNeighbour(from, to, triple.object, true);
+    }
+
+    int size() {
+        return outObjects.length;
+    }
+
+    /**
+     * @return Read-only view of all triples; the triples are created while iterating.
+     */
+    Set<Triple> getTriples() {
+        return new AbstractSet<Triple>() {
+            @Override
+            public Iterator<Triple> iterator() {
+                return new Iterator<Triple>() {
+                    private int node = 0;
+                    private int position = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < outObjects.length;
+                    }
+
+                    @Override
+                    public Triple next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        while (outOffsets[node + 1] <= position) node++;
+                        return getTriple(node, position++, true);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return outObjects.length;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Triple && FrozenAdjacency.this.contains((Triple) o);
+            }
+        };
+    }
+
+    /**
+     * @param isSubjects True for the nodes with outgoing edges, false for the nodes with incoming edges.
+     * @return Read-only view of the nodes.
+     */
+    Set<String> getNodes(boolean isSubjects) {
+        int[] offsets = isSubjects ? outOffsets : inOffsets;
+        int size = isSubjects ? numberOfSubjects : numberOfObjects;
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = advance(0);
+
+                    private int advance(int id) {
+                        while (id < offsets.length - 1 && offsets[id + 1] == offsets[id]) id++;
+                        return id;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < offsets.length - 1;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        String result = termPool.getTerm(next);
+                        next = advance(next + 1);
+                        return result;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String && getNodeId((String) o, offsets) >= 0;
+            }
+        };
+    }
+
+    /**
+     * Read-only view of a range of the edge arrays of one node.
+     */
+    private final class EdgeList extends AbstractList<Triple> implements RandomAccess {
+
+
+        private final int node;
+        private final int from;
+        private final int to;
+        private final boolean isOutgoing;
+
+        EdgeList(int node, int from, int to, boolean isOutgoing) {
+            this.node = node;
+            this.from = from;
+            this.to = to;
+            this.isOutgoing = isOutgoing;
+        }
+
+        @Override
+        public Triple get(int index) {
+            if (index < 0 || index >= to - from) throw new IndexOutOfBoundsException("Index: " + index);
+            return getTriple(node, from + index, isOutgoing);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Read-only view of the range of the edge arrays that contains the edges of one node and predicate. The range is
+     * sorted by the ID of the neighbour, hence {@link EdgeSet#contains(Object)} is a binary search.
+     */
+    private final class EdgeSet extends AbstractSet<Triple> {
+
+
+        private final EdgeList edges;
+
+        EdgeSet(int node, int from, int to, boolean isOutgoing) {
+            this.edges = new EdgeList(node, from, to, isOutgoing);
+        }
+
+        @Override
+        public Iterator<Triple> iterator() {
+            return edges.iterator();
+        }
+
+        @Override
+        public int size() {
+            return edges.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Triple)) return false;
+            Triple triple = (Triple) o;
+            String node = termPool.getTerm(edges.node);
+            int position = edges.from;
+            if (edges.isOutgoing) {
+                return node.equals(triple.subject) && triple.predicate.equals(termPool.getTerm(outPredicates[position]))
+                        && containsNeighbour(edges.from, edges.to, triple.object, true);
+            }
+            return node.equals(triple.object) && triple.predicate.equals(termPool.getTerm(inPredicates[position]))
+                    && containsNeighbour(edges.from, edges.to, triple.subject, false);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.BitSet;
+
+/**
+ * A breadth-first order of the nodes (subjects and objects) of an HDT file in which the edge directions are ignored.
+ * Processing the entities in this order keeps the working set of the walk threads small: connected entities are
+ * processed close to each other so that their pages of the memory-mapped file are reused.
+ * <p>
+ * Nodes are identified by their ordinal: shared and subject-only entries have their subject ID as ordinal,
+ * object-only entries the number of subjects plus their object ID minus the number of shared entries. The order is
+ * cached in {@code <file>.bfs-order} (big endian: number of ordinals as long, then the ordinals as ints).
+ */
+public class HdtBfsOrder {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtBfsOrder.class);
+
+    /**
+     * Suffix of the cache file.
+     */
+    public static final String FILE_SUFFIX = ".bfs-order";
+
+    /**
+     * Obtain the BFS order of the given HDT. The order is read from the cache file if it is up to date; otherwise,
+     * it is computed and written to the cache file.
+     *
+     * @param hdt     The HDT.
+     * @param hdtFile The HDT file (used to locate the cache file). May be null; then the order is not cached.
+     * @return The ordinals in BFS order or null if the order cannot be computed (more than
+     * {@link Integer#MAX_VALUE} nodes).
+     */
+    public static int[] getOrder(HDT hdt, File hdtFile) {
+        long numberOfOrdinals = getNumberOfOrdinals(hdt.getDictionary());
+        File orderFile = hdtFile == null ? null : getOrderFile(hdtFile);
+        if (orderFile != null && orderFile.isFile() && orderFile.lastModified() >= hdtFile.lastModified()) {
+            int[] order = read(orderFile, numberOfOrdinals);
+            if (order != null) {
+                LOGGER.info("Using the cached BFS order " + orderFile.getAbsolutePath());
+                return order;
+            }
+        }
+        int[] order = compute(hdt);
+        if (order != null && orderFile != null) write(order, orderFile);
+        return order;
+    }
+
+    /**
+     * @param hdtFile The HDT file.
+     * @return The cache file of the BFS order.
+     */
+    public static File getOrderFile(File hdtFile) {
+        return new File(hdtFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * @param dictionary The dictionary.
+     * @return The number of distinct nodes (subjects and objects).
+     */
+    public static long getNumberOfOrdinals(Dictionary dictionary) {
+        return dictionary.getNsubjects() + dictionary.getNobjects() - dictionary.getNshared();
+    }
+
+    /**
+     * Compute the BFS order. Every node is visited once; the adjacency lists are read through the HDT indices.
+     *
+     * @param hdt The HDT.
+     * @return The ordinals in BFS order or null if there are more than {@link Integer#MAX_VALUE} nodes.
+     */
+    public static int[] compute(HDT hdt) {
+        Dictionary dictionary = hdt.getDictionary();
+        long nShared = dictionary.getNshared();
+        long nSubjects = dictionary.getNsubjects();
+        long numberOfOrdinals = getNumberOfOrdinals(dictionary);
+        if (numberOfOrdinals >= Integer.MAX_VALUE) {
+            LOGGER.warn("Too many nodes for a BFS order (" + numberOfOrdinals + ").");
+            return null;
+        }
+        LOGGER.info("Computing the BFS order of " + numberOfOrdinals + " nodes.");
+        int n = (int) numberOfOrdinals;
+        Triples triples = hdt.getTriples();
+
+        // the order array is the queue at the same time
+        int[] order = new int[n];
+        BitSet visited = new BitSet(n + 1);
+        int head = 0;
+        int tail = 0;
+        for (int root = visited.nextClearBit(1); root > 0 && root <= n; root = visited.nextClearBit(root + 1)) {
+            visited.set(root);
+            order[tail++] = root;
+            while (head < tail) {
+                int ordinal = order[head++];
+                if (ordinal <= nSubjects) {
+                    // successors
+                    IteratorTripleID iterator = triples.search(new TripleID(ordinal, 0, 0));
+                    while (iterator.hasNext()) {
+                        long object = iterator.next().getObject();
+                        int next = (int) (object <= nShared ? object : nSubjects + object - nShared);
+                        if (!visited.get(next)) {
+                            visited.set(next);
+                            order[tail++] = next;
+                        }
+                    }
+                }
+                long objectId = ordinal <= nShared ? ordinal : (ordinal > nSubjects ? ordinal - nSubjects + nShared : 0);
+                if (objectId > 0) {
+                    // predecessors
+                    IteratorTripleID iterator = triples.search(new TripleID(0, 0, objectId));
+                    while (iterator.hasNext()) {
+                        int next = (int) iterator.next().getSubject();
+                        if (!visited.get(next)) {
+                            visited.set(next);
+                            order[tail++] = next;
+                        }
+                    }
+                }
+                if (head % 10_000_000 == 0) {
+                    LOGGER.info("BFS order: " + head + " of " + n + " nodes processed.");
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Read a cached order.
+     *
+     * @return The order or null if the file does not belong to a graph with the given number of nodes.
+     */
+    static int[] read(File orderFile, long numberOfOrdinals) {
+        if (orderFile.length() != 8 + 4 * numberOfOrdinals) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(orderFile),
+                1 << 16))) {
+            if (in.readLong() != numberOfOrdinals) return null;
+            int[] order = new int[(int) numberOfOrdinals];
+            for (int i = 0; i < order.length; i++) order[i] = in.readInt();
+            return order;
+        } catch (IOException ioe) {
+            LOGGER.warn("Could not read the BFS order " + orderFile.getAbsolutePath() + ".", ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Write the order to the cache file.
+     *
+     * @return True in case of success, else false.
+     */
+    static boolean write(int[] order, File orderFile) {
+        File temporaryFile = new File(orderFile.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temporaryFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeLong(order.length);
+            for (int ordinal : order) out.writeInt(ordinal);
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException ioe) {
+            LOGGER.warn("Could not write the BFS order " + orderFile.getAbsolutePath() + ".", ioe);
+            return false;
+        }
+        if (orderFile.exists() && !orderFile.delete()) {
+            LOGGER.warn("Could not replace the BFS order " + orderFile.getAbsolutePath() + ".");
+            return false;
+        }
+        if (!temporaryFile.renameTo(orderFile)) return false;
+        Util.syncDirectory(orderFile.getAbsoluteFile().getParentFile());
+        return true;
+    }
+}
@@ -0,0 +1,411 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Maps the node IDs (subjects and objects) of multiple HDT files to one global ID space: equal terms get the same
+ * global ID, no matter in which file they occur. The mapping is built once by merging the sorted dictionary
+ * sections of all files, written to a file, and memory-mapped afterwards.
+ * <p>
+ * File layout (big endian longs): header ({@code MAGIC}, {@code VERSION}, number of files, number of global IDs),
+ * per HDT file its length, its modification time and the sizes of its shared, subject-only and object-only
+ * sections; then per HDT file the global IDs of its shared, subject-only and object-only entries (in local ID
+ * order); finally, for every global ID, one local occurrence (file, role, and local ID) that is used for decoding.
+ * <p>
+ * As the dictionary sections are sorted and the global IDs are assigned in the same order, the global IDs of a
+ * section are increasing: global IDs are translated back to local IDs by binary search.
+ * <p>
+ * Instances are thread-safe.
+ */
+public class HdtGlobalIdMapping implements Closeable {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtGlobalIdMapping.class);
+
+    private static final long MAGIC = 0x4844544D41503031L; // "HDTMAP01"
+
+    private static final long VERSION = 1;
+
+    private static final int HEADER_LONGS = 4;
+
+    private static final int LONGS_PER_FILE = 5;
+
+    /**
+     * Bytes per mapped chunk (a multiple of 8 so that no long crosses a chunk border).
+     */
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    /**
+     * Bit layout of an occurrence: file index (22 bits) | role (1 bit, 1 = object) | local ID (41 bits).
+     */
+    private static final int LOCAL_ID_BITS = 41;
+
+    private static final long LOCAL_ID_MASK = (1L << LOCAL_ID_BITS) - 1;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] chunks;
+
+    private final long numberOfGlobalIds;
+
+    /**
+     * Per file: number of shared, subject-only, and object-only entries.
+     */
+    private final long[][] sectionSizes;
+
+    /**
+     * Per file: byte offset of the shared, subject-only, and object-only arrays.
+     */
+    private final long[][] sectionOffsets;
+
+    private final long occurrenceOffset;
+
+    private HdtGlobalIdMapping(File mappingFile) throws IOException {
+        channel = FileChannel.open(mappingFile.toPath(), StandardOpenOption.READ);
+        long size = channel.size();
+        int numberOfChunks = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        chunks = new MappedByteBuffer[numberOfChunks];
+        for (int i = 0; i < numberOfChunks; i++) {
+            long position = (long) i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+        }
+        int numberOfFiles = (int) getLongAt(16);
+        numberOfGlobalIds = getLongAt(24);
+        sectionSizes = new long[numberOfFiles][3];
+        sectionOffsets = new long[numberOfFiles][3];
+        long offset = 8L * (HEADER_LONGS + (long) LONGS_PER_FILE * numberOfFiles);
+        for (int file = 0; file < numberOfFiles; file++) {
+            for (int section = 0; section < 3; section++) {
+                sectionSizes[file][section] = getLongAt(8L * (HEADER_LONGS + LONGS_PER_FILE * file + 2 + section));
+                sectionOffsets[file][section] = offset;
+                offset += 8 * sectionSizes[file][section];
+            }
+        }
+        occurrenceOffset = offset;
+    }
+
+    /**
+     * Open the mapping of the given HDT files. If the mapping file does not exist or does not belong to the given
+     * files (e.g. because a file has been changed), it is (re-)built.
+     *
+     * @param hdtFiles    The HDT files (the order determines the file indices).
+     * @param hdts        The opened HDT files (same order).
+     * @param mappingFile The mapping file.
+     * @return The mapping.
+     * @throws IOException If the mapping cannot be built or read.
+     */
+    public static HdtGlobalIdMapping open(List<File> hdtFiles, List<HDT> hdts, File mappingFile)
+            throws IOException {
+        if (!isValid(hdtFiles, hdts, mappingFile)) {
+            LOGGER.info("Building the global ID mapping of " + hdtFiles.size() + " HDT files: " +
+                    mappingFile.getAbsolutePath());
+            build(hdtFiles, hdts, mappingFile);
+        } else {
+            LOGGER.info("Using the cached global ID mapping " + mappingFile.getAbsolutePath());
+        }
+        return new HdtGlobalIdMapping(mappingFile);
+    }
+
+    /**
+     * @return The number of global IDs (global IDs range from 1 to this number).
+     */
+    public long getNumberOfGlobalIds() {
+        return numberOfGlobalIds;
+    }
+
+    /**
+     * Translate a local ID to the global ID.
+     *
+     * @param file    The file index.
+     * @param localId The local subject or object ID.
+     * @param role    {@link TripleComponentRole#SUBJECT} or {@link TripleComponentRole#OBJECT}.
+     * @return The global ID.
+     */
+    public long toGlobal(int file, long localId, TripleComponentRole role) {
+        long numberOfShared = sectionSizes[file][0];
+        if (localId <= numberOfShared) return getLongAt(sectionOffsets[file][0] + 8 * (localId - 1));
+        int section = (role == TripleComponentRole.SUBJECT) ? 1 : 2;
+        return getLongAt(sectionOffsets[file][section] + 8 * (localId - numberOfShared - 1));
+    }
+
+    /**
+     * Translate a global ID to the local ID of the given file.
+     *
+     * @param file     The file index.
+     * @param globalId The global ID.
+     * @param role     {@link TripleComponentRole#SUBJECT} or {@link TripleComponentRole#OBJECT}.
+     * @return The local ID or 0 if the term does not occur in the given role in the file.
+     */
+    public long toLocal(int file, long globalId, TripleComponentRole role) {
+        long index = search(file, 0, globalId);
+        if (index >= 0) return index + 1;
+        int section = (role == TripleComponentRole.SUBJECT) ? 1 : 2;
+        index = search(file, section, globalId);
+        if (index >= 0) return sectionSizes[file][0] + index + 1;
+        return 0;
+    }
+
+    /**
+     * @param globalId The global ID.
+     * @return The index of a file in which the term occurs.
+     */
+    public int getOccurrenceFile(long globalId) {
+        return (int) (getOccurrence(globalId) >>> (LOCAL_ID_BITS + 1));
+    }
+
+    /**
+     * @param globalId The global ID.
+     * @return The role of the term in the file given by {@link HdtGlobalIdMapping#getOccurrenceFile(long)}.
+     */
+    public TripleComponentRole getOccurrenceRole(long globalId) {
+        return ((getOccurrence(globalId) >>> LOCAL_ID_BITS) & 1) == 1 ? TripleComponentRole.OBJECT :
+                TripleComponentRole.SUBJECT;
+    }
+
+    /**
+     * @param globalId The global ID.
+     * @return The local ID of the term in the file given by {@link HdtGlobalIdMapping#getOccurrenceFile(long)}.
+     */
+    public long getOccurrenceLocalId(long globalId) {
+        return getOccurrence(globalId) & LOCAL_ID_MASK;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long getOccurrence(long globalId) {
+        return getLongAt(occurrenceOffset + 8 * (globalId - 1));
+    }
+
+    /**
+     * Binary search within one (increasing) section array.
+     *
+     * @return Index or -1 if not found.
+     */
+    private long search(int file, int section, long globalId) {
+        long offset = sectionOffsets[file][section];
+        long low = 0;
+        long high = sectionSizes[file][section] - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            long value = getLongAt(offset + 8 * mid);
+            if (value < globalId) low = mid + 1;
+            else if (value > globalId) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private long getLongAt(long byteOffset) {
+        return chunks[(int) (byteOffset / CHUNK_SIZE)].getLong((int) (byteOffset % CHUNK_SIZE));
+    }
+
+    /**
+     * Check whether the mapping file belongs to the given HDT files.
+     */
+    private static boolean isValid(List<File> hdtFiles, List<HDT> hdts, File mappingFile) {
+        if (!mappingFile.isFile()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mappingFile)))) {
+            if (in.readLong() != MAGIC || in.readLong() != VERSION || in.readLong() != hdtFiles.size()) return false;
+            in.readLong();
+            for (int file = 0; file < hdtFiles.size(); file++) {
+                long[] expected = getFileHeader(hdtFiles.get(file), hdts.get(file));
+                for (long value : expected) {
+                    if (in.readLong() != value) return false;
+                }
+            }
+            return true;
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    private static long[] getFileHeader(File hdtFile, HDT hdt) {
+        Dictionary dictionary = hdt.getDictionary();
+        return new long[]{hdtFile.length(), hdtFile.lastModified(), dictionary.getNshared(),
+                dictionary.getSubjects().getNumberOfElements(), dictionary.getObjects().getNumberOfElements()};
+    }
+
+    /**
+     * A sorted dictionary section that takes part in the merge.
+     */
+    private static class Cursor {
+
+
+        final int file;
+
+        final int section;
+
+        final Iterator<? extends CharSequence> iterator;
+
+        /**
+         * Byte position in the mapping file of the next global ID of this section.
+         */
+        long position;
+
+        /**
+         * Local ID of the current term.
+         */
+        long localId;
+
+        String current;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+
+        Cursor(int file, int section, Iterator<? extends CharSequence> iterator, long position, long firstLocalId) {
+            this.file = file;
+            this.section = section;
+            this.iterator = iterator;
+            this.position = position;
+            this.localId = firstLocalId - 1;
+        }
+
+        /**
+         * @return False if the section is exhausted.
+         * @throws IOException If the section is not sorted.
+         */
+        boolean advance() throws IOException {
+            if (!iterator.hasNext()) return false;
+            String next = iterator.next().toString();
+            if (current != null && compare(current, next) >= 0) {
+                throw new IOException("Dictionary section " + section + " of HDT file " + file + " is not sorted.");
+            }
+            current = next;
+            localId++;
+            return true;
+        }
+
+        void write(long globalId, FileChannel channel) throws IOException {
+            buffer.putLong(globalId);
+            if (!buffer.hasRemaining()) flush(channel);
+        }
+
+        void flush(FileChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Merge the dictionary sections of all files and write the mapping file.
+     */
+    private static void build(List<File> hdtFiles, List<HDT> hdts, File mappingFile) throws IOException {
+        File temporaryFile = new File(mappingFile.getAbsolutePath() + ".tmp");
+        long numberOfLocalEntries = 0;
+        List<Cursor> cursors = new ArrayList<>();
+        long offset = 8L * (HEADER_LONGS + (long) LONGS_PER_FILE * hdts.size());
+        for (int file = 0; file < hdts.size(); file++) {
+            Dictionary dictionary = hdts.get(file).getDictionary();
+            long numberOfShared = dictionary.getNshared();
+            cursors.add(new Cursor(file, 0, dictionary.getShared().getSortedEntries(), offset, 1));
+            offset += 8 * numberOfShared;
+            cursors.add(new Cursor(file, 1, dictionary.getSubjects().getSortedEntries(), offset,
+                    numberOfShared + 1));
+            offset += 8 * dictionary.getSubjects().getNumberOfElements();
+            cursors.add(new Cursor(file, 2, dictionary.getObjects().getSortedEntries(), offset,
+                    numberOfShared + 1));
+            offset += 8 * dictionary.getObjects().getNumberOfElements();
+            numberOfLocalEntries += numberOfShared + dictionary.getSubjects().getNumberOfElements() +
+                    dictionary.getObjects().getNumberOfElements();
+        }
+        long occurrenceOffset = offset;
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> {
+            int result = compare(a.current, b.current);
+            return result != 0 ? result : Integer.compare(a.file * 3 + a.section, b.file * 3 + b.section);
+        });
+        for (Cursor cursor : cursors) {
+            if (cursor.advance()) queue.add(cursor);
+        }
+
+        long globalId = 0;
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer occurrenceBuffer = ByteBuffer.allocate(1 << 16);
+            long occurrencePosition = occurrenceOffset;
+            String currentTerm = null;
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                if (currentTerm == null || !currentTerm.equals(cursor.current)) {
+                    currentTerm = cursor.current;
+                    globalId++;
+                    long role = (cursor.section == 2) ? 1 : 0;
+                    occurrenceBuffer.putLong(((long) cursor.file << (LOCAL_ID_BITS + 1)) |
+                            (role << LOCAL_ID_BITS) | cursor.localId);
+                    if (!occurrenceBuffer.hasRemaining()) {
+                        occurrencePosition = flush(channel, occurrenceBuffer, occurrencePosition);
+                    }
+                }
+                cursor.write(globalId, channel);
+                if (++written % 10_000_000 == 0) {
+                    LOGGER.info("Global ID mapping: " + written + " of " + numberOfLocalEntries + " terms merged.");
+                }
+                if (cursor.advance()) queue.add(cursor);
+            }
+            flush(channel, occurrenceBuffer, occurrencePosition);
+            for (Cursor cursor : cursors) cursor.flush(channel);
+
+            // header
+            ByteBuffer header = ByteBuffer.allocate(8 * (HEADER_LONGS + LONGS_PER_FILE * hdts.size()));
+            header.putLong(MAGIC).putLong(VERSION).putLong(hdts.size()).putLong(globalId);
+            for (int file = 0; file < hdts.size(); file++) {
+                for (long value : getFileHeader(hdtFiles.get(file), hdts.get(file))) header.putLong(value);
+            }
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) position += channel.write(header, position);
+            channel.force(true);
+        }
+        if (mappingFile.exists() && !mappingFile.delete()) {
+            throw new IOException("Could not replace the mapping file " + mappingFile.getAbsolutePath());
+        }
+        if (!temporaryFile.renameTo(mappingFile)) {
+            throw new IOException("Could not write the mapping file " + mappingFile.getAbsolutePath());
+        }
+        Util.syncDirectory(mappingFile.getAbsoluteFile().getParentFile());
+        LOGGER.info("Global ID mapping built: " + globalId + " distinct terms (" + numberOfLocalEntries +
+                " local terms).");
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+        return position;
+    }
+
+    /**
+     * Compares by code points, i.e., in the order of the UTF-8 bytes (the order of the HDT dictionary sections).
+     */
+    static int compare(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x == y) continue;
+            if (Character.isSurrogate(x) || Character.isSurrogate(y)) {
+                return Integer.compare(a.codePointAt(i), b.codePointAt(i));
+            }
+            return Character.compare(x, y);
+        }
+        return Integer.compare(a.length(), b.length());
+    }
+}
@@ -0,0 +1,323 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.rdfhdt.hdt.triples.Triples;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * The hot tier of an HDT graph: the adjacency lists (both directions) of the nodes that random walks visit most often,
+ * copied into compact on-heap arrays within a memory budget. All other adjacency lists remain on the memory-mapped
+ * HDT file.
+ * <p>
+ * The visit frequency of a node is estimated by its degree (in-degree plus out-degree): walks arrive at a node over
+ * its incoming edges (and, for mid walks, over its outgoing edges), so high-degree nodes are visited far more often
+ * than the average node. These nodes also have the longest adjacency lists, i.e., the most expensive HDT lookups.
+ * The nodes are promoted in descending order of their degree as long as their lists fit into the budget.
+ * <p>
+ * The lists are stored like a compressed sparse row matrix: the sorted IDs of the hot nodes, the offsets of their
+ * lists, and the edges as pairs of IDs (predicate and object for outgoing edges, subject and predicate for incoming
+ * edges). The structure is immutable and thread-safe.
+ */
+public class HdtHotAdjacency {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtHotAdjacency.class);
+
+    /**
+     * Bytes per edge (two longs).
+     */
+    static final long BYTES_PER_EDGE = 16;
+
+    /**
+     * Bytes per node and direction (key and offset).
+     */
+    static final long BYTES_PER_NODE = 12;
+
+    /**
+     * Maximal number of longs in one array.
+     */
+    private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final Lists outgoing;
+    private final Lists incoming;
+    private final int numberOfNodes;
+
+    private HdtHotAdjacency(Lists outgoing, Lists incoming, int numberOfNodes) {
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    /**
+     * Determine the hot nodes of the given HDT and copy their adjacency lists into the heap. This requires one scan
+     * over all triples (to determine the degrees) and one lookup per hot node and direction.
+     *
+     * @param hdt         The HDT.
+     * @param budgetBytes The maximal size of the hot tier in bytes.
+     * @return The hot tier (empty if the budget is too small or the graph has more than {@link Integer#MAX_VALUE}
+     * nodes).
+     */
+    public static HdtHotAdjacency build(HDT hdt, long budgetBytes) {
+        Dictionary dictionary = hdt.getDictionary();
+        long nShared = dictionary.getNshared();
+        long nSubjects = dictionary.getNsubjects();
+        long numberOfOrdinals = HdtBfsOrder.getNumberOfOrdinals(dictionary);
+        budgetBytes = Math.min(budgetBytes, BYTES_PER_EDGE / 2 * MAX_ARRAY_LENGTH);
+        if (budgetBytes <= 0) return empty();
+        if (numberOfOrdinals >= Integer.MAX_VALUE) {
+            LOGGER.warn("Too many nodes for a hot tier (" + numberOfOrdinals + "). All lookups go to the HDT file.");
+            return empty();
+        }
+        int n = (int) numberOfOrdinals;
+        Triples triples = hdt.getTriples();
+
+        // degree per ordinal (see HdtBfsOrder for the ordinals)
+        LOGGER.info("Determining the degrees of " + n + " nodes for the hot tier.");
+        int[] degrees = new int[n + 1];
+        IteratorTripleID iterator = triples.searchAll();
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            increment(degrees, (int) triple.getSubject());
+            increment(degrees, toOrdinal(triple.getObject(), nShared, nSubjects));
+        }
+
+        // lowest degree at which all nodes still fit into the budget
+        TreeMap<Integer, Long> bytesPerDegree = new TreeMap<>(Comparator.reverseOrder());
+        for (int ordinal = 1; ordinal <= n; ordinal++) {
+            if (degrees[ordinal] > 0) bytesPerDegree.merge(degrees[ordinal], getBytes(degrees[ordinal]), Long::sum);
+        }
+        long remaining = budgetBytes;
+        int threshold = Integer.MAX_VALUE;
+        for (Map.Entry<Integer, Long> entry : bytesPerDegree.entrySet()) {
+            if (entry.getValue() > remaining) break;
+            remaining -= entry.getValue();
+            threshold = entry.getKey();
+        }
+
+        // promote all nodes above the threshold and, as far as the budget allows, the next nodes
+        Integer nextDegree = bytesPerDegree.higherKey(threshold);
+        List<Integer> hotOrdinals = new ArrayList<>();
+        for (int ordinal = 1; ordinal <= n; ordinal++) {
+            int degree = degrees[ordinal];
+            if (degree == 0) continue;
+            if (degree >= threshold) {
+                hotOrdinals.add(ordinal);
+            } else if (nextDegree != null && degree == nextDegree && getBytes(degree) <= remaining) {
+                remaining -= getBytes(degree);
+                hotOrdinals.add(ordinal);
+            }
+        }
+        if (hotOrdinals.isEmpty()) {
+            LOGGER.info("The hot tier budget is too small for any adjacency list.");
+            return empty();
+        }
+
+        List<Long> outgoingKeys = new ArrayList<>();
+        List<Long> incomingKeys = new ArrayList<>();
+        for (int ordinal : hotOrdinals) {
+            if (ordinal <= nSubjects) outgoingKeys.add((long) ordinal);
+            long object = toObject(ordinal, nShared, nSubjects);
+            if (object > 0) incomingKeys.add(object);
+        }
+        // object IDs increase with the ordinal, so both key lists are sorted
+        Lists outgoing = Lists.load(triples, outgoingKeys, true);
+        Lists incoming = Lists.load(triples, incomingKeys, false);
+        HdtHotAdjacency result = new HdtHotAdjacency(outgoing, incoming, hotOrdinals.size());
+        LOGGER.info("Hot tier: " + result.getNumberOfNodes() + " nodes with " + result.getNumberOfEdges()
+                + " edges (" + result.getSizeInBytes() / (1024 * 1024) + " MB) on the heap.");
+        return result;
+    }
+
+    private static HdtHotAdjacency empty() {
+        return new HdtHotAdjacency(Lists.EMPTY, Lists.EMPTY, 0);
+    }
+
+    private static void increment(int[] degrees, int ordinal) {
+        if (degrees[ordinal] < Integer.MAX_VALUE) degrees[ordinal]++;
+    }
+
+    private static long getBytes(int degree) {
+        return BYTES_PER_EDGE * degree + 2 * BYTES_PER_NODE;
+    }
+
+    private static int toOrdinal(long object, long nShared, long nSubjects) {
+        return (int) (object <= nShared ? object : nSubjects + object - nShared);
+    }
+
+    private static long toObject(int ordinal, long nShared, long nSubjects) {
+        if (ordinal <= nShared) return ordinal;
+        return ordinal > nSubjects ? ordinal - nSubjects + nShared : 0;
+    }
+
+    /**
+     * Get the outgoing edges of a hot node.
+     *
+     * @param subject The subject ID.
+     * @return The triples or null if the node is not in the hot tier.
+     */
+    public List<TripleID> getOutgoing(long subject) {
+        return outgoing.get(subject, true);
+    }
+
+    /**
+     * Get the incoming edges of a hot node.
+     *
+     * @param object The object ID.
+     * @return The triples or null if the node is not in the hot tier.
+     */
+    public List<TripleID> getIncoming(long object) {
+        return incoming.get(object, false);
+    }
+
+    /**
+     * @param subject The subject ID.
+     * @return The out-degree or -1 if the node is not in the hot tier.
+     */
+    public int getOutDegree(long subject) {
+        return outgoing.size(subject);
+    }
+
+    /**
+     * @param object The object ID.
+     * @return The in-degree or -1 if the node is not in the hot tier.
+     */
+    public int getInDegree(long object) {
+        return incoming.size(object);
+    }
+
+    /**
+     * Get the i-th outgoing edge of a hot node without copying the others.
+     *
+     * @param subject The subject ID (must be hot, see {@link HdtHotAdjacency#getOutDegree(long)}).
+     * @param index   Index of the edge.
+     * @return The triple.
+     */
+    public TripleID getOutgoing(long subject, int index) {
+        return outgoing.get(subject, index, true);
+    }
+
+    /**
+     * Get the i-th incoming edge of a hot node without copying the others.
+     *
+     * @param object The object ID (must be hot, see {@link HdtHotAdjacency#getInDegree(long)}).
+     * @param index  Index of the edge.
+     * @return The triple.
+     */
+    public TripleID getIncoming(long object, int index) {
+        return incoming.get(object, index, false);
+    }
+
+    /**
+     * @return The number of hot nodes.
+     */
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return The number of edges (both directions) in the hot tier.
+     */
+    public long getNumberOfEdges() {
+        return outgoing.getNumberOfEdges() + incoming.getNumberOfEdges();
+    }
+
+    /**
+     * @return The approximate heap size of the hot tier in bytes.
+     */
+    public long getSizeInBytes() {
+        return outgoing.getSizeInBytes() + incoming.getSizeInBytes();
+    }
+
+    /**
+     * The adjacency lists of one direction.
+     */
+    private static class Lists {
+
+
+        static final Lists EMPTY = new Lists(new long[0], new int[]{0}, new long[0]);
+
+        /**
+         * Sorted IDs of the nodes.
+         */
+        private final long[] keys;
+
+        /**
+         * The edges of {@code keys[i]} are the pairs {@code offsets[i]} (inclusive) to {@code offsets[i + 1]}.
+         */
+        private final int[] offsets;
+
+        /**
+         * Pairs of IDs: the two components of the triple that are not the key.
+         */
+        private final long[] edges;
+
+        Lists(long[] keys, int[] offsets, long[] edges) {
+            this.keys = keys;
+            this.offsets = offsets;
+            this.edges = edges;
+        }
+
+        static Lists load(Triples triples, List<Long> keyList, boolean isOutgoing) {
+            if (keyList.isEmpty()) return EMPTY;
+            long[] keys = new long[keyList.size()];
+            int[] offsets = new int[keys.length + 1];
+            long[] edges = new long[1024];
+            int numberOfEdges = 0;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = keyList.get(i);
+                offsets[i] = numberOfEdges;
+                IteratorTripleID iterator = triples.search(isOutgoing ? new TripleID(keys[i], 0, 0) :
+                        new TripleID(0, 0, keys[i]));
+                while (iterator.hasNext()) {
+                    TripleID triple = iterator.next();
+                    if (2L * numberOfEdges + 2 > edges.length) {
+                        edges = Arrays.copyOf(edges, (int) Math.min(MAX_ARRAY_LENGTH, 2L * edges.length));
+                    }
+                    edges[2 * numberOfEdges] = isOutgoing ? triple.getPredicate() : triple.getSubject();
+                    edges[2 * numberOfEdges + 1] = isOutgoing ? triple.getObject() : triple.getPredicate();
+                    numberOfEdges++;
+                }
+            }
+            offsets[keys.length] = numberOfEdges;
+            return new Lists(keys, offsets, Arrays.copyOf(edges, 2 * numberOfEdges));
+        }
+
+        int size(long key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position < 0 ? -1 : offsets[position + 1] - offsets[position];
+        }
+
+        List<TripleID> get(long key, boolean isOutgoing) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0) return null;
+            List<TripleID> result = new ArrayList<>(offsets[position + 1] - offsets[position]);
+            for (int edge = offsets[position]; edge < offsets[position + 1]; edge++) {
+                result.add(toTriple(key, edge, isOutgoing));
+            }
+            return result;
+        }
+
+        TripleID get(long key, int index, boolean isOutgoing) {
+            return toTriple(key, offsets[Arrays.binarySearch(keys, key)] + index, isOutgoing);
+        }
+
+        private TripleID toTriple(long key, int edge, boolean isOutgoing) {
+            return isOutgoing ? new TripleID(key, edges[2 * edge], edges[2 * edge + 1]) :
+                    new TripleID(edges[2 * edge], edges[2 * edge + 1], key);
+        }
+
+        long getNumberOfEdges() {
+            return edges.length / 2;
+        }
+
+        long getSizeInBytes() {
+            return 8L * keys.length + 4L * offsets.length + 8L * edges.length;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.listener.ProgressListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * A memory-mapped, indexed HDT file that is shared by all components working on the same file (e.g. the walk
+ * generator and the entity selector). Sessions are reference counted: {@link HdtSession#acquire(File)} returns the
+ * open session of the file (or opens it) and {@link HdtSession#close()} releases it; the HDT is closed once the last
+ * reference has been released.
+ * <p>
+ * The HDT is never loaded into the heap. If the side index ({@code <file>.index.v1-1}) is missing or older than the
+ * HDT file, it is (re-)built when the session is opened. As this can take a long time for large files, the indices
+ * can also be built in a separate pre-step ({@link HdtSession#buildIndices(List, int, Consumer)}).
+ */
+public class HdtSession implements Closeable {
+
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HdtSession.class);
+
+    /**
+     * Suffix of the side index file written by hdt-java.
+     */
+    public static final String INDEX_SUFFIX = ".index.v1-1";
+
+    /**
+     * Open sessions by key (see {@link HdtSession#getKey(File)}).
+     */
+    private static final Map<String, HdtSession> SESSIONS = new HashMap<>();
+
+    /**
+     * Locks of the files that are currently being opened; guarded by {@link HdtSession#SESSIONS}.
+     */
+    private static final Map<String, Object> OPENING_LOCKS = new HashMap<>();
+
+    private final String key;
+
+    private final File hdtFile;
+
+    private final HDT hdt;
+
+    /**
+     * Number of references; guarded by {@link HdtSession#SESSIONS}.
+     */
+    private int references = 1;
+
+    private HdtSession(String key, File hdtFile, HDT hdt) {
+        this.key = key;
+        this.hdtFile = hdtFile;
+        this.hdt = hdt;
+    }
+
+    /**
+     * Obtain the session of the given HDT file.
+     *
+     * @param hdtFile The HDT file (the path of its side index is accepted as well).
+     * @return The session. Must be closed by the caller.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public static HdtSession acquire(File hdtFile) throws IOException {
+        return acquire(hdtFile, null);
+    }
+
+    /**
+     * Obtain the session of the given HDT file.
+     *
+     * @param hdtFile  The HDT file (the path of its side index is accepted as well).
+     * @param listener Progress listener for mapping the file and building the index. May be null.
+     * @return The session. Must be closed by the caller.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public static HdtSession acquire(File hdtFile, ProgressListener listener) throws IOException {
+        hdtFile = normalize(hdtFile);
+        String key = getKey(hdtFile);
+        Object openingLock;
+        synchronized (SESSIONS) {
+            HdtSession session = getOpenSession(key);
+            if (session != null) return session;
+            openingLock = OPENING_LOCKS.computeIfAbsent(key, k -> new Object());
+        }
+        // mapping (and indexing) may take long: other files can be opened in the meantime
+        synchronized (openingLock) {
+            synchronized (SESSIONS) {
+                HdtSession session = getOpenSession(key);
+                if (session != null) return session;
+            }
+            try {
+                removeStaleIndex(hdtFile);
+                HDT hdt = HDTManager.mapIndexedHDT(hdtFile.getAbsolutePath(), listener);
+                HdtSession session = new HdtSession(key, hdtFile, hdt);
+                synchronized (SESSIONS) {
+                    SESSIONS.put(key, session);
+                }
+                return session;
+            } finally {
+                synchronized (SESSIONS) {
+                    OPENING_LOCKS.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtain a new reference of an open session. The caller must hold the lock of {@link HdtSession#SESSIONS}.
+     */
+    private static HdtSession getOpenSession(String key) {
+        HdtSession session = SESSIONS.get(key);
+        if (session != null) session.references++;
+        return session;
+    }
+
+    public HDT getHdt() {
+        return hdt;
+    }
+
+    public File getHdtFile() {
+        return hdtFile;
+    }
+
+    /**
+     * Release this reference. The HDT is closed if no references are left.
+     */
+    @Override
+    public void close() {
+        synchronized (SESSIONS) {
+            if (references == 0) return;
+            if (--references > 0) return;
+            SESSIONS.remove(key);
+        }
+        try {
+            hdt.close();
+        } catch (IOException ioe) {
+            LOGGER.error("Could not close the HDT file " + hdtFile.getAbsolutePath() + ".", ioe);
+        }
+    }
+
+    /**
+     * @param hdtFile The HDT file.
+     * @return The side index file of the HDT file.
+     */
+    public static File getIndexFile(File hdtFile) {
+        return new File(normalize(hdtFile).getPath() + INDEX_SUFFIX);
+    }
+
+    /**
+     * @param hdtFile The HDT file.
+     * @return True if the side index exists and is not older than the HDT file.
+     */
+    public static boolean isIndexUpToDate(File hdtFile) {
+        hdtFile = normalize(hdtFile);
+        File indexFile = getIndexFile(hdtFile);
+        return indexFile.isFile() && indexFile.lastModified() >= hdtFile.lastModified();
+    }
+
+    /**
+     * Build (or validate) the side index of the given HDT file.
+     *
+     * @param hdtFile  The HDT file.
+     * @param listener Progress listener. May be null.
+     * @return True if the index is available, else false.
+     */
+    public static boolean buildIndex(File hdtFile, ProgressListener listener) {
+        hdtFile = normalize(hdtFile);
+        if (!hdtFile.isFile()) {
+            LOGGER.error("The HDT file " + hdtFile.getAbsolutePath() + " does not exist.");
+            return false;
+        }
+        if (isIndexUpToDate(hdtFile)) {
+            LOGGER.info("Validating the cached index of " + hdtFile.getName() + ".");
+        } else {
+            LOGGER.info("Building the index of " + hdtFile.getName() + ".");
+        }
+        // hdt-java validates an existing index while mapping and rebuilds it if it does not match
+        try (HdtSession session = acquire(hdtFile, listener)) {
+            return getIndexFile(session.getHdtFile()).isFile();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Could not build the index of " + hdtFile.getAbsolutePath() + ".", e);
+            return false;
+        }
+    }
+
+    /**
+     * Build (or validate) the side indices of the given HDT files in parallel.
+     *
+     * @param hdtFiles        The HDT files.
+     * @param numberOfThreads The number of files that are indexed concurrently.
+     * @param progressSink    Receives human-readable progress messages (including an estimated time remaining).
+     *                        May be null.
+     * @return True if all indices are available, else false.
+     */
+    public static boolean buildIndices(List<File> hdtFiles, int numberOfThreads, Consumer<String> progressSink) {
+        if (hdtFiles.isEmpty()) return true;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(numberOfThreads,
+                hdtFiles.size())));
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (File hdtFile : hdtFiles) {
+            ProgressListener listener = progressSink == null ? null :
+                    new ProgressReporter(hdtFile.getName(), progressSink);
+            results.add(executor.submit(() -> buildIndex(hdtFile, listener)));
+        }
+        executor.shutdown();
+        boolean isOk = true;
+        for (Future<Boolean> result : results) {
+            try {
+                isOk &= result.get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return false;
+            } catch (ExecutionException ee) {
+                LOGGER.error("Index generation failed.", ee);
+                isOk = false;
+            }
+        }
+        return isOk;
+    }
+
+    /**
+     * An index that is older than its HDT file belongs to an earlier version of the file; hdt-java would only
+     * reject it if the number of triples differs.
+     */
+    private static void removeStaleIndex(File hdtFile) {
+        File indexFile = getIndexFile(hdtFile);
+        if (indexFile.isFile() && !isIndexUpToDate(hdtFile)) {
+            LOGGER.info("The index of " + hdtFile.getName() + " is older than the HDT file and will be rebuilt.");
+            if (!indexFile.delete()) {
+                LOGGER.warn("Could not delete the stale index " + indexFile.getAbsolutePath() + ".");
+            }
+        }
+    }
+
+    /**
+     * The path of the side index is mapped to the HDT file.
+     */
+    private static File normalize(File file) {
+        String path = file.getPath();
+        if (path.endsWith(INDEX_SUFFIX)) return new File(path.substring(0, path.length() - INDEX_SUFFIX.length()));
+        return file;
+    }
+
+    /**
+     * A file that is replaced on disk gets a new session.
+     */
+    private static String getKey(File hdtFile) {
+        String path;
+        try {
+            path = hdtFile.getCanonicalPath();
+        } catch (IOException ioe) {
+            path = hdtFile.getAbsolutePath();
+        }
+        return path + "|" + hdtFile.lastModified() + "|" + hdtFile.length();
+    }
+
+    /**
+     * Reports the progress of hdt-java operations together with an estimated time remaining. Messages are emitted
+     * whenever the progress increased by at least one percent, but not more often than every two seconds.
+     */
+    public static class ProgressReporter implements ProgressListener {
+
+
+        private static final long MIN_INTERVAL_MILLIS = 2000;
+
+        private final String name;
+
+        private final Consumer<String> sink;
+
+        private Instant start = Instant.now();
+
+        private long lastReport = 0;
+
+        private float lastLevel = -1;
+
+        /**
+         * Constructor
+         *
+         * @param name Name of the operation (e.g. the file name).
+         * @param sink Receives the messages.
+         */
+        public ProgressReporter(String name, Consumer<String> sink) {
+            this.name = name;
+            this.sink = sink;
+        }
+
+        @Override
+        public synchronized void notifyProgress(float level, String message) {
+            if (level < lastLevel) {
+                // a new phase started
+                start = Instant.now();
+                lastLevel = -1;
+            }
+            long now = System.currentTimeMillis();
+            if (level - lastLevel < 1 || now - lastReport < MIN_INTERVAL_MILLIS) return;
+            lastLevel = level;
+            lastReport = now;
+            sink.accept(format(name, level, message, start, Instant.now()));
+        }
+
+        /**
+         * Formats a progress message.
+         *
+         * @param name    Name of the operation.
+         * @param level   Progress in percent.
+         * @param message Message of hdt-java.
+         * @param start   Start of the operation.
+         * @param now     The current time.
+         * @return The message.
+         */
+        static String format(String name, float level, String message, Instant start, Instant now) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(name).append(": ").append(String.format(Locale.ROOT, "%.1f", level)).append("%");
+            if (message != null && !message.isEmpty()) sb.append(" (").append(message.trim()).append(")");
+            if (level > 0 && level < 100) {
+                long elapsedMillis = now.toEpochMilli() - start.toEpochMilli();
+                long remainingMillis = (long) (elapsedMillis * (100 - level) / level);
+                long seconds = remainingMillis / 1000;
+                sb.append(" - estimated time remaining: ").append(String.format(Locale.ROOT, "%d:%02d:%02d",
+                        seconds / 3600, (seconds / 60) % 60, seconds % 60));
+            }
+            return sb.toString();
+        }
+    }
+}
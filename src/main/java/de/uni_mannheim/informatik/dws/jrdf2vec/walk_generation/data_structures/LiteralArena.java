@@ -0,0 +1,215 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact storage for datatype triples. The (already processed, i.e., tokenized and space-separated) literal values
+ * are stored as UTF-8 bytes in large byte pages; a literal is described by a record of four ints (predicate ID, page,
+ * offset, length). Every subject points to the list of its records and predicates are dictionary-encoded. Compared to
+ * nested maps of string sets, no per-literal objects are kept on the heap.
+ * <p>
+ * Duplicate (subject, predicate, literal) combinations are stored only once. Adding is synchronized; reading is
+ * thread-safe as long as no literals are added concurrently.
+ */
+public class LiteralArena {
+
+
+    /**
+     * Size of a byte page. Literals larger than a page get a page of their own.
+     */
+    static final int PAGE_SIZE = 1 << 24;
+
+    /**
+     * Initial size of the first page which grows up to {@link LiteralArena#PAGE_SIZE}.
+     */
+    private static final int INITIAL_PAGE_SIZE = 1 << 12;
+
+    /**
+     * Consumer of the literals of a subject.
+     */
+    @FunctionalInterface
+    public interface LiteralConsumer {
+
+        /**
+         * @param predicate The datatype property.
+         * @param literal   The literal value.
+         */
+        void accept(String predicate, String literal);
+    }
+
+    /**
+     * The byte pages.
+     */
+    private final List<byte[]> pages = new ArrayList<>();
+
+    /**
+     * Number of bytes used in the last page.
+     */
+    private int pagePosition = 0;
+
+    /**
+     * Records, four ints each: predicate ID, page, offset, length.
+     */
+    private int[] records = new int[4 * 16];
+
+    /**
+     * Number of records.
+     */
+    private int size = 0;
+
+    /**
+     * Subject to record indices. The first element of the array is the number of indices.
+     */
+    private final Map<String, int[]> subjectToRecords = new HashMap<>();
+
+    /**
+     * Predicate to predicate ID.
+     */
+    private final Map<String, Integer> predicateToId = new HashMap<>();
+
+    /**
+     * Predicate ID to predicate.
+     */
+    private final List<String> idToPredicate = new ArrayList<>();
+
+    /**
+     * Add a literal.
+     *
+     * @param subject   The subject.
+     * @param predicate The datatype property.
+     * @param literal   The literal value.
+     * @return True if the literal was added; false if the subject already has the same literal for the predicate.
+     */
+    public synchronized boolean add(String subject, String predicate, String literal) {
+        byte[] bytes = literal.getBytes(StandardCharsets.UTF_8);
+        int predicateId = predicateToId.computeIfAbsent(predicate, p -> {
+            idToPredicate.add(p);
+            return idToPredicate.size() - 1;
+        });
+        int[] subjectRecords = subjectToRecords.get(subject);
+        if (subjectRecords != null) {
+            for (int i = 1; i <= subjectRecords[0]; i++) {
+                if (isEqual(subjectRecords[i], predicateId, bytes)) return false;
+            }
+        }
+
+        // write the bytes
+        byte[] page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        int required = pagePosition + bytes.length;
+        if (page == null) {
+            page = new byte[Math.max(INITIAL_PAGE_SIZE, bytes.length)];
+            pages.add(page);
+        } else if (required > page.length) {
+            if (required <= PAGE_SIZE) {
+                page = Arrays.copyOf(page, Math.min(PAGE_SIZE, Math.max(2 * page.length, required)));
+                pages.set(pages.size() - 1, page);
+            } else {
+                page = new byte[Math.max(PAGE_SIZE, bytes.length)];
+                pages.add(page);
+                pagePosition = 0;
+            }
+        }
+        System.arraycopy(bytes, 0, page, pagePosition, bytes.length);
+
+        // write the record
+        if (4 * (size + 1) > records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        int recordOffset = 4 * size;
+        records[recordOffset] = predicateId;
+        records[recordOffset + 1] = pages.size() - 1;
+        records[recordOffset + 2] = pagePosition;
+        records[recordOffset + 3] = bytes.length;
+        pagePosition += bytes.length;
+
+        // link the record to the subject
+        if (subjectRecords == null) {
+            subjectRecords = new int[3];
+        } else if (subjectRecords[0] + 1 == subjectRecords.length) {
+            subjectRecords = Arrays.copyOf(subjectRecords, subjectRecords.length * 2);
+        }
+        subjectRecords[++subjectRecords[0]] = size;
+        subjectToRecords.put(subject, subjectRecords);
+        size++;
+        return true;
+    }
+
+    private boolean isEqual(int record, int predicateId, byte[] bytes) {
+        int recordOffset = 4 * record;
+        if (records[recordOffset] != predicateId || records[recordOffset + 3] != bytes.length) return false;
+        byte[] page = pages.get(records[recordOffset + 1]);
+        int offset = records[recordOffset + 2];
+        for (int i = 0; i < bytes.length; i++) {
+            if (page[offset + i] != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Stream the literals of the given subject (in insertion order) without materializing them in a map.
+     *
+     * @param subject  The subject.
+     * @param consumer Consumer that is called for every literal.
+     */
+    public void forEachLiteral(String subject, LiteralConsumer consumer) {
+        int[] subjectRecords = subjectToRecords.get(subject);
+        if (subjectRecords == null) return;
+        for (int i = 1; i <= subjectRecords[0]; i++) {
+            int recordOffset = 4 * subjectRecords[i];
+            consumer.accept(idToPredicate.get(records[recordOffset]), getLiteral(recordOffset));
+        }
+    }
+
+    /**
+     * Get the literals of the given subject grouped by predicate.
+     *
+     * @param subject The subject.
+     * @return Map of the form {@code predicate -> set of literals} or null if the subject has no literals.
+     */
+    public Map<String, Set<String>> getLiterals(String subject) {
+        if (!subjectToRecords.containsKey(subject)) return null;
+        Map<String, Set<String>> result = new HashMap<>();
+        forEachLiteral(subject, (predicate, literal) ->
+                result.computeIfAbsent(predicate, p -> new HashSet<>()).add(literal));
+        return result;
+    }
+
+    private String getLiteral(int recordOffset) {
+        return new String(pages.get(records[recordOffset + 1]), records[recordOffset + 2], records[recordOffset + 3],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param subject The subject.
+     * @return True if the subject has at least one literal.
+     */
+    public boolean containsSubject(String subject) {
+        return subjectToRecords.containsKey(subject);
+    }
+
+    /**
+     * @return Read-only view of all subjects that have literals.
+     */
+    public Set<String> getSubjects() {
+        return Collections.unmodifiableSet(subjectToRecords.keySet());
+    }
+
+    /**
+     * @return The number of stored literals (datatype triples).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes allocated for the literal values (unused page tails included).
+     */
+    public long getNumberOfBytes() {
+        long result = 0;
+        for (byte[] page : pages) {
+            result += page.length;
+        }
+        return result;
+    }
+}
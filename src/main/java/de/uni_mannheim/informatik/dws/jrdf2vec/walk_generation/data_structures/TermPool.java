@@ -0,0 +1,179 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+/**
+ * Pool of the terms (URIs and blank nodes) of a {@link TripleDataSetMemory}. Every distinct term is kept once (the
+ * canonical instance) and gets a dense ID in {@code [0, size())} in the order of its first occurrence.
+ * <p>
+ * The pool replaces {@link String#intern()}: it is scoped to one data set (and garbage collected with it) and lookups
+ * of known terms are lock-free, so parsing threads do not contend on the JVM string table. Since the canonical
+ * instances are shared by all triples, the (cached) hash code of a term is computed only once.
+ * <p>
+ * The terms are stored in an open-addressing hash table (linear probing, load factor at most 0.5) of plain
+ * {@code int} IDs, i.e., there are no entry objects and no boxed IDs. Lookups read the table without locking; terms
+ * are registered while holding the lock of the pool. A lookup that misses (or sees a term that is being registered)
+ * is repeated under the lock before a term is registered, hence every term gets exactly one ID.
+ * <p>
+ * Terms are never removed (IDs are stable). The pool is thread-safe.
+ */
+public class TermPool {
+
+
+    /**
+     * Value of {@link TermPool#lookup(String)} for unknown terms.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * The current table. A larger table is published through this field whenever the pool grows; afterwards, the
+     * previous table is no longer written.
+     */
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+
+    /**
+     * Number of terms.
+     */
+    private volatile int size = 0;
+
+    /**
+     * Get the canonical instance of the given term (registering it if it is new).
+     *
+     * @param term The term.
+     * @return The canonical instance that is equal to {@code term}; null if {@code term} is null.
+     */
+    public String canonicalize(String term) {
+        if (term == null) return null;
+        Table current = table;
+        int id = find(current, term);
+        if (id != NOT_FOUND) return current.terms[id];
+        id = register(term);
+        // the table may have grown while registering the term
+        return table.terms[id];
+    }
+
+    /**
+     * Get the ID of the given term (registering it if it is new).
+     *
+     * @param term The term (not null).
+     * @return The ID.
+     */
+    public int getId(String term) {
+        int id = find(table, term);
+        return id != NOT_FOUND ? id : register(term);
+    }
+
+    /**
+     * Get the ID of the given term without registering it. The lookup does not lock; a term that is registered by
+     * another thread at the same time may not be found yet.
+     *
+     * @param term The term.
+     * @return The ID or {@link TermPool#NOT_FOUND}.
+     */
+    public int lookup(String term) {
+        if (term == null) return NOT_FOUND;
+        return find(table, term);
+    }
+
+    /**
+     * Get the term of the given ID.
+     *
+     * @param id The ID in {@code [0, size())}.
+     * @return The canonical instance.
+     */
+    public String getTerm(int id) {
+        return table.terms[id];
+    }
+
+    /**
+     * @return The number of terms (which is also the next ID).
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Probe the table for the given term.
+     *
+     * @param table The table.
+     * @param term  The term.
+     * @return The ID of the term or {@link TermPool#NOT_FOUND} if it is not in the table or not completely
+     * registered yet.
+     */
+    private static int find(Table table, String term) {
+        int hash = term.hashCode();
+        int mask = table.slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table.slots[slot];
+            if (entry == 0) return NOT_FOUND;
+            String candidate = table.terms[entry - 1];
+            // the slot is written after the term; null means that the term is being registered
+            if (candidate == null) return NOT_FOUND;
+            if (candidate.hashCode() == hash && candidate.equals(term)) return entry - 1;
+        }
+    }
+
+    /**
+     * Register the given term unless another thread did so in the meantime.
+     *
+     * @param term The term.
+     * @return The ID of the term.
+     */
+    private synchronized int register(String term) {
+        Table current = table;
+        int id = find(current, term);
+        if (id != NOT_FOUND) return id;
+        id = size;
+        if (id == current.terms.length) {
+            current = current.grow();
+            table = current;
+        }
+        current.terms[id] = term;
+        current.insert(term, id);
+        size = id + 1;
+        return id;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Hash table with twice as many slots as terms.
+     */
+    private static final class Table {
+
+
+        /**
+         * Slot to ID + 1 (0 marks an empty slot).
+         */
+        final int[] slots;
+
+        /**
+         * ID to canonical term.
+         */
+        final String[] terms;
+
+        Table(int capacity) {
+            slots = new int[2 * capacity];
+            terms = new String[capacity];
+        }
+
+        /**
+         * @return A table of twice the capacity with all terms of this table.
+         */
+        Table grow() {
+            Table result = new Table(2 * terms.length);
+            System.arraycopy(terms, 0, result.terms, 0, terms.length);
+            for (int id = 0; id < terms.length; id++) result.insert(terms[id], id);
+            return result;
+        }
+
+        void insert(String term, int id) {
+            int mask = slots.length - 1;
+            int slot = spread(term.hashCode()) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+}
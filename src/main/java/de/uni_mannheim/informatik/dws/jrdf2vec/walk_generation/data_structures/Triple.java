@@ -1,5 +1,7 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
 
+import java.util.Objects;
+
 /**
  * Data structure for a triple whereby the object can be a string or a URI.
  */
@@ -8,30 +10,38 @@ public class Triple {
 
     /**
      * Constructor
-     * @param subject Subject
-     * @param predicate Predicate
-     * @param object Object
+     * @param subject Subject (not null)
+     * @param predicate Predicate (not null)
+     * @param object Object (not null)
+     * @throws NullPointerException If one of the terms is null.
      */
     public Triple(String subject, String predicate, String object){
-        this.subject = subject;
-        this.predicate = predicate;
-        this.object = object;
+        this.subject = Objects.requireNonNull(subject, "subject");
+        this.predicate = Objects.requireNonNull(predicate, "predicate");
+        this.object = Objects.requireNonNull(object, "object");
+        this.hash = (31 * subject.hashCode() + predicate.hashCode()) * 31 + object.hashCode();
     }
 
-    public String subject;
-    public String predicate;
-    public String object;
+    public final String subject;
+    public final String predicate;
+    public final String object;
+
+    /**
+     * The hash code is computed once: triples are hashed into several sets of {@link TripleDataSetMemory}.
+     */
+    private final int hash;
 
     @Override
     public boolean equals(Object obj){
         if (this == obj) return true;
         if (!(obj instanceof Triple)) return false;
         Triple that = (Triple) obj;
-        return this.subject.equals(that.subject) && this.predicate.equals(that.predicate) && this.object.equals(that.object);
+        return this.hash == that.hash && this.subject.equals(that.subject) && this.predicate.equals(that.predicate)
+                && this.object.equals(that.object);
     }
 
     @Override
     public int hashCode(){
-        return (subject + "_1").hashCode() + (predicate + "_2").hashCode() + (object + "_2").hashCode();
+        return hash;
     }
 }
@@ -1,5 +1,8 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,6 +10,7 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -15,44 +19,60 @@ import java.util.stream.Collectors;
  * <p>
  * There is a distinction in (1) object triples where the object is a URI and
  * (2) datatpye triples where the object is a string.
+ * <p>
+ * The URIs of the data set are canonicalized by its {@link TermPool}, i.e., every URI is kept once no matter how
+ * often it occurs. The parsers canonicalize every term once with {@link TripleDataSetMemory#getTermPool()} before
+ * they add it (outside of the lock of this data set); the add methods do not canonicalize the terms again.
+ * <p>
+ * The data set has two phases: while it is built, triples can be added (thread-safe) and removed. The object triples
+ * are kept in one flat edge array per subject and per object only; queries by predicate scan these arrays. Once all
+ * triples have been added, {@link TripleDataSetMemory#freeze()} compacts the object triples into an immutable
+ * {@link FrozenAdjacency} that can be read by any number of threads without locks.
  */
 public class TripleDataSetMemory {
 
 
+    /**
+     * Name of the in-memory walk generators in the {@link WalkMetrics}.
+     */
+    private static final String METRICS_NAME = "memory";
+
     /**
      * Constructor
      */
     public TripleDataSetMemory() {
-        subjectToObjectTriples = new HashMap<>();
-        predicateToObjectTriples = new HashMap<>();
-        objectToObjectTriples = new HashMap<>();
-        subjectToDatatypeTriples = new HashMap<>();
-        objectTriples = new HashSet<>();
-        datatypeTriples = new HashSet<>();
+        predicateToNumberOfObjectTriples = new HashMap<>();
+        subjectToObjectEdges = new HashMap<>();
+        objectToObjectEdges = new HashMap<>();
+        literals = new LiteralArena();
+        objectTriples = new HashMap<>();
         objectNodes = new HashSet<>();
+        termPool = new TermPool();
     }
 
     /**
      * Form:
-     * {@code subject -> (predicate -> triple) }
+     * {@code predicate -> number of object triples}
      */
-    Map<String, Map<String, Set<Triple>>> subjectToObjectTriples;
+    Map<String, Integer> predicateToNumberOfObjectTriples;
 
     /**
-     * Form:
-     * {@code predicate -> List<Triple>}
+     * Flat, random-access edge array per subject. Form:
+     * {@code subject -> [triple]}
      */
-    Map<String, List<Triple>> predicateToObjectTriples;
+    Map<String, EdgeArray> subjectToObjectEdges;
 
     /**
-     * Form:
-     * {@code object -> (predicate -> triple) }
+     * Flat, random-access edge array per object. Form:
+     * {@code object -> [triple]}
      */
-    Map<String, Map<String, Set<Triple>>> objectToObjectTriples;
-    Set<Triple> objectTriples;
+    Map<String, EdgeArray> objectToObjectEdges;
 
-
-    Set<Triple> datatypeTriples;
+    /**
+     * The object triples with the positions in the edge arrays of their subject (upper 32 bits) and object (lower 32
+     * bits), so that a triple is removed without searching the edge arrays.
+     */
+    Map<Triple, Long> objectTriples;
 
     /**
      * Node URIs (no string values).
@@ -60,15 +80,58 @@ public class TripleDataSetMemory {
     Set<String> objectNodes;
 
     /**
-     * Map key: subject URI.
-     * Map value: predicate values map with key: property URI, value: Set of values
+     * Datatype triples: subject URI to (predicate, value) pairs. The values are stored as UTF-8 bytes.
      */
-    Map<String, Map<String, Set<String>>> subjectToDatatypeTriples;
+    LiteralArena literals;
+
+    /**
+     * The canonical URIs.
+     */
+    private final TermPool termPool;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TripleDataSetMemory.class);
 
     /**
-     * Add the given triple as specified by its components.
+     * Value of {@link TripleDataSetMemory#maxDegree} if the degree is not capped.
+     */
+    public static final int NO_DEGREE_LIMIT = -1;
+
+    /**
+     * Maximal number of object triples returned for a node and direction. Nodes with a higher degree (hubs) are
+     * sampled uniformly (see {@link TripleDataSetMemory#setMaxDegree(int)}).
+     */
+    private int maxDegree = NO_DEGREE_LIMIT;
+
+    /**
+     * Filter applied while triples are added; null if all triples are kept.
+     */
+    private WalkFilter walkFilter;
+
+    /**
+     * The compiled {@link TripleDataSetMemory#walkFilter}: a predicate is evaluated once and its decision is stored
+     * under the ID of the predicate in the {@link TermPool}.
+     */
+    private final BitSet decidedPredicates = new BitSet();
+
+    /**
+     * Accepted predicates among the {@link TripleDataSetMemory#decidedPredicates}.
+     */
+    private final BitSet acceptedPredicates = new BitSet();
+
+    /**
+     * Number of triples that were dropped by the {@link TripleDataSetMemory#walkFilter}.
+     */
+    private long numberOfFilteredTriples = 0;
+
+    /**
+     * The immutable adjacency of the object triples; null while the data set is built (see
+     * {@link TripleDataSetMemory#freeze()}).
+     */
+    private volatile FrozenAdjacency frozen;
+
+    /**
+     * Add the given triple as specified by its components. The terms should be canonical (see
+     * {@link TripleDataSetMemory#getTermPool()}).
      *
      * @param subject   Subject
      * @param predicate Predicate
@@ -83,146 +146,455 @@ public class TripleDataSetMemory {
     }
 
     /**
-     * Add a triple where the object is a string.
+     * Add a triple where the object is a string. The subject and the predicate should be canonical (see
+     * {@link TripleDataSetMemory#getTermPool()}).
      *
      * @param tripleToAdd Triple where the object is a string.
      */
     public synchronized void addDatatypeTriple(Triple tripleToAdd) {
-        this.objectNodes.add(tripleToAdd.subject);
-        if (this.subjectToDatatypeTriples.containsKey(tripleToAdd.subject)) {
-            Map<String, Set<String>> propertyMap = this.subjectToDatatypeTriples.get(tripleToAdd.subject);
-
-            if (propertyMap.containsKey(tripleToAdd.predicate)) {
-                Set<String> propertyValues = propertyMap.get(tripleToAdd.predicate);
-                propertyValues.add(tripleToAdd.object);
-            } else {
-                // there exists nothing for this datatype property (the predicate)
-                // let's quickly create it:
-                HashSet<String> propertyValues = new HashSet<>();
-                propertyValues.add(tripleToAdd.object);
-                propertyMap.put(tripleToAdd.predicate, propertyValues);
-            }
-        } else {
-            // string value:
-            HashSet<String> propertyValues = new HashSet<>();
-            propertyValues.add(tripleToAdd.object);
-
-            // datatype property:
-            HashMap<String, Set<String>> propertyMap = new HashMap<>();
-            propertyMap.put(tripleToAdd.predicate, propertyValues);
-
-            // add to index:
-            this.subjectToDatatypeTriples.put(tripleToAdd.subject, propertyMap);
+        if (frozen != null) {
+            LOGGER.error("The data set is frozen. The triple is not added.");
+            return;
+        }
+        if (walkFilter != null && (walkFilter.isExcludeLiterals() || isFiltered(tripleToAdd.predicate))) {
+            numberOfFilteredTriples++;
+            return;
         }
-        datatypeTriples.add(tripleToAdd);
+        this.objectNodes.add(tripleToAdd.subject);
+        literals.add(tripleToAdd.subject, tripleToAdd.predicate, tripleToAdd.object);
     }
 
     /**
-     * Add the given triple (thread-safe).
+     * Add the given triple (thread-safe). The terms should be canonical (see
+     * {@link TripleDataSetMemory#getTermPool()}).
      *
      * @param tripleToAdd Triple to be added.
      */
     public synchronized void addObjectTriple(Triple tripleToAdd) {
-        if (this.objectTriples.contains(tripleToAdd)) {
+        if (frozen != null) {
+            LOGGER.error("The data set is frozen. The triple is not added.");
+            return;
+        }
+        if (walkFilter != null && isFiltered(tripleToAdd.predicate)) {
+            numberOfFilteredTriples++;
+            return;
+        }
+        if (this.objectTriples.containsKey(tripleToAdd)) {
             return;
         }
         this.objectNodes.add(tripleToAdd.subject);
         this.objectNodes.add(tripleToAdd.object);
-        Map<String, Set<Triple>> subjectPredicateToTripleMap = subjectToObjectTriples.get(tripleToAdd.subject);
-
-        if (subjectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            subjectToObjectTriples.put(tripleToAdd.subject, predicateToObjectMap);
-        } else {
-            // there is already an entry for the subject
-            // check for predicate
-            if (subjectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                subjectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                subjectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
-            }
+        predicateToNumberOfObjectTriples.merge(tripleToAdd.predicate, 1, Integer::sum);
+        int subjectIndex = subjectToObjectEdges.computeIfAbsent(tripleToAdd.subject, k -> new EdgeArray())
+                .append(tripleToAdd);
+        int objectIndex = objectToObjectEdges.computeIfAbsent(tripleToAdd.object, k -> new EdgeArray())
+                .append(tripleToAdd);
+        objectTriples.put(tripleToAdd, (long) subjectIndex << 32 | objectIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Check the given predicate against the filter. Every predicate is evaluated only once; subsequent checks are a
+     * lookup of its term ID.
+     *
+     * @param predicate The predicate.
+     * @return True if triples with the predicate are dropped.
+     */
+    private boolean isFiltered(String predicate) {
+        int id = termPool.getId(predicate);
+        if (!decidedPredicates.get(id)) {
+            decidedPredicates.set(id);
+            if (walkFilter.isAccepted(predicate)) acceptedPredicates.set(id);
         }
+        return !acceptedPredicates.get(id);
+    }
 
-        List<Triple> predicateToTripleList = predicateToObjectTriples.get(tripleToAdd.predicate);
-        if (predicateToTripleList == null) {
-            ArrayList<Triple> newList = new ArrayList<>();
-            newList.add(tripleToAdd);
-            predicateToObjectTriples.put(tripleToAdd.predicate, newList);
-        } else predicateToTripleList.add(tripleToAdd);
-
-        Map<String, Set<Triple>> objectPredicateToTripleMap = objectToObjectTriples.get(tripleToAdd.object);
-        if (objectPredicateToTripleMap == null) {
-            Map<String, Set<Triple>> predicateToObjectMap = new HashMap<>();
-            Set<Triple> triples = new HashSet<>();
-            triples.add(tripleToAdd);
-            predicateToObjectMap.put(tripleToAdd.predicate, triples);
-            objectToObjectTriples.put(tripleToAdd.object, predicateToObjectMap);
-        } else {
-            // there is already an entry for the object
-            // check for predicate
-            if (objectPredicateToTripleMap.containsKey(tripleToAdd.predicate)) {
-                // predicate contained, add our object
-                objectPredicateToTripleMap.get(tripleToAdd.predicate).add(tripleToAdd);
-            } else {
-                // predicate not contained, add predicate -> object
-                Set<Triple> triples = new HashSet<>();
-                triples.add(tripleToAdd);
-                objectPredicateToTripleMap.put(tripleToAdd.predicate, triples);
-            }
+    /**
+     * Filter the triples that are added from now on. Triples that have already been added are not affected, i.e.,
+     * the filter should be set before parsing.
+     *
+     * @param walkFilter The filter; null to keep all triples.
+     */
+    public synchronized void setWalkFilter(WalkFilter walkFilter) {
+        this.walkFilter = walkFilter;
+        decidedPredicates.clear();
+        acceptedPredicates.clear();
+    }
 
-        }
-        objectTriples.add(tripleToAdd);
+    public WalkFilter getWalkFilter() {
+        return walkFilter;
+    }
+
+    /**
+     * @return The number of (object and datatype) triples that were dropped by the filter.
+     */
+    public long getNumberOfFilteredTriples() {
+        return numberOfFilteredTriples;
+    }
+
+    /**
+     * Get the triple with the canonical instances of its terms (see {@link TermPool}).
+     *
+     * @param triple The triple.
+     * @return The given triple if its terms are canonical already, else a new triple.
+     */
+    private Triple canonicalize(Triple triple) {
+        String subject = termPool.canonicalize(triple.subject);
+        String predicate = termPool.canonicalize(triple.predicate);
+        String object = termPool.canonicalize(triple.object);
+        if (subject == triple.subject && predicate == triple.predicate && object == triple.object) return triple;
+        return new Triple(subject, predicate, object);
     }
 
     /**
-     * Adds all triples of {@code dataToAdd} to this triple set.
+     * Adds all triples of {@code dataToAdd} to this triple set. Their terms are canonicalized with the term pool of
+     * this data set.
      *
      * @param dataToAdd The data that shall be added to this triple set
      */
     public synchronized void addAllObjectTriples(TripleDataSetMemory dataToAdd) {
-        for (Triple triple : dataToAdd.objectTriples) {
-            this.addObjectTriple(triple);
+        for (Triple triple : dataToAdd.getAllObjectTriples()) {
+            this.addObjectTriple(canonicalize(triple));
+        }
+    }
+
+    /**
+     * End the build phase: the object triples are compacted into an immutable {@link FrozenAdjacency} with dense
+     * node IDs and sorted, exactly sized edge arrays. Afterwards, triples can no longer be added or removed, and all
+     * reads are lock-free. The adjacency is published through a volatile field, hence it is visible to every thread
+     * that reads the data set afterwards.
+     * <p>
+     * The term IDs of the triples are extracted first and the hash-based indices are released before the adjacency
+     * is built, so that the indices and the adjacency are not held at the same time.
+     * <p>
+     * Must not be called while other threads read the data set. Calling it more than once has no effect.
+     */
+    public synchronized void freeze() {
+        if (frozen != null) return;
+        long start = System.currentTimeMillis();
+        int numberOfTriples = objectTriples.size();
+        int[] subjects = new int[numberOfTriples];
+        int[] predicates = new int[numberOfTriples];
+        int[] objects = new int[numberOfTriples];
+        int i = 0;
+        for (Triple triple : objectTriples.keySet()) {
+            subjects[i] = termPool.getId(triple.subject);
+            predicates[i] = termPool.getId(triple.predicate);
+            objects[i] = termPool.getId(triple.object);
+            i++;
         }
+        subjectToObjectEdges = null;
+        objectToObjectEdges = null;
+        objectTriples = null;
+
+        FrozenAdjacency adjacency = FrozenAdjacency.build(subjects, predicates, objects, termPool);
+        predicateToNumberOfObjectTriples = Collections.unmodifiableMap(new HashMap<>(predicateToNumberOfObjectTriples));
+        objectNodes = Collections.unmodifiableSet(new HashSet<>(objectNodes));
+        frozen = adjacency;
+        LOGGER.info("Froze " + adjacency.size() + " object triples in " + (System.currentTimeMillis() - start)
+                + " ms.");
     }
 
+    /**
+     * @return True if the data set has been frozen (see {@link TripleDataSetMemory#freeze()}).
+     */
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    /**
+     * Get the datatype tuples of the given subject. The map is created from the {@link LiteralArena}; use
+     * {@link TripleDataSetMemory#forEachDatatypeTuple(String, LiteralArena.LiteralConsumer)} to avoid the copy.
+     *
+     * @param subject The subject.
+     * @return Map of the form {@code predicate -> set of values} or null if the subject has no datatype triples.
+     */
     public Map<String, Set<String>> getDatatypeTuplesForSubject(String subject) {
-        return subjectToDatatypeTriples.get(subject);
+        return literals.getLiterals(subject);
+    }
+
+    /**
+     * Stream the datatype tuples (predicate, value) of the given subject.
+     *
+     * @param subject  The subject.
+     * @param consumer Consumer that is called for every datatype tuple.
+     */
+    public void forEachDatatypeTuple(String subject, LiteralArena.LiteralConsumer consumer) {
+        literals.forEachLiteral(subject, consumer);
+    }
+
+    /**
+     * @return The pool of the URIs of this data set.
+     */
+    public TermPool getTermPool() {
+        return termPool;
     }
 
     public Set<Triple> getAllObjectTriples() {
-        return this.objectTriples;
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getTriples();
+        return Collections.unmodifiableSet(this.objectTriples.keySet());
     }
 
+    /**
+     * Get the object triples in which the given node is the subject. The result is a read-only view of the edge
+     * array of the node (no copy). If the degree is capped and the node is a hub, a uniform sample of
+     * {@link TripleDataSetMemory#getMaxDegree()} triples is returned instead.
+     *
+     * @param subject The subject.
+     * @return Read-only list of triples or null if there are none.
+     */
     public List<Triple> getObjectTriplesInvolvingSubject(String subject) {
-        Map<String, Set<Triple>> subjectObjects = subjectToObjectTriples.get(subject);
-        if (subjectObjects == null) return null;
-        List<Triple> result = new ArrayList<>();
-        for (Map.Entry<String, Set<Triple>> entry : subjectObjects.entrySet()) {
-            result.addAll(entry.getValue());
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return getEdges(adjacency.getEdges(subject, true));
+        return getEdges(subjectToObjectEdges.get(subject));
+    }
+
+    /**
+     * Get the object triples in which the given node is the object. The result is a read-only view of the edge
+     * array of the node (no copy). If the degree is capped and the node is a hub, a uniform sample of
+     * {@link TripleDataSetMemory#getMaxDegree()} triples is returned instead.
+     *
+     * @param object The object.
+     * @return Read-only list of triples or null if there are none.
+     */
+    public List<Triple> getObjectTriplesInvolvingObject(String object) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return getEdges(adjacency.getEdges(object, false));
+        return getEdges(objectToObjectEdges.get(object));
+    }
+
+    private List<Triple> getEdges(List<Triple> edges) {
+        long start = WalkMetrics.startTimer();
+        if (edges == null) {
+            WalkMetrics.recordHop(METRICS_NAME, start, 0);
+            return null;
         }
+        List<Triple> result;
+        int limit = maxDegree;
+        if (limit != NO_DEGREE_LIMIT && edges.size() > limit) {
+            Triple[] sample = new Triple[limit];
+            int i = 0;
+            for (long index : Util.randomSampleIndices(edges.size(), limit)) {
+                sample[i++] = edges.get((int) index);
+            }
+            result = Collections.unmodifiableList(Arrays.asList(sample));
+        } else {
+            // the edge arrays are read-only views already
+            result = edges;
+        }
+        WalkMetrics.recordHop(METRICS_NAME, start, result.size());
         return result;
     }
 
-    public List<Triple> getObjectTriplesInvolvingPredicate(String predicate) {
-        return predicateToObjectTriples.get(predicate);
+    /**
+     * Get the number of object triples in which the given node is the subject. This number is not capped.
+     *
+     * @param subject The subject.
+     * @return Number of triples.
+     */
+    public int getNumberOfObjectTriplesInvolvingSubject(String subject) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getDegree(subject, true);
+        EdgeArray edges = subjectToObjectEdges.get(subject);
+        return edges == null ? 0 : edges.size();
     }
 
+    /**
+     * Get the number of object triples in which the given node is the object. This number is not capped.
+     *
+     * @param object The object.
+     * @return Number of triples.
+     */
+    public int getNumberOfObjectTriplesInvolvingObject(String object) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getDegree(object, false);
+        EdgeArray edges = objectToObjectEdges.get(object);
+        return edges == null ? 0 : edges.size();
+    }
 
-    public List<Triple> getObjectTriplesInvolvingObject(String object) {
-        Map<String, Set<Triple>> objectPredicates = objectToObjectTriples.get(object);
-        if (objectPredicates == null) return null;
-        List<Triple> result = new ArrayList<>();
-        objectPredicates.forEach((key, value) -> result.addAll(value));
+    /**
+     * Get the i-th object triple in which the given node is the subject (see
+     * {@link TripleDataSetMemory#getNumberOfObjectTriplesInvolvingSubject(String)}). The order is arbitrary and
+     * changes when triples are removed. Once the data set is frozen, the triples are sorted by predicate and object.
+     *
+     * @param subject The subject.
+     * @param index   Index in {@code [0, number of triples)}.
+     * @return Triple.
+     */
+    public Triple getObjectTripleInvolvingSubject(String subject, int index) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getEdge(subject, index, true);
+        return subjectToObjectEdges.get(subject).get(index);
+    }
+
+    /**
+     * Get the i-th object triple in which the given node is the object (see
+     * {@link TripleDataSetMemory#getNumberOfObjectTriplesInvolvingObject(String)}). The order is arbitrary and
+     * changes when triples are removed. Once the data set is frozen, the triples are sorted by predicate and subject.
+     *
+     * @param object The object.
+     * @param index  Index in {@code [0, number of triples)}.
+     * @return Triple.
+     */
+    public Triple getObjectTripleInvolvingObject(String object, int index) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getEdge(object, index, false);
+        return objectToObjectEdges.get(object).get(index);
+    }
+
+    /**
+     * Draw a random object triple in which the given node is the subject. O(1), nothing is copied. Since the draw
+     * is uniform over all edges, the result is not affected by {@link TripleDataSetMemory#setMaxDegree(int)}.
+     *
+     * @param subject The subject.
+     * @return Random triple or null if there is none.
+     */
+    public Triple getRandomObjectTripleInvolvingSubject(String subject) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return getRandomEdge(adjacency.getEdges(subject, true));
+        return getRandomEdge(subjectToObjectEdges.get(subject));
+    }
+
+    /**
+     * Draw a random object triple in which the given node is the object. O(1), nothing is copied.
+     *
+     * @param object The object.
+     * @return Random triple or null if there is none.
+     */
+    public Triple getRandomObjectTripleInvolvingObject(String object) {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return getRandomEdge(adjacency.getEdges(object, false));
+        return getRandomEdge(objectToObjectEdges.get(object));
+    }
+
+    /**
+     * Get the dense ID of the given node (see {@link TripleDataSetMemory#getTermPool()}). Walks over a frozen data
+     * set carry the ID of the current node from hop to hop and resolve the terms only when the walk is written (see
+     * {@link TripleDataSetMemory#getRandomEdgeIndex(int, boolean)}).
+     *
+     * @param node The node.
+     * @return The ID or {@link TermPool#NOT_FOUND}.
+     */
+    public int getNodeId(String node) {
+        return termPool.lookup(node);
+    }
+
+    /**
+     * @param id A term ID.
+     * @return The term of the ID.
+     */
+    public String getTerm(int id) {
+        return termPool.getTerm(id);
+    }
+
+    /**
+     * Draw a random edge of the given node. The data set must be frozen. Since the draw is uniform over all edges,
+     * the result is not affected by {@link TripleDataSetMemory#setMaxDegree(int)}.
+     *
+     * @param nodeId     The ID of the node (may be {@link TermPool#NOT_FOUND}).
+     * @param isOutgoing True for the edges in which the node is the subject, false for the edges in which it is the
+     *                   object.
+     * @return Index of the edge (see {@link TripleDataSetMemory#getOutObjectId(int, int)} etc.) or -1 if the node has
+     * no edges in the given direction.
+     * @throws IllegalStateException If the data set is not frozen.
+     */
+    public int getRandomEdgeIndex(int nodeId, boolean isOutgoing) {
+        long start = WalkMetrics.startTimer();
+        FrozenAdjacency adjacency = getFrozen();
+        int degree = isOutgoing ? adjacency.outDegree(nodeId) : adjacency.inDegree(nodeId);
+        WalkMetrics.recordHop(METRICS_NAME, start, degree);
+        return degree == 0 ? -1 : ThreadLocalRandom.current().nextInt(degree);
+    }
+
+    /**
+     * @param nodeId The ID of the node (may be {@link TermPool#NOT_FOUND}).
+     * @return The number of object triples in which the node is the subject. The data set must be frozen.
+     */
+    public int getOutDegree(int nodeId) {
+        return getFrozen().outDegree(nodeId);
+    }
+
+    /**
+     * @param nodeId The ID of the node (may be {@link TermPool#NOT_FOUND}).
+     * @return The number of object triples in which the node is the object. The data set must be frozen.
+     */
+    public int getInDegree(int nodeId) {
+        return getFrozen().inDegree(nodeId);
+    }
+
+    /**
+     * @param nodeId The ID of the subject.
+     * @param index  Index in {@code [0, out degree)} (the order of
+     *               {@link TripleDataSetMemory#getObjectTripleInvolvingSubject(String, int)}).
+     * @return The predicate ID of the edge. The data set must be frozen.
+     */
+    public int getOutPredicateId(int nodeId, int index) {
+        return getFrozen().outPredicateId(nodeId, index);
+    }
+
+    /**
+     * @param nodeId The ID of the subject.
+     * @param index  Index in {@code [0, out degree)}.
+     * @return The object ID of the edge. The data set must be frozen.
+     */
+    public int getOutObjectId(int nodeId, int index) {
+        return getFrozen().outObjectId(nodeId, index);
+    }
+
+    /**
+     * @param nodeId The ID of the object.
+     * @param index  Index in {@code [0, in degree)} (the order of
+     *               {@link TripleDataSetMemory#getObjectTripleInvolvingObject(String, int)}).
+     * @return The predicate ID of the edge. The data set must be frozen.
+     */
+    public int getInPredicateId(int nodeId, int index) {
+        return getFrozen().inPredicateId(nodeId, index);
+    }
+
+    /**
+     * @param nodeId The ID of the object.
+     * @param index  Index in {@code [0, in degree)}.
+     * @return The subject ID of the edge. The data set must be frozen.
+     */
+    public int getInSubjectId(int nodeId, int index) {
+        return getFrozen().inSubjectId(nodeId, index);
+    }
+
+    private FrozenAdjacency getFrozen() {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency == null) throw new IllegalStateException("The data set is not frozen.");
+        return adjacency;
+    }
+
+    private static Triple getRandomEdge(List<Triple> edges) {
+        long start = WalkMetrics.startTimer();
+        if (edges == null || edges.isEmpty()) {
+            WalkMetrics.recordHop(METRICS_NAME, start, 0);
+            return null;
+        }
+        Triple result = edges.get(ThreadLocalRandom.current().nextInt(edges.size()));
+        WalkMetrics.recordHop(METRICS_NAME, start, edges.size());
         return result;
     }
 
+    /**
+     * Get the object triples with the given predicate. There is no predicate index (walks never need one), hence all
+     * object triples are scanned.
+     *
+     * @param predicate The predicate.
+     * @return List of triples or null if there are none.
+     */
+    public List<Triple> getObjectTriplesInvolvingPredicate(String predicate) {
+        Integer numberOfTriples = predicate == null ? null : predicateToNumberOfObjectTriples.get(predicate);
+        if (numberOfTriples == null) return null;
+        List<Triple> result = new ArrayList<>(numberOfTriples);
+        for (Triple triple : getAllObjectTriples()) {
+            if (triple.predicate.equals(predicate)) result.add(triple);
+        }
+        return result;
+    }
+
+
     /**
      * This method allows stating (S, P, ?) queries for object property triples.
      * It will not return datatype triples.
@@ -233,9 +605,9 @@ public class TripleDataSetMemory {
      */
     public Set<Triple> getObjectTriplesWithSubjectPredicate(String subject, String predicate) {
         if (subject == null || predicate == null) return null;
-        Map<String, Set<Triple>> s = subjectToObjectTriples.get(subject);
-        if (s == null) return null;
-        return s.get(predicate);
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getEdges(subject, predicate, true);
+        return filterByPredicate(subjectToObjectEdges.get(subject), predicate);
     }
 
     /**
@@ -248,9 +620,26 @@ public class TripleDataSetMemory {
      */
     public Set<Triple> getObjectTriplesWithPredicateObject(String predicate, String object) {
         if (object == null || predicate == null) return null;
-        Map<String, Set<Triple>> s = objectToObjectTriples.get(object);
-        if (s == null) return null;
-        return s.get(predicate);
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getEdges(object, predicate, false);
+        return filterByPredicate(objectToObjectEdges.get(object), predicate);
+    }
+
+    /**
+     * @param edges     The edge array of a node (may be null).
+     * @param predicate The predicate.
+     * @return The edges with the given predicate or null if there are none.
+     */
+    private static Set<Triple> filterByPredicate(EdgeArray edges, String predicate) {
+        if (edges == null) return null;
+        Set<Triple> result = null;
+        for (Triple edge : edges) {
+            if (edge.predicate.equals(predicate)) {
+                if (result == null) result = new HashSet<>();
+                result.add(edge);
+            }
+        }
+        return result;
     }
 
     /**
@@ -259,6 +648,8 @@ public class TripleDataSetMemory {
      * @return The number of managed object triples.
      */
     public long getObjectTripleSize() {
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.size();
         return objectTriples.size();
     }
 
@@ -268,7 +659,7 @@ public class TripleDataSetMemory {
      * @return The number of managed datatype triples.
      */
     public long getDatatypeTripleSize() {
-        return datatypeTriples.size();
+        return literals.size();
     }
 
     /**
@@ -289,7 +680,7 @@ public class TripleDataSetMemory {
      * @return Set of subjects.
      */
     public Set<String> getUniqueDatatypeTripleSubjects() {
-        return this.subjectToDatatypeTriples.keySet();
+        return literals.getSubjects();
     }
 
     /**
@@ -298,7 +689,9 @@ public class TripleDataSetMemory {
      * @return Set of subjects.
      */
     public Set<String> getUniqueObjectTripleSubjects() {
-        return subjectToObjectTriples.keySet();
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getNodes(true);
+        return subjectToObjectEdges.keySet();
     }
 
     /**
@@ -307,9 +700,11 @@ public class TripleDataSetMemory {
      * @return Set of subjects and objects.
      */
     public Set<String> getUniqueObjectTripleSubjectsAndObjects() {
-        HashSet<String> result = new HashSet<>(subjectToObjectTriples.keySet().size() + objectToObjectTriples.keySet().size());
-        result.addAll(subjectToObjectTriples.keySet());
-        result.addAll(objectToObjectTriples.keySet());
+        Set<String> subjects = getUniqueObjectTripleSubjects();
+        Set<String> objects = getUniqueObjectTripleObjects();
+        HashSet<String> result = new HashSet<>(subjects.size() + objects.size());
+        result.addAll(subjects);
+        result.addAll(objects);
         return result;
     }
 
@@ -323,62 +718,59 @@ public class TripleDataSetMemory {
             LOGGER.warn("tripleToBeRemoved is null.");
             return;
         }
-        if (!objectTriples.contains(tripleToBeRemoved)) {
+        if (frozen != null) {
+            LOGGER.error("The data set is frozen. The triple is not removed.");
+            return;
+        }
+        Long positions = objectTriples.remove(tripleToBeRemoved);
+        if (positions == null) {
             LOGGER.warn("Object triple not found: (" + tripleToBeRemoved.subject + ", "
                     + tripleToBeRemoved.predicate + ", " + tripleToBeRemoved.object + ")");
             return;
         }
-        objectTriples.remove(tripleToBeRemoved);
-
-        // remove from sp index
-        Map<String, Set<Triple>> sPredicateTripleMap = subjectToObjectTriples.get(tripleToBeRemoved.subject);
-        if (sPredicateTripleMap != null) {
-            Set<Triple> triples = sPredicateTripleMap.get(tripleToBeRemoved.predicate);
-            triples.remove(tripleToBeRemoved);
-            if (triples.size() == 0) {
-                // remove key
-                sPredicateTripleMap.remove(tripleToBeRemoved.predicate);
-                if (sPredicateTripleMap.size() == 0) {
-                    subjectToObjectTriples.remove(tripleToBeRemoved.subject);
-                }
-            }
-        }
+        predicateToNumberOfObjectTriples.computeIfPresent(tripleToBeRemoved.predicate,
+                (predicate, count) -> count == 1 ? null : count - 1);
+        removeEdge(subjectToObjectEdges, tripleToBeRemoved.subject, (int) (positions >>> 32), true);
+        removeEdge(objectToObjectEdges, tripleToBeRemoved.object, (int) positions.longValue(), false);
 
-        // predicate index
-        List<Triple> predicateTriples = predicateToObjectTriples.get(tripleToBeRemoved.predicate);
-        predicateTriples.remove(tripleToBeRemoved);
-        if (predicateTriples.size() == 0) {
-            predicateToObjectTriples.remove(tripleToBeRemoved.predicate);
-        }
-
-        // remove from op index
-        Map<String, Set<Triple>> oPredicateTripleMap = objectToObjectTriples.get(tripleToBeRemoved.object);
-        if (oPredicateTripleMap != null) {
-            Set<Triple> triples = oPredicateTripleMap.get(tripleToBeRemoved.predicate);
-            triples.remove(tripleToBeRemoved);
-            if (triples.size() == 0) {
-                oPredicateTripleMap.remove(tripleToBeRemoved.predicate);
-                if (oPredicateTripleMap.size() == 0) {
-                    objectToObjectTriples.remove(tripleToBeRemoved.object);
-                }
-            }
-        }
-
-        removeFromObjectTriplesIfNotExists(tripleToBeRemoved.subject);
-        removeFromObjectTriplesIfNotExists(tripleToBeRemoved.object);
+        removeFromObjectNodesIfNotExists(tripleToBeRemoved.subject);
+        removeFromObjectNodesIfNotExists(tripleToBeRemoved.object);
     }
 
     /**
      * Checks whether the provided {@code nodeId} is used somewhere. If not, it removes the nodeId from the
-     * {@link TripleDataSetMemory#objectTriples}.
+     * {@link TripleDataSetMemory#objectNodes}.
      *
      * @param nodeId The nodeId that shall be removed.
      */
-    private void removeFromObjectTriplesIfNotExists(String nodeId) {
-        if (subjectToObjectTriples.get(nodeId) == null
-                && objectToObjectTriples.get(nodeId) == null
-                && subjectToDatatypeTriples.get(nodeId) == null) {
-            objectTriples.remove(nodeId);
+    private void removeFromObjectNodesIfNotExists(String nodeId) {
+        if (!subjectToObjectEdges.containsKey(nodeId)
+                && !objectToObjectEdges.containsKey(nodeId)
+                && !literals.containsSubject(nodeId)) {
+            objectNodes.remove(nodeId);
+        }
+    }
+
+    /**
+     * Remove a triple from the edge array of a node by moving the last edge to its place. The position of the moved
+     * edge is updated in {@link TripleDataSetMemory#objectTriples}.
+     *
+     * @param nodeToEdges The edge arrays.
+     * @param node        The node.
+     * @param index       The position of the triple in the edge array of the node.
+     * @param isSubject   True if the edge arrays are the ones of the subjects.
+     */
+    private void removeEdge(Map<String, EdgeArray> nodeToEdges, String node, int index, boolean isSubject) {
+        EdgeArray edges = nodeToEdges.get(node);
+        Triple moved = edges.swapRemove(index);
+        if (moved != null) {
+            long positions = objectTriples.get(moved);
+            positions = isSubject ? (long) index << 32 | positions & 0xFFFFFFFFL
+                    : positions & 0xFFFFFFFF00000000L | index & 0xFFFFFFFFL;
+            objectTriples.put(moved, positions);
+        }
+        if (edges.isEmpty()) {
+            nodeToEdges.remove(node);
         }
     }
 
@@ -388,7 +780,9 @@ public class TripleDataSetMemory {
      * @return Set of all objets.
      */
     public Set<String> getUniqueObjectTripleObjects() {
-        return objectToObjectTriples.keySet();
+        FrozenAdjacency adjacency = frozen;
+        if (adjacency != null) return adjacency.getNodes(false);
+        return objectToObjectEdges.keySet();
     }
 
     /**
@@ -397,7 +791,7 @@ public class TripleDataSetMemory {
      * @return Set of all predicates.
      */
     public Set<String> getUniqueObjectTriplePredicates() {
-        return predicateToObjectTriples.keySet();
+        return predicateToNumberOfObjectTriples.keySet();
     }
 
     public Set<String> getObjectNodes() {
@@ -447,6 +841,23 @@ public class TripleDataSetMemory {
         return triples.stream().map(x -> x.object).collect(Collectors.toSet());
     }
 
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Cap the number of edges that are returned per node and direction. Whenever a walk steps onto a hub (a node
+     * with more edges than the given threshold), a uniform random sample of {@code maxDegree} edges is drawn by index
+     * from a flat edge list of the hub instead of copying all edges. Since walks pick uniformly among the returned
+     * candidates, the transition probabilities remain unchanged; only the cost per hop is bounded.
+     *
+     * @param maxDegree The maximal number of edges per node and direction; {@link TripleDataSetMemory#NO_DEGREE_LIMIT}
+     *                  (or any value &lt; 1) disables the cap.
+     */
+    public void setMaxDegree(int maxDegree) {
+        this.maxDegree = maxDegree < 1 ? NO_DEGREE_LIMIT : maxDegree;
+    }
+
     /**
      * Parses an UTF-8 encoded NT file and returns a triple dataset memory instance.
      *
@@ -471,10 +882,12 @@ public class TripleDataSetMemory {
                 if (o.endsWith(".")) {
                     o = o.substring(0, o.length() - 1);
                 }
+                TermPool termPool = result.getTermPool();
                 if (o.startsWith("\"")) {
-                    result.addDatatypeTriple(new Triple(tokens[0], tokens[1], o));
+                    result.addDatatypeTriple(termPool.canonicalize(tokens[0]), termPool.canonicalize(tokens[1]), o);
                 } else {
-                    result.addObjectTriple(new Triple(tokens[0], tokens[1], o));
+                    result.addObjectTriple(termPool.canonicalize(tokens[0]), termPool.canonicalize(tokens[1]),
+                            termPool.canonicalize(o));
                 }
 
             }
@@ -0,0 +1,591 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.distributed;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.Main;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Coordinator of a distributed walk generation. The entities are partitioned among a fixed number of workers
+ * ({@link WalkWorker}); each worker generates the walks of its partition and writes its own walk shards. Workers
+ * report their progress to the coordinator over a simple line-based TCP protocol:
+ * <pre>
+ * HELLO &lt;worker&gt; &lt;number of workers&gt; &lt;run token&gt;
+ * PROGRESS &lt;worker&gt; &lt;processed entities&gt; &lt;total entities&gt; &lt;processed walks&gt;
+ * DONE &lt;worker&gt; &lt;processed entities&gt; &lt;processed walks&gt;
+ * FAILED &lt;worker&gt; &lt;message&gt;
+ * </pre>
+ * A connection has to register with {@code HELLO} and the run token of the coordinator ({@link #getRunToken()})
+ * before it may report for a worker; only the most recently registered connection of a worker is heard. If the
+ * connection of a worker is lost, the worker may register again within the reconnect timeout. The run token is never
+ * passed on a command line (where other users could read it): local workers obtain it through the environment
+ * variable {@link #RUN_TOKEN_VARIABLE}, workers started by hand read it from a file that only the owner can read
+ * ({@link #writeRunTokenFile(File)}).
+ * <p>
+ * Workers can be started on other machines (with the same graph file) or as local processes via
+ * {@link WalkCoordinator#launchLocalWorkers(List, File)}. Unless remote workers are expected, the coordinator only
+ * listens on the loopback interface.
+ */
+public class WalkCoordinator implements Closeable {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkCoordinator.class);
+
+    public static final String HELLO = "HELLO";
+    public static final String PROGRESS = "PROGRESS";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    /**
+     * Environment variable through which local workers obtain the run token.
+     */
+    public static final String RUN_TOKEN_VARIABLE = "JRDF2VEC_RUN_TOKEN";
+
+    /**
+     * Default time in milliseconds that a worker whose connection was lost has to register again.
+     */
+    public static final long DEFAULT_RECONNECT_TIMEOUT = 10 * 60 * 1000;
+
+    /**
+     * State of a worker as known to the coordinator. {@code DONE} and {@code FAILED} are final.
+     */
+    public enum WorkerState {
+        WAITING, RUNNING, DISCONNECTED, DONE, FAILED
+    }
+
+    /**
+     * Status of a single worker.
+     */
+    public static class WorkerStatus {
+        private volatile WorkerState state = WorkerState.WAITING;
+        private volatile long processedEntities = 0;
+        private volatile long totalEntities = -1;
+        private volatile long processedWalks = 0;
+        private volatile String message;
+
+        /**
+         * The connection on which the worker registered most recently. Null if it is not connected.
+         */
+        private volatile Object connection;
+
+        public WorkerState getState() {
+            return state;
+        }
+
+        public long getProcessedEntities() {
+            return processedEntities;
+        }
+
+        public long getTotalEntities() {
+            return totalEntities;
+        }
+
+        public long getProcessedWalks() {
+            return processedWalks;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * The number of workers that take part in the walk generation.
+     */
+    private final int numberOfWorkers;
+
+    /**
+     * The port on which the coordinator listens. 0 if an ephemeral port shall be used.
+     */
+    private final int requestedPort;
+
+    /**
+     * If true, the coordinator listens on all interfaces, else only on the loopback interface.
+     */
+    private final boolean isAcceptingRemoteWorkers;
+
+    /**
+     * Secret that workers have to present when registering; it keeps stray or stale processes from reporting.
+     */
+    private final String runToken;
+
+    /**
+     * Time in milliseconds that a worker whose connection was lost has to register again.
+     */
+    private long reconnectTimeout = DEFAULT_RECONNECT_TIMEOUT;
+
+    private ServerSocket serverSocket;
+
+    /**
+     * Fails workers that did not register again in time.
+     */
+    private final ScheduledExecutorService reconnectWatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "walk-coordinator-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Integer, WorkerStatus> workerStatus = new ConcurrentHashMap<>();
+
+    /**
+     * Counted down once for every worker that finished (successfully or not).
+     */
+    private final CountDownLatch finishedWorkers;
+
+    /**
+     * Processes of locally launched workers.
+     */
+    private final List<Process> processes = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<Socket> connections = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Constructor. The coordinator only accepts local workers.
+     *
+     * @param numberOfWorkers The number of workers.
+     * @param port            The port on which the coordinator shall listen (0 for any free port).
+     */
+    public WalkCoordinator(int numberOfWorkers, int port) {
+        this(numberOfWorkers, port, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param numberOfWorkers          The number of workers.
+     * @param port                     The port on which the coordinator shall listen (0 for any free port).
+     * @param isAcceptingRemoteWorkers True if workers on other machines take part (the coordinator listens on all
+     *                                 interfaces), false to listen on the loopback interface only.
+     */
+    public WalkCoordinator(int numberOfWorkers, int port, boolean isAcceptingRemoteWorkers) {
+        this.numberOfWorkers = Math.max(1, numberOfWorkers);
+        this.requestedPort = port;
+        this.isAcceptingRemoteWorkers = isAcceptingRemoteWorkers;
+        this.runToken = generateRunToken();
+        this.finishedWorkers = new CountDownLatch(this.numberOfWorkers);
+        for (int i = 0; i < this.numberOfWorkers; i++) {
+            workerStatus.put(i, new WorkerStatus());
+        }
+    }
+
+    private static String generateRunToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder result = new StringBuilder();
+        for (byte b : bytes) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Opens the server socket and starts accepting worker connections.
+     *
+     * @return True if the coordinator could be started, else false.
+     */
+    public boolean start() {
+        try {
+            serverSocket = new ServerSocket(requestedPort, 50,
+                    isAcceptingRemoteWorkers ? null : InetAddress.getLoopbackAddress());
+        } catch (IOException ioe) {
+            LOGGER.error("Could not open coordinator socket on port " + requestedPort + ".", ioe);
+            return false;
+        }
+        Thread acceptThread = new Thread(this::acceptConnections, "walk-coordinator");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        LOGGER.info("Walk coordinator listening on port " + getPort() + (isAcceptingRemoteWorkers ? "" :
+                " (loopback only)") + " for " + numberOfWorkers + " workers.");
+        return true;
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread handler = new Thread(() -> handleConnection(socket), "walk-coordinator-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (SocketException se) {
+                // socket closed
+                return;
+            } catch (IOException ioe) {
+                LOGGER.error("Could not accept worker connection.", ioe);
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        int worker = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int parsedWorker = handleMessage(line, socket);
+                if (parsedWorker >= 0) worker = parsedWorker;
+            }
+        } catch (IOException ioe) {
+            // connection lost, handled below
+        }
+        connections.remove(socket);
+        if (worker >= 0) {
+            connectionLost(worker, socket);
+        }
+    }
+
+    /**
+     * Handles the loss of a worker connection. If it is the current connection of a worker that has not finished,
+     * the worker is given {@link #getReconnectTimeout()} milliseconds to register again before it is marked as
+     * failed.
+     *
+     * @param worker     The worker.
+     * @param connection The connection that was lost.
+     */
+    synchronized void connectionLost(int worker, Object connection) {
+        WorkerStatus status = workerStatus.get(worker);
+        if (status.connection != connection) return;
+        status.connection = null;
+        if (status.state != WorkerState.RUNNING && status.state != WorkerState.WAITING) return;
+        status.state = WorkerState.DISCONNECTED;
+        LOGGER.warn("Lost the connection to worker " + worker + ". Waiting " + reconnectTimeout + " ms for it to " +
+                "register again.");
+        try {
+            reconnectWatcher.schedule(() -> {
+                synchronized (this) {
+                    if (status.state == WorkerState.DISCONNECTED) {
+                        markFinished(worker, WorkerState.FAILED, "Connection lost.");
+                        LOGGER.error("Worker " + worker + " did not register again.");
+                    }
+                }
+            }, reconnectTimeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+            // the coordinator is closed
+        }
+    }
+
+    /**
+     * Handle a single protocol message.
+     *
+     * @param line       The message.
+     * @param connection The connection on which the message was received.
+     * @return The worker that sent the message or -1 if the message is not valid.
+     */
+    synchronized int handleMessage(String line, Object connection) {
+        String[] tokens = line.trim().split(" ", 3);
+        if (tokens.length < 2) {
+            LOGGER.warn("Invalid message from worker: " + line);
+            return -1;
+        }
+        int worker;
+        try {
+            worker = Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException nfe) {
+            LOGGER.warn("Invalid message from worker: " + line);
+            return -1;
+        }
+        WorkerStatus status = workerStatus.get(worker);
+        if (status == null) {
+            LOGGER.warn("Message from unknown worker " + worker + ": " + line);
+            return -1;
+        }
+        String[] values = tokens.length > 2 ? tokens[2].split(" ") : new String[0];
+        if (tokens[0].equals(HELLO)) {
+            if (values.length < 2 || !isRunToken(values[1])) {
+                LOGGER.warn("Rejected the registration of worker " + worker + ": invalid run token.");
+                return -1;
+            }
+        } else if (status.connection != connection) {
+            LOGGER.warn("Ignored a message for worker " + worker + " from a connection on which it is not " +
+                    "registered: " + line);
+            return -1;
+        }
+        try {
+            switch (tokens[0]) {
+                case HELLO:
+                    if (Integer.parseInt(values[0]) != numberOfWorkers) {
+                        LOGGER.error("Worker " + worker + " uses " + values[0] + " partitions but the coordinator " +
+                                "expects " + numberOfWorkers + ".");
+                        markFinished(worker, WorkerState.FAILED, "Wrong number of partitions.");
+                        break;
+                    }
+                    if (status.state == WorkerState.DONE || status.state == WorkerState.FAILED) {
+                        LOGGER.warn("Worker " + worker + " registered again after it finished.");
+                        return -1;
+                    }
+                    LOGGER.info("Worker " + worker + (status.state == WorkerState.DISCONNECTED ? " reconnected." :
+                            " connected."));
+                    status.connection = connection;
+                    status.state = WorkerState.RUNNING;
+                    break;
+                case PROGRESS:
+                    status.processedEntities = Long.parseLong(values[0]);
+                    status.totalEntities = Long.parseLong(values[1]);
+                    status.processedWalks = Long.parseLong(values[2]);
+                    LOGGER.info("Worker " + worker + ": " + status.processedEntities + " / " + status.totalEntities
+                            + " entities, " + status.processedWalks + " walks. Total: " + getProcessedEntities() +
+                            " entities.");
+                    break;
+                case DONE:
+                    status.processedEntities = Long.parseLong(values[0]);
+                    status.processedWalks = Long.parseLong(values[1]);
+                    markFinished(worker, WorkerState.DONE, null);
+                    LOGGER.info("Worker " + worker + " finished (" + status.processedEntities + " entities, " +
+                            status.processedWalks + " walks).");
+                    break;
+                case FAILED:
+                    markFinished(worker, WorkerState.FAILED, tokens.length > 2 ? tokens[2] : null);
+                    LOGGER.error("Worker " + worker + " failed: " + status.message);
+                    break;
+                default:
+                    LOGGER.warn("Unknown message from worker " + worker + ": " + line);
+                    return -1;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            LOGGER.warn("Invalid message from worker: " + line);
+        }
+        return worker;
+    }
+
+    private boolean isRunToken(String token) {
+        return MessageDigest.isEqual(runToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private synchronized void markFinished(int worker, WorkerState state, String message) {
+        WorkerStatus status = workerStatus.get(worker);
+        if (status.state == WorkerState.DONE || status.state == WorkerState.FAILED) return;
+        status.state = state;
+        status.message = message;
+        finishedWorkers.countDown();
+    }
+
+    /**
+     * Launches all workers as local JVM processes using the class path of this JVM.
+     *
+     * @param arguments    The CLI arguments for the workers (graph, walk directory, walk options etc.). The worker
+     *                     options are added automatically.
+     * @param logDirectory Directory to which the worker output is written (one {@code worker_<i>.log} per worker).
+     *                     If null, the output is inherited.
+     * @return True if all processes could be started.
+     */
+    public boolean launchLocalWorkers(List<String> arguments, File logDirectory) {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("java.class.path");
+        for (int i = 0; i < numberOfWorkers; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.add("-cp");
+            command.add(classPath);
+            command.add(Main.class.getName());
+            command.addAll(arguments);
+            command.add("-worker");
+            command.add(String.valueOf(i));
+            command.add(String.valueOf(numberOfWorkers));
+            command.add("-coordinator");
+            command.add(InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort());
+
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.environment().put(RUN_TOKEN_VARIABLE, runToken);
+            builder.redirectErrorStream(true);
+            if (logDirectory == null) {
+                builder.inheritIO();
+            } else {
+                logDirectory.mkdirs();
+                builder.redirectOutput(new File(logDirectory, "worker_" + i + ".log"));
+            }
+            try {
+                Process process = builder.start();
+                processes.add(process);
+                watchProcess(i, process);
+            } catch (IOException ioe) {
+                LOGGER.error("Could not launch worker " + i + ".", ioe);
+                markFinished(i, WorkerState.FAILED, "Could not launch process.");
+                return false;
+            }
+        }
+        LOGGER.info("Launched " + numberOfWorkers + " local workers.");
+        return true;
+    }
+
+    /**
+     * Marks a worker as failed if its process terminates without having reported completion.
+     *
+     * @param worker  The worker index.
+     * @param process The worker process.
+     */
+    private void watchProcess(int worker, Process process) {
+        Thread watcher = new Thread(() -> {
+            try {
+                int exitCode = process.waitFor();
+                WorkerStatus status = workerStatus.get(worker);
+                // give the connection handler the chance to process the last messages
+                for (int i = 0; i < 50 && status.state != WorkerState.DONE; i++) {
+                    Thread.sleep(100);
+                }
+                if (status.state != WorkerState.DONE) {
+                    markFinished(worker, WorkerState.FAILED, "Process terminated with exit code " + exitCode + ".");
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }, "walk-worker-watcher-" + worker);
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Waits until all workers finished.
+     *
+     * @param timeout Maximal waiting time.
+     * @param unit    Unit of the waiting time.
+     * @return True if all workers finished successfully, else false.
+     */
+    public boolean awaitCompletion(long timeout, TimeUnit unit) {
+        try {
+            if (!finishedWorkers.await(timeout, unit)) {
+                LOGGER.error("Timeout while waiting for the workers.");
+                return false;
+            }
+        } catch (InterruptedException ie) {
+            LOGGER.error("Interrupted while waiting for the workers.");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        for (Map.Entry<Integer, WorkerStatus> entry : workerStatus.entrySet()) {
+            if (entry.getValue().state != WorkerState.DONE) {
+                LOGGER.error("Worker " + entry.getKey() + " did not complete: " + entry.getValue().message);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the total number of processed entities over all workers.
+     *
+     * @return Number of processed entities.
+     */
+    public long getProcessedEntities() {
+        long result = 0;
+        for (WorkerStatus status : workerStatus.values()) {
+            result += status.processedEntities;
+        }
+        return result;
+    }
+
+    public Map<Integer, WorkerStatus> getWorkerStatus() {
+        return Collections.unmodifiableMap(workerStatus);
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    /**
+     * Get the token that workers have to present when registering.
+     *
+     * @return The run token.
+     */
+    public String getRunToken() {
+        return runToken;
+    }
+
+    /**
+     * Write the run token into a new file that only the owner can read and write (on POSIX file systems), so that
+     * workers started by hand can read it ({@code -runTokenFile} of the worker, see
+     * {@link WalkWorker#readRunToken(File)}). An existing file is replaced.
+     *
+     * @param file The file to write.
+     * @return True if the file could be written.
+     */
+    public boolean writeRunTokenFile(File file) {
+        Path path = file.toPath();
+        try {
+            Files.deleteIfExists(path);
+            // the permissions are set when the file is created, i.e., before the token is written
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(path, PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(path);
+            }
+            Files.write(path, (runToken + "\n").getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write the run token file " + file.getAbsolutePath() + ".", ioe);
+            return false;
+        }
+    }
+
+    public boolean isAcceptingRemoteWorkers() {
+        return isAcceptingRemoteWorkers;
+    }
+
+    public long getReconnectTimeout() {
+        return reconnectTimeout;
+    }
+
+    /**
+     * Set the time that a worker whose connection was lost has to register again before it is marked as failed.
+     *
+     * @param reconnectTimeout Timeout in milliseconds.
+     */
+    public void setReconnectTimeout(long reconnectTimeout) {
+        this.reconnectTimeout = Math.max(0, reconnectTimeout);
+    }
+
+    /**
+     * Get the port on which the coordinator listens.
+     *
+     * @return Port or -1 if the coordinator has not been started.
+     */
+    public int getPort() {
+        if (serverSocket == null) return -1;
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops the coordinator. Local worker processes that are still running are destroyed.
+     */
+    @Override
+    public void close() {
+        reconnectWatcher.shutdownNow();
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException ioe) {
+            LOGGER.error("Could not close coordinator socket.", ioe);
+        }
+        synchronized (connections) {
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException ioe) {
+                    // ignore
+                }
+            }
+        }
+        synchronized (processes) {
+            for (Process process : processes) {
+                if (process.isAlive()) process.destroy();
+            }
+        }
+    }
+}
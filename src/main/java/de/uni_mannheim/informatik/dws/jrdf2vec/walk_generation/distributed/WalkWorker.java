@@ -0,0 +1,253 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.distributed;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.PartitionedEntitySelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker of a distributed walk generation (see {@link WalkCoordinator}). The worker generates the walks for one
+ * partition of the entities of the given {@link WalkGenerationManager} and writes them as walk shard
+ * {@code walk_file_w<worker>_<n>.txt.gz}. Progress is reported to the coordinator periodically. If the connection
+ * to the coordinator is lost, the worker registers again with the next report. If no coordinator is reachable, the
+ * walks are generated nonetheless.
+ */
+public class WalkWorker {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkWorker.class);
+
+    /**
+     * Default interval in milliseconds in which the progress is reported.
+     */
+    public static final long DEFAULT_REPORTING_INTERVAL = 10000;
+
+    /**
+     * Index of this worker (0-based).
+     */
+    private final int workerIndex;
+
+    /**
+     * Total number of workers.
+     */
+    private final int numberOfWorkers;
+
+    /**
+     * Host of the coordinator. May be null.
+     */
+    private final String coordinatorHost;
+
+    /**
+     * Port of the coordinator.
+     */
+    private final int coordinatorPort;
+
+    /**
+     * Token of the run that is presented to the coordinator (see {@link WalkCoordinator#getRunToken()}). May be null.
+     */
+    private final String runToken;
+
+    /**
+     * Interval in milliseconds in which the progress is reported.
+     */
+    private long reportingInterval = DEFAULT_REPORTING_INTERVAL;
+
+    private Socket coordinatorSocket;
+
+    private Writer coordinatorWriter;
+
+    /**
+     * True if the last attempt to connect to the coordinator failed (so that failed attempts are logged only once).
+     */
+    private boolean isConnectionFailed = false;
+
+    /**
+     * Constructor
+     *
+     * @param workerIndex     Index of this worker (0-based).
+     * @param numberOfWorkers Total number of workers.
+     * @param coordinatorHost Host of the coordinator (null if the worker shall run without coordinator).
+     * @param coordinatorPort Port of the coordinator.
+     * @param runToken        The run token of the coordinator.
+     */
+    public WalkWorker(int workerIndex, int numberOfWorkers, String coordinatorHost, int coordinatorPort,
+                      String runToken) {
+        this.workerIndex = workerIndex;
+        this.numberOfWorkers = numberOfWorkers;
+        this.coordinatorHost = coordinatorHost;
+        this.coordinatorPort = coordinatorPort;
+        this.runToken = runToken;
+    }
+
+    /**
+     * Read the run token from a file written by {@link WalkCoordinator#writeRunTokenFile(File)}.
+     *
+     * @param runTokenFile The file.
+     * @return The run token or null if the file cannot be read or is empty.
+     */
+    public static String readRunToken(File runTokenFile) {
+        try {
+            List<String> lines = Files.readAllLines(runTokenFile.toPath(), StandardCharsets.UTF_8);
+            if (lines.isEmpty() || lines.get(0).trim().isEmpty()) {
+                LOGGER.error("The run token file " + runTokenFile.getAbsolutePath() + " is empty.");
+                return null;
+            }
+            return lines.get(0).trim();
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read the run token file " + runTokenFile.getAbsolutePath() + ".", ioe);
+            return null;
+        }
+    }
+
+    /**
+     * Generate the walks of this worker's partition. The manager is closed afterwards.
+     *
+     * @param manager         The manager that holds the walk generator and the (complete) entity selector.
+     * @param mode            The walk generation mode.
+     * @param numberOfThreads The number of threads of this worker.
+     * @param numberOfWalks   The number of walks per entity.
+     * @param depth           The depth of each walk.
+     * @param textWalkLength  The length of text walks (only relevant if text walks are generated).
+     * @param walkDirectory   The walk directory (shared by all workers or local to this worker).
+     * @return True if the walks were generated, else false.
+     */
+    public boolean generateWalks(WalkGenerationManager manager, WalkGenerationMode mode, int numberOfThreads,
+                                 int numberOfWalks, int depth, int textWalkLength, File walkDirectory) {
+        if (workerIndex < 0 || workerIndex >= numberOfWorkers) {
+            LOGGER.error("Invalid worker index " + workerIndex + " for " + numberOfWorkers + " workers. ABORT.");
+            return false;
+        }
+        if (manager == null || manager.entitySelector == null || manager.getWalkGenerator() == null) {
+            LOGGER.error("The walk generation manager is not initialized. ABORT.");
+            sendMessage(WalkCoordinator.FAILED + " " + workerIndex + " Walk generation manager not initialized.");
+            return false;
+        }
+        sendMessage(null);
+
+        Set<String> entities = new PartitionedEntitySelector(manager.entitySelector, workerIndex,
+                numberOfWorkers).getEntities();
+        if (entities == null) {
+            sendMessage(WalkCoordinator.FAILED + " " + workerIndex + " Could not determine entities.");
+            disconnect();
+            return false;
+        }
+        LOGGER.info("Worker " + workerIndex + " of " + numberOfWorkers + ": " + entities.size() + " entities.");
+        manager.entitySelector = () -> entities;
+        manager.setShardName("w" + workerIndex);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "walk-worker-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> sendMessage(WalkCoordinator.PROGRESS + " " + workerIndex + " " +
+                        manager.getProcessedEntities() + " " + entities.size() + " " + manager.getProcessedWalks()),
+                reportingInterval, reportingInterval, TimeUnit.MILLISECONDS);
+        try {
+            // closes the manager
+            manager.generateWalks(mode, numberOfThreads, numberOfWalks, depth, textWalkLength, walkDirectory);
+        } catch (RuntimeException re) {
+            LOGGER.error("Walk generation of worker " + workerIndex + " failed.", re);
+            reporter.shutdownNow();
+            sendMessage(WalkCoordinator.FAILED + " " + workerIndex + " " + re.getClass().getSimpleName());
+            disconnect();
+            return false;
+        }
+        reporter.shutdownNow();
+        sendMessage(WalkCoordinator.DONE + " " + workerIndex + " " + manager.getProcessedEntities() + " " +
+                manager.getProcessedWalks());
+        disconnect();
+        return true;
+    }
+
+    /**
+     * Connect to the coordinator and register.
+     *
+     * @return True if the worker is registered.
+     */
+    private boolean connect() {
+        try {
+            coordinatorSocket = new Socket(coordinatorHost, coordinatorPort);
+            coordinatorWriter = new BufferedWriter(new OutputStreamWriter(coordinatorSocket.getOutputStream(),
+                    StandardCharsets.UTF_8));
+            coordinatorWriter.write(WalkCoordinator.HELLO + " " + workerIndex + " " + numberOfWorkers + " " +
+                    runToken + "\n");
+            coordinatorWriter.flush();
+            if (isConnectionFailed) LOGGER.info("Registered again with coordinator.");
+            isConnectionFailed = false;
+            return true;
+        } catch (IOException ioe) {
+            if (!isConnectionFailed) {
+                LOGGER.error("Could not connect to coordinator " + coordinatorHost + ":" + coordinatorPort + ". " +
+                        "Walks are generated nonetheless; the worker tries to register again with every report.",
+                        ioe);
+            }
+            isConnectionFailed = true;
+            disconnect();
+            return false;
+        }
+    }
+
+    /**
+     * Send a message to the coordinator. If the worker is not connected, it (re-)registers first.
+     *
+     * @param message The message; null to register only.
+     */
+    private synchronized void sendMessage(String message) {
+        if (coordinatorHost == null) return;
+        // a broken connection may only be noticed when writing, hence the second attempt
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (coordinatorWriter == null && !connect()) return;
+            if (message == null) return;
+            try {
+                coordinatorWriter.write(message + "\n");
+                coordinatorWriter.flush();
+                return;
+            } catch (IOException ioe) {
+                LOGGER.warn("Lost connection to coordinator.", ioe);
+                disconnect();
+            }
+        }
+    }
+
+    private synchronized void disconnect() {
+        if (coordinatorSocket == null) return;
+        try {
+            coordinatorSocket.close();
+        } catch (IOException ioe) {
+            // ignore
+        }
+        coordinatorSocket = null;
+        coordinatorWriter = null;
+    }
+
+    public long getReportingInterval() {
+        return reportingInterval;
+    }
+
+    public void setReportingInterval(long reportingInterval) {
+        this.reportingInterval = Math.max(1, reportingInterval);
+    }
+
+    public int getWorkerIndex() {
+        return workerIndex;
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+}
@@ -17,7 +17,7 @@ import java.util.zip.GZIPInputStream;
  * In order to not restart the walk generation process, walks will only be created for entities for which walks have
  * not yet been generated. This process does not work for mid walks.
  */
-public class ContinuationEntitySelector implements EntitySelector {
+public class ContinuationEntitySelector implements IOrderedEntitySelector {
 
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContinuationEntitySelector.class);
@@ -108,6 +108,23 @@ public class ContinuationEntitySelector implements EntitySelector {
         return entities;
     }
 
+    @Override
+    public void setEntityOrdering(EntityOrdering ordering) {
+        if (actualEntitySelector instanceof IOrderedEntitySelector) {
+            ((IOrderedEntitySelector) actualEntitySelector).setEntityOrdering(ordering);
+        } else if (ordering != EntityOrdering.NONE) {
+            LOGGER.warn("The entity selector does not support the entity ordering " + ordering + ".");
+        }
+    }
+
+    @Override
+    public EntityOrdering getEntityOrdering() {
+        if (actualEntitySelector instanceof IOrderedEntitySelector) {
+            return ((IOrderedEntitySelector) actualEntitySelector).getEntityOrdering();
+        }
+        return EntityOrdering.NONE;
+    }
+
     /**
      * Changes the provided file name (suffix {@code copied}) so that copied and newly generated walk files can be
      * distinguished.
@@ -0,0 +1,48 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
+
+
+/**
+ * The order in which an {@link IOrderedEntitySelector} returns its entities. The walk threads process the entities
+ * in this order (in contiguous batches), so an order in which neighbouring entities are close to each other in the
+ * data files reduces page faults on memory-mapped graphs that do not fit into memory.
+ */
+public enum EntityOrdering {
+
+
+    /**
+     * No particular order (hash order).
+     */
+    NONE,
+
+    /**
+     * Order of the dictionary IDs, i.e., the order in which the entities are stored.
+     */
+    DICTIONARY,
+
+    /**
+     * Breadth-first order over the graph (ignoring edge directions): entities that are connected are processed
+     * close to each other. The order is computed once and cached next to the graph file.
+     */
+    BFS;
+
+    /**
+     * String representation of the ordering.
+     *
+     * @param orderingString The ordering as String.
+     * @return If possible, the ordering. Else null.
+     */
+    public static EntityOrdering getOrderingFromString(String orderingString) {
+        if (orderingString == null) return null;
+        switch (orderingString.toLowerCase().trim()) {
+            case "none":
+                return NONE;
+            case "dictionary":
+            case "id":
+                return DICTIONARY;
+            case "bfs":
+                return BFS;
+            default:
+                return null;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtBfsOrder;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtSession;
+
 import org.rdfhdt.hdt.exceptions.NotFoundException;
 import org.rdfhdt.hdt.hdt.HDT;
-import org.rdfhdt.hdt.hdt.HDTManager;
 import org.rdfhdt.hdt.enums.TripleComponentRole;
 import org.rdfhdt.hdt.dictionary.Dictionary;
 import org.rdfhdt.hdt.triples.IteratorTripleString;
@@ -10,6 +12,7 @@ import org.rdfhdt.hdt.triples.TripleString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
@@ -20,9 +23,10 @@ import java.io.BufferedWriter;
 import java.io.FileWriter;
 
 /**
- * Selects HDT entities.
+ * Selects HDT entities. By default, the entities are returned in the order of their dictionary IDs (see
+ * {@link EntityOrdering}).
  */
-public class HdtEntitySelector implements EntitySelector {
+public class HdtEntitySelector implements IOrderedEntitySelector {
 
 
     /**
@@ -36,14 +40,31 @@ public class HdtEntitySelector implements EntitySelector {
     HDT hdtDataSet;
 
     /**
-     * Constructor
+     * The session of the HDT file if this selector opened it; else null.
+     */
+    private HdtSession session;
+
+    /**
+     * The HDT file; used to cache the BFS order. May be null.
+     */
+    private File hdtFile;
+
+    /**
+     * The order in which the entities are returned.
+     */
+    private EntityOrdering ordering = EntityOrdering.DICTIONARY;
+
+    /**
+     * Constructor. The HDT file is memory-mapped; if a walk generator works on the same file, the mapping is shared.
      *
      * @param hdtFilePath Path to the HDT file.
      * @throws IOException IOException
      */
     public HdtEntitySelector(String hdtFilePath) throws IOException {
         try {
-            hdtDataSet = HDTManager.loadHDT(hdtFilePath);
+            session = HdtSession.acquire(new File(hdtFilePath));
+            hdtDataSet = session.getHdt();
+            hdtFile = session.getHdtFile();
         } catch (IOException e) {
             LOGGER.error("Failed to load HDT file: " + hdtFilePath + "\nProgramm will fail.", e);
             throw e;
@@ -53,10 +74,42 @@ public class HdtEntitySelector implements EntitySelector {
     public HdtEntitySelector(HDT hdt) throws IOException {
         hdtDataSet = hdt;    
     }
+
+    /**
+     * Constructor for an HDT that is already open.
+     *
+     * @param hdt     The HDT.
+     * @param hdtFile The file of the HDT (used to cache the BFS order). May be null.
+     */
+    public HdtEntitySelector(HDT hdt, File hdtFile) {
+        hdtDataSet = hdt;
+        this.hdtFile = hdtFile;
+    }
+
+    @Override
+    public void setEntityOrdering(EntityOrdering ordering) {
+        this.ordering = ordering == null ? EntityOrdering.NONE : ordering;
+    }
+
+    @Override
+    public EntityOrdering getEntityOrdering() {
+        return ordering;
+    }
+
+    /**
+     * Releases the HDT session if this selector opened the HDT file.
+     */
+    public void close() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+    }
     
     //V3
     @Override
     public Set<String> getEntities() {
+        if (ordering != EntityOrdering.NONE) return getEntities(0, 1);
         HashSet<String> result = new HashSet<>();
         try {
             Dictionary dict = hdtDataSet.getDictionary();
@@ -90,4 +143,74 @@ public class HdtEntitySelector implements EntitySelector {
         }
     }
 
+    /**
+     * Obtain the entities of one partition of the dictionary ID space. Every dictionary entry is assigned a global
+     * ordinal (shared and subject-only entries: subject ID; object-only entries: number of subjects + local
+     * object ID) which is hashed into one of {@code numberOfPartitions} buckets. Only the entries of the requested
+     * partition are decoded. All partitions together yield the same entities as {@link #getEntities()} provided
+     * that every partition is computed on the same HDT file. The entities are returned in the configured
+     * {@link EntityOrdering}.
+     *
+     * @param partition          The partition index (0-based).
+     * @param numberOfPartitions The total number of partitions.
+     * @return The entities of the given partition or null in case of an error.
+     */
+    public Set<String> getEntities(int partition, int numberOfPartitions) {
+        if (numberOfPartitions < 1 || partition < 0 || partition >= numberOfPartitions) {
+            LOGGER.error("Invalid partition " + partition + " of " + numberOfPartitions + ". Returning null.");
+            return null;
+        }
+        Set<String> result = ordering == EntityOrdering.NONE ? new HashSet<>() : new LinkedHashSet<>();
+        try {
+            Dictionary dict = hdtDataSet.getDictionary();
+            int[] bfsOrder = ordering == EntityOrdering.BFS ? HdtBfsOrder.getOrder(hdtDataSet, hdtFile) : null;
+            if (bfsOrder != null) {
+                for (int ordinal : bfsOrder) {
+                    if (getPartition(ordinal, numberOfPartitions) == partition) {
+                        result.add(decodeOrdinal(dict, ordinal));
+                    }
+                }
+                return result;
+            }
+
+            // dictionary order: shared entities, exclusive subjects, exclusive objects
+            long numberOfOrdinals = HdtBfsOrder.getNumberOfOrdinals(dict);
+            for (long ordinal = 1; ordinal <= numberOfOrdinals; ordinal++) {
+                if (getPartition(ordinal, numberOfPartitions) == partition) {
+                    result.add(decodeOrdinal(dict, ordinal));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            LOGGER.error("Could not get HDT entities of partition " + partition + ". Returning null.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Decode a dictionary ordinal (see {@link HdtEntitySelector#getEntities(int, int)}).
+     *
+     * @param dict    The dictionary.
+     * @param ordinal The ordinal.
+     * @return The entity.
+     */
+    private static String decodeOrdinal(Dictionary dict, long ordinal) {
+        long numSubjects = dict.getNsubjects();
+        if (ordinal <= numSubjects) return dict.idToString(ordinal, TripleComponentRole.SUBJECT).toString();
+        return dict.idToString(ordinal - numSubjects + dict.getNshared(), TripleComponentRole.OBJECT).toString();
+    }
+
+    /**
+     * Stable assignment of a dictionary ordinal to a partition.
+     *
+     * @param ordinal            The global dictionary ordinal.
+     * @param numberOfPartitions The number of partitions.
+     * @return Partition index.
+     */
+    static int getPartition(long ordinal, int numberOfPartitions) {
+        long h = ordinal * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        return (int) Math.floorMod(h, (long) numberOfPartitions);
+    }
+
 }
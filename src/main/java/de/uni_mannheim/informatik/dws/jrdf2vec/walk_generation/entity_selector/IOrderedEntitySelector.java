@@ -0,0 +1,22 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
+
+
+/**
+ * An entity selector that can return its entities in a locality-aware order (see {@link EntityOrdering}). The
+ * returned sets keep the order when iterated.
+ */
+public interface IOrderedEntitySelector extends EntitySelector {
+
+
+    /**
+     * Set the order in which the entities are returned.
+     *
+     * @param ordering The ordering.
+     */
+    void setEntityOrdering(EntityOrdering ordering);
+
+    /**
+     * @return The order in which the entities are returned.
+     */
+    EntityOrdering getEntityOrdering();
+}
@@ -0,0 +1,123 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Selects one partition of the entities of another {@link EntitySelector}. All partitions are disjoint and
+ * together cover all entities of the wrapped selector. The assignment is stable across processes and machines so
+ * that independent workers can process the same graph without coordination.
+ * <p>
+ * If the wrapped selector is an {@link HdtEntitySelector}, the dictionary ID space is partitioned directly so that
+ * a worker only decodes its own entities.
+ */
+public class PartitionedEntitySelector implements IOrderedEntitySelector {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedEntitySelector.class);
+
+    /**
+     * The selector whose entities are partitioned.
+     */
+    private final EntitySelector selector;
+
+    /**
+     * Partition index (0-based).
+     */
+    private final int partition;
+
+    /**
+     * Total number of partitions.
+     */
+    private final int numberOfPartitions;
+
+    /**
+     * Constructor
+     *
+     * @param selector           The selector whose entities shall be partitioned.
+     * @param partition          The partition to be selected (0-based).
+     * @param numberOfPartitions The total number of partitions.
+     */
+    public PartitionedEntitySelector(EntitySelector selector, int partition, int numberOfPartitions) {
+        this.selector = selector;
+        if (numberOfPartitions < 1 || partition < 0 || partition >= numberOfPartitions) {
+            LOGGER.error("Invalid partition " + partition + " of " + numberOfPartitions + ". Using the complete " +
+                    "entity set.");
+            this.partition = 0;
+            this.numberOfPartitions = 1;
+        } else {
+            this.partition = partition;
+            this.numberOfPartitions = numberOfPartitions;
+        }
+    }
+
+    @Override
+    public Set<String> getEntities() {
+        if (selector == null) {
+            LOGGER.error("No entity selector to partition. Returning null.");
+            return null;
+        }
+        if (selector instanceof HdtEntitySelector) {
+            return ((HdtEntitySelector) selector).getEntities(partition, numberOfPartitions);
+        }
+        Set<String> entities = selector.getEntities();
+        if (entities == null || numberOfPartitions == 1) return entities;
+        // keep the order of the wrapped selector
+        Set<String> result = new LinkedHashSet<>();
+        for (String entity : entities) {
+            if (getPartition(entity, numberOfPartitions) == partition) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stable assignment of an entity to a partition. {@link String#hashCode()} is specified by the language and,
+     * hence, identical in every JVM; the hash is mixed to spread similar URIs.
+     *
+     * @param entity             The entity.
+     * @param numberOfPartitions The number of partitions.
+     * @return Partition index.
+     */
+    public static int getPartition(String entity, int numberOfPartitions) {
+        int h = entity.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        h *= 0xc2b2ae35;
+        h ^= (h >>> 16);
+        return Math.floorMod(h, numberOfPartitions);
+    }
+
+    @Override
+    public void setEntityOrdering(EntityOrdering ordering) {
+        if (selector instanceof IOrderedEntitySelector) {
+            ((IOrderedEntitySelector) selector).setEntityOrdering(ordering);
+        } else if (ordering != EntityOrdering.NONE) {
+            LOGGER.warn("The entity selector does not support the entity ordering " + ordering + ".");
+        }
+    }
+
+    @Override
+    public EntityOrdering getEntityOrdering() {
+        if (selector instanceof IOrderedEntitySelector) {
+            return ((IOrderedEntitySelector) selector).getEntityOrdering();
+        }
+        return EntityOrdering.NONE;
+    }
+
+    public int getPartition() {
+        return partition;
+    }
+
+    public int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+}
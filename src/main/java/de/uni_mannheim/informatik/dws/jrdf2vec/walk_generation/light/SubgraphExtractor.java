@@ -0,0 +1,356 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.CompressedInput;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtSession;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.semanticweb.yars.nx.Node;
+import org.semanticweb.yars.nx.parser.NxParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.removeTags;
+
+/**
+ * Pre-pass for RDF2Vec Light: Determines the depth-bounded neighbourhood of the light entities and writes only the
+ * triples that can be reached by a walk into an N-Triples file. That file can then be loaded into memory instead of
+ * the complete knowledge graph.
+ * <p>
+ * N-Triples/N-Quads/Turtle files (optionally compressed, see {@link CompressedInput}) are streamed once per hop;
+ * only the frontier and the visited nodes are held in memory. For HDT files, the neighbourhood is determined via the HDT indices and the visited nodes
+ * are kept in a bitmap over the dictionary IDs.
+ */
+public class SubgraphExtractor {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubgraphExtractor.class);
+
+    /**
+     * The knowledge graph file.
+     */
+    private final File knowledgeGraphFile;
+
+    /**
+     * If true, the datatype triples of the entities are also written (required for text walks).
+     */
+    private boolean isIncludeDatatypeTriples = false;
+
+    /**
+     * Constructor
+     *
+     * @param knowledgeGraphFile The knowledge graph file (NT, NQ, TTL, optionally compressed, or HDT).
+     */
+    public SubgraphExtractor(File knowledgeGraphFile) {
+        this.knowledgeGraphFile = knowledgeGraphFile;
+    }
+
+    /**
+     * Extract the subgraph that is required to generate walks of the given mode and depth for the given entities.
+     *
+     * @param knowledgeGraphFile The knowledge graph file.
+     * @param entities           The light entities.
+     * @param mode               The walk generation mode.
+     * @param depth              The depth of the walks.
+     * @param isGenerateTextWalks True if text walks shall be generated.
+     * @param subgraphFile       The file to which the subgraph shall be written.
+     * @return The subgraph file or the knowledge graph file if the subgraph could not be extracted.
+     */
+    public static File extractForWalks(File knowledgeGraphFile, Set<String> entities, WalkGenerationMode mode,
+                                       int depth, boolean isGenerateTextWalks, File subgraphFile) {
+        SubgraphExtractor extractor = new SubgraphExtractor(knowledgeGraphFile);
+        extractor.setIncludeDatatypeTriples(isGenerateTextWalks);
+        long triples = extractor.extract(entities, getRequiredHops(mode, depth), isBidirectional(mode), subgraphFile);
+        if (triples < 0) {
+            LOGGER.error("Could not extract the subgraph. Using the complete knowledge graph.");
+            return knowledgeGraphFile;
+        }
+        return subgraphFile;
+    }
+
+    /**
+     * Mid walks go in both directions; random walks only follow outgoing edges.
+     *
+     * @param mode The walk generation mode.
+     * @return True if predecessors of the entities have to be included.
+     */
+    public static boolean isBidirectional(WalkGenerationMode mode) {
+        return mode != WalkGenerationMode.RANDOM_WALKS && mode != WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE;
+    }
+
+    /**
+     * The experimental walks also look at the type/edges of the last node of a walk, hence one more hop is required.
+     *
+     * @param mode  The walk generation mode.
+     * @param depth The depth of the walks.
+     * @return Number of hops that have to be extracted.
+     */
+    public static int getRequiredHops(WalkGenerationMode mode, int depth) {
+        if (mode == null || mode.toString().startsWith("EXPERIMENTAL")) return depth + 1;
+        return depth;
+    }
+
+    /**
+     * Write all triples that are incident to a node within {@code hops - 1} hops of the entities to the given file.
+     *
+     * @param entities        The entities (without tags).
+     * @param hops            The number of hops of a walk.
+     * @param isBidirectional True if incoming edges shall also be followed.
+     * @param subgraphFile    The file to be written (N-Triples).
+     * @return The number of triples written or -1 in case of an error.
+     */
+    public long extract(Set<String> entities, int hops, boolean isBidirectional, File subgraphFile) {
+        if (entities == null || entities.isEmpty()) {
+            LOGGER.error("No entities given. Cannot extract a subgraph.");
+            return -1;
+        }
+        if (knowledgeGraphFile == null || !knowledgeGraphFile.isFile()) {
+            LOGGER.error("The knowledge graph file does not exist. Cannot extract a subgraph.");
+            return -1;
+        }
+        File parent = subgraphFile.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        long result;
+        if (knowledgeGraphFile.getName().endsWith(".hdt")) {
+            result = extractFromHdt(entities, hops, isBidirectional, subgraphFile);
+        } else {
+            result = extractFromTriples(entities, hops, isBidirectional, subgraphFile);
+        }
+        if (result >= 0) {
+            LOGGER.info("Extracted a subgraph of " + result + " triples for " + entities.size() + " entities (" +
+                    hops + " hops) to " + subgraphFile.getAbsolutePath());
+        }
+        return result;
+    }
+
+    /**
+     * Streams the triple file once per hop.
+     */
+    private long extractFromTriples(Set<String> entities, int hops, boolean isBidirectional, File subgraphFile) {
+        Set<String> visited = new HashSet<>();
+        Set<String> frontier = new HashSet<>(entities);
+        long written = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(subgraphFile),
+                StandardCharsets.UTF_8))) {
+            for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++) {
+                Set<String> nextFrontier = new HashSet<>();
+                try (InputStream inputStream = openKnowledgeGraph()) {
+                    NxParser parser = new NxParser();
+                    parser.parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                    for (Node[] nx : parser) {
+                        String subject = removeTags(nx[0].toString());
+                        String objectString = nx[2].toString();
+                        if (objectString.startsWith("\"")) {
+                            if (isIncludeDatatypeTriples && hop == 0 && frontier.contains(subject)) {
+                                writeTriple(writer, nx);
+                                written++;
+                            }
+                            continue;
+                        }
+                        String object = removeTags(objectString);
+                        boolean isSubjectInFrontier = frontier.contains(subject);
+                        boolean isObjectInFrontier = isBidirectional && frontier.contains(object);
+                        if (!isSubjectInFrontier && !isObjectInFrontier) continue;
+
+                        // triples that touch a node of an earlier hop have been written already
+                        if (isBidirectional && (visited.contains(subject) || visited.contains(object))) continue;
+                        writeTriple(writer, nx);
+                        written++;
+
+                        if (isSubjectInFrontier && !visited.contains(object) && !frontier.contains(object)) {
+                            nextFrontier.add(object);
+                        }
+                        if (isObjectInFrontier && !visited.contains(subject) && !frontier.contains(subject)) {
+                            nextFrontier.add(subject);
+                        }
+                    }
+                }
+                visited.addAll(frontier);
+                frontier = nextFrontier;
+                LOGGER.info("Hop " + (hop + 1) + ": " + visited.size() + " nodes visited, " + frontier.size() +
+                        " nodes in the frontier.");
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("An error occurred while extracting the subgraph.", e);
+            return -1;
+        }
+        return written;
+    }
+
+    private InputStream openKnowledgeGraph() throws IOException {
+        return CompressedInput.open(knowledgeGraphFile);
+    }
+
+    private static void writeTriple(Writer writer, Node[] nx) throws IOException {
+        writer.write(nx[0].toString());
+        writer.write(' ');
+        writer.write(nx[1].toString());
+        writer.write(' ');
+        writer.write(nx[2].toString());
+        writer.write(" .\n");
+    }
+
+    /**
+     * Uses the HDT indices: per hop, only the adjacency lists of the frontier nodes are read. Nodes are identified by
+     * a dense index over the dictionary: shared and subject IDs are used as they are, object-only IDs are appended
+     * behind the subjects.
+     */
+    private long extractFromHdt(Set<String> entities, int hops, boolean isBidirectional, File subgraphFile) {
+        try (HdtSession session = HdtSession.acquire(knowledgeGraphFile)) {
+            HDT hdt = session.getHdt();
+            Dictionary dictionary = hdt.getDictionary();
+            long nShared = dictionary.getNshared();
+            long nSubjects = dictionary.getNsubjects();
+            long nObjects = dictionary.getNobjects();
+            long numberOfNodes = nSubjects + nObjects - nShared + 1;
+            if (numberOfNodes > Integer.MAX_VALUE) {
+                LOGGER.error("Too many nodes for the node bitmap: " + numberOfNodes);
+                return -1;
+            }
+            HdtNodeIndex index = new HdtNodeIndex(nShared, nSubjects);
+            BitSet visited = new BitSet((int) numberOfNodes);
+            BitSet frontier = new BitSet((int) numberOfNodes);
+            for (String entity : entities) {
+                long id = dictionary.stringToId(entity, TripleComponentRole.SUBJECT);
+                if (id > 0) {
+                    frontier.set(index.ofSubject(id));
+                    continue;
+                }
+                id = dictionary.stringToId(entity, TripleComponentRole.OBJECT);
+                if (id > 0) frontier.set(index.ofObject(id));
+            }
+
+            long written = 0;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(subgraphFile),
+                    StandardCharsets.UTF_8))) {
+                for (int hop = 0; hop < hops && !frontier.isEmpty(); hop++) {
+                    BitSet nextFrontier = new BitSet((int) numberOfNodes);
+                    for (int node = frontier.nextSetBit(0); node >= 0; node = frontier.nextSetBit(node + 1)) {
+                        // outgoing edges
+                        long subjectId = index.toSubjectId(node);
+                        if (subjectId > 0) {
+                            IteratorTripleID iterator = hdt.getTriples().search(new TripleID(subjectId, 0, 0));
+                            while (iterator.hasNext()) {
+                                TripleID triple = iterator.next();
+                                int objectNode = index.ofObject(triple.getObject());
+                                String object = dictionary.idToString(triple.getObject(), TripleComponentRole.OBJECT).toString();
+                                if (object.startsWith("\"")) {
+                                    if (isIncludeDatatypeTriples && hop == 0) {
+                                        writeHdtTriple(writer, dictionary, triple, object);
+                                        written++;
+                                    }
+                                    continue;
+                                }
+                                if (isBidirectional && visited.get(objectNode)) continue;
+                                writeHdtTriple(writer, dictionary, triple, object);
+                                written++;
+                                if (!visited.get(objectNode) && !frontier.get(objectNode)) nextFrontier.set(objectNode);
+                            }
+                        }
+                        if (!isBidirectional) continue;
+
+                        // incoming edges
+                        long objectId = index.toObjectId(node);
+                        if (objectId > 0) {
+                            IteratorTripleID iterator = hdt.getTriples().search(new TripleID(0, 0, objectId));
+                            while (iterator.hasNext()) {
+                                TripleID triple = iterator.next();
+                                int subjectNode = index.ofSubject(triple.getSubject());
+                                // the triple was written as outgoing edge of the subject (now or in an earlier hop)
+                                if (visited.get(subjectNode) || frontier.get(subjectNode)) continue;
+                                writeHdtTriple(writer, dictionary, triple,
+                                        dictionary.idToString(objectId, TripleComponentRole.OBJECT).toString());
+                                written++;
+                                nextFrontier.set(subjectNode);
+                            }
+                        }
+                    }
+                    visited.or(frontier);
+                    frontier = nextFrontier;
+                    LOGGER.info("Hop " + (hop + 1) + ": " + visited.cardinality() + " nodes visited, " +
+                            frontier.cardinality() + " nodes in the frontier.");
+                }
+            }
+            return written;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("An error occurred while extracting the subgraph from the HDT file.", e);
+            return -1;
+        }
+    }
+
+    private static void writeHdtTriple(Writer writer, Dictionary dictionary, TripleID triple, String object)
+            throws IOException {
+        writer.write(toNTriplesTerm(dictionary.idToString(triple.getSubject(), TripleComponentRole.SUBJECT).toString()));
+        writer.write(' ');
+        writer.write(toNTriplesTerm(dictionary.idToString(triple.getPredicate(), TripleComponentRole.PREDICATE).toString()));
+        writer.write(' ');
+        writer.write(toNTriplesTerm(object));
+        writer.write(" .\n");
+    }
+
+    /**
+     * HDT stores URIs without angle brackets.
+     *
+     * @param term The HDT term.
+     * @return N-Triples representation.
+     */
+    static String toNTriplesTerm(String term) {
+        if (term.startsWith("\"") || term.startsWith("_:")) return term;
+        return "<" + term + ">";
+    }
+
+    /**
+     * Dense node index over the subject and object ID spaces of an HDT dictionary.
+     */
+    private static class HdtNodeIndex {
+
+        private final long nShared;
+        private final long nSubjects;
+
+        HdtNodeIndex(long nShared, long nSubjects) {
+            this.nShared = nShared;
+            this.nSubjects = nSubjects;
+        }
+
+        int ofSubject(long subjectId) {
+            return (int) subjectId;
+        }
+
+        int ofObject(long objectId) {
+            if (objectId <= nShared) return (int) objectId;
+            return (int) (nSubjects + objectId - nShared);
+        }
+
+        long toSubjectId(int node) {
+            return node <= nSubjects ? node : -1;
+        }
+
+        long toObjectId(int node) {
+            if (node <= nShared) return node;
+            if (node > nSubjects) return node - nSubjects + nShared;
+            return -1;
+        }
+    }
+
+    public boolean isIncludeDatatypeTriples() {
+        return isIncludeDatatypeTriples;
+    }
+
+    public void setIncludeDatatypeTriples(boolean includeDatatypeTriples) {
+        isIncludeDatatypeTriples = includeDatatypeTriples;
+    }
+
+    public File getKnowledgeGraphFile() {
+        return knowledgeGraphFile;
+    }
+}
@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.ContinuationEntitySelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,7 +22,7 @@ public class WalkGenerationManagerLight extends WalkGenerationManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(WalkGenerationManagerLight.class);
 
     /**
-     * Main Constructor
+     * Constructor
      * @param knowledgeGraph Knowledge graph URI.
      * @param entitiesFile Entities file.
      * @param isGenerateTextWalks True if text walks shall be generated.
@@ -31,7 +32,22 @@ public class WalkGenerationManagerLight extends WalkGenerationManager {
      */
     public WalkGenerationManagerLight(URI knowledgeGraph, File entitiesFile, boolean isGenerateTextWalks,
                                       File existingWalks, File newWalkDirectory){
-        super(knowledgeGraph, isGenerateTextWalks, false, existingWalks, newWalkDirectory);
+        this(knowledgeGraph, entitiesFile, isGenerateTextWalks, existingWalks, newWalkDirectory, null);
+    }
+
+    /**
+     * Main Constructor
+     * @param knowledgeGraph Knowledge graph URI.
+     * @param entitiesFile Entities file.
+     * @param isGenerateTextWalks True if text walks shall be generated.
+     * @param existingWalks Directory where existing walks reside.
+     * @param newWalkDirectory The directory where the new walks shall be written to. Must be different from
+     *                         {@code existingWalks}.
+     * @param walkFilter Filter on the walked edges; null to walk all edges.
+     */
+    public WalkGenerationManagerLight(URI knowledgeGraph, File entitiesFile, boolean isGenerateTextWalks,
+                                      File existingWalks, File newWalkDirectory, WalkFilter walkFilter){
+        super(knowledgeGraph, isGenerateTextWalks, false, existingWalks, newWalkDirectory, walkFilter);
         if(!entitiesFile.exists()){
             LOGGER.error("The entities file does not exist: " + entitiesFile.getName() + "\nProgram will fail.");
         }
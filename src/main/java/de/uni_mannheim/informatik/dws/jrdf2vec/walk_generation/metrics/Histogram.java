@@ -0,0 +1,131 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram with power-of-two buckets. Bucket {@code i} counts the values {@code v} with
+ * {@code 2^(i-1) <= v < 2^i} (bucket 0 counts zeros and negative values). Recording a value is a couple of
+ * {@link LongAdder} increments and, hence, cheap enough for the walk generation hot path.
+ */
+public class Histogram {
+
+
+    /**
+     * Number of buckets (one per bit of a long).
+     */
+    static final int NUMBER_OF_BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[NUMBER_OF_BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor
+     */
+    public Histogram() {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value The value to be recorded.
+     */
+    public void record(long value) {
+        buckets[getBucket(value)].increment();
+        count.increment();
+        if (value > 0) {
+            sum.add(value);
+            max.accumulate(value);
+        }
+    }
+
+    /**
+     * Get the bucket of the given value.
+     *
+     * @param value The value.
+     * @return Bucket index.
+     */
+    static int getBucket(long value) {
+        if (value <= 0) return 0;
+        return Math.min(NUMBER_OF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    /**
+     * Get the exclusive upper bound of the given bucket.
+     *
+     * @param bucket The bucket index.
+     * @return Exclusive upper bound.
+     */
+    static long getUpperBound(int bucket) {
+        if (bucket >= NUMBER_OF_BUCKETS - 1) return Long.MAX_VALUE;
+        return 1L << bucket;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long c = getCount();
+        if (c == 0) return 0.0;
+        return (double) getSum() / c;
+    }
+
+    /**
+     * Get the number of values in the given bucket.
+     *
+     * @param bucket The bucket index.
+     * @return Number of values.
+     */
+    public long getBucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    /**
+     * Approximate percentile: the upper bound of the bucket in which the percentile falls.
+     *
+     * @param percentile The percentile in (0, 1].
+     * @return Approximate percentile value.
+     */
+    public long getPercentile(double percentile) {
+        long c = getCount();
+        if (c == 0) return 0;
+        long threshold = (long) Math.ceil(c * percentile);
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= threshold) {
+                return Math.min(getUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Reset all values.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+}
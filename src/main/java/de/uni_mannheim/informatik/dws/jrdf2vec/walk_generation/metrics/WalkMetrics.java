@@ -0,0 +1,461 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the walk generation: throughput, per-hop latency and candidate list sizes per walk generator,
+ * dictionary decodes, executor queue depth, writer contention, and bytes written.
+ * <p>
+ * The metrics are disabled by default; if disabled, the instrumentation in the hot path reduces to a check of a
+ * volatile flag. Once enabled, the metrics are exposed via JMX ({@link WalkMetrics#OBJECT_NAME}) and can be
+ * dumped as JSON or Prometheus text (see {@link WalkMetricsReporter}).
+ */
+public class WalkMetrics implements WalkMetricsMXBean {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkMetrics.class);
+
+    /**
+     * The JMX object name under which the metrics are registered.
+     */
+    public static final String OBJECT_NAME = "de.uni_mannheim.informatik.dws.jrdf2vec:type=WalkMetrics";
+
+    private static final WalkMetrics INSTANCE = new WalkMetrics();
+
+    private static volatile boolean isEnabled = false;
+
+    private static boolean isRegistered = false;
+
+    private final LongAdder entities = new LongAdder();
+    private final LongAdder walks = new LongAdder();
+    private final LongAdder walkCharacters = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder dictionaryDecodes = new LongAdder();
+    private final Histogram writerWaitNanos = new Histogram();
+    private final AtomicInteger writerWaitingThreads = new AtomicInteger();
+    private final Map<String, Histogram> hopLatencyNanos = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> candidates = new ConcurrentHashMap<>();
+    private volatile IntSupplier queueDepthSupplier;
+    private volatile long startNanos = System.nanoTime();
+
+    private WalkMetrics() {
+    }
+
+    public static WalkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Enable or disable the metrics. When enabled for the first time, the metrics are registered as MBean.
+     *
+     * @param enabled True if metrics shall be collected.
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        if (enabled && !isEnabled) {
+            INSTANCE.startNanos = System.nanoTime();
+        }
+        isEnabled = enabled;
+        if (enabled && !isRegistered) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+                isRegistered = true;
+            } catch (Exception e) {
+                LOGGER.error("Could not register walk metrics MBean.", e);
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------------------------------------------
+    // instrumentation (hot path)
+    // -----------------------------------------------------------------------------------------------------------
+
+    /**
+     * Start timing an operation.
+     *
+     * @return Start time in nanoseconds or 0 if metrics are disabled.
+     */
+    public static long startTimer() {
+        return isEnabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record one hop (adjacency lookup) of a walk generator.
+     *
+     * @param generator          Name of the walk generator.
+     * @param startNanos         Value obtained by {@link WalkMetrics#startTimer()}.
+     * @param numberOfCandidates The number of candidates found.
+     */
+    public static void recordHop(String generator, long startNanos, int numberOfCandidates) {
+        if (!isEnabled || startNanos == 0L) return;
+        long latency = System.nanoTime() - startNanos;
+        INSTANCE.hopLatencyNanos.computeIfAbsent(generator, k -> new Histogram()).record(latency);
+        INSTANCE.candidates.computeIfAbsent(generator, k -> new Histogram()).record(numberOfCandidates);
+    }
+
+    /**
+     * Record one dictionary decode (ID to string).
+     */
+    public static void recordDecode() {
+        if (isEnabled) INSTANCE.dictionaryDecodes.increment();
+    }
+
+    /**
+     * Record that a thread starts waiting for the walk writer.
+     *
+     * @return Start time in nanoseconds or 0 if metrics are disabled.
+     */
+    public static long writerWaitStart() {
+        if (!isEnabled) return 0L;
+        INSTANCE.writerWaitingThreads.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Record that a thread acquired the walk writer.
+     *
+     * @param startNanos Value obtained by {@link WalkMetrics#writerWaitStart()}.
+     */
+    public static void writerWaitEnd(long startNanos) {
+        if (startNanos == 0L) return;
+        INSTANCE.writerWaitingThreads.decrementAndGet();
+        INSTANCE.writerWaitNanos.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record the walks of one entity that have been written.
+     *
+     * @param numberOfWalks      The number of walks.
+     * @param numberOfCharacters The number of (uncompressed) characters including line breaks.
+     */
+    public static void recordEntity(int numberOfWalks, long numberOfCharacters) {
+        if (!isEnabled) return;
+        INSTANCE.entities.increment();
+        INSTANCE.walks.add(numberOfWalks);
+        INSTANCE.walkCharacters.add(numberOfCharacters);
+    }
+
+    /**
+     * Wraps a stream so that the bytes written are counted as compressed bytes. Use below the compressing stream.
+     *
+     * @param outputStream The file stream.
+     * @return Counting stream.
+     */
+    public static OutputStream countCompressedBytes(OutputStream outputStream) {
+        return new FilterOutputStream(outputStream) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                if (isEnabled) INSTANCE.compressedBytes.increment();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                if (isEnabled) INSTANCE.compressedBytes.add(len);
+            }
+        };
+    }
+
+    /**
+     * Set the supplier of the current queue depth (e.g. of the thread pool of the walk generation).
+     *
+     * @param queueDepthSupplier Supplier, may be null.
+     */
+    public void setQueueDepthSupplier(IntSupplier queueDepthSupplier) {
+        this.queueDepthSupplier = queueDepthSupplier;
+    }
+
+    // -----------------------------------------------------------------------------------------------------------
+    // read access
+    // -----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public long getProcessedEntities() {
+        return entities.sum();
+    }
+
+    @Override
+    public long getWrittenWalks() {
+        return walks.sum();
+    }
+
+    private double getElapsedSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    @Override
+    public double getEntitiesPerSecond() {
+        return getProcessedEntities() / getElapsedSeconds();
+    }
+
+    @Override
+    public double getWalksPerSecond() {
+        return getWrittenWalks() / getElapsedSeconds();
+    }
+
+    @Override
+    public long getWalkCharacters() {
+        return walkCharacters.sum();
+    }
+
+    @Override
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    @Override
+    public long getDictionaryDecodes() {
+        return dictionaryDecodes.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        IntSupplier supplier = queueDepthSupplier;
+        return supplier == null ? 0 : supplier.getAsInt();
+    }
+
+    @Override
+    public int getWriterWaitingThreads() {
+        return writerWaitingThreads.get();
+    }
+
+    @Override
+    public double getMeanWriterWaitNanos() {
+        return writerWaitNanos.getMean();
+    }
+
+    @Override
+    public Map<String, Double> getMeanHopLatencyNanos() {
+        Map<String, Double> result = new TreeMap<>();
+        hopLatencyNanos.forEach((k, v) -> result.put(k, v.getMean()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getP99HopLatencyNanos() {
+        Map<String, Long> result = new TreeMap<>();
+        hopLatencyNanos.forEach((k, v) -> result.put(k, v.getPercentile(0.99)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanCandidates() {
+        Map<String, Double> result = new TreeMap<>();
+        candidates.forEach((k, v) -> result.put(k, v.getMean()));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMaxCandidates() {
+        Map<String, Long> result = new TreeMap<>();
+        candidates.forEach((k, v) -> result.put(k, v.getMax()));
+        return result;
+    }
+
+    /**
+     * Get the histogram of the hop latency of the given generator.
+     *
+     * @param generator The generator name.
+     * @return Histogram or null if there is none.
+     */
+    public Histogram getHopLatencyHistogram(String generator) {
+        return hopLatencyNanos.get(generator);
+    }
+
+    /**
+     * Get the histogram of the candidate list sizes of the given generator.
+     *
+     * @param generator The generator name.
+     * @return Histogram or null if there is none.
+     */
+    public Histogram getCandidatesHistogram(String generator) {
+        return candidates.get(generator);
+    }
+
+    @Override
+    public void reset() {
+        entities.reset();
+        walks.reset();
+        walkCharacters.reset();
+        compressedBytes.reset();
+        dictionaryDecodes.reset();
+        writerWaitNanos.reset();
+        hopLatencyNanos.clear();
+        candidates.clear();
+        startNanos = System.nanoTime();
+    }
+
+    private static long getGcCount() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, bean.getCollectionCount());
+        }
+        return result;
+    }
+
+    private static long getGcTimeMillis() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, bean.getCollectionTime());
+        }
+        return result;
+    }
+
+    @Override
+    public String getJson() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        appendJson(sb, "elapsed_seconds", getElapsedSeconds());
+        appendJson(sb, "entities", getProcessedEntities());
+        appendJson(sb, "walks", getWrittenWalks());
+        appendJson(sb, "entities_per_second", getEntitiesPerSecond());
+        appendJson(sb, "walks_per_second", getWalksPerSecond());
+        appendJson(sb, "walk_characters", getWalkCharacters());
+        appendJson(sb, "compressed_bytes", getCompressedBytes());
+        appendJson(sb, "dictionary_decodes", getDictionaryDecodes());
+        appendJson(sb, "queue_depth", getQueueDepth());
+        appendJson(sb, "writer_waiting_threads", getWriterWaitingThreads());
+        appendJson(sb, "writer_wait_mean_nanos", writerWaitNanos.getMean());
+        appendJson(sb, "writer_wait_max_nanos", writerWaitNanos.getMax());
+        appendJson(sb, "gc_count", getGcCount());
+        appendJson(sb, "gc_time_millis", getGcTimeMillis());
+        appendJson(sb, "heap_used_bytes", heap.getUsed());
+        sb.append("  \"generators\": {");
+        boolean isFirst = true;
+        for (String generator : new TreeMap<>(hopLatencyNanos).keySet()) {
+            Histogram latency = hopLatencyNanos.get(generator);
+            Histogram candidateHistogram = candidates.get(generator);
+            sb.append(isFirst ? "\n" : ",\n");
+            isFirst = false;
+            sb.append("    \"").append(escapeJson(generator)).append("\": {");
+            sb.append("\"hops\": ").append(latency.getCount());
+            sb.append(", \"hop_latency_mean_nanos\": ").append(format(latency.getMean()));
+            sb.append(", \"hop_latency_p50_nanos\": ").append(latency.getPercentile(0.5));
+            sb.append(", \"hop_latency_p99_nanos\": ").append(latency.getPercentile(0.99));
+            sb.append(", \"hop_latency_max_nanos\": ").append(latency.getMax());
+            if (candidateHistogram != null) {
+                sb.append(", \"candidates_mean\": ").append(format(candidateHistogram.getMean()));
+                sb.append(", \"candidates_p99\": ").append(candidateHistogram.getPercentile(0.99));
+                sb.append(", \"candidates_max\": ").append(candidateHistogram.getMax());
+            }
+            sb.append("}");
+        }
+        sb.append(isFirst ? "}\n" : "\n  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void appendJson(StringBuilder sb, String key, double value) {
+        sb.append("  \"").append(key).append("\": ").append(format(value)).append(",\n");
+    }
+
+    private static void appendJson(StringBuilder sb, String key, long value) {
+        sb.append("  \"").append(key).append("\": ").append(value).append(",\n");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String escapeJson(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    @Override
+    public String getPrometheusText() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        StringBuilder sb = new StringBuilder();
+        appendPrometheus(sb, "jrdf2vec_entities_total", "counter", "Processed entities.", getProcessedEntities());
+        appendPrometheus(sb, "jrdf2vec_walks_total", "counter", "Written walks.", getWrittenWalks());
+        appendPrometheus(sb, "jrdf2vec_entities_per_second", "gauge", "Average entity throughput.",
+                getEntitiesPerSecond());
+        appendPrometheus(sb, "jrdf2vec_walks_per_second", "gauge", "Average walk throughput.", getWalksPerSecond());
+        appendPrometheus(sb, "jrdf2vec_walk_characters_total", "counter", "Uncompressed walk characters written.",
+                getWalkCharacters());
+        appendPrometheus(sb, "jrdf2vec_compressed_bytes_total", "counter", "Compressed walk bytes written.",
+                getCompressedBytes());
+        appendPrometheus(sb, "jrdf2vec_dictionary_decodes_total", "counter", "Dictionary ID to string decodes.",
+                getDictionaryDecodes());
+        appendPrometheus(sb, "jrdf2vec_queue_depth", "gauge", "Entities waiting in the executor queue.",
+                getQueueDepth());
+        appendPrometheus(sb, "jrdf2vec_writer_waiting_threads", "gauge", "Threads waiting for the walk writer.",
+                getWriterWaitingThreads());
+        appendPrometheus(sb, "jvm_gc_collections_total", "counter", "Garbage collections.", getGcCount());
+        appendPrometheus(sb, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection.",
+                getGcTimeMillis() / 1000.0);
+        appendPrometheus(sb, "jvm_heap_used_bytes", "gauge", "Used heap.", heap.getUsed());
+
+        sb.append("# HELP jrdf2vec_writer_wait_nanos Time waited for the walk writer.\n");
+        sb.append("# TYPE jrdf2vec_writer_wait_nanos histogram\n");
+        appendHistogram(sb, "jrdf2vec_writer_wait_nanos", "", writerWaitNanos);
+
+        sb.append("# HELP jrdf2vec_hop_latency_nanos Latency of one hop (adjacency lookup).\n");
+        sb.append("# TYPE jrdf2vec_hop_latency_nanos histogram\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(hopLatencyNanos).entrySet()) {
+            appendHistogram(sb, "jrdf2vec_hop_latency_nanos", "generator=\"" + entry.getKey() + "\"",
+                    entry.getValue());
+        }
+        sb.append("# HELP jrdf2vec_hop_candidates Number of candidates per hop.\n");
+        sb.append("# TYPE jrdf2vec_hop_candidates histogram\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(candidates).entrySet()) {
+            appendHistogram(sb, "jrdf2vec_hop_candidates", "generator=\"" + entry.getKey() + "\"",
+                    entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static void appendPrometheus(StringBuilder sb, String name, String type, String help, double value) {
+        sb.append("# HELP ").append(name).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(name).append(" ").append(type).append("\n");
+        sb.append(name).append(" ").append(format(value)).append("\n");
+    }
+
+    private static void appendPrometheus(StringBuilder sb, String name, String type, String help, long value) {
+        sb.append("# HELP ").append(name).append(" ").append(help).append("\n");
+        sb.append("# TYPE ").append(name).append(" ").append(type).append("\n");
+        sb.append(name).append(" ").append(value).append("\n");
+    }
+
+    private static void appendHistogram(StringBuilder sb, String name, String labels, Histogram histogram) {
+        String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+        int lastBucket = 0;
+        for (int i = 0; i < Histogram.NUMBER_OF_BUCKETS; i++) {
+            if (histogram.getBucketCount(i) > 0) lastBucket = i;
+        }
+        long cumulative = 0;
+        for (int i = 0; i <= lastBucket; i++) {
+            cumulative += histogram.getBucketCount(i);
+            sb.append(name).append("_bucket{").append(labelPrefix).append("le=\"")
+                    .append(Histogram.getUpperBound(i)).append("\"} ").append(cumulative).append("\n");
+        }
+        sb.append(name).append("_bucket{").append(labelPrefix).append("le=\"+Inf\"} ")
+                .append(histogram.getCount()).append("\n");
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        sb.append(name).append("_sum").append(braces).append(" ").append(histogram.getSum()).append("\n");
+        sb.append(name).append("_count").append(braces).append(" ").append(histogram.getCount()).append("\n");
+    }
+}
@@ -0,0 +1,56 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view on the {@link WalkMetrics}.
+ */
+public interface WalkMetricsMXBean {
+
+
+    long getProcessedEntities();
+
+    long getWrittenWalks();
+
+    double getEntitiesPerSecond();
+
+    double getWalksPerSecond();
+
+    long getWalkCharacters();
+
+    long getCompressedBytes();
+
+    long getDictionaryDecodes();
+
+    int getQueueDepth();
+
+    int getWriterWaitingThreads();
+
+    double getMeanWriterWaitNanos();
+
+    /**
+     * @return Generator name to mean latency of one hop (adjacency lookup) in nanoseconds.
+     */
+    Map<String, Double> getMeanHopLatencyNanos();
+
+    /**
+     * @return Generator name to the approximate 99th percentile of the hop latency in nanoseconds.
+     */
+    Map<String, Long> getP99HopLatencyNanos();
+
+    /**
+     * @return Generator name to mean number of candidates per hop.
+     */
+    Map<String, Double> getMeanCandidates();
+
+    /**
+     * @return Generator name to maximal number of candidates per hop.
+     */
+    Map<String, Long> getMaxCandidates();
+
+    String getJson();
+
+    String getPrometheusText();
+
+    void reset();
+}
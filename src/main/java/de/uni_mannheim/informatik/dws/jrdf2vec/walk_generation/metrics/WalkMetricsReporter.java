@@ -0,0 +1,113 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically dumps the {@link WalkMetrics} to a file. If the file name ends with {@code .json}, JSON is written;
+ * otherwise, the Prometheus text format is used (e.g. for the node exporter's textfile collector). The file is
+ * replaced atomically so that readers never see a partial dump.
+ */
+public class WalkMetricsReporter {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WalkMetricsReporter.class);
+
+    /**
+     * Default dump interval in seconds.
+     */
+    public static final int DEFAULT_INTERVAL = 30;
+
+    /**
+     * The file to be written.
+     */
+    private final File metricsFile;
+
+    /**
+     * The dump interval in seconds.
+     */
+    private final int interval;
+
+    private ScheduledExecutorService executor;
+
+    private Thread shutdownHook;
+
+    /**
+     * Constructor
+     *
+     * @param metricsFile The file to be written.
+     * @param interval    The dump interval in seconds.
+     */
+    public WalkMetricsReporter(File metricsFile, int interval) {
+        this.metricsFile = metricsFile;
+        this.interval = Math.max(1, interval);
+    }
+
+    /**
+     * Enables the metrics and starts the periodic dump. A final dump is written when the JVM shuts down.
+     */
+    public synchronized void start() {
+        if (executor != null) return;
+        WalkMetrics.setEnabled(true);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "walk-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::writeMetrics, interval, interval, TimeUnit.SECONDS);
+        shutdownHook = new Thread(this::writeMetrics, "walk-metrics-final-dump");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        LOGGER.info("Writing walk metrics to " + metricsFile.getAbsolutePath() + " every " + interval + " s.");
+    }
+
+    /**
+     * Stops the periodic dump and writes the metrics one last time.
+     */
+    public synchronized void stop() {
+        if (executor == null) return;
+        executor.shutdownNow();
+        executor = null;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ise) {
+            // shutdown in progress
+        }
+        writeMetrics();
+    }
+
+    /**
+     * Write the current metrics to the metrics file.
+     */
+    public void writeMetrics() {
+        WalkMetrics metrics = WalkMetrics.getInstance();
+        String content = metricsFile.getName().endsWith(".json") ? metrics.getJson() : metrics.getPrometheusText();
+        File parent = metricsFile.getAbsoluteFile().getParentFile();
+        if (parent != null) parent.mkdirs();
+        File tmpFile = new File(parent, metricsFile.getName() + ".tmp");
+        try {
+            Files.write(tmpFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile.toPath(), metricsFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Util.syncDirectory(parent);
+        } catch (IOException ioe) {
+            LOGGER.error("Could not write metrics file " + metricsFile.getAbsolutePath() + ".", ioe);
+        }
+    }
+
+    public File getMetricsFile() {
+        return metricsFile;
+    }
+}
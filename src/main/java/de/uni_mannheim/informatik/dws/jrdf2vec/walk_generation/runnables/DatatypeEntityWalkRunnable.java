@@ -1,7 +1,7 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.runnables;
 
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
-import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.MemoryWalkGenerator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.ITextWalkCapability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,10 +47,9 @@ public class DatatypeEntityWalkRunnable implements Runnable {
 
     @Override
     public void run() {
-        if (walkGenerator.getWalkGenerator() instanceof MemoryWalkGenerator) {
-            // datatype walks are only implemented for memory options
+        if (walkGenerator.getWalkGenerator() instanceof ITextWalkCapability) {
             // yes, the depth and # of walks parameters are this way
-            walkGenerator.writeToFile(((MemoryWalkGenerator) walkGenerator.getWalkGenerator()).generateTextWalksForEntity(walkGenerator.shortenUri(entity), this.depth));
-        } else LOGGER.error("NOT YET IMPLEMENTED FOR THE CURRENT PARSER!");
+            walkGenerator.writeToFile(entity, ((ITextWalkCapability) walkGenerator.getWalkGenerator()).generateTextWalksForEntity(walkGenerator.shortenUri(entity), this.depth));
+        } else LOGGER.error("Text walks are not implemented for the current walk generator.");
     }
 }
@@ -64,7 +64,7 @@ public class DefaultEntityWalkRunnable implements Runnable {
             case RANDOM_WALKS_DUPLICATE_FREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IRandomWalkDuplicateFreeCapability) {
                     walkGenerationManager
-                            .writeToFile(
+                            .writeToFile(entity,
                                     ((IRandomWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
                                             .generateDuplicateFreeRandomWalksForEntity(walkGenerationManager.shortenUri(entity), numberOfWalks, this.depth));
                 } else {
@@ -75,12 +75,12 @@ public class DefaultEntityWalkRunnable implements Runnable {
                 break;
             case MID_WALKS_DUPLICATE_FREE:
                 if(walkGenerationManager.getWalkGenerator() instanceof IMidWalkDuplicateFreeCapability){
-                    walkGenerationManager.writeToFile(((IMidWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator()).generateMidWalksForEntityDuplicateFree(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
+                    walkGenerationManager.writeToFile(entity, ((IMidWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator()).generateMidWalksForEntityDuplicateFree(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
                 } else LOGGER.error("NOT YET IMPLEMENTED FOR THE CURRENT WALK GENERATOR " + walkGenerationManager.getWalkGenerator().getClass().toString() + "!");
                 break;
             case RANDOM_WALKS:
                 if(walkGenerationManager.getWalkGenerator() instanceof IRandomWalkCapability){
-                    walkGenerationManager.writeToFile(
+                    walkGenerationManager.writeToFile(entity,
                             ((IRandomWalkCapability) walkGenerationManager.getWalkGenerator())
                                     .generateRandomWalksForEntity(walkGenerationManager.shortenUri(entity),
                                             numberOfWalks, depth));
@@ -90,21 +90,21 @@ public class DefaultEntityWalkRunnable implements Runnable {
                 break;
             case MID_WALKS:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidWalkCapability) {
-                    walkGenerationManager.writeToFile(((IMidWalkCapability) walkGenerationManager.getWalkGenerator()).generateMidWalksForEntity(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
+                    walkGenerationManager.writeToFile(entity, ((IMidWalkCapability) walkGenerationManager.getWalkGenerator()).generateMidWalksForEntity(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
                 } else {
                     printNotImplementedWarning();
                 }
                 break;
             case MID_WALKS_WEIGHTED:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidWalkWeightedCapability) {
-                    walkGenerationManager.writeToFile(((IMidWalkWeightedCapability) walkGenerationManager.getWalkGenerator()).generateWeightedMidWalksForEntity(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
+                    walkGenerationManager.writeToFile(entity, ((IMidWalkWeightedCapability) walkGenerationManager.getWalkGenerator()).generateWeightedMidWalksForEntity(walkGenerationManager.shortenUri(entity), this.numberOfWalks, this.depth));
                 } else {
                     printNotImplementedWarning();
                 }
                 break;
             case EXPERIMENTAL_MID_TYPE_WALKS_DUPLICATE_FREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidTypeWalkDuplicateFreeCapability) {
-                    walkGenerationManager.writeToFile(
+                    walkGenerationManager.writeToFile(entity,
                             ((IMidTypeWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
                                     .generateMidTypeWalksForEntityDuplicateFree(
                                             walkGenerationManager.shortenUri(entity),
@@ -117,7 +117,7 @@ public class DefaultEntityWalkRunnable implements Runnable {
             case EXPERIMENTAL_MID_EDGE_WALKS_DUPLICATE_FREE:
                 if (walkGenerationManager.getWalkGenerator() instanceof IMidEdgeWalkDuplicateFreeCapability) {
                     walkGenerationManager
-                            .writeToFile(
+                            .writeToFile(entity,
                                     ((IMidEdgeWalkDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
                                             .generateMidEdgeWalksForEntityDuplicateFree(
                                                     walkGenerationManager.shortenUri(entity),
@@ -130,7 +130,7 @@ public class DefaultEntityWalkRunnable implements Runnable {
             case EXPERIMENTAL_NODE_WALKS_DUPLICATE_FREE:
                 if(walkGenerationManager.getWalkGenerator() instanceof INodeWalksDuplicateFreeCapability) {
                     walkGenerationManager
-                            .writeToFile(
+                            .writeToFile(entity,
                                     ((INodeWalksDuplicateFreeCapability) walkGenerationManager.getWalkGenerator())
                                     .generateNodeWalksForEntity(walkGenerationManager.shortenUri(entity),
                                             this.numberOfWalks, this.depth)
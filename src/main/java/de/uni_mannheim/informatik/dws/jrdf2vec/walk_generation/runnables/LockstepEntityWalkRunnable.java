@@ -0,0 +1,98 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.runnables;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.ILockstepWalkCapability;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Generates the walks of a batch of entities in lockstep (see
+ * {@link de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.LockstepWalker}) and writes them
+ * entity by entity.
+ */
+public class LockstepEntityWalkRunnable implements Runnable {
+
+
+    /**
+     * Default Logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LockstepEntityWalkRunnable.class);
+
+    /**
+     * Entities that are processed by this runnable.
+     */
+    List<String> entities;
+
+    /**
+     * Length of each walk.
+     */
+    int depth;
+
+    /**
+     * Number of walks to be performed per entity.
+     */
+    int numberOfWalks;
+
+    WalkGenerationMode walkGenerationMode;
+
+    /**
+     * The walk generator for which this runnable works.
+     */
+    WalkGenerationManager walkGenerationManager;
+
+    /**
+     * Constructor.
+     *
+     * @param generator     Generator to be used.
+     * @param entities      The entities this runnable shall handle.
+     * @param numberOfWalks The number of walks to be performed per entity.
+     * @param depth         Desired length of the walk.
+     * @param mode          The walk generation mode ({@link WalkGenerationMode#RANDOM_WALKS} or
+     *                      {@link WalkGenerationMode#MID_WALKS}).
+     */
+    public LockstepEntityWalkRunnable(WalkGenerationManager generator, List<String> entities, int numberOfWalks,
+                                      int depth, WalkGenerationMode mode) {
+        this.entities = entities;
+        this.numberOfWalks = numberOfWalks;
+        this.depth = depth;
+        this.walkGenerationManager = generator;
+        this.walkGenerationMode = mode;
+    }
+
+    /**
+     * @param mode The walk generation mode.
+     * @return True if the mode can be generated in lockstep.
+     */
+    public static boolean isModeSupported(WalkGenerationMode mode) {
+        return mode == WalkGenerationMode.RANDOM_WALKS || mode == WalkGenerationMode.MID_WALKS;
+    }
+
+    /**
+     * Actual thread execution.
+     */
+    public void run() {
+        if (!(walkGenerationManager.getWalkGenerator() instanceof ILockstepWalkCapability)
+                || !isModeSupported(walkGenerationMode)) {
+            LOGGER.error("Lockstep walks are not supported for the walk generation mode " + walkGenerationMode
+                    + " and the walk generator " + walkGenerationManager.getWalkGenerator().getClass() + ".");
+            return;
+        }
+        ILockstepWalkCapability generator = (ILockstepWalkCapability) walkGenerationManager.getWalkGenerator();
+
+        // the walks are generated for the shortened URIs but written for the original entities
+        List<String> shortenedEntities = new ArrayList<>(entities.size());
+        for (String entity : entities) shortenedEntities.add(walkGenerationManager.shortenUri(entity));
+        Map<String, List<String>> walks = walkGenerationMode == WalkGenerationMode.RANDOM_WALKS ?
+                generator.generateRandomWalksForEntitiesInLockstep(shortenedEntities, numberOfWalks, depth) :
+                generator.generateMidWalksForEntitiesInLockstep(shortenedEntities, numberOfWalks, depth);
+
+        for (int i = 0; i < entities.size(); i++) {
+            List<String> entityWalks = walks.get(shortenedEntities.get(i));
+            walkGenerationManager.writeToFile(entities.get(i),
+                    entityWalks == null ? Collections.emptyList() : entityWalks);
+        }
+    }
+}
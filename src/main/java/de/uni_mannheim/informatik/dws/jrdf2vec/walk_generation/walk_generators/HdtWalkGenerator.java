@@ -1,11 +1,18 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtHotAdjacency;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtSession;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetrics;
 
+import org.rdfhdt.hdt.enums.ResultEstimationType;
 import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.dictionary.impl.FourSectionDictionary;
+import org.rdfhdt.hdt.dictionary.impl.FourSectionDictionaryBig;
 import org.rdfhdt.hdt.exceptions.NotFoundException;
 import org.rdfhdt.hdt.hdt.HDT;
-import org.rdfhdt.hdt.hdt.HDTManager;
 import org.rdfhdt.hdt.triples.IteratorTripleID;
 import org.rdfhdt.hdt.triples.IteratorTripleString;
 import org.rdfhdt.hdt.triples.TripleID;
@@ -16,23 +23,72 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
 
 /**
  * A parser for HDT files.
  */
 public class HdtWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMidWalkDuplicateFreeCapability, IRandomWalkCapability,IRandomWalkDuplicateFreeCapability,
-IMidWalkWeightedCapability {
+IMidWalkWeightedCapability, IDegreeCappingWalkGenerator, ITextWalkCapability, ICloseableWalkGenerator,
+ILockstepWalkCapability, IFilteringWalkGenerator {
 
     /**
      * Default logger.
      */
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(HdtWalkGenerator.class);
     
+    /**
+     * Name of this generator in the {@link WalkMetrics}.
+     */
+    private static final String METRICS_NAME = "hdt";
+
+    /**
+     * Name of the hot tier in the {@link WalkMetrics}.
+     */
+    private static final String HOT_METRICS_NAME = "hdt_hot";
+
     /**
      * The data set to be used by the parser.
      */
     HDT hdtDataSet;
 
+    /**
+     * The (shared) session of the HDT file; null if the generator was not created from a file.
+     */
+    private HdtSession session;
+
+    /**
+     * Maximal number of candidate triples per hop (see {@link HdtWalkGenerator#setMaxDegree(int)}).
+     */
+    private int maxDegree = NO_DEGREE_LIMIT;
+
+    /**
+     * Function applied to the lexical form of literals in text walks.
+     */
+    private UnaryOperator<String> textProcessingFunction = new TextProcessor();
+
+    /**
+     * Last object ID that is a literal; 0 if not yet determined (see {@link HdtWalkGenerator#getLastLiteralId()}).
+     */
+    private volatile long lastLiteralId = 0;
+
+    /**
+     * Adjacency lists of frequently visited nodes on the heap; null if there is no hot tier (see
+     * {@link HdtWalkGenerator#setHotTierBudget(long)}).
+     */
+    private volatile HdtHotAdjacency hotAdjacency;
+
+    /**
+     * Filter on the walked edges; null if all edges are walked.
+     */
+    private WalkFilter walkFilter;
+
+    /**
+     * The compiled {@link HdtWalkGenerator#walkFilter}: the accepted predicate IDs. Null if all predicates are
+     * accepted.
+     */
+    private volatile BitSet acceptedPredicates;
+
     /**
      * Last ID that is shared
      */
@@ -56,8 +112,9 @@ IMidWalkWeightedCapability {
      */
     public HdtWalkGenerator(String hdtFilePath) throws IOException {
         try {
-            // We load hdt file
-            hdtDataSet = HDTManager.mapIndexedHDT(hdtFilePath);
+            // the HDT file is memory-mapped and shared with the entity selector
+            session = HdtSession.acquire(new File(hdtFilePath));
+            hdtDataSet = session.getHdt();
             nShared = hdtDataSet.getDictionary().getNshared();
             nSubjects= hdtDataSet.getDictionary().getNsubjects();
             nObjects = hdtDataSet.getDictionary().getNobjects();
@@ -70,6 +127,24 @@ IMidWalkWeightedCapability {
     public HDT getHdt(){
         return hdtDataSet;
     }
+
+    /**
+     * @return The session of the HDT file. Null if the generator was not created from a file.
+     */
+    public HdtSession getSession() {
+        return session;
+    }
+
+    /**
+     * Releases the HDT session.
+     */
+    @Override
+    public void close() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+    }
     /**
      * Constructor
      *
@@ -156,17 +231,7 @@ IMidWalkWeightedCapability {
                 if(validNextPredecessor){
                     if(isShared(nextElementPredecessor) || isObjectOnly(nextElementPredecessor)){ //if is a valid object you can search
                         try {
-                            IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(0,0,nextElementPredecessor));
-                            
-                            List<TripleID> candidates = new ArrayList<>();
-        
-                            TripleID ts;
-        
-                            while (iterator.hasNext()) {
-                                ts = iterator.next();
-                                TripleID clonedTriple = new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject());
-                                candidates.add(clonedTriple);
-                            }
+                            List<TripleID> candidates = searchTriples(0, 0, nextElementPredecessor);
                         
         
                             if (!candidates.isEmpty()) {
@@ -177,8 +242,8 @@ IMidWalkWeightedCapability {
                                 long subjectId = drawnTriple.getSubject();
                                 long predicateId = drawnTriple.getPredicate();
                                 
-                                result.addFirst(hdtDataSet.getDictionary().idToString(predicateId, TripleComponentRole.PREDICATE).toString());
-                                result.addFirst(hdtDataSet.getDictionary().idToString(subjectId, TripleComponentRole.SUBJECT).toString());
+                                result.addFirst(decode(predicateId, TripleComponentRole.PREDICATE));
+                                result.addFirst(decode(subjectId, TripleComponentRole.SUBJECT));
                                 nextElementPredecessor = subjectId;
                                 validNextPredecessor = !isSubjectOnly(nextElementPredecessor); // if next predecessor is subjectOnly we couldnt use as object
                             }
@@ -197,16 +262,7 @@ IMidWalkWeightedCapability {
                 if(validNextSuccessor){
                     if(isShared(nextElementSuccessor) || isSubjectOnly(nextElementSuccessor)){//if is a valid subject you can search
                         try {
-                            IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(nextElementSuccessor,0,0));
-                            List<TripleID> candidates = new ArrayList<>();
-                            
-                            while (iterator.hasNext()) {
-                                TripleID ts = iterator.next();
-        
-                                //If we do not create a new instance of TripleID candidates, it will be filled with the last candidate that has been found.
-                                TripleID clonedTriple = new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject());
-                                candidates.add(clonedTriple);
-                            }
+                            List<TripleID> candidates = searchTriples(nextElementSuccessor, 0, 0);
                             
                             if (!candidates.isEmpty()) {
 
@@ -216,8 +272,8 @@ IMidWalkWeightedCapability {
                                 long predicateId = stringToAdd.getPredicate();
 
                                 // add next walk iteration
-                                result.addLast(hdtDataSet.getDictionary().idToString(predicateId, TripleComponentRole.PREDICATE).toString());
-                                result.addLast(hdtDataSet.getDictionary().idToString(objectId, TripleComponentRole.OBJECT).toString());
+                                result.addLast(decode(predicateId, TripleComponentRole.PREDICATE));
+                                result.addLast(decode(objectId, TripleComponentRole.OBJECT));
                                 
                                 nextElementSuccessor = objectId;
                                 validNextSuccessor = !isObjectOnly(nextElementSuccessor); //if next succesor is objectOnly we cant use as subject
@@ -327,13 +383,7 @@ IMidWalkWeightedCapability {
             List<TripleID> candidatesPredecessor = new ArrayList<>();
             if(validNextPredecessor){
                 if(isShared(nextElementPredecessor) || isObjectOnly(nextElementPredecessor)){
-                    IteratorTripleID  iterator = hdtDataSet.getTriples().search(new TripleID(0,0,nextElementPredecessor));
-                    while (iterator.hasNext()){
-                        TripleID ts = iterator.next();
-                        //If we do not create a new instance of TripleID candidates, it will be filled with the last candidate that has been found.
-                        TripleID clonedTriple = new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject());
-                        candidatesPredecessor.add(clonedTriple);
-                    }
+                    candidatesPredecessor = searchTriples(0, 0, nextElementPredecessor);
                 }else{
                     validNextPredecessor = false; // if not a valid object dont try again
                     candidatesPredecessor = null;
@@ -344,12 +394,7 @@ IMidWalkWeightedCapability {
             List<TripleID> candidatesSuccessor = new ArrayList<>();
             if(validNextSuccessor){
                 if(isShared(nextElementSuccessor) || isSubjectOnly(nextElementSuccessor)){
-                    IteratorTripleID  iterator = hdtDataSet.getTriples().search(new TripleID(nextElementSuccessor,0,0));
-                    while (iterator.hasNext()){
-                        TripleID ts = iterator.next();
-                        TripleID clonedTriple = new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject());
-                        candidatesSuccessor.add(clonedTriple);
-                    }
+                    candidatesSuccessor = searchTriples(nextElementSuccessor, 0, 0);
 
                 }else{
                     validNextSuccessor=false;
@@ -364,8 +409,8 @@ IMidWalkWeightedCapability {
             double numberOfPredecessors = 0.0;
             double numberOfSuccessors = 0.0;
 
-            if (candidatesPredecessor != null) numberOfPredecessors = candidatesPredecessor.size();
-            if (candidatesSuccessor != null) numberOfSuccessors = candidatesSuccessor.size();
+            if (candidatesPredecessor != null) numberOfPredecessors = getNumberOfCandidates(candidatesPredecessor, 0, 0, nextElementPredecessor);
+            if (candidatesSuccessor != null) numberOfSuccessors = getNumberOfCandidates(candidatesSuccessor, nextElementSuccessor, 0, 0);
 
             // if there are no successors and predecessors: return current walk
             if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return result;
@@ -380,8 +425,8 @@ IMidWalkWeightedCapability {
 
                     long subjectID = drawnTriple.getSubject();
                     long predicateID = drawnTriple.getPredicate();
-                    String predicate = hdtDataSet.getDictionary().idToString(predicateID, TripleComponentRole.PREDICATE).toString();
-                    String subject = hdtDataSet.getDictionary().idToString(subjectID, TripleComponentRole.SUBJECT).toString();
+                    String predicate = decode(predicateID, TripleComponentRole.PREDICATE);
+                    String subject = decode(subjectID, TripleComponentRole.SUBJECT);
                     // add walks from the front (walk started before entity)
                     result.addFirst(predicate);
                     result.addFirst(subject);
@@ -395,8 +440,8 @@ IMidWalkWeightedCapability {
 
                     long objectID = drawnTriple.getObject();
                     long predicateID = drawnTriple.getPredicate();
-                    String predicate = hdtDataSet.getDictionary().idToString(predicateID, TripleComponentRole.PREDICATE).toString();
-                    String object = hdtDataSet.getDictionary().idToString(objectID, TripleComponentRole.OBJECT).toString();
+                    String predicate = decode(predicateID, TripleComponentRole.PREDICATE);
+                    String object = decode(objectID, TripleComponentRole.OBJECT);
                     // add next walk iteration
                     result.addLast(predicate);
                     result.addLast(object);
@@ -414,16 +459,8 @@ IMidWalkWeightedCapability {
         if(isValidNextSubject){
             if(isSubjectOnly(subjectID) || isShared(subjectID)){
                 // Buscamos triples donde subjectId es el sujeto
-                IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subjectID, 0, 0));
-                
-                // Si no hay triples, retornamos null
-                List<TripleID> triples = new ArrayList<>();
-                TripleID aux;
-                while (iterator.hasNext()) {
-                    aux = iterator.next();
-                    TripleID triple = new TripleID(aux.getSubject(), aux.getPredicate(), aux.getObject());
-                    triples.add(triple);
-                }
+                List<TripleID> triples = searchTriples(subjectID, 0, 0);
+                if (triples.isEmpty()) return null;
                 // Seleccionamos un triple aleatorio de la lista de triples
                 int randomIndex = ThreadLocalRandom.current().nextInt(triples.size());
                 TripleID triple = triples.get(randomIndex);
@@ -440,6 +477,324 @@ IMidWalkWeightedCapability {
         
     }
 
+    /**
+     * Answers a triple pattern query on IDs (0 is a wildcard). This is the adjacency lookup of every hop.
+     *
+     * @param subject   Subject ID or 0.
+     * @param predicate Predicate ID or 0.
+     * @param object    Object ID or 0.
+     * @return List of matching triples (never null).
+     */
+    private List<TripleID> searchTriples(long subject, long predicate, long object) {
+        long start = WalkMetrics.startTimer();
+        List<TripleID> hotResult = searchHotTier(subject, predicate, object);
+        if (hotResult != null) {
+            WalkMetrics.recordHop(HOT_METRICS_NAME, start, hotResult.size());
+            return hotResult;
+        }
+        IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subject, predicate, object));
+        List<TripleID> result;
+        int limit = maxDegree;
+        BitSet accepted = acceptedPredicates;
+        if (limit != NO_DEGREE_LIMIT && iterator.estimatedNumResults() > limit) {
+            result = sampleTriples(iterator, limit, accepted);
+        } else {
+            result = new ArrayList<>();
+            while (iterator.hasNext()) {
+                TripleID ts = iterator.next();
+                if (accepted != null && !accepted.get((int) ts.getPredicate())) continue;
+                //If we do not create a new instance of TripleID candidates, it will be filled with the last candidate that has been found.
+                result.add(new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject()));
+            }
+        }
+        WalkMetrics.recordHop(METRICS_NAME, start, result.size());
+        return result;
+    }
+
+    /**
+     * Answers a successor or predecessor lookup from the hot tier.
+     *
+     * @return List of matching triples or null if the pattern is not a lookup of a hot node.
+     */
+    private List<TripleID> searchHotTier(long subject, long predicate, long object) {
+        HdtHotAdjacency hot = hotAdjacency;
+        if (hot == null || predicate != 0 || (subject == 0) == (object == 0)) return null;
+        boolean isOutgoing = subject != 0;
+        int degree = isOutgoing ? hot.getOutDegree(subject) : hot.getInDegree(object);
+        if (degree < 0) return null;
+        int limit = maxDegree;
+        BitSet accepted = acceptedPredicates;
+        if (accepted != null) {
+            List<TripleID> result = new ArrayList<>();
+            for (TripleID triple : isOutgoing ? hot.getOutgoing(subject) : hot.getIncoming(object)) {
+                if (accepted.get((int) triple.getPredicate())) result.add(triple);
+            }
+            if (limit == NO_DEGREE_LIMIT || result.size() <= limit) return result;
+            List<TripleID> sample = new ArrayList<>(limit);
+            for (long index : Util.randomSampleIndices(result.size(), limit)) sample.add(result.get((int) index));
+            return sample;
+        }
+        if (limit == NO_DEGREE_LIMIT || degree <= limit) {
+            return isOutgoing ? hot.getOutgoing(subject) : hot.getIncoming(object);
+        }
+        List<TripleID> result = new ArrayList<>(limit);
+        for (long index : Util.randomSampleIndices(degree, limit)) {
+            result.add(isOutgoing ? hot.getOutgoing(subject, (int) index) : hot.getIncoming(object, (int) index));
+        }
+        return result;
+    }
+
+    /**
+     * Draw a uniform sample of the triples of the given iterator. If the iterator supports random access (e.g. the
+     * object index used for predecessor lookups) and no predicates are filtered, only the sampled positions are read.
+     * Otherwise, reservoir sampling is used so that at most {@code sampleSize} triples are held in memory.
+     *
+     * @param iterator   The iterator.
+     * @param sampleSize The size of the sample.
+     * @param accepted   The accepted predicate IDs; null if all predicates are accepted.
+     * @return Sampled triples.
+     */
+    private static List<TripleID> sampleTriples(IteratorTripleID iterator, int sampleSize, BitSet accepted) {
+        List<TripleID> result = new ArrayList<>(sampleSize);
+        if (accepted == null && iterator.canGoTo() && iterator.numResultEstimation() == ResultEstimationType.EXACT) {
+            for (long position : Util.randomSampleIndices(iterator.estimatedNumResults(), sampleSize)) {
+                iterator.goTo(position);
+                if (!iterator.hasNext()) break;
+                TripleID ts = iterator.next();
+                result.add(new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject()));
+            }
+            return result;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long seen = 0;
+        while (iterator.hasNext()) {
+            TripleID ts = iterator.next();
+            if (accepted != null && !accepted.get((int) ts.getPredicate())) continue;
+            seen++;
+            if (result.size() < sampleSize) {
+                result.add(new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject()));
+            } else {
+                long index = random.nextLong(seen);
+                if (index < sampleSize) {
+                    result.set((int) index, new TripleID(ts.getSubject(), ts.getPredicate(), ts.getObject()));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the actual number of candidates of a triple pattern query. If the candidates were not sampled, this is the
+     * size of the candidate list.
+     *
+     * @param candidates The (possibly sampled) candidates obtained for the pattern.
+     * @param subject    Subject ID or 0.
+     * @param predicate  Predicate ID or 0.
+     * @param object     Object ID or 0.
+     * @return Number of triples matching the pattern.
+     */
+    private double getNumberOfCandidates(List<TripleID> candidates, long subject, long predicate, long object) {
+        if (maxDegree == NO_DEGREE_LIMIT || candidates.size() < maxDegree) return candidates.size();
+        HdtHotAdjacency hot = hotAdjacency;
+        BitSet accepted = acceptedPredicates;
+        if (hot != null && accepted == null && predicate == 0 && (subject == 0) != (object == 0)) {
+            int degree = subject != 0 ? hot.getOutDegree(subject) : hot.getInDegree(object);
+            if (degree >= 0) return degree;
+        }
+        IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subject, predicate, object));
+        if (accepted == null && iterator.numResultEstimation() == ResultEstimationType.EXACT) {
+            return iterator.estimatedNumResults();
+        }
+        long count = 0;
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            if (accepted == null || accepted.get((int) triple.getPredicate())) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void setMaxDegree(int maxDegree) {
+        this.maxDegree = maxDegree < 1 ? NO_DEGREE_LIMIT : maxDegree;
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Skip the edges whose predicate is not accepted by the given filter. The filter is compiled once into the set of
+     * accepted predicate IDs so that a filtered edge costs a bit lookup while the adjacency list is iterated; its
+     * terms are never decoded.
+     *
+     * @param walkFilter The filter; null to walk all edges.
+     */
+    @Override
+    public void setWalkFilter(WalkFilter walkFilter) {
+        this.walkFilter = walkFilter;
+        if (walkFilter == null || walkFilter.isAcceptingAllPredicates()) {
+            acceptedPredicates = null;
+        } else {
+            acceptedPredicates = compilePredicateFilter(hdtDataSet.getDictionary(), walkFilter);
+            LOGGER.info("Walk filter accepts " + acceptedPredicates.cardinality() + " of "
+                    + hdtDataSet.getDictionary().getNpredicates() + " predicates.");
+        }
+    }
+
+    @Override
+    public WalkFilter getWalkFilter() {
+        return walkFilter;
+    }
+
+    /**
+     * Determine the IDs of the predicates accepted by the given filter. The predicate section of a dictionary is
+     * small compared to the triples, hence every predicate is evaluated once.
+     *
+     * @param dictionary The dictionary.
+     * @param walkFilter The filter.
+     * @return The accepted predicate IDs.
+     */
+    static BitSet compilePredicateFilter(Dictionary dictionary, WalkFilter walkFilter) {
+        long numberOfPredicates = dictionary.getNpredicates();
+        BitSet result = new BitSet((int) numberOfPredicates + 1);
+        for (long id = 1; id <= numberOfPredicates; id++) {
+            if (walkFilter.isAccepted(dictionary.idToString(id, TripleComponentRole.PREDICATE).toString())) {
+                result.set((int) id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Keep the adjacency lists of the most frequently visited nodes (estimated by their degree) on the heap, within
+     * the given budget. Lookups of these nodes no longer touch the memory-mapped file; all other lookups still go to
+     * the HDT file. Building the hot tier requires one scan over all triples.
+     *
+     * @param budgetBytes The maximal heap size of the hot tier in bytes. Values &lt; 1 remove the hot tier.
+     */
+    public void setHotTierBudget(long budgetBytes) {
+        hotAdjacency = budgetBytes < 1 ? null : HdtHotAdjacency.build(hdtDataSet, budgetBytes);
+    }
+
+    /**
+     * @return The hot tier or null if there is none.
+     */
+    public HdtHotAdjacency getHotAdjacency() {
+        return hotAdjacency;
+    }
+
+    /**
+     * Generate text walks from the literals of the given entity. The literals are streamed from the subject's
+     * adjacency list; datatype triples are not held in memory.
+     *
+     * @param entity The entity for which walks shall be generated.
+     * @param depth  The maximal number of walk components. Must be &gt; 2.
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateTextWalksForEntity(String entity, int depth) {
+        List<String> result = new ArrayList<>();
+        if (walkFilter != null && walkFilter.isExcludeLiterals()) return result;
+        long subject = hdtDataSet.getDictionary().stringToId(entity, TripleComponentRole.SUBJECT);
+        if (subject <= 0) return result;
+        long lastLiteral = getLastLiteralId();
+        BitSet accepted = acceptedPredicates;
+        IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subject, 0, 0));
+        long predicateId = 0;
+        String predicate = null;
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            long object = triple.getObject();
+            // literals are never subjects, i.e., they are never in the shared section
+            if (object <= nShared || object > lastLiteral) continue;
+            if (accepted != null && !accepted.get((int) triple.getPredicate())) continue;
+            String literal = decode(object, TripleComponentRole.OBJECT);
+            if (!literal.startsWith("\"")) continue;
+            // the triples of a subject are sorted by predicate
+            if (triple.getPredicate() != predicateId) {
+                predicateId = triple.getPredicate();
+                predicate = decode(predicateId, TripleComponentRole.PREDICATE);
+            }
+            Util.addTextWalks(result, entity, predicate,
+                    TextNormalizer.tokenize(textProcessingFunction, getLexicalForm(literal)), depth);
+        }
+        return result;
+    }
+
+    /**
+     * Determine the last object ID that belongs to a literal. In a four section dictionary, the object-only section
+     * is sorted lexicographically so that all literals (starting with a quotation mark) come first; the boundary is
+     * found by binary search. For other dictionaries, all object-only IDs are considered.
+     *
+     * @return Last literal ID (or the last object ID if the boundary cannot be determined).
+     */
+    long getLastLiteralId() {
+        if (lastLiteralId > 0) return lastLiteralId;
+        // nShared is a valid result (no literals) but must not be confused with "not determined"
+        lastLiteralId = Math.max(findLastLiteralId(hdtDataSet.getDictionary()), 1);
+        return lastLiteralId;
+    }
+
+    /**
+     * Determine the last object ID of the given dictionary that belongs to a literal (see
+     * {@link HdtWalkGenerator#getLastLiteralId()}).
+     *
+     * @param dictionary The dictionary.
+     * @return Last literal ID (number of shared IDs if there are no literals).
+     */
+    static long findLastLiteralId(Dictionary dictionary) {
+        long shared = dictionary.getNshared();
+        long result = dictionary.getNobjects();
+        if (dictionary instanceof FourSectionDictionary || dictionary instanceof FourSectionDictionaryBig) {
+            long low = shared + 1;
+            long high = result;
+            result = shared;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                if (dictionary.idToString(mid, TripleComponentRole.OBJECT).toString().startsWith("\"")) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the lexical form of an HDT literal string, i.e., the text between the quotation marks.
+     *
+     * @param literal Literal as stored in the dictionary (e.g. {@code "text"@en}).
+     * @return Lexical form.
+     */
+    static String getLexicalForm(String literal) {
+        int end = literal.lastIndexOf('"');
+        if (end <= 0) return literal;
+        return literal.substring(1, end);
+    }
+
+    public UnaryOperator<String> getTextProcessingFunction() {
+        return textProcessingFunction;
+    }
+
+    public void setTextProcessingFunction(UnaryOperator<String> textProcessingFunction) {
+        this.textProcessingFunction = textProcessingFunction;
+    }
+
+    /**
+     * Decodes a dictionary ID.
+     *
+     * @param id   The ID.
+     * @param role The role of the ID.
+     * @return String representation.
+     */
+    private String decode(long id, TripleComponentRole role) {
+        WalkMetrics.recordDecode();
+        return hdtDataSet.getDictionary().idToString(id, role).toString();
+    }
+
     /** 
      * Devuelve `true` si el ID pertenece tanto a sujetos como a objetos (es compartido).
      */
@@ -484,8 +839,8 @@ IMidWalkWeightedCapability {
                 if(po != null){
                     long objectAux = po.getObject();
                     long predicateAux = po.getPredicate();
-                    String object = hdtDataSet.getDictionary().idToString(objectAux, TripleComponentRole.OBJECT).toString();
-                    String predicate = hdtDataSet.getDictionary().idToString(predicateAux, TripleComponentRole.PREDICATE).toString();
+                    String object = decode(objectAux, TripleComponentRole.OBJECT);
+                    String predicate = decode(predicateAux, TripleComponentRole.PREDICATE);
 
                     currentWalk += " " + predicate + " " + object;
                     lastObject = objectAux;
@@ -503,20 +858,133 @@ IMidWalkWeightedCapability {
     }
 
 
+    @Override
+    public Map<String, List<String>> generateRandomWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                              int depth) {
+        return new LockstepWalker<>(new LockstepBackend()).generateRandomWalks(entities, numberOfWalks, depth);
+    }
+
+    @Override
+    public Map<String, List<String>> generateMidWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                           int depth) {
+        return new LockstepWalker<>(new LockstepBackend()).generateMidWalks(entities, numberOfWalks, depth);
+    }
+
+    /**
+     * The HDT as graph of a {@link LockstepWalker}. Nodes are identified by their ordinal (see
+     * {@link de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtBfsOrder}): subjects by
+     * their subject ID, object-only entries behind the subjects. Sorting the hops by ordinal hence sorts the
+     * successor lookups by their position in the triples of the memory-mapped file.
+     */
+    private class LockstepBackend implements LockstepWalker.Backend<Long> {
+
+
+        @Override
+        public Long getNode(String entity) {
+            long subject = hdtDataSet.getDictionary().stringToId(entity, TripleComponentRole.SUBJECT);
+            if (subject > 0) return subject;
+            long object = hdtDataSet.getDictionary().stringToId(entity, TripleComponentRole.OBJECT);
+            return object > 0 ? objectToOrdinal(object) : null;
+        }
+
+        @Override
+        public LockstepWalker.Adjacency<Long> getAdjacency(Long ordinal, boolean isOutgoing) {
+            try {
+                List<TripleID> candidates;
+                if (isOutgoing) {
+                    if (ordinal > nSubjects) return null;
+                    candidates = searchTriples(ordinal, 0, 0);
+                } else {
+                    long object = ordinalToObject(ordinal);
+                    if (object == 0) return null;
+                    candidates = searchTriples(0, 0, object);
+                }
+                return candidates.isEmpty() ? null : new LockstepAdjacency(candidates, isOutgoing);
+            } catch (Exception e) {
+                LOGGER.error("Search exception while looking up the edges of node " + ordinal + ".", e);
+                return null;
+            }
+        }
+
+        @Override
+        public boolean isPrefetchUseful() {
+            return true;
+        }
+
+        @Override
+        public void prefetch(Long ordinal, boolean isOutgoing) {
+            long subject = isOutgoing && ordinal <= nSubjects ? ordinal : 0;
+            long object = isOutgoing ? 0 : ordinalToObject(ordinal);
+            if (subject == 0 && object == 0) return;
+            try {
+                // reading the first triple faults in the pages of the adjacency list (and of the index on the way)
+                IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subject, 0, object));
+                if (iterator.hasNext()) iterator.next();
+            } catch (Exception e) {
+                // prefetching is only a hint
+            }
+        }
+    }
+
+    /**
+     * The candidates of one lockstep hop.
+     */
+    private class LockstepAdjacency implements LockstepWalker.Adjacency<Long> {
+
+
+        private final List<TripleID> triples;
+        private final boolean isOutgoing;
+
+        LockstepAdjacency(List<TripleID> triples, boolean isOutgoing) {
+            this.triples = triples;
+            this.isOutgoing = isOutgoing;
+        }
+
+        @Override
+        public int size() {
+            return triples.size();
+        }
+
+        @Override
+        public Long getNeighbour(int index) {
+            return isOutgoing ? objectToOrdinal(triples.get(index).getObject()) : triples.get(index).getSubject();
+        }
+
+        @Override
+        public String getPredicate(int index) {
+            return decode(triples.get(index).getPredicate(), TripleComponentRole.PREDICATE);
+        }
+
+        @Override
+        public String getNeighbourComponent(int index) {
+            return isOutgoing ? decode(triples.get(index).getObject(), TripleComponentRole.OBJECT) :
+                    decode(triples.get(index).getSubject(), TripleComponentRole.SUBJECT);
+        }
+    }
+
+    /**
+     * @param object An object ID.
+     * @return The ordinal of the object.
+     */
+    private long objectToOrdinal(long object) {
+        return object <= nShared ? object : nSubjects + object - nShared;
+    }
+
+    /**
+     * @param ordinal An ordinal.
+     * @return The object ID of the node or 0 if the node is never an object.
+     */
+    private long ordinalToObject(long ordinal) {
+        if (ordinal <= nShared) return ordinal;
+        return ordinal > nSubjects ? ordinal - nSubjects + nShared : 0;
+    }
+
     public List<TripleID> getObjectTriplesInvolvingSubjectHDT(long subject,boolean isValidNextSubject) {
         List<TripleID> result = new ArrayList<>();
         if(isValidNextSubject){
             if(isSubjectOnly(subject) || isShared(subject)){  
                 // Buscamos todas las tripletas donde subjectID es el sujeto
-                IteratorTripleID iterator = hdtDataSet.getTriples().search(new TripleID(subject, 0, 0));
-                
-                TripleID aux;
-                // Iteramos sobre los resultados y los almacenamos en la lista
-                while (iterator.hasNext()) {
-                    aux = iterator.next();
-                    TripleID tripleAux = new TripleID(aux.getSubject(), aux.getPredicate(), aux.getObject());
-                    result.add(tripleAux);
-                }            
+                result = searchTriples(subject, 0, 0);
             
                 return result; // Retorna la lista con las tripletas encontradas        
             }
@@ -594,8 +1062,8 @@ IMidWalkWeightedCapability {
         for (List<TripleID> walk : walks) {
             StringBuilder sb = new StringBuilder(entity);
             for (TripleID triple : walk) {
-                String predicate = hdtDataSet.getDictionary().idToString(triple.getPredicate(), TripleComponentRole.PREDICATE).toString();
-                String object = hdtDataSet.getDictionary().idToString(triple.getObject(), TripleComponentRole.OBJECT).toString();
+                String predicate = decode(triple.getPredicate(), TripleComponentRole.PREDICATE);
+                String object = decode(triple.getObject(), TripleComponentRole.OBJECT);
                 sb.append(" ").append(predicate).append(" ").append(object);
             }
             result.add(sb.toString());
@@ -0,0 +1,30 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+/**
+ * Walk generator that can bound the cost of a hop onto a hub node by sampling the neighbours of nodes whose degree
+ * exceeds a threshold.
+ */
+public interface IDegreeCappingWalkGenerator extends IWalkGenerator {
+
+
+    /**
+     * Value of the maximal degree if the degree is not capped.
+     */
+    int NO_DEGREE_LIMIT = -1;
+
+    /**
+     * Set the maximal number of candidate edges per node and direction. If a node has more edges, a uniform sample
+     * of that size is drawn.
+     *
+     * @param maxDegree The maximal degree; {@link IDegreeCappingWalkGenerator#NO_DEGREE_LIMIT} (or any value &lt; 1)
+     *                  disables the cap.
+     */
+    void setMaxDegree(int maxDegree);
+
+    /**
+     * Get the maximal number of candidate edges per node and direction.
+     *
+     * @return The maximal degree or {@link IDegreeCappingWalkGenerator#NO_DEGREE_LIMIT}.
+     */
+    int getMaxDegree();
+}
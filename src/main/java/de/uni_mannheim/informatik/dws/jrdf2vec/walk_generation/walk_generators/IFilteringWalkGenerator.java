@@ -0,0 +1,25 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
+
+/**
+ * Walk generator that can skip edges by their predicate (see {@link WalkFilter}).
+ */
+public interface IFilteringWalkGenerator extends IWalkGenerator {
+
+
+    /**
+     * Set the filter on the walked edges. Memory-based generators apply the filter while parsing, i.e., it has to
+     * be set before the data is read; other generators apply it while walking.
+     *
+     * @param walkFilter The filter; null to walk all edges.
+     */
+    void setWalkFilter(WalkFilter walkFilter);
+
+    /**
+     * Get the filter on the walked edges.
+     *
+     * @return The filter or null if all edges are walked.
+     */
+    WalkFilter getWalkFilter();
+}
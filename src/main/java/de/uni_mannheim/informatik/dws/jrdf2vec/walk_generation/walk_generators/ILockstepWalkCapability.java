@@ -0,0 +1,34 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Capability to generate the random walks and mid walks of a batch of entities at once, advancing all walks of the
+ * batch in lockstep (see {@link LockstepWalker}).
+ */
+public interface ILockstepWalkCapability extends IWalkGenerationCapability {
+
+
+    /**
+     * Generate random walks for a batch of entities.
+     *
+     * @param entities      The entities for which walks shall be generated.
+     * @param numberOfWalks The number of walks per entity.
+     * @param depth         The depth of each walk.
+     * @return The walks per entity (every entity is contained, in the order of the given entities).
+     */
+    Map<String, List<String>> generateRandomWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                       int depth);
+
+    /**
+     * Generate mid walks for a batch of entities.
+     *
+     * @param entities      The entities for which walks shall be generated.
+     * @param numberOfWalks The number of walks per entity.
+     * @param depth         The depth of each walk.
+     * @return The walks per entity (every entity is contained, in the order of the given entities).
+     */
+    Map<String, List<String>> generateMidWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                    int depth);
+}
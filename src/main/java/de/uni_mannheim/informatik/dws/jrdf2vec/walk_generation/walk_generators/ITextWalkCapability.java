@@ -0,0 +1,20 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import java.util.List;
+
+/**
+ * Capability to generate text walks, i.e., walks over the (tokenized) datatype property values of an entity.
+ */
+public interface ITextWalkCapability extends IWalkGenerationCapability {
+
+
+    /**
+     * Generate text walks for the given entity. Each walk starts with the entity and the datatype property followed
+     * by the tokens of one value; long values are split into multiple walks.
+     *
+     * @param entity The entity for which walks shall be generated.
+     * @param depth  The maximal number of walk components. Must be &gt; 2.
+     * @return List of walks.
+     */
+    List<String> generateTextWalksForEntity(String entity, int depth);
+}
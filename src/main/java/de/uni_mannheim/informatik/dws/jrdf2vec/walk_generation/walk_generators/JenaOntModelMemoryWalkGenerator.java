@@ -1,5 +1,6 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TermPool;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.Triple;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
 import org.apache.jena.ontology.OntModel;
@@ -117,6 +118,7 @@ public class JenaOntModelMemoryWalkGenerator extends MemoryWalkGenerator {
         if(data == null){
             data = new TripleDataSetMemory();
         }
+        TermPool termPool = data.getTermPool();
         for(StmtIterator iterator = model.listStatements(); iterator.hasNext();){
             Statement statement = iterator.nextStatement();
 
@@ -137,7 +139,7 @@ public class JenaOntModelMemoryWalkGenerator extends MemoryWalkGenerator {
                 // handling of the (string) object
                 String object = textProcessingFunction.apply(statement.getObject().asLiteral().getLexicalForm());
 
-                data.addDatatypeTriple(subject, predicate, object);
+                data.addDatatypeTriple(termPool.canonicalize(subject), termPool.canonicalize(predicate), object);
                 continue;
             } else if(statement.getObject().isLiteral()) continue;
 
@@ -162,7 +164,8 @@ public class JenaOntModelMemoryWalkGenerator extends MemoryWalkGenerator {
                 object = statement.getObject().asResource().getURI();
             }
 
-            data.addObjectTriple(new Triple(subject, predicate, object));
+            data.addObjectTriple(new Triple(termPool.canonicalize(subject), termPool.canonicalize(predicate),
+                    termPool.canonicalize(object)));
         }
     }
 }
@@ -0,0 +1,304 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the random walks or mid walks of a batch of entities in lockstep: all walks of the batch (typically
+ * thousands) advance one hop at a time. Before every hop, the pending hops are sorted by the current node of their
+ * walk. Hence, the adjacency list of a node is looked up once per hop no matter how many walks are on the node, and
+ * the lookups run in storage order (node IDs) instead of in the random order of independent walks. For backends
+ * whose adjacency lists are read from memory-mapped files, the adjacency lists of the next nodes in the sorted
+ * order are touched ahead on a background thread (see {@link Backend#prefetch(Comparable, boolean)}) so that the
+ * page faults overlap with the walk computation.
+ * <p>
+ * The walks are equivalent to the walks of the single-entity methods of the generators: random walks follow
+ * outgoing edges and end at the first node without successors (walks without any hop are dropped); mid walks
+ * choose the direction randomly in every step, a step in a direction without edges is skipped, and walks that
+ * contain only the entity are dropped.
+ *
+ * @param <N> Type of the node keys. Nodes are sorted by their natural order, which should be the storage order.
+ */
+public class LockstepWalker<N extends Comparable<N>> {
+
+
+    /**
+     * Number of node groups by which the prefetching runs ahead of the walk computation.
+     */
+    public static final int PREFETCH_DISTANCE = 32;
+
+    /**
+     * Shared background threads that touch adjacency lists ahead. Prefetching is a hint: if the queue is full,
+     * requests are dropped.
+     */
+    private static final ThreadPoolExecutor PREFETCH_EXECUTOR = createPrefetchExecutor();
+
+    /**
+     * The graph.
+     */
+    private final Backend<N> backend;
+
+    /**
+     * Constructor
+     *
+     * @param backend The graph.
+     */
+    public LockstepWalker(Backend<N> backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Generate random walks (outgoing edges only) for the given entities.
+     *
+     * @param entities      The entities (in the form that is used in the walks).
+     * @param numberOfWalks The number of walks per entity.
+     * @param depth         The depth of each walk.
+     * @return The walks per entity (space-separated). Every entity is contained; the iteration order is the order of
+     * the given entities.
+     */
+    public Map<String, List<String>> generateRandomWalks(List<String> entities, int numberOfWalks, int depth) {
+        return generateWalks(entities, numberOfWalks, depth, false);
+    }
+
+    /**
+     * Generate mid walks (both directions) for the given entities.
+     *
+     * @param entities      The entities (in the form that is used in the walks).
+     * @param numberOfWalks The number of walks per entity.
+     * @param depth         The depth of each walk.
+     * @return The walks per entity (space-separated). Every entity is contained; the iteration order is the order of
+     * the given entities.
+     */
+    public Map<String, List<String>> generateMidWalks(List<String> entities, int numberOfWalks, int depth) {
+        return generateWalks(entities, numberOfWalks, depth, true);
+    }
+
+    private Map<String, List<String>> generateWalks(List<String> entities, int numberOfWalks, int depth,
+                                                    boolean isMidWalk) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        List<Walk<N>> walks = new ArrayList<>();
+        for (String entity : entities) {
+            result.put(entity, new ArrayList<>());
+            N node = backend.getNode(entity);
+            if (node == null) continue;
+            for (int i = 0; i < numberOfWalks; i++) walks.add(new Walk<>(entity, node));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Walk<N>> pending = new ArrayList<>(walks.size());
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            pending.clear();
+            for (Walk<N> walk : walks) {
+                if (isMidWalk) {
+                    walk.isOutgoing = random.nextBoolean();
+                    if (walk.isOutgoing ? walk.isHeadAlive : walk.isTailAlive) pending.add(walk);
+                } else if (walk.isHeadAlive) {
+                    pending.add(walk);
+                }
+            }
+            if (pending.isEmpty()) break;
+            pending.sort(Walk::compareTo);
+            step(pending, random);
+        }
+
+        for (Walk<N> walk : walks) {
+            if (walk.components.size() > 1) result.get(walk.entity).add(walk.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Advance all pending walks by one hop. The walks are sorted so that walks on the same node (and direction)
+     * are adjacent.
+     */
+    private void step(List<Walk<N>> pending, ThreadLocalRandom random) {
+        // start indices of the node groups
+        int[] groupStarts = new int[pending.size() + 1];
+        int numberOfGroups = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            if (i == 0 || !pending.get(i).isSameHop(pending.get(i - 1))) groupStarts[numberOfGroups++] = i;
+        }
+        groupStarts[numberOfGroups] = pending.size();
+
+        boolean isPrefetching = backend.isPrefetchUseful();
+        if (isPrefetching) {
+            for (int group = 0; group < Math.min(PREFETCH_DISTANCE, numberOfGroups); group++) {
+                prefetch(pending.get(groupStarts[group]));
+            }
+        }
+        for (int group = 0; group < numberOfGroups; group++) {
+            if (isPrefetching && group + PREFETCH_DISTANCE < numberOfGroups) {
+                prefetch(pending.get(groupStarts[group + PREFETCH_DISTANCE]));
+            }
+            Walk<N> first = pending.get(groupStarts[group]);
+            Adjacency<N> adjacency = backend.getAdjacency(first.getCurrentNode(), first.isOutgoing);
+            int size = adjacency == null ? 0 : adjacency.size();
+            for (int i = groupStarts[group]; i < groupStarts[group + 1]; i++) {
+                Walk<N> walk = pending.get(i);
+                if (size == 0) {
+                    // the node has no edges in this direction; it will not get any
+                    if (walk.isOutgoing) walk.isHeadAlive = false;
+                    else walk.isTailAlive = false;
+                    continue;
+                }
+                int index = random.nextInt(size);
+                N neighbour = adjacency.getNeighbour(index);
+                if (walk.isOutgoing) {
+                    walk.components.addLast(adjacency.getPredicate(index));
+                    walk.components.addLast(adjacency.getNeighbourComponent(index));
+                    walk.head = neighbour;
+                    walk.isHeadAlive = neighbour != null;
+                } else {
+                    walk.components.addFirst(adjacency.getPredicate(index));
+                    walk.components.addFirst(adjacency.getNeighbourComponent(index));
+                    walk.tail = neighbour;
+                    walk.isTailAlive = neighbour != null;
+                }
+            }
+        }
+    }
+
+    private void prefetch(Walk<N> walk) {
+        N node = walk.getCurrentNode();
+        boolean isOutgoing = walk.isOutgoing;
+        PREFETCH_EXECUTOR.execute(() -> backend.prefetch(node, isOutgoing));
+    }
+
+    private static ThreadPoolExecutor createPrefetchExecutor() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(4 * PREFETCH_DISTANCE * threads), runnable -> {
+            Thread thread = new Thread(runnable, "lockstep-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * State of one walk in flight.
+     */
+    private static class Walk<N extends Comparable<N>> implements Comparable<Walk<N>> {
+
+
+        final String entity;
+        final ArrayDeque<String> components = new ArrayDeque<>();
+
+        /**
+         * Last node (outgoing end) and first node (incoming end) of the walk.
+         */
+        N head;
+        N tail;
+        boolean isHeadAlive = true;
+        boolean isTailAlive = true;
+
+        /**
+         * Direction of the pending hop.
+         */
+        boolean isOutgoing = true;
+
+        Walk(String entity, N node) {
+            this.entity = entity;
+            this.head = node;
+            this.tail = node;
+            components.add(entity);
+        }
+
+        N getCurrentNode() {
+            return isOutgoing ? head : tail;
+        }
+
+        boolean isSameHop(Walk<N> other) {
+            return isOutgoing == other.isOutgoing && getCurrentNode().compareTo(other.getCurrentNode()) == 0;
+        }
+
+        @Override
+        public int compareTo(Walk<N> other) {
+            if (isOutgoing != other.isOutgoing) return isOutgoing ? -1 : 1;
+            return getCurrentNode().compareTo(other.getCurrentNode());
+        }
+
+        @Override
+        public String toString() {
+            return String.join(" ", components);
+        }
+    }
+
+    /**
+     * The graph on which the walks are performed.
+     *
+     * @param <N> Type of the node keys.
+     */
+    public interface Backend<N> {
+
+
+        /**
+         * @param entity The entity.
+         * @return The node of the entity or null if the entity is not in the graph.
+         */
+        N getNode(String entity);
+
+        /**
+         * Get the edges of a node. This method is called once per node, direction, and hop.
+         *
+         * @param node       The node.
+         * @param isOutgoing True for outgoing edges, false for incoming edges.
+         * @return The edges or null if there are none.
+         */
+        Adjacency<N> getAdjacency(N node, boolean isOutgoing);
+
+        /**
+         * @return True if {@link Backend#prefetch(Comparable, boolean)} shall be called, i.e., if the adjacency lists
+         * are read from storage that may not be in memory.
+         */
+        default boolean isPrefetchUseful() {
+            return false;
+        }
+
+        /**
+         * Touch the storage of the edges of a node so that a later {@link Backend#getAdjacency(Comparable, boolean)}
+         * does not block on I/O. This method is called on a background thread and must be thread-safe.
+         *
+         * @param node       The node.
+         * @param isOutgoing True for outgoing edges, false for incoming edges.
+         */
+        default void prefetch(N node, boolean isOutgoing) {
+        }
+    }
+
+    /**
+     * The edges of a node in one direction.
+     *
+     * @param <N> Type of the node keys.
+     */
+    public interface Adjacency<N> {
+
+
+        /**
+         * @return The number of edges.
+         */
+        int size();
+
+        /**
+         * @param index Index of the edge.
+         * @return The node at the other end of the edge or null if it cannot be continued from.
+         */
+        N getNeighbour(int index);
+
+        /**
+         * @param index Index of the edge.
+         * @return The predicate as walk component.
+         */
+        String getPredicate(int index);
+
+        /**
+         * @param index Index of the edge.
+         * @return The node at the other end of the edge as walk component.
+         */
+        String getNeighbourComponent(int index);
+    }
+}
@@ -1,6 +1,7 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.Triple;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
 import org.slf4j.Logger;
@@ -18,7 +19,8 @@ import java.util.stream.Collectors;
 public abstract class MemoryWalkGenerator implements IWalkGenerator,
         IMidWalkCapability, IMidWalkDuplicateFreeCapability, IRandomWalkDuplicateFreeCapability,
         IMidWalkWeightedCapability, IMidEdgeWalkDuplicateFreeCapability, IRandomWalkCapability,
-        IMidTypeWalkDuplicateFreeCapability, INodeWalksDuplicateFreeCapability {
+        IMidTypeWalkDuplicateFreeCapability, INodeWalksDuplicateFreeCapability, IDegreeCappingWalkGenerator,
+        ITextWalkCapability, ILockstepWalkCapability, IFilteringWalkGenerator {
 
 
     /**
@@ -125,17 +127,9 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
             // randomly decide whether to use predecessors or successors
             double randomPickZeroOne = ThreadLocalRandom.current().nextDouble(0.0, 1.00000001);
 
-            // predecessor candidates
-            List<Triple> candidatesPredecessor = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
-
-            // successor candidates
-            List<Triple> candidatesSuccessor = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
-
-            double numberOfPredecessors = 0.0;
-            double numberOfSuccessors = 0.0;
-
-            if (candidatesPredecessor != null) numberOfPredecessors = candidatesPredecessor.size();
-            if (candidatesSuccessor != null) numberOfSuccessors = candidatesSuccessor.size();
+            // the (uncapped) degrees determine the direction; only the candidates of that direction are loaded
+            double numberOfPredecessors = data.getNumberOfObjectTriplesInvolvingObject(nextElementPredecessor);
+            double numberOfSuccessors = data.getNumberOfObjectTriplesInvolvingSubject(nextElementSuccessor);
 
             // if there are no successors and predecessors: return current walk
             if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return result;
@@ -145,8 +139,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
             if (randomPickZeroOne <= cutOffPoint) {
                 // predecessor
-                if (candidatesPredecessor != null && candidatesPredecessor.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidatesPredecessor);
+                Triple drawnTriple = data.getRandomObjectTripleInvolvingObject(nextElementPredecessor);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -155,8 +149,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                if (candidatesSuccessor != null && candidatesSuccessor.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidatesSuccessor);
+                Triple tripleToAdd = data.getRandomObjectTripleInvolvingSubject(nextElementSuccessor);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -315,7 +309,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @return One walk as list where each element is a walk component.
      */
     public List<String> generateMidWalkForEntity(String entity, int depth) {
-        
+        if (data.isFrozen()) return generateMidWalkForEntityById(entity, depth);
+
         LinkedList<String> result = new LinkedList<>();
 
         String nextElementPredecessor = entity;
@@ -335,10 +330,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
             if (randomPickZeroOne == 0) {
                 // predecessor
-                List<Triple> candidates = data.getObjectTriplesInvolvingObject(nextElementPredecessor);
-
-                if (candidates != null && candidates.size() > 0) {
-                    Triple drawnTriple = randomDrawFromList(candidates);
+                Triple drawnTriple = data.getRandomObjectTripleInvolvingObject(nextElementPredecessor);
+                if (drawnTriple != null) {
 
                     // add walks from the front (walk started before entity)
                     result.addFirst(drawnTriple.predicate);
@@ -347,9 +340,8 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
                 }
             } else {
                 // successor
-                List<Triple> candidates = data.getObjectTriplesInvolvingSubject(nextElementSuccessor);
-                if (candidates != null && candidates.size() > 0) {
-                    Triple tripleToAdd = randomDrawFromList(candidates);
+                Triple tripleToAdd = data.getRandomObjectTripleInvolvingSubject(nextElementSuccessor);
+                if (tripleToAdd != null) {
 
                     // add next walk iteration
                     result.addLast(tripleToAdd.predicate);
@@ -361,6 +353,46 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return result;
     }
 
+    /**
+     * Variant of {@link MemoryWalkGenerator#generateMidWalkForEntity(String, int)} for a frozen data set: the walk
+     * is built from term IDs and the terms are resolved once the walk is complete.
+     *
+     * @param entity The entity for which a walk shall be generated.
+     * @param depth  The depth of the walk.
+     * @return One walk as list where each element is a walk component.
+     */
+    private List<String> generateMidWalkForEntityById(String entity, int depth) {
+        // the walk grows in both directions from the entity in the middle of the array
+        int[] walk = new int[4 * depth + 1];
+        int first = 2 * depth;
+        int last = 2 * depth;
+        int predecessor = data.getNodeId(entity);
+        int successor = predecessor;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (random.nextInt(2) == 0) {
+                int index = data.getRandomEdgeIndex(predecessor, false);
+                if (index >= 0) {
+                    walk[--first] = data.getInPredicateId(predecessor, index);
+                    predecessor = data.getInSubjectId(predecessor, index);
+                    walk[--first] = predecessor;
+                }
+            } else {
+                int index = data.getRandomEdgeIndex(successor, true);
+                if (index >= 0) {
+                    walk[++last] = data.getOutPredicateId(successor, index);
+                    successor = data.getOutObjectId(successor, index);
+                    walk[++last] = successor;
+                }
+            }
+        }
+        List<String> result = new ArrayList<>(last - first + 1);
+        for (int i = first; i <= last; i++) {
+            result.add(i == 2 * depth ? entity : data.getTerm(walk[i]));
+        }
+        return result;
+    }
+
     /**
      * Draw a random value from a List. This method is thread-safe.
      *
@@ -418,43 +450,31 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      * @param depth  Must be &gt; 2.
      * @return List of walks.
      */
+    @Override
     public List<String> generateTextWalksForEntity(String entity, int depth) {
         List<String> result = new ArrayList<>();
-        Set<String> datatypeSubjects = this.data.getUniqueDatatypeTripleSubjects();
-        if (!datatypeSubjects.contains(entity)) {
-            return result;
-        }
-        Map<String, Set<String>> tuples = this.data.getDatatypeTuplesForSubject(entity);
-
-        for (Map.Entry<String, Set<String>> entry : tuples.entrySet()) {
-            String predicate = entry.getKey();
-            Set<String> texts = entry.getValue();
-            StringBuffer walk = getNewBufferWalk(entity, predicate);
-            int currentWalkLength = 2;
-            for (String text : texts) {
-                for (String token : text.split(" ")) {
-                    walk.append(" ").append(this.textProcessingFunction.apply(token));
-                    currentWalkLength++;
-                    if (currentWalkLength == depth) {
-                        result.add(walk.toString());
-                        walk = getNewBufferWalk(entity, predicate);
-                        currentWalkLength = 2;
-                    }
-                }
-                if (walk.length() > entity.length() + predicate.length() + 1) {
-                    result.add(walk.toString());
-                    walk = getNewBufferWalk(entity, predicate);
-                    currentWalkLength = 2;
-                }
-            }
-        }
+        this.data.forEachDatatypeTuple(entity, (predicate, text) ->
+                Util.addTextWalks(result, entity, predicate, getTextTokens(text), depth));
         return result;
     }
 
-    private StringBuffer getNewBufferWalk(String subject, String predicate) {
-        StringBuffer walk = new StringBuffer();
-        walk.append(subject).append(" ").append(predicate);
-        return walk;
+    /**
+     * Split a parsed datatype value into walk tokens. Values are normalized with the text processing function when
+     * they are parsed; if that function is a {@link TextNormalizer}, its tokenizer is used and the tokens are not
+     * processed again.
+     *
+     * @param text The (already processed) datatype value.
+     * @return List of tokens.
+     */
+    private List<String> getTextTokens(String text) {
+        if (textProcessingFunction instanceof TextNormalizer) {
+            return ((TextNormalizer) textProcessingFunction).tokenizeNormalized(text);
+        }
+        List<String> result = new ArrayList<>();
+        for (String token : text.split(" ")) {
+            result.add(textProcessingFunction.apply(token));
+        }
+        return result;
     }
 
     /**
@@ -587,6 +607,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
 
     @Override
     public List<String> generateRandomWalksForEntity(String entity, int numberOfWalks, int depth){
+        if (data.isFrozen()) return generateRandomWalksForEntityById(entity, numberOfWalks, depth);
         List<String> result = new ArrayList<>();
         int currentDepth;
         String currentWalk;
@@ -615,6 +636,106 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         return result;
     }
 
+    /**
+     * Variant of {@link MemoryWalkGenerator#generateRandomWalksForEntity(String, int, int)} for a frozen data set:
+     * a walk is a sequence of term IDs (the current node is carried as ID from hop to hop); the terms are resolved
+     * when the walk is written.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The depth of each walk.
+     * @return List where every item is a walk separated by spaces.
+     */
+    private List<String> generateRandomWalksForEntityById(String entity, int numberOfWalks, int depth) {
+        List<String> result = new ArrayList<>();
+        int entityId = data.getNodeId(entity);
+        int[] walk = new int[2 * depth];
+        for (int currentWalkNumber = 0; currentWalkNumber < numberOfWalks; currentWalkNumber++) {
+            int node = entityId;
+            int length = 0;
+            while (length < walk.length) {
+                int index = data.getRandomEdgeIndex(node, true);
+                if (index < 0) break;
+                walk[length++] = data.getOutPredicateId(node, index);
+                node = data.getOutObjectId(node, index);
+                walk[length++] = node;
+            }
+            // a walk that could not be continued is only added if it has at least one hop
+            if (length == 0 && depth > 0) continue;
+            StringBuilder currentWalk = new StringBuilder(entity);
+            for (int i = 0; i < length; i++) {
+                currentWalk.append(' ').append(uriShortenerFunction.apply(data.getTerm(walk[i])));
+            }
+            result.add(currentWalk.toString());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, List<String>> generateRandomWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                              int depth) {
+        return new LockstepWalker<>(new LockstepBackend(uriShortenerFunction == null ?
+                UnaryOperator.identity() : uriShortenerFunction))
+                .generateRandomWalks(entities, numberOfWalks, depth);
+    }
+
+    @Override
+    public Map<String, List<String>> generateMidWalksForEntitiesInLockstep(List<String> entities, int numberOfWalks,
+                                                                           int depth) {
+        return new LockstepWalker<>(new LockstepBackend(UnaryOperator.identity()))
+                .generateMidWalks(entities, numberOfWalks, depth);
+    }
+
+    /**
+     * The in-memory graph as graph of a {@link LockstepWalker}. Nodes are identified by their (shortened) URI; walks
+     * on the same node share one lookup per hop.
+     */
+    private class LockstepBackend implements LockstepWalker.Backend<String> {
+
+
+        /**
+         * Function applied to predicates and neighbours before they are added to a walk.
+         */
+        private final UnaryOperator<String> componentFunction;
+
+        LockstepBackend(UnaryOperator<String> componentFunction) {
+            this.componentFunction = componentFunction;
+        }
+
+        @Override
+        public String getNode(String entity) {
+            return entity;
+        }
+
+        @Override
+        public LockstepWalker.Adjacency<String> getAdjacency(String node, boolean isOutgoing) {
+            List<Triple> triples = isOutgoing ? data.getObjectTriplesInvolvingSubject(node) :
+                    data.getObjectTriplesInvolvingObject(node);
+            if (triples == null || triples.isEmpty()) return null;
+            return new LockstepWalker.Adjacency<String>() {
+                @Override
+                public int size() {
+                    return triples.size();
+                }
+
+                @Override
+                public String getNeighbour(int index) {
+                    return isOutgoing ? triples.get(index).object : triples.get(index).subject;
+                }
+
+                @Override
+                public String getPredicate(int index) {
+                    return componentFunction.apply(triples.get(index).predicate);
+                }
+
+                @Override
+                public String getNeighbourComponent(int index) {
+                    return componentFunction.apply(getNeighbour(index));
+                }
+            };
+        }
+    }
+
     /**
      * Faster version of {@link NtMemoryWalkGenerator#getRandomTripleForSubject(String)}.
      * Note that there cannot be any leading less-than or trailing greater-than signs around the subject.
@@ -625,14 +746,7 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
      */
     public Triple getRandomTripleForSubjectWithoutTags(String subject) {
         if (subject == null) return null;
-        List<Triple> queryResult = data.getObjectTriplesInvolvingSubject(subject);
-        if (queryResult == null) {
-            // no triple found
-            return null;
-        }
-        int randomNumber = ThreadLocalRandom.current().nextInt(queryResult.size());
-        //System.out.println("(" + Thread.currentThread().getName() + ") " + randomNumber + "[" + queryResult.size() + "]");
-        return queryResult.get(randomNumber);
+        return data.getRandomObjectTripleInvolvingSubject(subject);
     }
 
     /**
@@ -676,6 +790,38 @@ public abstract class MemoryWalkGenerator implements IWalkGenerator,
         } else return data.getObjectTripleSize();
     }
 
+    @Override
+    public void setMaxDegree(int maxDegree) {
+        if (data == null) {
+            LOGGER.error("The data structure is not initialized. The degree cannot be capped.");
+            return;
+        }
+        data.setMaxDegree(maxDegree);
+    }
+
+    @Override
+    public int getMaxDegree() {
+        if (data == null) return NO_DEGREE_LIMIT;
+        return data.getMaxDegree();
+    }
+
+    /**
+     * Filter the triples that are parsed from now on (see {@link TripleDataSetMemory#setWalkFilter(WalkFilter)}).
+     *
+     * @param walkFilter The filter; null to keep all triples.
+     */
+    @Override
+    public void setWalkFilter(WalkFilter walkFilter) {
+        if (data == null) data = new TripleDataSetMemory();
+        data.setWalkFilter(walkFilter);
+    }
+
+    @Override
+    public WalkFilter getWalkFilter() {
+        if (data == null) return null;
+        return data.getWalkFilter();
+    }
+
     public UnaryOperator<String> getTextProcessingFunction() {
         return textProcessingFunction;
     }
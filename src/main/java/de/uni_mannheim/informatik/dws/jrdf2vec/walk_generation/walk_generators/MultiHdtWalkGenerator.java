@@ -0,0 +1,676 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtGlobalIdMapping;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.HdtSession;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetrics;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.ResultEstimationType;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * A walk generator that works on multiple HDT files at once, i.e., on the union of their triples, without merging
+ * the files. Every file is memory-mapped ({@link HdtSession}); a term is resolved across the dictionaries through a
+ * {@link HdtGlobalIdMapping} that is built once and cached next to the files.
+ * <p>
+ * The walk state is a global ID. The adjacency of a node is the union of its adjacency lists in all files; it is
+ * computed lazily per hop. Triples that occur in multiple files are contained multiple times in the union.
+ * <p>
+ * A {@link WalkFilter} is compiled per file into the accepted local predicate IDs (see
+ * {@link HdtWalkGenerator#compilePredicateFilter(Dictionary, WalkFilter)}); filtered edges are skipped while the
+ * adjacency lists are iterated.
+ */
+public class MultiHdtWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMidWalkDuplicateFreeCapability,
+        IRandomWalkCapability, IRandomWalkDuplicateFreeCapability, IMidWalkWeightedCapability,
+        IDegreeCappingWalkGenerator, ITextWalkCapability, ICloseableWalkGenerator, IFilteringWalkGenerator {
+
+
+    /**
+     * Default logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiHdtWalkGenerator.class);
+
+    /**
+     * Name of this generator in the {@link WalkMetrics}.
+     */
+    private static final String METRICS_NAME = "multi_hdt";
+
+    /**
+     * Name of the global ID mapping file that is written into the directory of the HDT files.
+     */
+    public static final String MAPPING_FILE_NAME = "hdt_global_ids.map";
+
+    /**
+     * The sessions of the HDT files (the index is the file index of the mapping).
+     */
+    private final List<HdtSession> sessions = new ArrayList<>();
+
+    /**
+     * The HDT files (same order as {@link MultiHdtWalkGenerator#sessions}).
+     */
+    private final HDT[] hdts;
+
+    /**
+     * Per file: last shared ID.
+     */
+    private final long[] nShared;
+
+    /**
+     * Per file: last object ID that is a literal.
+     */
+    private final long[] lastLiteralIds;
+
+    private final HdtGlobalIdMapping mapping;
+
+    /**
+     * Maximal number of candidate triples per hop (see {@link MultiHdtWalkGenerator#setMaxDegree(int)}).
+     */
+    private int maxDegree = NO_DEGREE_LIMIT;
+
+    /**
+     * Function applied to the lexical form of literals in text walks.
+     */
+    private UnaryOperator<String> textProcessingFunction = new TextProcessor();
+
+    private WalkFilter walkFilter;
+
+    /**
+     * The compiled {@link MultiHdtWalkGenerator#walkFilter}: per file, the accepted local predicate IDs. Null if all
+     * predicates are accepted.
+     */
+    private volatile BitSet[] acceptedPredicates;
+
+    /**
+     * Constructor
+     *
+     * @param directory Directory containing the HDT files. The global ID mapping is cached in this directory.
+     * @throws IOException If a file cannot be mapped or the global ID mapping cannot be built.
+     */
+    public MultiHdtWalkGenerator(File directory) throws IOException {
+        this(getHdtFiles(directory), new File(directory, MAPPING_FILE_NAME));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param hdtFiles    The HDT files.
+     * @param mappingFile The file in which the global ID mapping is cached.
+     * @throws IOException If a file cannot be mapped or the global ID mapping cannot be built.
+     */
+    public MultiHdtWalkGenerator(List<File> hdtFiles, File mappingFile) throws IOException {
+        if (hdtFiles.isEmpty()) {
+            throw new IOException("No HDT files given.");
+        }
+        hdts = new HDT[hdtFiles.size()];
+        nShared = new long[hdtFiles.size()];
+        lastLiteralIds = new long[hdtFiles.size()];
+        try {
+            for (int file = 0; file < hdtFiles.size(); file++) {
+                HdtSession session = HdtSession.acquire(hdtFiles.get(file));
+                sessions.add(session);
+                hdts[file] = session.getHdt();
+                nShared[file] = hdts[file].getDictionary().getNshared();
+                lastLiteralIds[file] = HdtWalkGenerator.findLastLiteralId(hdts[file].getDictionary());
+            }
+            mapping = HdtGlobalIdMapping.open(hdtFiles, Arrays.asList(hdts), mappingFile);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to load the HDT files " + hdtFiles + "\nProgram will fail.", e);
+            close();
+            throw e;
+        }
+        LOGGER.info("Walking over " + hdtFiles.size() + " HDT files with " + mapping.getNumberOfGlobalIds() +
+                " distinct terms.");
+    }
+
+    /**
+     * @param directory The directory.
+     * @return The HDT files of the given directory in a stable order (empty if there are none).
+     */
+    public static List<File> getHdtFiles(File directory) {
+        List<File> result = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files == null) return result;
+        for (File file : files) {
+            if (file.isFile() && file.getName().toLowerCase().endsWith(".hdt")) result.add(file);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    public HdtGlobalIdMapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Releases the global ID mapping and the HDT sessions.
+     */
+    @Override
+    public void close() {
+        if (mapping != null) {
+            try {
+                mapping.close();
+            } catch (IOException ioe) {
+                LOGGER.error("Could not close the global ID mapping.", ioe);
+            }
+        }
+        for (HdtSession session : sessions) session.close();
+        sessions.clear();
+    }
+
+    /**
+     * Obtain all terms (subjects and objects) of all files in the order of their global IDs, i.e., in dictionary
+     * order (see {@link de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntityOrdering}).
+     *
+     * @return The entities.
+     */
+    public Set<String> getEntities() {
+        Set<String> result = new LinkedHashSet<>();
+        for (long globalId = 1; globalId <= mapping.getNumberOfGlobalIds(); globalId++) {
+            result.add(decode(globalId));
+        }
+        return result;
+    }
+
+    /**
+     * Resolve a term to its global ID.
+     *
+     * @param entity The term.
+     * @return The global ID or 0 if the term is neither a subject nor an object in any of the files.
+     */
+    public long getGlobalId(String entity) {
+        for (int file = 0; file < hdts.length; file++) {
+            Dictionary dictionary = hdts[file].getDictionary();
+            long id = dictionary.stringToId(entity, TripleComponentRole.SUBJECT);
+            if (id > 0) return mapping.toGlobal(file, id, TripleComponentRole.SUBJECT);
+            id = dictionary.stringToId(entity, TripleComponentRole.OBJECT);
+            if (id > 0) return mapping.toGlobal(file, id, TripleComponentRole.OBJECT);
+        }
+        return 0;
+    }
+
+    /**
+     * One triple of the union adjacency. The predicate and the neighbour are local IDs of the file.
+     */
+    private class Edge {
+
+
+        final int file;
+
+        final long predicate;
+
+        final long neighbour;
+
+        final TripleComponentRole neighbourRole;
+
+        Edge(int file, TripleID triple, boolean isOutgoing) {
+            this.file = file;
+            this.predicate = triple.getPredicate();
+            this.neighbour = isOutgoing ? triple.getObject() : triple.getSubject();
+            this.neighbourRole = isOutgoing ? TripleComponentRole.OBJECT : TripleComponentRole.SUBJECT;
+        }
+
+        long getNeighbourGlobalId() {
+            return mapping.toGlobal(file, neighbour, neighbourRole);
+        }
+
+        String getPredicateString() {
+            return decode(file, predicate, TripleComponentRole.PREDICATE);
+        }
+
+        String getNeighbourString() {
+            return decode(file, neighbour, neighbourRole);
+        }
+    }
+
+    /**
+     * The adjacency iterators of one node in all files in which the node occurs in the required role.
+     */
+    private class Adjacency {
+
+
+        final List<Integer> files = new ArrayList<>();
+
+        final List<IteratorTripleID> iterators = new ArrayList<>();
+
+        final boolean isOutgoing;
+
+        /**
+         * The accepted predicate IDs per file; null if all predicates are accepted.
+         */
+        final BitSet[] accepted = acceptedPredicates;
+
+        Adjacency(long globalId, boolean isOutgoing) {
+            this.isOutgoing = isOutgoing;
+            if (globalId <= 0) return;
+            TripleComponentRole role = isOutgoing ? TripleComponentRole.SUBJECT : TripleComponentRole.OBJECT;
+            for (int file = 0; file < hdts.length; file++) {
+                long localId = mapping.toLocal(file, globalId, role);
+                if (localId == 0) continue;
+                TripleID pattern = isOutgoing ? new TripleID(localId, 0, 0) : new TripleID(0, 0, localId);
+                files.add(file);
+                iterators.add(hdts[file].getTriples().search(pattern));
+            }
+        }
+
+        /**
+         * @param i The index of an iterator.
+         * @param triple A triple of the iterator.
+         * @return True if the predicate of the triple is accepted by the walk filter.
+         */
+        boolean isAccepted(int i, TripleID triple) {
+            return accepted == null || accepted[files.get(i)].get((int) triple.getPredicate());
+        }
+
+        /**
+         * @return True if the exact size of every adjacency list is known and positions can be accessed directly.
+         * This is never the case if predicates are filtered.
+         */
+        boolean isRandomAccess() {
+            if (accepted != null) return false;
+            for (IteratorTripleID iterator : iterators) {
+                if (!iterator.canGoTo() || iterator.numResultEstimation() != ResultEstimationType.EXACT) return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return The number of triples in the union.
+         */
+        long size() {
+            long result = 0;
+            for (int i = 0; i < iterators.size(); i++) {
+                IteratorTripleID iterator = iterators.get(i);
+                if (accepted == null && iterator.numResultEstimation() == ResultEstimationType.EXACT) {
+                    result += iterator.estimatedNumResults();
+                } else {
+                    while (iterator.hasNext()) {
+                        if (isAccepted(i, iterator.next())) result++;
+                    }
+                    iterator.goToStart();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Read the triple at the given position of the union. Requires {@link Adjacency#isRandomAccess()}.
+         */
+        Edge get(long position) {
+            for (int i = 0; i < iterators.size(); i++) {
+                IteratorTripleID iterator = iterators.get(i);
+                long size = iterator.estimatedNumResults();
+                if (position < size) {
+                    iterator.goTo(position);
+                    if (!iterator.hasNext()) return null;
+                    return new Edge(files.get(i), iterator.next(), isOutgoing);
+                }
+                position -= size;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Obtain the (union) adjacency of a node. If a maximal degree is set and exceeded, a uniform sample of the union
+     * is returned.
+     *
+     * @param globalId   The global ID of the node.
+     * @param isOutgoing True for triples with the node as subject, false for triples with the node as object.
+     * @return The edges (never null).
+     */
+    private List<Edge> getEdges(long globalId, boolean isOutgoing) {
+        long start = WalkMetrics.startTimer();
+        Adjacency adjacency = new Adjacency(globalId, isOutgoing);
+        List<Edge> result = new ArrayList<>();
+        int limit = maxDegree;
+        if (limit != NO_DEGREE_LIMIT && adjacency.isRandomAccess()) {
+            for (long position : Util.randomSampleIndices(adjacency.size(), limit)) {
+                Edge edge = adjacency.get(position);
+                if (edge != null) result.add(edge);
+            }
+        } else {
+            // reservoir sampling over the union; without a limit, all edges are collected
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long seen = 0;
+            for (int i = 0; i < adjacency.iterators.size(); i++) {
+                IteratorTripleID iterator = adjacency.iterators.get(i);
+                int file = adjacency.files.get(i);
+                while (iterator.hasNext()) {
+                    TripleID triple = iterator.next();
+                    if (!adjacency.isAccepted(i, triple)) continue;
+                    seen++;
+                    if (limit == NO_DEGREE_LIMIT || result.size() < limit) {
+                        result.add(new Edge(file, triple, isOutgoing));
+                    } else {
+                        long index = random.nextLong(seen);
+                        if (index < limit) result.set((int) index, new Edge(file, triple, isOutgoing));
+                    }
+                }
+            }
+        }
+        WalkMetrics.recordHop(METRICS_NAME, start, result.size());
+        return result;
+    }
+
+    /**
+     * Draw one edge of the (union) adjacency of a node uniformly at random. Only the drawn triple is read if the
+     * adjacency lists support random access.
+     *
+     * @param globalId   The global ID of the node.
+     * @param isOutgoing True for triples with the node as subject, false for triples with the node as object.
+     * @return The edge or null if the node has no such edges.
+     */
+    private Edge drawRandomEdge(long globalId, boolean isOutgoing) {
+        long start = WalkMetrics.startTimer();
+        Adjacency adjacency = new Adjacency(globalId, isOutgoing);
+        if (adjacency.isRandomAccess()) {
+            long size = adjacency.size();
+            Edge result = size == 0 ? null : adjacency.get(ThreadLocalRandom.current().nextLong(size));
+            WalkMetrics.recordHop(METRICS_NAME, start, (int) Math.min(size, Integer.MAX_VALUE));
+            return result;
+        }
+        List<Edge> edges = getEdges(globalId, isOutgoing);
+        return edges.isEmpty() ? null : HdtWalkGenerator.randomDrawFromList(edges);
+    }
+
+    /**
+     * Generates walks that are ready to be processed further (already concatenated, space-separated).
+     *
+     * @param entity        The entity for which a walk shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The depth of each walk.
+     * @return List where every item is a walk separated by spaces.
+     */
+    @Override
+    public List<String> generateMidWalksForEntity(String entity, int numberOfWalks, int depth) {
+        return Util.convertToStringWalks(generateMidWalkForEntityAsArray(entity, depth, numberOfWalks));
+    }
+
+    /**
+     * Generates walks that are ready to be processed further (already concatenated, space-separated).
+     *
+     * @param entity        The entity for which a walk shall be generated.
+     * @param numberOfWalks The number of walks to be generated.
+     * @param depth         The depth of each walk.
+     * @return List where every item is a walk separated by spaces.
+     */
+    @Override
+    public List<String> generateMidWalksForEntityDuplicateFree(String entity, int numberOfWalks, int depth) {
+        return Util.convertToStringWalksDuplicateFree(generateMidWalkForEntityAsArray(entity, depth, numberOfWalks));
+    }
+
+    /**
+     * Walks of length 1, i.e., walks that contain only one node, are ignored.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param depth         The depth of each walk (where the depth is the number of hops).
+     * @param numberOfWalks The number of walks to be performed.
+     * @return A data structure describing the walks.
+     */
+    public List<List<String>> generateMidWalkForEntityAsArray(String entity, int depth, int numberOfWalks) {
+        List<List<String>> result = new ArrayList<>();
+        long globalId = getGlobalId(entity);
+        if (globalId == 0) return result;
+        for (int i = 0; i < numberOfWalks; i++) {
+            List<String> walk = generateMidWalkForEntity(entity, globalId, depth, false);
+            if (walk.size() > 1) {
+                result.add(walk);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Weighted mid walk: If there are more options to go forward, it is more likely to go forward.
+     * The walks are duplicate free.
+     *
+     * @param entity        The entity for which walks shall be generated.
+     * @param numberOfWalks Number of walks to be performed per entity.
+     * @param depth         The depth of the walk. Depth is defined as hop to the next node. A walk of depth 1 will
+     *                      have three walk components.
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateWeightedMidWalksForEntity(String entity, int numberOfWalks, int depth) {
+        List<List<String>> result = new ArrayList<>();
+        long globalId = getGlobalId(entity);
+        if (globalId == 0) return new ArrayList<>();
+        for (int i = 0; i < numberOfWalks; i++) {
+            List<String> walk = generateMidWalkForEntity(entity, globalId, depth, true);
+            if (walk.size() > 1) {
+                result.add(walk);
+            }
+        }
+        return Util.convertToStringWalksDuplicateFree(result);
+    }
+
+    /**
+     * Generates a single mid walk. The degrees used for weighting are the actual degrees in the union (they are not
+     * affected by {@link MultiHdtWalkGenerator#setMaxDegree(int)}).
+     *
+     * @param entity     The entity for which a walk shall be generated.
+     * @param globalId   The global ID of the entity.
+     * @param depth      The depth of the walk.
+     * @param isWeighted True if the direction is chosen proportionally to the number of predecessors and successors,
+     *                   false if it is chosen uniformly.
+     * @return One walk as list where each element is a walk component.
+     */
+    private List<String> generateMidWalkForEntity(String entity, long globalId, int depth, boolean isWeighted) {
+        LinkedList<String> result = new LinkedList<>();
+        result.add(entity);
+        long predecessor = globalId;
+        long successor = globalId;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            boolean isPredecessor;
+            if (isWeighted) {
+                long numberOfPredecessors = new Adjacency(predecessor, false).size();
+                long numberOfSuccessors = new Adjacency(successor, true).size();
+                if (numberOfPredecessors == 0 && numberOfSuccessors == 0) return result;
+                isPredecessor = random.nextLong(numberOfPredecessors + numberOfSuccessors) < numberOfPredecessors;
+            } else {
+                isPredecessor = random.nextInt(2) == 0;
+            }
+            Edge edge = drawRandomEdge(isPredecessor ? predecessor : successor, !isPredecessor);
+            if (edge == null) continue;
+            if (isPredecessor) {
+                // add walks from the front (walk started before entity)
+                result.addFirst(edge.getPredicateString());
+                result.addFirst(edge.getNeighbourString());
+                predecessor = edge.getNeighbourGlobalId();
+            } else {
+                result.addLast(edge.getPredicateString());
+                result.addLast(edge.getNeighbourString());
+                successor = edge.getNeighbourGlobalId();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> generateRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        List<String> result = new ArrayList<>();
+        long globalId = getGlobalId(entity);
+        if (globalId == 0) return result;
+        for (int i = 0; i < numberOfWalks; i++) {
+            StringBuilder walk = new StringBuilder(entity);
+            long current = globalId;
+            int currentDepth = 0;
+            while (currentDepth < depth) {
+                Edge edge = drawRandomEdge(current, true);
+                if (edge == null) break;
+                walk.append(' ').append(edge.getPredicateString()).append(' ').append(edge.getNeighbourString());
+                current = edge.getNeighbourGlobalId();
+                currentDepth++;
+            }
+            // walks that could not leave the entity are skipped
+            if (currentDepth > 0) result.add(walk.toString());
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> generateDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
+        List<List<Edge>> walks = new ArrayList<>();
+        long globalId = getGlobalId(entity);
+        if (globalId == 0) return new ArrayList<>();
+        for (int currentDepth = 0; currentDepth < depth; currentDepth++) {
+            if (currentDepth == 0) {
+                for (Edge neighbour : getEdges(globalId, true)) {
+                    List<Edge> individualWalk = new ArrayList<>();
+                    individualWalk.add(neighbour);
+                    walks.add(individualWalk);
+                }
+                if (walks.isEmpty()) return new ArrayList<>();
+            } else {
+                List<List<Edge>> walksTmp = new ArrayList<>(walks);
+                for (List<Edge> walk : walksTmp) {
+                    Edge lastEdge = walk.get(walk.size() - 1);
+                    List<Edge> nextIteration = getEdges(lastEdge.getNeighbourGlobalId(), true);
+                    if (!nextIteration.isEmpty()) {
+                        walks.remove(walk);
+                        for (Edge nextStep : nextIteration) {
+                            List<Edge> newWalk = new ArrayList<>(walk);
+                            newWalk.add(nextStep);
+                            walks.add(newWalk);
+                        }
+                    }
+                }
+            }
+
+            // reduce the number of walks to the desired number
+            while (walks.size() > numberOfWalks) {
+                walks.remove(ThreadLocalRandom.current().nextInt(walks.size()));
+            }
+        }
+
+        List<String> result = new ArrayList<>();
+        for (List<Edge> walk : walks) {
+            StringBuilder sb = new StringBuilder(entity);
+            for (Edge edge : walk) {
+                sb.append(' ').append(edge.getPredicateString()).append(' ').append(edge.getNeighbourString());
+            }
+            result.add(sb.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Generate text walks from the literals of the given entity in all files.
+     *
+     * @param entity The entity for which walks shall be generated.
+     * @param depth  The maximal number of walk components. Must be &gt; 2.
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateTextWalksForEntity(String entity, int depth) {
+        List<String> result = new ArrayList<>();
+        if (walkFilter != null && walkFilter.isExcludeLiterals()) return result;
+        BitSet[] accepted = acceptedPredicates;
+        for (int file = 0; file < hdts.length; file++) {
+            long subject = hdts[file].getDictionary().stringToId(entity, TripleComponentRole.SUBJECT);
+            if (subject <= 0) continue;
+            IteratorTripleID iterator = hdts[file].getTriples().search(new TripleID(subject, 0, 0));
+            long predicateId = 0;
+            String predicate = null;
+            while (iterator.hasNext()) {
+                TripleID triple = iterator.next();
+                long object = triple.getObject();
+                // literals are never subjects, i.e., they are never in the shared section
+                if (object <= nShared[file] || object > lastLiteralIds[file]) continue;
+                if (accepted != null && !accepted[file].get((int) triple.getPredicate())) continue;
+                String literal = decode(file, object, TripleComponentRole.OBJECT);
+                if (!literal.startsWith("\"")) continue;
+                // the triples of a subject are sorted by predicate
+                if (triple.getPredicate() != predicateId) {
+                    predicateId = triple.getPredicate();
+                    predicate = decode(file, predicateId, TripleComponentRole.PREDICATE);
+                }
+                Util.addTextWalks(result, entity, predicate,
+                        TextNormalizer.tokenize(textProcessingFunction, HdtWalkGenerator.getLexicalForm(literal)),
+                        depth);
+            }
+        }
+        return result;
+    }
+
+    public UnaryOperator<String> getTextProcessingFunction() {
+        return textProcessingFunction;
+    }
+
+    public void setTextProcessingFunction(UnaryOperator<String> textProcessingFunction) {
+        this.textProcessingFunction = textProcessingFunction;
+    }
+
+    @Override
+    public void setMaxDegree(int maxDegree) {
+        this.maxDegree = maxDegree < 1 ? NO_DEGREE_LIMIT : maxDegree;
+    }
+
+    @Override
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Skip the edges whose predicate is not accepted by the given filter. The filter is compiled once per file into
+     * the set of accepted local predicate IDs, so that a filtered edge costs a bit lookup while the adjacency lists
+     * are iterated. Drawing an edge then requires a scan over the adjacency lists of the node.
+     *
+     * @param walkFilter The filter; null to walk all edges.
+     */
+    @Override
+    public void setWalkFilter(WalkFilter walkFilter) {
+        this.walkFilter = walkFilter;
+        if (walkFilter == null || walkFilter.isAcceptingAllPredicates()) {
+            acceptedPredicates = null;
+        } else {
+            BitSet[] accepted = new BitSet[hdts.length];
+            for (int file = 0; file < hdts.length; file++) {
+                accepted[file] = HdtWalkGenerator.compilePredicateFilter(hdts[file].getDictionary(), walkFilter);
+            }
+            acceptedPredicates = accepted;
+        }
+    }
+
+    @Override
+    public WalkFilter getWalkFilter() {
+        return walkFilter;
+    }
+
+    /**
+     * Decodes a global ID.
+     *
+     * @param globalId The global ID.
+     * @return String representation.
+     */
+    private String decode(long globalId) {
+        return decode(mapping.getOccurrenceFile(globalId), mapping.getOccurrenceLocalId(globalId),
+                mapping.getOccurrenceRole(globalId));
+    }
+
+    /**
+     * Decodes a local dictionary ID.
+     *
+     * @param file The file index.
+     * @param id   The local ID.
+     * @param role The role of the ID.
+     * @return String representation.
+     */
+    private String decode(int file, long id, TripleComponentRole role) {
+        WalkMetrics.recordDecode();
+        return hdts[file].getDictionary().idToString(id, role).toString();
+    }
+}
@@ -1,5 +1,7 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.CompressedInput;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TermPool;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.ISearchCondition;
 import org.apache.jena.ontology.OntModel;
@@ -64,7 +66,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     /**
      * Constructor
      *
-     * @param pathToTripleFile The nt file to be read (not zipped).
+     * @param pathToTripleFile The nt file to be read (may be compressed with gzip, bzip2 or zstd).
      * @param uriShortenerFunction The URI shortener function.
      */
     public NtMemoryWalkGenerator(String pathToTripleFile, UnaryOperator<String> uriShortenerFunction) {
@@ -76,7 +78,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     /**
      * Constructor
      *
-     * @param pathToTripleFile The nt file to be read (not zipped).
+     * @param pathToTripleFile The nt file to be read (may be compressed with gzip, bzip2 or zstd).
      */
     public NtMemoryWalkGenerator(String pathToTripleFile) {
         this(pathToTripleFile, false);
@@ -85,7 +87,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     /**
      * Constructor
      *
-     * @param pathToTripleFile The nt file to be read (not zipped).
+     * @param pathToTripleFile The nt file to be read (may be compressed with gzip, bzip2 or zstd).
      * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
      */
     public NtMemoryWalkGenerator(String pathToTripleFile, boolean isParseDatatypeTriples) {
@@ -96,7 +98,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     /**
      * Constructor
      *
-     * @param tripleFile The nt file to be read (not zipped).
+     * @param tripleFile The nt file to be read (may be compressed with gzip, bzip2 or zstd).
      * @param uriShortenerFunction The URI shortener function which maps from String to String.
      */
     public NtMemoryWalkGenerator(File tripleFile, UnaryOperator<String> uriShortenerFunction) {
@@ -112,7 +114,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     /**
      * Constructor
      *
-     * @param tripleFile The nt file to be read (not zipped).
+     * @param tripleFile The nt file to be read (may be compressed with gzip, bzip2 or zstd).
      * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
      */
     public NtMemoryWalkGenerator(File tripleFile, boolean isParseDatatypeTriples) {
@@ -158,7 +160,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
     }
 
     /**
-     * Will load all .nt and .gz files from the given directory.
+     * Will load all .nt and .ttl files as well as all compressed files (gzip, bzip2, zstd) from the given directory.
      *
      * @param pathToDirectory The directory where the n-triple files reside.
      */
@@ -170,7 +172,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
         }
         for (File file : directoryOfDataSets.listFiles()) {
             LOGGER.info("Processing file " + file.getName());
-            if (file.getName().endsWith(".gz")) {
+            if (isCompressedFile(file)) {
                 readNTriples(file, true);
             } else if (file.getName().endsWith(".nt") || file.getName().endsWith(".ttl")) {
                 readNTriples(file, false);
@@ -223,7 +225,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
                 FileReaderThread zThread = new FileReaderThread(this, optimizedFiles.get(fileOriginal.getName()), true, true);
                 zThread.start();
                 allThreads.add(zThread);
-            } else if (fileOriginal.getName().endsWith(".gz")) {
+            } else if (isCompressedFile(fileOriginal)) {
                 FileReaderThread zThread = new FileReaderThread(this, fileOriginal, true, false);
                 zThread.start();
                 allThreads.add(zThread);
@@ -247,6 +249,14 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
         LOGGER.info("Data read.");
     }
 
+    /**
+     * @param file The file.
+     * @return True if the file name has the extension of a compressed file.
+     */
+    private static boolean isCompressedFile(File file) {
+        return !CompressedInput.getUncompressedName(file.getName()).equals(file.getName());
+    }
+
     /**
      * Thread that allows concurrent file parsing (used for data sets that consist of multiple, potentially zipped
      * files).
@@ -303,6 +313,7 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
         try {
             GZIPInputStream gzip = new GZIPInputStream(new FileInputStream(fileToReadFrom));
             BufferedReader reader = new BufferedReader(new InputStreamReader(gzip, StandardCharsets.UTF_8));
+            TermPool termPool = data.getTermPool();
 
             String readLine;
             //int lineNumber = 0;
@@ -312,9 +323,9 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
                 if (parsed.length != 3) {
                     LOGGER.error("Problem with line: \n" + readLine);
                 } else {
-                    String subject = parsed[0];
-                    String predicate = parsed[1];
-                    String object = parsed[2];
+                    String subject = termPool.canonicalize(parsed[0]);
+                    String predicate = termPool.canonicalize(parsed[1]);
+                    String object = termPool.canonicalize(parsed[2]);
                     data.addObjectTriple(subject, predicate, object);
                 }
             }
@@ -327,7 +338,8 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
      * Read the given nt file into memory. This method will add the data in the file to the existing {@link NtMemoryWalkGenerator#data} store.
      *
      * @param fileToReadFrom the file.
-     * @param isGzippedFile  Indicator whether the given file is gzipped.
+     * @param isGzippedFile  Indicator whether the given file is gzipped. Not required anymore: the compression (gzip,
+     *                       bzip2, zstd) is detected by the magic bytes of the file, see {@link CompressedInput}.
      */
     public void readNTriples(File fileToReadFrom, boolean isGzippedFile) {
         if (!fileToReadFrom.exists()) {
@@ -350,13 +362,8 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
         }
 
         try {
-            BufferedReader reader;
-            if (isGzippedFile) {
-                GZIPInputStream gzip = new GZIPInputStream(new FileInputStream(fileToReadFrom));
-                reader = new BufferedReader(new InputStreamReader(gzip, StandardCharsets.UTF_8));
-            } else {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileToReadFrom), StandardCharsets.UTF_8));
-            }
+            BufferedReader reader = CompressedInput.openReader(fileToReadFrom);
+            TermPool termPool = data.getTermPool();
             String readLine;
             long lineNumber = 0;
             Matcher datatypeMatcher; // only required if datatype properties shall be included
@@ -385,8 +392,8 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
 
                     String[] spo = readLine.split(" ");
                     if (isParseDatatypeProperties && spo[2].startsWith("\"")) {
-                        String subject = uriShortenerFunction.apply(removeTags(spo[0])).intern();
-                        String predicate = uriShortenerFunction.apply(removeTags(spo[1]).intern());
+                        String subject = termPool.canonicalize(uriShortenerFunction.apply(removeTags(spo[0])));
+                        String predicate = termPool.canonicalize(uriShortenerFunction.apply(removeTags(spo[1])));
                         String[]  objectTokens = Arrays.copyOfRange(spo, 2, spo.length);
                         String object = textProcessingFunction.apply(String.join(" ", objectTokens));
                         if (isWriteOptimizedFile) {
@@ -404,9 +411,9 @@ public class NtMemoryWalkGenerator extends MemoryWalkGenerator {
                             LOGGER.error("Line is ignored. Parsing continues.");
                             continue nextLine;
                         }
-                        String subject = uriShortenerFunction.apply(removeTags(spo[0])).intern();
-                        String predicate = uriShortenerFunction.apply(removeTags(spo[1]).intern());
-                        String object = uriShortenerFunction.apply(removeTags(spo[2])).intern();
+                        String subject = termPool.canonicalize(uriShortenerFunction.apply(removeTags(spo[0])));
+                        String predicate = termPool.canonicalize(uriShortenerFunction.apply(removeTags(spo[1])));
+                        String object = termPool.canonicalize(uriShortenerFunction.apply(removeTags(spo[2])));
                         data.addObjectTriple(subject, predicate, object);
                         if (isWriteOptimizedFile) {
                             writer.write(subject + " " + predicate + " " + object + "\n");
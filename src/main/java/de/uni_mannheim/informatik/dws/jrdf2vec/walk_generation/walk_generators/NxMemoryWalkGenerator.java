@@ -1,7 +1,9 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import com.google.common.collect.Iterators;
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.CompressedInput;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TermPool;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.LineIterator;
 import org.semanticweb.yars.nx.Node;
 import org.semanticweb.yars.nx.parser.NxParser;
@@ -9,7 +11,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.UnaryOperator;
@@ -116,7 +117,8 @@ public class NxMemoryWalkGenerator extends MemoryWalkGenerator {
     }
 
     /**
-     * Read n-triples from the given file.
+     * Read n-triples from the given file. The file may be compressed (gzip, bzip2 or zstd; see
+     * {@link CompressedInput}).
      *
      * @param fileToReadFrom File from which will be read.
      */
@@ -125,34 +127,42 @@ public class NxMemoryWalkGenerator extends MemoryWalkGenerator {
             LOGGER.error("File does not exist. Cannot parse.");
             return;
         }
-        if (!sanityCheck(fileToReadFrom)) {
-            LOGGER.error("File cannot be parsed by NxParser.");
-            return;
-        }
-        if (fileToReadFrom.getName().endsWith(".nt") || fileToReadFrom.getName().endsWith(".ttl") || fileToReadFrom.getName().endsWith(".nq")) {
-            NxParser parser = new NxParser();
-            try {
-                parser.parse(new InputStreamReader(new FileInputStream(fileToReadFrom), StandardCharsets.UTF_8));
+        String fileName = CompressedInput.getUncompressedName(fileToReadFrom.getName());
+        try (BufferedReader reader = CompressedInput.openReader(fileToReadFrom)) {
+            // the first lines are checked and then parsed together with the rest (the file is opened only once)
+            LineIterator lineIterator = new LineIterator(reader);
+            List<String> firstLines = new ArrayList<>();
+            while (firstLines.size() < this.linesToCheck && lineIterator.hasNext()) {
+                firstLines.add(lineIterator.nextLine());
+            }
+            if (!sanityCheck(firstLines)) {
+                LOGGER.error("File cannot be parsed by NxParser.");
+                return;
+            }
+            if (fileName.endsWith(".nt") || fileName.endsWith(".ttl") || fileName.endsWith(".nq")) {
+                NxParser parser = new NxParser();
+                parser.parse(Iterators.concat(firstLines.iterator(), lineIterator));
+                TermPool termPool = data.getTermPool();
                 String subject, predicate, object;
                 for (Node[] nx : parser) {
 
                     if(isParseDatatypeProperties && nx[2].toString().startsWith("\"")){
                         // the current triple is a datatype triple
-                        subject = uriShortenerFunction.apply(removeTags(nx[0].toString()));
-                        predicate = uriShortenerFunction.apply(removeTags(nx[1].toString()));
+                        subject = termPool.canonicalize(uriShortenerFunction.apply(removeTags(nx[0].toString())));
+                        predicate = termPool.canonicalize(uriShortenerFunction.apply(removeTags(nx[1].toString())));
                         object = getTextProcessingFunction().apply(nx[2].toString());
                         data.addDatatypeTriple(subject, predicate, object);
                         continue;
                     } else if (nx[2].toString().startsWith("\"")) continue;
 
-                    subject = uriShortenerFunction.apply(removeTags(nx[0].toString()));
-                    predicate = uriShortenerFunction.apply(removeTags(nx[1].toString()));
-                    object = uriShortenerFunction.apply(removeTags(nx[2].toString()));
+                    subject = termPool.canonicalize(uriShortenerFunction.apply(removeTags(nx[0].toString())));
+                    predicate = termPool.canonicalize(uriShortenerFunction.apply(removeTags(nx[1].toString())));
+                    object = termPool.canonicalize(uriShortenerFunction.apply(removeTags(nx[2].toString())));
                     data.addObjectTriple(subject, predicate, object);
                 }
-            } catch (FileNotFoundException fnfe) {
-                LOGGER.error("Could not find file " + fileToReadFrom.getAbsolutePath(), fnfe);
             }
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read file " + fileToReadFrom.getAbsolutePath(), ioe);
         }
     }
 
@@ -160,23 +170,12 @@ public class NxMemoryWalkGenerator extends MemoryWalkGenerator {
      * Check if the file can be parsed by only parsing the first few lines.
      * If this fails, the method will return false.
      *
-     * @param fileToCheck The file that shall be checked.
+     * @param firstLines The first lines of the file that shall be checked.
      * @return False if file is not ok for this parser else true.
      */
-    private boolean sanityCheck(File fileToCheck) {
-        List<String> lines = new ArrayList<>();
-        try {
-            LineIterator lineIterator = FileUtils.lineIterator(fileToCheck, "UTF-8");
-            int i = 0;
-            while (i < this.linesToCheck && lineIterator.hasNext()) {
-                lines.add(lineIterator.nextLine());
-                i++;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private boolean sanityCheck(List<String> firstLines) {
         NxParser parser = new NxParser();
-        parser.parse(lines);
+        parser.parse(firstLines);
         int size = 0;
         for (Node[] nx : parser) {
             size++;
@@ -0,0 +1,225 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.CompressedInput;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Memory based walk generator for any RDF syntax that Jena RIOT can read (e.g. Turtle and RDF/XML). The triples are
+ * streamed from the parser into the {@link TripleDataSetMemory} (see {@link TripleDataSetStreamRDF}); no Jena model
+ * is built and no intermediate file is written.
+ */
+public class RiotMemoryWalkGenerator extends MemoryWalkGenerator {
+
+
+    /**
+     * Default logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RiotMemoryWalkGenerator.class);
+
+    /**
+     * Number of triples that are handed from the parser to the inserting thread at once.
+     */
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * Number of batches that may wait for the inserting thread.
+     */
+    private static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * Constructor
+     */
+    public RiotMemoryWalkGenerator() {
+        data = new TripleDataSetMemory();
+        uriShortenerFunction = s -> s;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file                   The file to be parsed (may be compressed). The syntax is determined by the file
+     *                               extension.
+     * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
+     */
+    public RiotMemoryWalkGenerator(File file, boolean isParseDatatypeTriples) {
+        this(file, null, isParseDatatypeTriples);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param file                   The file to be parsed (may be compressed).
+     * @param lang                   The syntax of the file; null to determine it by the file extension.
+     * @param isParseDatatypeTriples True if datatype triples shall also be parsed.
+     */
+    public RiotMemoryWalkGenerator(File file, Lang lang, boolean isParseDatatypeTriples) {
+        this();
+        setParseDatatypeProperties(isParseDatatypeTriples);
+        readFile(file, lang);
+    }
+
+    /**
+     * Stream the triples of the given file into {@link MemoryWalkGenerator#data}. Parsing and inserting run in
+     * parallel: the parser (calling thread) hands batches of triples to a second thread that converts and inserts
+     * them. Turtle and RDF/XML cannot be split into independently parsable chunks, hence there is one parser.
+     * Compressed files are decompressed by {@link CompressedInput}.
+     *
+     * @param file The file to be parsed.
+     * @param lang The syntax of the file; null to determine it by the file extension (without compression extension).
+     */
+    public void readFile(File file, Lang lang) {
+        if (!file.exists()) {
+            LOGGER.error("The specified file does not exist. Aborting Parsing.");
+            return;
+        }
+        if (lang == null) lang = RDFLanguages.filenameToLang(CompressedInput.getUncompressedName(file.getName()));
+        if (lang == null) {
+            LOGGER.error("Could not determine the syntax of " + file.getName() + ". Aborting Parsing.");
+            return;
+        }
+        TripleDataSetStreamRDF sink = new TripleDataSetStreamRDF();
+        try (InputStream in = CompressedInput.open(file)) {
+            RDFParser.create().source(in).lang(lang).base(file.toURI().toString()).parse(sink);
+        } catch (IOException ioe) {
+            LOGGER.error("Could not read: " + file.getAbsolutePath(), ioe);
+        } catch (RiotException re) {
+            LOGGER.error("Could not parse: " + file.getAbsolutePath() + " in jena.", re);
+        } finally {
+            sink.close();
+        }
+        LOGGER.info("Streamed " + sink.getNumberOfTriples() + " triples of " + file.getName() + " into memory.");
+    }
+
+    /**
+     * Converts a node into the form used in the walks.
+     *
+     * @param node URI or blank node.
+     * @return The URI (shortened) or the blank node label prefixed with {@code _:}.
+     */
+    private String toWalkComponent(Node node) {
+        if (node.isBlank()) return data.getTermPool().canonicalize("_:" + node.getBlankNodeLabel());
+        return data.getTermPool().canonicalize(uriShortenerFunction.apply(node.getURI()));
+    }
+
+    /**
+     * Insert one triple into the data set.
+     */
+    private void add(Triple triple) {
+        Node object = triple.getObject();
+        if (object.isLiteral()) {
+            if (!isParseDatatypeProperties) return;
+            data.addDatatypeTriple(toWalkComponent(triple.getSubject()), toWalkComponent(triple.getPredicate()),
+                    textProcessingFunction.apply(object.getLiteralLexicalForm()));
+        } else {
+            data.addObjectTriple(toWalkComponent(triple.getSubject()), toWalkComponent(triple.getPredicate()),
+                    toWalkComponent(object));
+        }
+    }
+
+    /**
+     * {@link org.apache.jena.riot.system.StreamRDF} sink that feeds the triples of a RIOT parser into the
+     * {@link TripleDataSetMemory} of this generator. The triples are collected in batches and inserted by a separate
+     * thread so that parsing does not wait for the insertion. Quads are added without their graph.
+     */
+    private class TripleDataSetStreamRDF extends StreamRDFBase {
+
+
+        private final BlockingQueue<List<Triple>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        /**
+         * Marks the end of the stream.
+         */
+        private final List<Triple> endOfStream = new ArrayList<>();
+
+        private final Thread inserter;
+
+        private List<Triple> batch = new ArrayList<>(BATCH_SIZE);
+
+        private long numberOfTriples = 0;
+
+        TripleDataSetStreamRDF() {
+            inserter = new Thread(this::insert, "riot-inserter");
+            inserter.setDaemon(true);
+            inserter.start();
+        }
+
+        @Override
+        public void triple(Triple triple) {
+            batch.add(triple);
+            numberOfTriples++;
+            if (batch.size() == BATCH_SIZE) {
+                put(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+
+        long getNumberOfTriples() {
+            return numberOfTriples;
+        }
+
+        /**
+         * Flush the last batch and wait until all triples are inserted.
+         */
+        void close() {
+            if (!batch.isEmpty()) put(batch);
+            batch = new ArrayList<>();
+            put(endOfStream);
+            try {
+                inserter.join();
+            } catch (InterruptedException ie) {
+                LOGGER.error("Interrupted while waiting for the insertion of the triples.", ie);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void put(List<Triple> triples) {
+            try {
+                queue.put(triples);
+            } catch (InterruptedException ie) {
+                LOGGER.error("Interrupted while handing triples to the inserting thread.", ie);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void insert() {
+            try {
+                List<Triple> triples;
+                while ((triples = queue.take()) != endOfStream) {
+                    for (Triple triple : triples) {
+                        try {
+                            add(triple);
+                        } catch (Exception e) {
+                            // it is important that the parsing continues no matter what happens
+                            LOGGER.error("A problem occurred while adding the triple " + triple, e);
+                        }
+                    }
+                }
+            } catch (InterruptedException ie) {
+                LOGGER.error("The inserting thread was interrupted.", ie);
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
 import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.Triple;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics.WalkMetrics;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.tdb.TDBFactory;
@@ -11,10 +13,13 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
 
 public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMidWalkDuplicateFreeCapability,
-        IRandomWalkDuplicateFreeCapability, IMidWalkWeightedCapability, ICloseableWalkGenerator {
+        IRandomWalkDuplicateFreeCapability, IMidWalkWeightedCapability, ICloseableWalkGenerator,
+        ITextWalkCapability, IFilteringWalkGenerator {
 
 
     /**
@@ -22,9 +27,27 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(TdbWalkGenerator.class);
 
+    /**
+     * Name of this generator in the {@link WalkMetrics}.
+     */
+    private static final String METRICS_NAME = "tdb";
+
     private Dataset tdbDataset;
     private Model tdbModel;
 
+    /**
+     * Function applied to the lexical form of literals in text walks.
+     */
+    private UnaryOperator<String> textProcessingFunction = new TextProcessor();
+
+    private WalkFilter walkFilter;
+
+    /**
+     * The decisions of the {@link TdbWalkGenerator#walkFilter} per predicate URI. Null if all predicates are
+     * accepted.
+     */
+    private volatile Map<String, Boolean> acceptedPredicates;
+
     /**
      * Main Constructor
      *
@@ -138,10 +161,12 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return Result triples.
      */
     public Set<Triple> getBackwardTriples(String object) {
+        long start = WalkMetrics.startTimer();
         Set<Triple> result = new HashSet<>();
         Set<Statement> tdbStatements =  tdbModel.listStatements(null, null, tdbModel.createResource(object)).toSet();
 
         for (Statement statement : tdbStatements) {
+            if (!isAccepted(statement.getPredicate())) continue;
             String subjectUri;
             RDFNode subject = statement.getSubject();
             if (subject.isAnon()) {
@@ -152,6 +177,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             Triple t = new Triple(subjectUri, statement.getPredicate().getURI(), object);
             result.add(t);
         }
+        WalkMetrics.recordHop(METRICS_NAME, start, result.size());
         return result;
     }
 
@@ -161,6 +187,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
      * @return Result triples.
      */
     public Set<Triple> getForwardTriples(String subject) {
+        long start = WalkMetrics.startTimer();
         Set<Triple> result = new HashSet<>();
         Set<Statement> tdbStatements =  tdbModel.createResource(subject)
                 .listProperties()
@@ -168,6 +195,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
                 .toSet();
 
         for (Statement statement : tdbStatements) {
+            if (!isAccepted(statement.getPredicate())) continue;
             String objectUri;
             RDFNode object = statement.getObject();
             if (object.isAnon()) {
@@ -178,6 +206,7 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
             Triple t = new Triple(subject, statement.getPredicate().getURI(), objectUri);
             result.add(t);
         }
+        WalkMetrics.recordHop(METRICS_NAME, start, result.size());
         return result;
     }
 
@@ -185,6 +214,72 @@ public class TdbWalkGenerator implements IWalkGenerator, IMidWalkCapability, IMi
         tdbDataset.close();
     }
 
+    /**
+     * Check the given predicate against the walk filter. Every predicate is evaluated once; subsequent checks are a
+     * map lookup.
+     *
+     * @param predicate The predicate of a statement.
+     * @return True if edges with the given predicate are walked.
+     */
+    private boolean isAccepted(Property predicate) {
+        Map<String, Boolean> accepted = acceptedPredicates;
+        if (accepted == null) return true;
+        return accepted.computeIfAbsent(predicate.getURI(), walkFilter::isAccepted);
+    }
+
+    /**
+     * Skip the edges whose predicate is not accepted by the given filter. The statements are filtered while the TDB
+     * indices are iterated (before the neighbours are resolved); the TDB store itself is not changed.
+     *
+     * @param walkFilter The filter; null to walk all edges.
+     */
+    @Override
+    public void setWalkFilter(WalkFilter walkFilter) {
+        this.walkFilter = walkFilter;
+        acceptedPredicates = walkFilter == null || walkFilter.isAcceptingAllPredicates() ? null :
+                new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public WalkFilter getWalkFilter() {
+        return walkFilter;
+    }
+
+    /**
+     * Generate text walks from the literals of the given entity. The literal statements of the subject are streamed
+     * from the TDB index; datatype triples are not held in memory.
+     *
+     * @param entity The entity for which walks shall be generated.
+     * @param depth  The maximal number of walk components. Must be &gt; 2.
+     * @return List of walks.
+     */
+    @Override
+    public List<String> generateTextWalksForEntity(String entity, int depth) {
+        List<String> result = new ArrayList<>();
+        if (walkFilter != null && walkFilter.isExcludeLiterals()) return result;
+        StmtIterator iterator = tdbModel.listStatements(tdbModel.createResource(entity), null, (RDFNode) null);
+        try {
+            while (iterator.hasNext()) {
+                Statement statement = iterator.next();
+                if (!statement.getObject().isLiteral() || !isAccepted(statement.getPredicate())) continue;
+                Util.addTextWalks(result, entity, statement.getPredicate().getURI(),
+                        TextNormalizer.tokenize(textProcessingFunction,
+                                statement.getObject().asLiteral().getLexicalForm()), depth);
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+
+    public UnaryOperator<String> getTextProcessingFunction() {
+        return textProcessingFunction;
+    }
+
+    public void setTextProcessingFunction(UnaryOperator<String> textProcessingFunction) {
+        this.textProcessingFunction = textProcessingFunction;
+    }
+
     @Override
     public List<String> generateDuplicateFreeRandomWalksForEntity(String entity, int numberOfWalks, int depth) {
         List<String> result = new ArrayList<>();
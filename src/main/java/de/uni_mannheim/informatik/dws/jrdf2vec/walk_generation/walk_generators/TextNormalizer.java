@@ -0,0 +1,314 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Normalizer for datatype property values (literals). A literal is normalized in a single pass over its characters
+ * without regular expressions:
+ * <ol>
+ *     <li>language tags ({@code "text"@en}) and datatype suffixes ({@code "1.5"^^<...#double>}) are removed,</li>
+ *     <li>every character that is not a letter of the (German) alphabet, a digit, or a space is removed,</li>
+ *     <li>leading and trailing spaces are removed and the text is lowercased.</li>
+ * </ol>
+ * The normalized text can be split into tokens by a pluggable {@link Tokenizer}; stopwords are dropped. Tokens can
+ * be dictionary-encoded (see {@link TextNormalizer#getTokenIds(String)}) so that text can be handled like URIs.
+ * <p>
+ * This class is thread-safe.
+ */
+public class TextNormalizer implements UnaryOperator<String> {
+
+
+    /**
+     * Splits a normalized text into tokens.
+     */
+    @FunctionalInterface
+    public interface Tokenizer {
+
+        /**
+         * Split the given normalized text into tokens.
+         *
+         * @param normalizedText Text as returned by {@link TextNormalizer#apply(String)}.
+         * @return List of (non-empty) tokens.
+         */
+        List<String> tokenize(String normalizedText);
+    }
+
+    /**
+     * Splits on spaces; empty tokens are skipped.
+     */
+    public static final Tokenizer WHITESPACE_TOKENIZER = text -> {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                if (start >= 0) {
+                    result.add(text.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            result.add(text.substring(start));
+        }
+        return result;
+    };
+
+    /**
+     * Default stopwords (English articles).
+     */
+    public static final Set<String> DEFAULT_STOPWORDS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("a", "an", "the")));
+
+    /**
+     * The tokenizer.
+     */
+    private final Tokenizer tokenizer;
+
+    /**
+     * Tokens that are dropped by {@link TextNormalizer#tokenize(String)}.
+     */
+    private final Set<String> stopwords;
+
+    /**
+     * Token to token ID.
+     */
+    private final Map<String, Integer> tokenToId = new ConcurrentHashMap<>();
+
+    /**
+     * Token ID to token.
+     */
+    private final List<String> idToToken = new ArrayList<>();
+
+    /**
+     * Constructor: whitespace tokenization, no stopwords.
+     */
+    public TextNormalizer() {
+        this(WHITESPACE_TOKENIZER, Collections.emptySet());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param tokenizer The tokenizer to be used.
+     * @param stopwords The stopwords (normalized, i.e. lowercased) that shall be dropped from token lists.
+     */
+    public TextNormalizer(Tokenizer tokenizer, Set<String> stopwords) {
+        this.tokenizer = tokenizer == null ? WHITESPACE_TOKENIZER : tokenizer;
+        this.stopwords = stopwords == null ? Collections.emptySet() : new HashSet<>(stopwords);
+    }
+
+    /**
+     * Normalize the given literal.
+     *
+     * @param literal The literal (lexical form, optionally with quotes, language tag, or datatype).
+     * @return Normalized text.
+     */
+    @Override
+    public String apply(String literal) {
+        if (literal == null) return null;
+        int end = getContentEnd(literal);
+        char[] result = new char[end];
+        int length = 0;
+        for (int i = 0; i < end; i++) {
+            char c = literal.charAt(i);
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                result[length++] = c;
+            } else if (c >= 'A' && c <= 'Z') {
+                result[length++] = (char) (c + ('a' - 'A'));
+            } else if (c == ' ') {
+                // leading spaces are skipped right away, trailing spaces are cut below
+                if (length > 0) result[length++] = c;
+            } else {
+                switch (c) {
+                    case 'ä':
+                    case 'ö':
+                    case 'ü':
+                    case 'ß':
+                        result[length++] = c;
+                        break;
+                    case 'Ä':
+                        result[length++] = 'ä';
+                        break;
+                    case 'Ö':
+                        result[length++] = 'ö';
+                        break;
+                    case 'Ü':
+                        result[length++] = 'ü';
+                        break;
+                    default:
+                        // drop
+                }
+            }
+        }
+        while (length > 0 && result[length - 1] == ' ') length--;
+        return new String(result, 0, length);
+    }
+
+    /**
+     * Determine where the content of the literal ends, i.e., the position of a language tag or datatype suffix.
+     *
+     * @param literal The literal.
+     * @return Exclusive end index of the content.
+     */
+    static int getContentEnd(String literal) {
+        int length = literal.length();
+
+        // language tag followed by a dot: "@xx ... .
+        int position = findAnnotation(literal, length, "\"@", 4);
+        if (position >= 0) length = position;
+
+        // plain language tag at the end: "@xx
+        if (length >= 4 && literal.charAt(length - 4) == '"' && literal.charAt(length - 3) == '@'
+                && isAsciiLetter(literal.charAt(length - 2)) && isAsciiLetter(literal.charAt(length - 1))) {
+            length = length - 4;
+        }
+
+        // datatype: "^^ ... .
+        position = findAnnotation(literal, length, "\"^^", 3);
+        if (position >= 0) length = position;
+        return length;
+    }
+
+    /**
+     * Find the first occurrence of the marker that is followed by a dot (at a distance of at least
+     * {@code minimalDotDistance}) within the last line of the text.
+     *
+     * @param text               The text.
+     * @param length             The length of the text to be considered.
+     * @param marker             The marker.
+     * @param minimalDotDistance The minimal distance between the start of the marker and the dot.
+     * @return Position of the marker or -1 if not found.
+     */
+    private static int findAnnotation(String text, int length, String marker, int minimalDotDistance) {
+        int lastLineBreak = -1;
+        int lastDot = -1;
+        for (int i = length - 1; i >= 0; i--) {
+            char c = text.charAt(i);
+            if (isLineTerminator(c)) {
+                lastLineBreak = i;
+                break;
+            }
+            if (c == '.' && lastDot < 0) lastDot = i;
+        }
+        for (int i = lastLineBreak + 1; i + minimalDotDistance <= lastDot; i++) {
+            if (text.startsWith(marker, i)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Normalize and tokenize the given literal. Stopwords are dropped.
+     *
+     * @param literal The literal.
+     * @return List of normalized tokens.
+     */
+    public List<String> tokenize(String literal) {
+        return tokenizeNormalized(apply(literal));
+    }
+
+    /**
+     * Tokenize a text that has already been normalized. Stopwords are dropped.
+     *
+     * @param normalizedText Text as returned by {@link TextNormalizer#apply(String)}.
+     * @return List of tokens.
+     */
+    public List<String> tokenizeNormalized(String normalizedText) {
+        if (normalizedText == null || normalizedText.isEmpty()) return new ArrayList<>();
+        List<String> tokens = tokenizer.tokenize(normalizedText);
+        if (!stopwords.isEmpty()) {
+            tokens.removeIf(stopwords::contains);
+        }
+        return tokens;
+    }
+
+    /**
+     * Process and tokenize the given literal with an arbitrary text processing function. If the function is a
+     * {@link TextNormalizer}, its tokenizer and stopwords are used; otherwise, the processed text is split on spaces.
+     *
+     * @param textProcessingFunction The text processing function.
+     * @param literal                The literal.
+     * @return List of tokens.
+     */
+    public static List<String> tokenize(UnaryOperator<String> textProcessingFunction, String literal) {
+        if (textProcessingFunction instanceof TextNormalizer) {
+            return ((TextNormalizer) textProcessingFunction).tokenize(literal);
+        }
+        String text = textProcessingFunction.apply(literal);
+        if (text == null) return new ArrayList<>();
+        return WHITESPACE_TOKENIZER.tokenize(text);
+    }
+
+    /**
+     * Normalize and tokenize the given literal and encode the tokens. Unknown tokens are added to the vocabulary.
+     *
+     * @param literal The literal.
+     * @return Token IDs.
+     */
+    public int[] getTokenIds(String literal) {
+        List<String> tokens = tokenize(literal);
+        int[] result = new int[tokens.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getTokenId(tokens.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get the ID of the given (normalized) token. Unknown tokens are added to the vocabulary.
+     *
+     * @param token The token.
+     * @return Token ID (0-based, dense).
+     */
+    public int getTokenId(String token) {
+        Integer id = tokenToId.get(token);
+        if (id != null) return id;
+        synchronized (idToToken) {
+            return tokenToId.computeIfAbsent(token, k -> {
+                idToToken.add(k);
+                return idToToken.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Get the token of the given ID.
+     *
+     * @param tokenId The token ID.
+     * @return Token or null if the ID is unknown.
+     */
+    public String getToken(int tokenId) {
+        synchronized (idToToken) {
+            if (tokenId < 0 || tokenId >= idToToken.size()) return null;
+            return idToToken.get(tokenId);
+        }
+    }
+
+    /**
+     * Get the number of distinct tokens that have been encoded.
+     *
+     * @return Vocabulary size.
+     */
+    public int getVocabularySize() {
+        return tokenToId.size();
+    }
+
+    public Tokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    public Set<String> getStopwords() {
+        return Collections.unmodifiableSet(stopwords);
+    }
+}
@@ -1,11 +1,11 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.CompressedInput;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntitySelector;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.HdtEntitySelector;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.MemoryEntitySelector;
-import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.OntModelEntitySelector;
 import org.rdfhdt.hdt.hdt.HDT;  
-import org.apache.jena.ontology.OntModel;
 import org.apache.jena.riot.Lang;
 import org.javatuples.Pair;
 import org.slf4j.Logger;
@@ -13,9 +13,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
-
-import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.readOntology;
 
 /**
  * This class provides management (utility) functions for different walk generators, for example when it comes to
@@ -52,57 +49,81 @@ public class WalkGeneratorManager {
      * @return Pair with parser and entity selector.
      */
     public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples){
+        return parseSingleFile(tripleFile, isParseDatatypeTriples, null);
+    }
+
+    /**
+     * Given a triple file, this method determines the appropriate parser and entity selector.
+     * @param tripleFile The triple file to be processed.
+     * @param isParseDatatypeTriples True if datatype properties shall also be parsed.
+     * @param walkFilter Filter on the walked edges; null to walk all edges. Memory-based parsers drop the filtered
+     *                   triples while parsing.
+     * @return Pair with parser and entity selector.
+     */
+    public static Pair<IWalkGenerator, EntitySelector> parseSingleFile(File tripleFile, boolean isParseDatatypeTriples,
+                                                                       WalkFilter walkFilter){
         IWalkGenerator parser = null;
         EntitySelector entitySelector = null;
-        try {
-            String pathToTripleFile = tripleFile.getAbsolutePath();
-            String fileName = tripleFile.getName();
-            if (fileName.toLowerCase().endsWith(".nt") | fileName.toLowerCase().endsWith(".nq")) {
-                if(fileName.toLowerCase().endsWith(".nq")){
-                    LOGGER.info("NQ File detected: Please note that the graph information will be skipped.");
-                }
-                try {
-                    LOGGER.info("Using NxParser.");
-                    parser = new NxMemoryWalkGenerator(pathToTripleFile, isParseDatatypeTriples);
-                    entitySelector = new MemoryEntitySelector(((NxMemoryWalkGenerator) parser).getData());
-                } catch (Exception e) {
-                    LOGGER.error("There was a problem using the default NxParser. Retry with slower NtParser.");
-                    parser = new NtMemoryWalkGenerator(pathToTripleFile, isParseDatatypeTriples);
-                    entitySelector = new MemoryEntitySelector(((NtMemoryWalkGenerator) parser).getData());
-                }
-                if (((MemoryWalkGenerator) parser).getDataSize() == 0L) {
-                    LOGGER.error("There was a problem using the default NxParser. Retry with slower NtParser.");
-                    parser = new NtMemoryWalkGenerator(pathToTripleFile, isParseDatatypeTriples);
-                    entitySelector = new MemoryEntitySelector(((NtMemoryWalkGenerator) parser).getData());
-                }
-            } else if (fileName.toLowerCase().endsWith(".ttl")) {
-                OntModel model = readOntology(pathToTripleFile, Lang.TTL);
-                entitySelector = new OntModelEntitySelector(model);
-                File newResourceFile = new File(tripleFile.getParent(), fileName.substring(0, fileName.length() - 3) + "nt");
-                NtMemoryWalkGenerator.saveAsNt(model, newResourceFile);
-                parser = new NtMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
-            } else if (fileName.toLowerCase().endsWith(".xml") || fileName.toLowerCase().endsWith(".rdf")) {
-                OntModel model = readOntology(pathToTripleFile, Lang.RDFXML);
-                entitySelector = new OntModelEntitySelector(model);
-                File newResourceFile = new File(tripleFile.getParent(), fileName.substring(0, fileName.length() - 3) + "nt");
-                //this.parser = new JenaOntModelMemoryParser(this.model, this);
-                NtMemoryWalkGenerator.saveAsNt(model, newResourceFile);
-                parser = new NtMemoryWalkGenerator(newResourceFile, isParseDatatypeTriples);
-            } else if (fileName.toLowerCase().endsWith(".hdt") || fileName.toLowerCase().endsWith(".hdt.index.v1-1")) {
-                LOGGER.info("HDT file detected. Using HDT parser.");
-                try {
-                    HdtWalkGenerator parser2 = new HdtWalkGenerator(pathToTripleFile);
-                    HDT hdt = parser2.getHdt();
-                    entitySelector = new HdtEntitySelector(hdt);
-                    parser = parser2;
-                } catch (IOException ioe) {
-                    LOGGER.error("Propagated HDT Initializer Exception", ioe);
-                }
+        // compressed files are parsed by the parser of the uncompressed syntax
+        String fileName = CompressedInput.getUncompressedName(tripleFile.getName());
+        if (fileName.toLowerCase().endsWith(".nt") | fileName.toLowerCase().endsWith(".nq")) {
+            if(fileName.toLowerCase().endsWith(".nq")){
+                LOGGER.info("NQ File detected: Please note that the graph information will be skipped.");
+            }
+            try {
+                LOGGER.info("Using NxParser.");
+                NxMemoryWalkGenerator nxParser = new NxMemoryWalkGenerator();
+                nxParser.setParseDatatypeProperties(isParseDatatypeTriples);
+                nxParser.setWalkFilter(walkFilter);
+                nxParser.readNtriples(tripleFile);
+                parser = nxParser;
+            } catch (Exception e) {
+                LOGGER.error("There was a problem using the default NxParser. Retry with slower NtParser.");
+                parser = parseWithNtParser(tripleFile, isParseDatatypeTriples, walkFilter);
+            }
+            if (((MemoryWalkGenerator) parser).getDataSize() == 0L) {
+                LOGGER.error("There was a problem using the default NxParser. Retry with slower NtParser.");
+                parser = parseWithNtParser(tripleFile, isParseDatatypeTriples, walkFilter);
+            }
+            entitySelector = new MemoryEntitySelector(((MemoryWalkGenerator) parser).getData());
+        } else if (fileName.toLowerCase().endsWith(".ttl")) {
+            // the triples are streamed into memory (no OntModel, no intermediate NT file)
+            parser = parseWithRiot(tripleFile, Lang.TTL, isParseDatatypeTriples, walkFilter);
+            entitySelector = new MemoryEntitySelector(((RiotMemoryWalkGenerator) parser).getData());
+        } else if (fileName.toLowerCase().endsWith(".xml") || fileName.toLowerCase().endsWith(".rdf")) {
+            parser = parseWithRiot(tripleFile, Lang.RDFXML, isParseDatatypeTriples, walkFilter);
+            entitySelector = new MemoryEntitySelector(((RiotMemoryWalkGenerator) parser).getData());
+        } else if (fileName.toLowerCase().endsWith(".hdt") || fileName.toLowerCase().endsWith(".hdt.index.v1-1")) {
+            LOGGER.info("HDT file detected. Using HDT parser.");
+            try {
+                HdtWalkGenerator parser2 = new HdtWalkGenerator(tripleFile.getAbsolutePath());
+                parser2.setWalkFilter(walkFilter);
+                // the selector shares the memory-mapped HDT of the generator
+                HDT hdt = parser2.getHdt();
+                entitySelector = new HdtEntitySelector(hdt, parser2.getSession().getHdtFile());
+                parser = parser2;
+            } catch (IOException ioe) {
+                LOGGER.error("Propagated HDT Initializer Exception", ioe);
             }
-            LOGGER.info("Model read into memory.");
-        } catch (MalformedURLException mue) {
-            LOGGER.error("Path seems to be invalid. Generator not functional.", mue);
         }
+        LOGGER.info("Model read into memory.");
         return new Pair<>(parser, entitySelector);
     }
+
+    private static NtMemoryWalkGenerator parseWithNtParser(File tripleFile, boolean isParseDatatypeTriples,
+                                                           WalkFilter walkFilter) {
+        NtMemoryWalkGenerator result = new NtMemoryWalkGenerator(isParseDatatypeTriples);
+        result.setWalkFilter(walkFilter);
+        result.readNTriples(tripleFile, false);
+        return result;
+    }
+
+    private static RiotMemoryWalkGenerator parseWithRiot(File tripleFile, Lang lang, boolean isParseDatatypeTriples,
+                                                         WalkFilter walkFilter) {
+        RiotMemoryWalkGenerator result = new RiotMemoryWalkGenerator();
+        result.setParseDatatypeProperties(isParseDatatypeTriples);
+        result.setWalkFilter(walkFilter);
+        result.readFile(tripleFile, lang);
+        return result;
+    }
 }
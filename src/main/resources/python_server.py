@@ -9,13 +9,30 @@ import gzip
 import pkg_resources
 from pkg_resources import DistributionNotFound
 import pathlib
+import multiprocessing
+import threading
+import uuid
+import hashlib
+
+
+def configure_logging():
+    """Log into the log file next to this script. The server and its training job processes share the file, hence
+    it is opened in append mode."""
+    logging.basicConfig(
+        handlers=[logging.FileHandler(__file__ + ".log", "a", "utf-8")],
+        format="%(asctime)s %(levelname)s:%(message)s",
+        level=logging.INFO,
+    )
+
 
+# training jobs are started in fresh interpreters: forking the threaded server could copy locks (e.g. of the logging
+# module) that are held by another request thread at that moment, which would deadlock the job
+job_context = multiprocessing.get_context("spawn")
 
-logging.basicConfig(
-    handlers=[logging.FileHandler(__file__ + ".log", "w", "utf-8")],
-    format="%(asctime)s %(levelname)s:%(message)s",
-    level=logging.INFO,
-)
+# the job processes re-import this module; only the server starts a new log file
+if multiprocessing.current_process().name == "MainProcess":
+    open(__file__ + ".log", "w", encoding="utf-8").close()
+    configure_logging()
 
 # default boilerplate code
 app = Flask(__name__)
@@ -27,6 +44,14 @@ active_models = {}
 # set of active gensim vector files (just consumption)
 active_vectors = {}
 
+# version of this server (hash of the script file)
+with open(__file__, "rb") as server_file:
+    SERVER_VERSION = hashlib.sha256(server_file.read()).hexdigest()
+
+# training jobs started via /train-word2vec-async: job id -> {"process": ..., "parameters": ..., "cleared": ...}
+jobs = {}
+jobs_lock = threading.Lock()
+
 
 @app.route("/melt_ml.html")
 def display_server_status():
@@ -40,6 +65,19 @@ def display_server_status():
     return "MELT ML Server running. Ready to accept requests."
 
 
+@app.route("/server-version", methods=["GET"])
+def server_version() -> str:
+    """The version of this server: the SHA-256 hash of this script. The Java client reuses a running server only if
+    the version matches the script it ships.
+
+    Returns
+    -------
+    str
+        Hex-encoded hash of the server script.
+    """
+    return SERVER_VERSION
+
+
 @app.route("/check-requirements", methods=["GET"])
 def check_requirements() -> str:
     """Can be used to check whether the server is fully functional.
@@ -98,6 +136,9 @@ class MySentences(object):
             if os.path.isdir(self.file_or_directory_path):
                 logging.info("Directory detected.")
                 for file_name in os.listdir(self.file_or_directory_path):
+                    if file_name.endswith(".log") or file_name.endswith(".vocab"):
+                        # checkpoint logs and vocabulary counts of the walk generation are no walk files
+                        continue
                     logging.info("Processing file: " + file_name)
                     if file_name[-2:] in "gz":
                         logging.info("Gzip file detected! Using gzip.open().")
@@ -176,79 +217,194 @@ def train_word_2_vec() -> str:
         'True' as string if operation was successful, else 'False' (as string).
     """
     try:
-        model_path = request.headers.get("model_path")  # where the model will be stored
-        vector_path = request.headers.get(
-            "vector_path"
-        )  # where the vector file will be stored
-        file_path = request.headers.get("file_path")
-        vector_dimension = request.headers.get("vector_dimension")
-        number_of_threads = request.headers.get("number_of_threads")
-        window_size = request.headers.get("window_size")
-        iterations = request.headers.get("iterations")
-        negatives = request.headers.get("negatives")
-        cbow_or_sg = request.headers.get("cbow_or_sg")
-        min_count = request.headers.get("min_count")
-        sample = request.headers.get("sample")
-        epochs = request.headers.get("epochs")
-        hs_string: str = request.headers.get("hierarchical_softmax")
-
-        hs = 1 if hs_string == "true" else 0
-
-        sentences = MySentences(file_path)
-        logging.info("Sentences object (" + file_path + ") initialized.")
-
-        # documentation: https://radimrehurek.com/gensim/models/word2vec.html
-
-        logging.info(f"hs: {hs}")
-        logging.info(f"hs: {int(hs)}")
-
-        if cbow_or_sg == "sg":
-            model = models.Word2Vec(
-                sample=float(sample),
-                min_count=int(min_count),
-                vector_size=int(vector_dimension),
-                workers=int(number_of_threads),
-                window=int(window_size),
-                sg=1,
-                negative=int(negatives),
-                epochs=int(iterations),
-                hs=int(hs),
-            )
-        else:
-            model = models.Word2Vec(
-                sample=float(sample),
-                min_count=int(min_count),
-                vector_size=int(vector_dimension),
-                workers=int(number_of_threads),
-                window=int(window_size),
-                sg=0,
-                cbow_mean=1,
-                negative=int(negatives),
-                epochs=int(iterations),
-                hs=int(hs),
-            )
-
-        logging.info("Model object initialized. Building Vocabulary...")
-        model.build_vocab(corpus_iterable=sentences)
-        logging.info("Vocabulary built. Training now...")
-        model.train(
-            corpus_iterable=sentences, total_examples=model.corpus_count, epochs=int(epochs)
-        )
-        logging.info("Model trained.")
+        parameters = read_training_parameters()
+        model = train(parameters)
+        active_models[os.path.realpath(parameters["model_path"])] = model
+        active_vectors[os.path.realpath(parameters["vector_path"])] = model.wv
+        return "True"
 
-        model.save(model_path)
-        model.wv.save(vector_path)
+    except Exception as exception:
+        logging.exception("An exception occurred.")
+        return "False"
 
-        active_models[os.path.realpath(model_path)] = model
-        active_vectors[os.path.realpath(vector_path)] = model.wv
 
-        return "True"
+@app.route("/train-word2vec-async", methods=["GET"])
+def train_word_2_vec_async() -> str:
+    """Starts the training of a word2vec model in a separate process so that the server keeps answering other requests
+    (such as /get-vector) in the meantime. The parameters are the same as for /train-word2vec.
 
+    Returns
+    -------
+        str
+        The ID of the job which can be polled via /job-status or 'False' if the job could not be started.
+    """
+    try:
+        parameters = read_training_parameters()
+        job_id = uuid.uuid4().hex
+        process = job_context.Process(target=train_job, args=(parameters,), daemon=True)
+        process.start()
+        with jobs_lock:
+            jobs[job_id] = {"process": process, "parameters": parameters, "cleared": False}
+        logging.info("Started training job " + job_id)
+        return job_id
     except Exception as exception:
         logging.exception("An exception occurred.")
         return "False"
 
 
+@app.route("/job-status", methods=["GET"])
+def job_status() -> str:
+    """Obtain the status of a job started via /train-word2vec-async.
+
+    Returns
+    -------
+        str
+        'RUNNING', 'SUCCEEDED', 'FAILED', or 'UNKNOWN' (if there is no job with the given ID).
+    """
+    job_id = request.headers.get("job_id")
+    with jobs_lock:
+        job = jobs.get(job_id)
+    if job is None:
+        return "UNKNOWN"
+    process = job["process"]
+    if process.is_alive():
+        return "RUNNING"
+    if process.exitcode != 0:
+        return "FAILED"
+    # the model has been written by the job process: drop stale cache entries once so that the new files are loaded
+    # (later polls must not evict the models that have been loaded since)
+    with jobs_lock:
+        if not job["cleared"]:
+            parameters = job["parameters"]
+            active_models.pop(os.path.realpath(parameters["model_path"]), None)
+            active_vectors.pop(os.path.realpath(parameters["vector_path"]), None)
+            job["cleared"] = True
+    return "SUCCEEDED"
+
+
+def read_training_parameters() -> dict:
+    """Reads the word2vec training parameters from the request header."""
+    parameters = {}
+    for key in [
+        "model_path",  # where the model will be stored
+        "vector_path",  # where the vector file will be stored
+        "file_path",
+        "vector_dimension",
+        "number_of_threads",
+        "window_size",
+        "iterations",
+        "negatives",
+        "cbow_or_sg",
+        "min_count",
+        "sample",
+        "epochs",
+        "hierarchical_softmax",
+        "vocabulary_file",  # optional: token counts written by the walk generation
+        "export_file",  # optional: the vectors are written there in word2vec binary format before the model is saved
+    ]:
+        parameters[key] = request.headers.get(key)
+    return parameters
+
+
+def train_job(parameters: dict):
+    """Entry point of a training job process. The exit code signals whether the training succeeded."""
+    configure_logging()
+    try:
+        train(parameters)
+    except Exception as exception:
+        logging.exception("An exception occurred in the training job.")
+        sys.exit(1)
+
+
+def read_vocabulary_file(vocabulary_file: str):
+    """Reads a vocabulary file: the first line contains the number of walks, every further line a token and its count
+    separated by a tab.
+
+    Returns
+    -------
+        A tuple (number of walks, dictionary token -> count).
+    """
+    frequencies = {}
+    with open(vocabulary_file, mode="rt", encoding="utf-8") as file:
+        corpus_count = int(file.readline().strip())
+        for line in file:
+            token, count = line.rstrip("\n").rsplit("\t", 1)
+            frequencies[token] = int(count)
+    return corpus_count, frequencies
+
+
+def train(parameters: dict):
+    """Trains a word2vec model and saves the model and the vectors.
+
+    Returns
+    -------
+        The trained model.
+    """
+    file_path = parameters["file_path"]
+    hs = 1 if parameters["hierarchical_softmax"] == "true" else 0
+
+    sentences = MySentences(file_path)
+    logging.info("Sentences object (" + file_path + ") initialized.")
+
+    # documentation: https://radimrehurek.com/gensim/models/word2vec.html
+
+    logging.info(f"hs: {hs}")
+
+    if parameters["cbow_or_sg"] == "sg":
+        model = models.Word2Vec(
+            sample=float(parameters["sample"]),
+            min_count=int(parameters["min_count"]),
+            vector_size=int(parameters["vector_dimension"]),
+            workers=int(parameters["number_of_threads"]),
+            window=int(parameters["window_size"]),
+            sg=1,
+            negative=int(parameters["negatives"]),
+            epochs=int(parameters["iterations"]),
+            hs=int(hs),
+        )
+    else:
+        model = models.Word2Vec(
+            sample=float(parameters["sample"]),
+            min_count=int(parameters["min_count"]),
+            vector_size=int(parameters["vector_dimension"]),
+            workers=int(parameters["number_of_threads"]),
+            window=int(parameters["window_size"]),
+            sg=0,
+            cbow_mean=1,
+            negative=int(parameters["negatives"]),
+            epochs=int(parameters["iterations"]),
+            hs=int(hs),
+        )
+
+    vocabulary_file = parameters.get("vocabulary_file")
+    if vocabulary_file is not None and os.path.isfile(vocabulary_file):
+        logging.info("Model object initialized. Building Vocabulary from " + vocabulary_file + "...")
+        corpus_count, frequencies = read_vocabulary_file(vocabulary_file)
+        model.build_vocab_from_freq(frequencies, corpus_count=corpus_count)
+    else:
+        logging.info("Model object initialized. Building Vocabulary...")
+        model.build_vocab(corpus_iterable=sentences)
+    logging.info("Vocabulary built. Training now...")
+    model.train(
+        corpus_iterable=sentences,
+        total_examples=model.corpus_count,
+        epochs=int(parameters["epochs"]),
+    )
+    logging.info("Model trained.")
+
+    export_file = parameters.get("export_file")
+    if export_file is not None:
+        # written before the model is saved so that the client can convert the vectors in the meantime; the file
+        # appears (by renaming it) only when it is complete
+        logging.info("Writing the vectors as word2vec binary file.")
+        model.wv.save_word2vec_format(export_file + ".tmp", binary=True)
+        os.replace(export_file + ".tmp", export_file)
+
+    model.save(parameters["model_path"])
+    model.wv.save(parameters["vector_path"])
+    return model
+
+
 @app.route("/is-in-vocabulary", methods=["GET"])
 def is_in_vocabulary():
     """Check whether there is a vector for the given concept.
@@ -735,6 +891,26 @@ def write_vectors_as_text_file():
     return "True"
 
 
+
+@app.route("/write-model-as-binary-file", methods=["GET"])
+def write_vectors_as_binary_file():
+    """
+    Writes all vectors of the model in word2vec binary format. This is much faster than writing a text file; the
+    binary file can be converted to text formats on the Java side (VectorExportPipeline).
+
+    Returns
+    -------
+    boolean
+        'True' as string if operation was successful, else 'False' (as string).
+    """
+    model_path = request.headers.get("model_path")
+    vector_path = request.headers.get("vector_path")
+    file_to_write = request.headers.get("file_to_write")
+    vectors = get_vectors(model_path=model_path, vector_path=vector_path)
+    logging.info("Writing the vectors as word2vec binary file.")
+    vectors.save_word2vec_format(file_to_write, binary=True)
+    return "True"
+
 def read_concept_file(path_to_concept_file):
     result = []
     with open(path_to_concept_file, errors="ignore") as concept_file:
@@ -779,7 +955,8 @@ def main():
         port = 1808
         logging.error(e)
     logging.info(f"Starting server using port {port}")
-    app.run(debug=False, port=port)
+    # threaded: queries are answered while a training job is running; vector files are memory-mapped and shared
+    app.run(debug=False, port=port, threaded=True)
 
 
 if __name__ == "__main__":
@@ -0,0 +1,198 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.util;
+
+import com.github.luben.zstd.Zstd;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.NtMemoryWalkGenerator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.NxMemoryWalkGenerator;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedInputTest {
+
+
+    private static final File DIRECTORY = new File("./compressed_input_test");
+
+    private static byte[] content;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        DIRECTORY.mkdirs();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            builder.append("<http://ex.org/s").append(i % 1000).append("> <http://ex.org/p").append(i % 7)
+                    .append("> <http://ex.org/o").append(i).append("> .\n");
+        }
+        content = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void detect() throws IOException {
+        File plain = new File(DIRECTORY, "plain.nt");
+        FileUtils.writeByteArrayToFile(plain, content);
+        assertEquals(CompressedInput.Compression.NONE, CompressedInput.detect(plain));
+        // the extension does not matter
+        assertEquals(CompressedInput.Compression.GZIP,
+                CompressedInput.detect(write("gzip.nt", gzipMembers(content, 1))));
+        assertEquals(CompressedInput.Compression.BZIP2, CompressedInput.detect(write("bzip2.nt", bzip2(content, 1))));
+        assertEquals(CompressedInput.Compression.ZSTD, CompressedInput.detect(write("zstd.nt", zstd(content, 1))));
+        assertEquals(CompressedInput.Compression.NONE, CompressedInput.detect(write("empty.nt", new byte[0])));
+    }
+
+    @Test
+    void getUncompressedName() {
+        assertEquals("dump.nt", CompressedInput.getUncompressedName("dump.nt.gz"));
+        assertEquals("dump.ttl", CompressedInput.getUncompressedName("dump.ttl.BZ2"));
+        assertEquals("dump.nq", CompressedInput.getUncompressedName("dump.nq.zst"));
+        assertEquals("dump.nt", CompressedInput.getUncompressedName("dump.nt"));
+    }
+
+    @Test
+    void singleSegment() throws IOException {
+        assertContent(write("single.nt.gz", gzipMembers(content, 1)));
+        assertContent(write("single.nt.bz2", bzip2(content, 1)));
+        assertContent(write("single.nt.zst", zstd(content, 1)));
+    }
+
+    @Test
+    void multipleSegments() throws IOException {
+        assertContent(write("multi.nt.gz", gzipMembers(content, 40)));
+        assertContent(write("multi.nt.bz2", bzip2(content, 7)));
+        assertContent(write("multi.nt.zst", zstd(content, 40)));
+    }
+
+    @Test
+    void zstdSkippableFrame() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // skippable frame with 3 bytes of user data
+        out.write(new byte[]{0x50, 0x2A, 0x4D, 0x18, 3, 0, 0, 0, 1, 2, 3});
+        out.write(zstd(content, 5));
+        assertContent(write("skippable.nt.zst", out.toByteArray()));
+    }
+
+    @Test
+    void falseCandidates() throws IOException {
+        // stored (not deflated) members contain the magic bytes of the content
+        byte[] magic = {0x1F, (byte) 0x8B, 0x08, 0x00, 0x1F, (byte) 0x8B, 0x08, 0x00, 0x00, 0x00, 0x00, 0x00};
+        byte[] data = new byte[content.length + 100 * magic.length];
+        int index = 0;
+        for (int i = 0; i < 100; i++) {
+            System.arraycopy(magic, 0, data, index, magic.length);
+            index += magic.length;
+            int length = content.length / 100;
+            System.arraycopy(content, i * length, data, index, length);
+            index += length;
+        }
+        System.arraycopy(content, 100 * (content.length / 100), data, index, content.length % 100);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(gzipMember(Arrays.copyOfRange(data, 0, data.length / 2), Deflater.NO_COMPRESSION));
+        out.write(gzipMember(Arrays.copyOfRange(data, data.length / 2, data.length), Deflater.NO_COMPRESSION));
+        File file = write("stored.nt.gz", out.toByteArray());
+        assertArrayEquals(data, read(file, 4));
+    }
+
+    @Test
+    void largeSegmentFallsBackToSequential() throws IOException {
+        // a member that is too large to be decoded on its own followed by a small member
+        byte[] data = new byte[(int) CompressedInput.MAX_SEGMENT_COMPRESSED_SIZE + 1000];
+        new Random(42).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(gzipMember(data, Deflater.NO_COMPRESSION));
+        out.write(gzipMembers(content, 1));
+        File file = write("large.gz", out.toByteArray());
+        byte[] expected = new byte[data.length + content.length];
+        System.arraycopy(data, 0, expected, 0, data.length);
+        System.arraycopy(content, 0, expected, data.length, content.length);
+        assertArrayEquals(expected, read(file, 4));
+    }
+
+    @Test
+    void parsers() throws IOException {
+        File plain = new File(DIRECTORY, "graph.nt");
+        FileUtils.writeByteArrayToFile(plain, content);
+        long expected = new NxMemoryWalkGenerator(plain).getDataSize();
+        assertTrue(expected > 0);
+        assertEquals(expected, new NxMemoryWalkGenerator(write("graph.nt.bz2", bzip2(content, 3))).getDataSize());
+        assertEquals(expected, new NxMemoryWalkGenerator(write("graph.nt.zst", zstd(content, 3))).getDataSize());
+        assertEquals(expected,
+                new NtMemoryWalkGenerator(write("graph2.nt.gz", gzipMembers(content, 3))).getDataSize());
+    }
+
+    private static void assertContent(File file) throws IOException {
+        assertArrayEquals(content, read(file, 4), file.getName());
+        assertArrayEquals(content, read(file, 1), file.getName());
+    }
+
+    private static byte[] read(File file, int numberOfThreads) throws IOException {
+        try (InputStream in = CompressedInput.open(file, numberOfThreads)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private static File write(String fileName, byte[] bytes) throws IOException {
+        File file = new File(DIRECTORY, fileName);
+        FileUtils.writeByteArrayToFile(file, bytes);
+        return file;
+    }
+
+    private static byte[][] split(byte[] data, int parts) {
+        byte[][] result = new byte[parts][];
+        int length = data.length / parts;
+        for (int i = 0; i < parts; i++) {
+            result[i] = Arrays.copyOfRange(data, i * length, i == parts - 1 ? data.length : (i + 1) * length);
+        }
+        return result;
+    }
+
+    private static byte[] gzipMembers(byte[] data, int members) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : split(data, members)) out.write(gzipMember(part, Deflater.DEFAULT_COMPRESSION));
+        return out.toByteArray();
+    }
+
+    private static byte[] gzipMember(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bzip2(byte[] data, int streams) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : split(data, streams)) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            try (BZip2CompressorOutputStream bzip2 = new BZip2CompressorOutputStream(stream, 1)) {
+                bzip2.write(part);
+            }
+            out.write(stream.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] data, int frames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : split(data, frames)) out.write(Zstd.compress(part));
+        return out.toByteArray();
+    }
+}
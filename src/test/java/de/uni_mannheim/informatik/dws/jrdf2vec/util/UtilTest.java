@@ -190,4 +190,30 @@ class UtilTest {
         assertEquals("http://www.w3.org/ns/lemon/ontolex#LexicalEntry", Util.removeTags("http://www.w3" +
                 ".org/ns/lemon/ontolex#LexicalEntry"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void randomSampleIndices() {
+        assertEquals(0, Util.randomSampleIndices(0, 5).length);
+        assertEquals(0, Util.randomSampleIndices(5, 0).length);
+        assertArrayEquals(new long[]{0, 1, 2}, Util.randomSampleIndices(3, 5));
+
+        long[] counts = new long[20];
+        for (int run = 0; run < 2000; run++) {
+            long[] sample = Util.randomSampleIndices(20, 5);
+            assertEquals(5, sample.length);
+            for (int i = 0; i < sample.length; i++) {
+                assertTrue(sample[i] >= 0 && sample[i] < 20);
+                if (i > 0) assertTrue(sample[i] > sample[i - 1], "Indices must be distinct and sorted.");
+                counts[(int) sample[i]]++;
+            }
+        }
+        // each index is expected 500 times
+        for (long count : counts) {
+            assertTrue(count > 350 && count < 650, "Sample is not uniform: " + Arrays.toString(counts));
+        }
+
+        // large population
+        long[] sample = Util.randomSampleIndices(10_000_000_000L, 3);
+        assertEquals(3, sample.length);
+    }
+}
@@ -0,0 +1,187 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorExportPipelineTest {
+
+
+    private static final File DIRECTORY = new File("./vector_export_pipeline_test");
+
+    private static final String[] WORDS = {"<http://ex.org/A>", "<http://ex.org/B>", "größe", "<http://ex.org/D>"};
+
+    private static final float[][] VECTORS = {
+            {0.5f, -1.25f, 3.0f},
+            {1.0E-5f, 123456.78f, -0.0019879746f},
+            {0.0f, 2.5E8f, -7.0f},
+            {0.1f, 0.2f, 0.3f}
+    };
+
+    @BeforeAll
+    static void setUp() {
+        DIRECTORY.mkdirs();
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void appendFloat() {
+        assertEquals("0.0", format(0.0f));
+        assertEquals("-0.0", format(-0.0f));
+        assertEquals("0.5", format(0.5f));
+        assertEquals("-1.25", format(-1.25f));
+        assertEquals("3.0", format(3.0f));
+        assertEquals("100.0", format(100.0f));
+        assertEquals("NaN", format(Float.NaN));
+        assertEquals("Infinity", format(Float.POSITIVE_INFINITY));
+        assertEquals("1.0E-5", format(1.0E-5f));
+
+        // every float must be parsed back to the exact same value
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            float value = Float.intBitsToFloat(random.nextInt());
+            if (i % 2 == 0) value = (random.nextFloat() - 0.5f) * (float) Math.pow(10, random.nextInt(12) - 5);
+            String formatted = format(value);
+            assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(Float.parseFloat(formatted)), formatted);
+        }
+    }
+
+    private static String format(float value) {
+        StringBuilder sb = new StringBuilder();
+        VectorExportPipeline.appendFloat(sb, value);
+        return sb.toString();
+    }
+
+    @Test
+    void word2VecBinarySource() throws IOException {
+        File binary = new File(DIRECTORY, "vectors.bin");
+        writeWord2VecBinary(binary);
+        File txt = new File(DIRECTORY, "binary.txt");
+        File w2v = new File(DIRECTORY, "binary.w2v");
+        File tsvVectors = new File(DIRECTORY, "binary_vectors.tsv");
+        File tsvMetadata = new File(DIRECTORY, "binary_metadata.tsv");
+
+        // one chunk per row in order to test the ordering of the parallel formatting
+        assertTrue(VectorExportPipeline.fromWord2VecBinaryFile(binary).removeTags().writeTxt(txt).writeW2v(w2v)
+                .writeTfProjectorTsv(tsvVectors, tsvMetadata).setChunkSize(1).setNumberOfThreads(3).run());
+
+        List<String> txtLines = FileUtils.readLines(txt, StandardCharsets.UTF_8);
+        assertEquals(4, txtLines.size());
+        assertEquals("http://ex.org/A 0.5 -1.25 3.0", txtLines.get(0));
+        assertEquals("größe 0.0 2.5E8 -7.0", txtLines.get(2));
+        assertVectorsEqual(txtLines, " ", 1);
+
+        List<String> w2vLines = FileUtils.readLines(w2v, StandardCharsets.UTF_8);
+        assertEquals("4 3", w2vLines.get(0));
+        assertEquals(txtLines, w2vLines.subList(1, w2vLines.size()));
+        assertTrue(Util.isW2Vformat(w2v));
+
+        assertEquals(Arrays.asList("http://ex.org/A", "http://ex.org/B", "größe", "http://ex.org/D"),
+                FileUtils.readLines(tsvMetadata, StandardCharsets.UTF_8));
+        assertVectorsEqual(FileUtils.readLines(tsvVectors, StandardCharsets.UTF_8), "\t", 0);
+    }
+
+    @Test
+    void npySource() throws IOException {
+        File npy = new File(DIRECTORY, "vectors.npy");
+        writeNpy(npy);
+        File vocabulary = new File(DIRECTORY, "vocabulary.txt");
+        FileUtils.writeLines(vocabulary, StandardCharsets.UTF_8.name(), Arrays.asList(WORDS));
+        File w2v = new File(DIRECTORY, "npy.w2v");
+
+        assertTrue(VectorExportPipeline.fromNpyFile(npy, vocabulary)
+                .filter(new HashSet<>(Arrays.asList("<http://ex.org/B>", "<http://ex.org/D>")))
+                .writeW2v(w2v).setChunkSize(3).run());
+        List<String> lines = FileUtils.readLines(w2v, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        // the header is patched after filtering
+        assertEquals("2 3", lines.get(0).trim());
+        assertTrue(lines.get(1).startsWith("<http://ex.org/B> "));
+        assertEquals("<http://ex.org/D> 0.1 0.2 0.3", lines.get(2));
+        assertTrue(Util.isW2Vformat(w2v));
+
+        // missing vocabulary
+        assertFalse(VectorExportPipeline.fromNpyFile(npy, new File(DIRECTORY, "does_not_exist.txt"))
+                .writeW2v(w2v).run());
+    }
+
+    @Test
+    void textSource() throws IOException {
+        File w2v = new File(DIRECTORY, "text.w2v");
+        File txt = new File(DIRECTORY, "text.txt");
+        assertTrue(VectorExportPipeline.fromTextFile(loadFile("txtVectorFile.txt")).writeW2v(w2v).run());
+
+        // w2v text files can be read as well: the header is skipped
+        assertTrue(VectorExportPipeline.fromTextFile(w2v).writeTxt(txt).run());
+        assertEquals(FileUtils.readLines(loadFile("txtVectorFile.txt"), StandardCharsets.UTF_8),
+                FileUtils.readLines(txt, StandardCharsets.UTF_8));
+        assertEquals("6 3", FileUtils.readLines(w2v, StandardCharsets.UTF_8).get(0).trim());
+
+        // error cases: no files are written
+        File notWritten = new File(DIRECTORY, "not_written.txt");
+        assertFalse(VectorExportPipeline.fromTextFile(new File(DIRECTORY, "does_not_exist.txt"))
+                .writeTxt(notWritten).run());
+        assertFalse(VectorExportPipeline.fromTextFile(txt).run());
+        assertFalse(notWritten.exists());
+    }
+
+    private static void assertVectorsEqual(List<String> lines, String separator, int offset) {
+        for (int row = 0; row < VECTORS.length; row++) {
+            String[] tokens = lines.get(row).split(separator);
+            assertEquals(VECTORS[row].length + offset, tokens.length);
+            for (int i = 0; i < VECTORS[row].length; i++) {
+                assertEquals(VECTORS[row][i], Float.parseFloat(tokens[i + offset]));
+            }
+        }
+    }
+
+    private static void writeWord2VecBinary(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write((WORDS.length + " " + VECTORS[0].length + "\n").getBytes(StandardCharsets.UTF_8));
+        for (int row = 0; row < WORDS.length; row++) {
+            out.write((WORDS[row] + " ").getBytes(StandardCharsets.UTF_8));
+            out.write(toLittleEndian(VECTORS[row]));
+            // gensim writes a line break after every vector; it is optional
+            if (row % 2 == 0) out.write('\n');
+        }
+        FileUtils.writeByteArrayToFile(file, out.toByteArray());
+    }
+
+    private static void writeNpy(File file) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringBuilder header = new StringBuilder("{'descr': '<f4', 'fortran_order': False, 'shape': (" +
+                WORDS.length + ", " + VECTORS[0].length + "), }");
+        while ((10 + header.length() + 1) % 64 != 0) header.append(' ');
+        header.append('\n');
+        out.write(new byte[]{(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+        out.write(header.length() & 0xff);
+        out.write(header.length() >> 8);
+        out.write(header.toString().getBytes(StandardCharsets.ISO_8859_1));
+        for (float[] vector : VECTORS) {
+            out.write(toLittleEndian(vector));
+        }
+        FileUtils.writeByteArrayToFile(file, out.toByteArray());
+    }
+
+    private static byte[] toLittleEndian(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * vector.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : vector) buffer.putFloat(value);
+        return buffer.array();
+    }
+}
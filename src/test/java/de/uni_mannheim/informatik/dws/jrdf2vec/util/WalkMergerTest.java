@@ -1,11 +1,21 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.util;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 
 import java.io.File;
-import java.util.Set;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.deleteFile;
 import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.getPathOfResource;
@@ -41,4 +51,77 @@ class WalkMergerTest {
         assertTrue(fileToWrite.exists());
         assertTrue(fileToWrite.delete(), "Could not delete File.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void mergeWalksInFileOrder(@TempDir File directory) throws IOException {
+        File walkDirectory = new File(directory, "walks");
+        walkDirectory.mkdirs();
+        // every file spans multiple blocks so that the blocks of the files would interleave
+        List<String> expected = new ArrayList<>();
+        for (int file = 0; file < 4; file++) {
+            List<String> walks = new ArrayList<>();
+            for (int walk = 0; walk < 100_000; walk++) {
+                walks.add("entity_" + file + " p walk_" + walk);
+            }
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(
+                    new File(walkDirectory, "walk_file_" + file + ".txt.gz").toPath()))) {
+                IOUtils.writeLines(walks, "\n", out, StandardCharsets.UTF_8);
+            }
+            expected.addAll(walks);
+        }
+        File fileToWrite = new File(directory, "merged.txt");
+        WalkMerger.mergeWalks(walkDirectory, fileToWrite, false, 0, 4);
+        List<String> lines = FileUtils.readLines(fileToWrite, StandardCharsets.UTF_8);
+        assertEquals(expected.size(), lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            if (!expected.get(i).equals(lines.get(i))) fail("Unexpected walk in line " + i + ": " + lines.get(i));
+        }
+    }
+
+    @Test
+    void mergeWalksShuffledGzipped() throws IOException {
+        File walkDirectory = new File(getPathOfResource("walk_merge"));
+        File fileToWrite = new File("./mergedWalksShuffledTest.txt.gz");
+        fileToWrite.deleteOnExit();
+        WalkMerger.mergeWalks(walkDirectory, fileToWrite, true, 3, 2);
+        assertTrue(fileToWrite.exists());
+        assertFalse(new File("./mergedWalksShuffledTest.txt.gz_buckets").exists());
+
+        List<String> lines;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(fileToWrite.toPath()))) {
+            lines = IOUtils.readLines(in, StandardCharsets.UTF_8);
+        }
+        // every walk appears exactly once; the file without line break at its end does not glue lines together
+        Collections.sort(lines);
+        assertEquals(Arrays.asList("? = %", "A B C", "D E F", "D E F", "G H I", "Ä Ö Ü"), lines);
+        assertTrue(fileToWrite.delete(), "Could not delete File.");
+    }
+
+    @Test
+    void mergeWalksShuffledAboveBucketBudget() throws IOException {
+        File walkDirectory = new File(getPathOfResource("walk_merge"));
+        File fileToWrite = new File("./mergedWalksShuffledBudgetTest.txt");
+        fileToWrite.deleteOnExit();
+        // a single bucket that exceeds the budget of 8 bytes has to be split (repeatedly)
+        WalkMerger.mergeWalks(walkDirectory, fileToWrite, true, 1, 2, 8);
+        assertFalse(new File("./mergedWalksShuffledBudgetTest.txt_buckets").exists());
+
+        List<String> lines = FileUtils.readLines(fileToWrite, StandardCharsets.UTF_8);
+        Collections.sort(lines);
+        assertEquals(Arrays.asList("? = %", "A B C", "D E F", "D E F", "G H I", "Ä Ö Ü"), lines);
+        assertTrue(fileToWrite.delete(), "Could not delete File.");
+    }
+
+    @Test
+    void estimateUncompressedSize() throws IOException {
+        File file = new File("./estimateUncompressedSizeTest.txt.gz");
+        file.deleteOnExit();
+        byte[] content = new byte[100_000];
+        Arrays.fill(content, (byte) 'a');
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.write(content);
+        }
+        assertEquals(content.length, WalkMerger.estimateUncompressedSize(file));
+        assertTrue(file.delete(), "Could not delete File.");
+    }
+}
@@ -0,0 +1,202 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkCheckpointLogTest {
+
+
+    private static final File LOG_DIRECTORY = new File("./checkpoint_log_test");
+
+    private static final File WALK_DIRECTORY = new File("./checkpoint_walks_test");
+
+    private static final File SYNC_DIRECTORY = new File("./checkpoint_sync_test");
+
+    private static final File TEXT_WALK_DIRECTORY = new File("./checkpoint_text_walks_test");
+
+    @Test
+    void commitAndRead() throws IOException {
+        FileUtils.deleteDirectory(LOG_DIRECTORY);
+        WalkCheckpointLog log = new WalkCheckpointLog(LOG_DIRECTORY);
+        assertEquals(0, log.getNextFileIndex());
+        assertTrue(log.commit("walks", "walk_file_0.txt.gz", Arrays.asList("A", "B", "line\nbreak")));
+        assertTrue(log.commit("walks", "walk_file_1.txt.gz", Collections.singletonList("C")));
+        assertTrue(log.commit("text", "walk_file_2.txt.gz", Collections.singletonList("A")));
+
+        // simulate a torn write
+        FileUtils.writeStringToFile(log.getLogFile(), "BEGIN walks walk_file_3.txt.gz 2\nE D\n",
+                StandardCharsets.UTF_8, true);
+
+        WalkCheckpointLog reread = new WalkCheckpointLog(LOG_DIRECTORY);
+        Set<String> walkEntities = reread.getCommittedEntities("walks");
+        assertEquals(4, walkEntities.size());
+        assertTrue(walkEntities.contains("line\nbreak"));
+        assertFalse(walkEntities.contains("D"));
+        assertEquals(1, reread.getCommittedEntities("text").size());
+        assertEquals(0, reread.getCommittedEntities("unknown").size());
+        assertEquals(3, reread.getNextFileIndex());
+        assertFalse(reread.getCommittedFiles().contains("walk_file_3.txt.gz"));
+
+        // uncommitted files are removed, other files are not touched
+        File uncommitted = new File(LOG_DIRECTORY, "walk_file_3.txt.gz");
+        File otherFile = new File(LOG_DIRECTORY, "model.kv");
+        FileUtils.writeStringToFile(uncommitted, "garbage", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(otherFile, "model", StandardCharsets.UTF_8);
+        assertEquals(1, reread.removeUncommittedWalkFiles());
+        assertFalse(uncommitted.exists());
+        assertTrue(otherFile.exists());
+        // a torn last line is cut off so that a new record can be read after it
+        FileUtils.writeStringToFile(log.getLogFile(), "BEGIN walks walk_file_4.txt.gz 1\nE To",
+                StandardCharsets.UTF_8, true);
+        WalkCheckpointLog resumed = new WalkCheckpointLog(LOG_DIRECTORY);
+        assertTrue(FileUtils.readFileToString(resumed.getLogFile(), StandardCharsets.UTF_8).endsWith("\n"));
+        assertTrue(resumed.commit("walks", "walk_file_5.txt.gz", Collections.singletonList("F")));
+        WalkCheckpointLog afterTornLine = new WalkCheckpointLog(LOG_DIRECTORY);
+        assertTrue(afterTornLine.getCommittedFiles().contains("walk_file_5.txt.gz"));
+        assertFalse(afterTornLine.getCommittedFiles().contains("walk_file_4.txt.gz"));
+        assertTrue(afterTornLine.getCommittedEntities("walks").contains("F"));
+        assertEquals(6, afterTornLine.getNextFileIndex());
+    }
+
+    @Test
+    void escape() {
+        String[] entities = {"http://example.com/A", "a\\b", "line\nbreak\r", ""};
+        for (String entity : entities) {
+            String escaped = WalkCheckpointLog.escape(entity);
+            assertFalse(escaped.contains("\n"));
+            assertEquals(entity, WalkCheckpointLog.unescape(escaped));
+        }
+    }
+
+    @Test
+    void resumeInterruptedWalkGeneration() throws IOException {
+        FileUtils.deleteDirectory(WALK_DIRECTORY);
+        File graph = loadFile("dummyGraph.nt");
+
+        WalkGenerationManager manager = new WalkGenerationManager(graph);
+        Set<String> allEntities = manager.entitySelector.getEntities();
+        manager.setCheckpointing(true);
+        manager.setCheckpointInterval(3);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 1, 5, 3, WALK_DIRECTORY);
+        manager.close();
+
+        // simulate a crash: the last commit record is torn and an incomplete walk file is left behind
+        File logFile = new File(WALK_DIRECTORY, WalkCheckpointLog.CHECKPOINT_FILE_NAME);
+        List<String> lines = FileUtils.readLines(logFile, StandardCharsets.UTF_8);
+        int lastBegin = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith("BEGIN ")) lastBegin = i;
+        }
+        assertTrue(lastBegin > 0, "Expected multiple checkpoints.");
+        FileUtils.writeLines(logFile, StandardCharsets.UTF_8.name(), lines.subList(0, lastBegin + 2));
+        File truncatedFile = new File(WALK_DIRECTORY, "walk_file_42.txt.gz");
+        FileUtils.writeStringToFile(truncatedFile, "not gzipped", StandardCharsets.UTF_8);
+
+        WalkGenerationManager resumed = new WalkGenerationManager(graph);
+        resumed.setCheckpointing(true);
+        resumed.setCheckpointInterval(3);
+        resumed.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 5, 3, WALK_DIRECTORY);
+        resumed.close();
+        assertFalse(truncatedFile.exists());
+
+        // every entity is contained in exactly one walk file
+        Map<String, String> entityToFile = new HashMap<>();
+        File[] files = WALK_DIRECTORY.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            if (!file.getName().endsWith(".gz")) continue;
+            Set<String> fileEntities = new HashSet<>();
+            for (String line : Util.readLinesFromGzippedFile(file)) {
+                fileEntities.add(line.split(" ")[0]);
+            }
+            for (String entity : fileEntities) {
+                assertNull(entityToFile.put(entity, file.getName()), "Entity " + entity + " written twice.");
+            }
+        }
+        assertEquals(new WalkCheckpointLog(WALK_DIRECTORY).getCommittedEntities("walks"), allEntities);
+        for (String entity : entityToFile.keySet()) {
+            assertTrue(allEntities.contains(entity));
+        }
+    }
+
+    @Test
+    void commitAfterSync() throws IOException {
+        FileUtils.deleteDirectory(SYNC_DIRECTORY);
+        List<String> syncedFiles = new ArrayList<>();
+        WalkGenerationManager manager = new WalkGenerationManager(loadFile("dummyGraph.nt")) {
+            @Override
+            void syncWalkFile(FileOutputStream stream, File file) throws IOException {
+                // the gzip stream is complete before the sync, the commit happens after the sync
+                try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+                    // throws an EOFException if the gzip trailer is missing
+                    IOUtils.toByteArray(in);
+                }
+                assertFalse(new WalkCheckpointLog(SYNC_DIRECTORY).getCommittedFiles().contains(file.getName()));
+                super.syncWalkFile(stream, file);
+                syncedFiles.add(file.getName());
+            }
+        };
+        manager.setCheckpointing(true);
+        manager.setCheckpointInterval(3);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 1, 5, 3, SYNC_DIRECTORY);
+        manager.close();
+
+        Set<String> committedFiles = new WalkCheckpointLog(SYNC_DIRECTORY).getCommittedFiles();
+        assertTrue(committedFiles.size() > 1, "Expected multiple checkpoints.");
+        assertTrue(syncedFiles.containsAll(committedFiles));
+    }
+
+    @Test
+    void resumeTextWalksInWalkDirectory() throws IOException {
+        FileUtils.deleteDirectory(TEXT_WALK_DIRECTORY);
+        File graph = loadFile("dummyGraph_with_labels.nt");
+        WalkGenerationManager manager = new WalkGenerationManager(graph, true, true);
+        manager.setCheckpointing(true);
+        manager.setCheckpointInterval(3);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 3, 2, 5, TEXT_WALK_DIRECTORY);
+
+        // the text walks and their checkpoint records are in the given walk directory
+        WalkCheckpointLog log = new WalkCheckpointLog(TEXT_WALK_DIRECTORY);
+        Set<String> textEntities = log.getCommittedEntities(WalkGenerationManager.PHASE_TEXT_WALKS);
+        assertFalse(textEntities.isEmpty());
+        List<String> textWalks = new ArrayList<>();
+        for (String fileName : log.getCommittedFiles()) {
+            File file = new File(TEXT_WALK_DIRECTORY, fileName);
+            assertTrue(file.exists(), fileName);
+            textWalks.addAll(Util.readLinesFromGzippedFile(file));
+        }
+        assertTrue(textWalks.contains("W rdfs:label gedichte"));
+
+        // a resumed run does not write the text walks again
+        WalkGenerationManager resumed = new WalkGenerationManager(graph, true, true);
+        resumed.setCheckpointing(true);
+        resumed.setCheckpointInterval(3);
+        resumed.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 3, 2, 5, TEXT_WALK_DIRECTORY);
+        WalkCheckpointLog resumedLog = new WalkCheckpointLog(TEXT_WALK_DIRECTORY);
+        assertEquals(log.getCommittedFiles(), resumedLog.getCommittedFiles());
+        assertEquals(textEntities, resumedLog.getCommittedEntities(WalkGenerationManager.PHASE_TEXT_WALKS));
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        try {
+            FileUtils.deleteDirectory(LOG_DIRECTORY);
+            FileUtils.deleteDirectory(WALK_DIRECTORY);
+            FileUtils.deleteDirectory(SYNC_DIRECTORY);
+            FileUtils.deleteDirectory(TEXT_WALK_DIRECTORY);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
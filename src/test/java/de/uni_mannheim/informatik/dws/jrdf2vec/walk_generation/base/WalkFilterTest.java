@@ -0,0 +1,106 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.TripleDataSetMemory;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.IWalkGenerator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.MemoryWalkGenerator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.WalkGeneratorManager;
+import org.apache.commons.io.FileUtils;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkFilterTest {
+
+
+    private static final String SAME_AS = "http://www.w3.org/2002/07/owl#sameAs";
+    private static final String TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+    private static final String KNOWS = "http://example.org/knows";
+    private static final String LABEL = "http://example.org/label";
+
+    @Test
+    void parse() {
+        WalkFilter filter = WalkFilter.parse(Arrays.asList(
+                "# comment",
+                "",
+                "exclude-predicate <" + SAME_AS + ">",
+                "exclude-namespace http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+                "exclude-literals"));
+        assertNotNull(filter);
+        assertFalse(filter.isAccepted(SAME_AS));
+        assertFalse(filter.isAccepted(TYPE));
+        assertTrue(filter.isAccepted(KNOWS));
+        assertTrue(filter.isExcludeLiterals());
+        assertFalse(filter.isAcceptingAllPredicates());
+
+        assertNull(WalkFilter.parse(Arrays.asList("exclude-predicate")));
+        assertNull(WalkFilter.parse(Arrays.asList("drop " + SAME_AS)));
+        assertNull(WalkFilter.read(new File("./does_not_exist.txt")));
+    }
+
+    @Test
+    void isAccepted() {
+        WalkFilter filter = new WalkFilter();
+        assertTrue(filter.isAcceptingAllPredicates());
+        assertTrue(filter.isAccepted(SAME_AS));
+
+        // include rules: only included predicates and namespaces are accepted
+        filter.includeNamespace("http://example.org/").includePredicate(TYPE).excludePredicate(LABEL);
+        assertTrue(filter.isAccepted(KNOWS));
+        assertTrue(filter.isAccepted(TYPE));
+        assertFalse(filter.isAccepted(LABEL));
+        assertFalse(filter.isAccepted(SAME_AS));
+
+        // explicit predicates take precedence over namespaces
+        filter = new WalkFilter().excludeNamespace("http://example.org/").includePredicate(KNOWS);
+        assertTrue(filter.isAccepted(KNOWS));
+        assertFalse(filter.isAccepted(LABEL));
+        assertFalse(filter.isAccepted(SAME_AS));
+    }
+
+    @Test
+    void filterAtIngest() throws IOException {
+        File directory = new File("./walk_filter_test");
+        directory.mkdirs();
+        File ntFile = new File(directory, "graph.nt");
+        String nt = "<http://example.org/A> <" + KNOWS + "> <http://example.org/B> .\n" +
+                "<http://example.org/A> <" + SAME_AS + "> <http://example.org/A2> .\n" +
+                "<http://example.org/B> <" + SAME_AS + "> <http://example.org/B2> .\n" +
+                "<http://example.org/A> <" + TYPE + "> <http://example.org/Person> .\n" +
+                "<http://example.org/A> <" + LABEL + "> \"a\" .\n" +
+                "<http://example.org/B> <http://example.org/comment> \"b\" .\n";
+        FileUtils.writeStringToFile(ntFile, nt, StandardCharsets.UTF_8);
+        try {
+            WalkFilter filter = new WalkFilter().excludePredicate(SAME_AS).excludePredicate(LABEL);
+            Pair<IWalkGenerator, EntitySelector> result = WalkGeneratorManager.parseSingleFile(ntFile, true, filter);
+            TripleDataSetMemory data = ((MemoryWalkGenerator) result.getValue0()).getData();
+            assertEquals(2, data.getObjectTripleSize());
+            assertEquals(1, data.getDatatypeTripleSize());
+            assertEquals(3, data.getNumberOfFilteredTriples());
+            assertTrue(data.getObjectTriplesInvolvingPredicate(SAME_AS) == null
+                    || data.getObjectTriplesInvolvingPredicate(SAME_AS).isEmpty());
+            assertFalse(result.getValue1().getEntities().contains("http://example.org/A2"));
+
+            // literals
+            filter.setExcludeLiterals(true);
+            data = ((MemoryWalkGenerator) WalkGeneratorManager.parseSingleFile(ntFile, true, filter).getValue0())
+                    .getData();
+            assertEquals(2, data.getObjectTripleSize());
+            assertEquals(0, data.getDatatypeTripleSize());
+
+            // without filter
+            data = ((MemoryWalkGenerator) WalkGeneratorManager.parseSingleFile(ntFile, true).getValue0()).getData();
+            assertEquals(4, data.getObjectTripleSize());
+            assertEquals(2, data.getDatatypeTripleSize());
+            assertEquals(0, data.getNumberOfFilteredTriples());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
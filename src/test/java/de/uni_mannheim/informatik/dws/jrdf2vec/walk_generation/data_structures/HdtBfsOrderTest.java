@@ -0,0 +1,123 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntityOrdering;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.HdtEntitySelector;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdtBfsOrderTest {
+
+
+    private static final File DIRECTORY = new File("./hdt_bfs_order_test");
+
+    private static File hdtFile;
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        // two components whose nodes are interleaved in the dictionary: n0 - n2 - n4 - n6 and n1 - n3 - n5
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i + 2 <= 6; i++) {
+            nt.append("<http://ex.org/n").append(i).append("> <http://ex.org/p> <http://ex.org/n").append(i + 2)
+                    .append("> .\n");
+        }
+        File ntFile = new File(DIRECTORY, "graph.nt");
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        hdtFile = new File(DIRECTORY, "graph.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://ex.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void getOrder() throws IOException {
+        try (HdtSession session = HdtSession.acquire(hdtFile)) {
+            int[] order = HdtBfsOrder.getOrder(session.getHdt(), hdtFile);
+            assertNotNull(order);
+            assertEquals(7, order.length);
+            Set<Integer> distinct = new HashSet<>();
+            for (int ordinal : order) distinct.add(ordinal);
+            assertEquals(7, distinct.size());
+
+            // cached
+            File orderFile = HdtBfsOrder.getOrderFile(hdtFile);
+            assertTrue(orderFile.isFile());
+            assertArrayEquals(order, HdtBfsOrder.read(orderFile, 7));
+            assertNull(HdtBfsOrder.read(orderFile, 8));
+            assertArrayEquals(order, HdtBfsOrder.getOrder(session.getHdt(), hdtFile));
+        }
+    }
+
+    @Test
+    void entitySelectorOrdering() throws IOException {
+        HdtEntitySelector selector = new HdtEntitySelector(hdtFile.getAbsolutePath());
+        try {
+            assertEquals(EntityOrdering.DICTIONARY, selector.getEntityOrdering());
+            List<String> dictionaryOrder = new ArrayList<>(selector.getEntities());
+            assertEquals(7, dictionaryOrder.size());
+
+            selector.setEntityOrdering(EntityOrdering.BFS);
+            List<String> bfsOrder = new ArrayList<>(selector.getEntities());
+            assertEquals(new HashSet<>(dictionaryOrder), new HashSet<>(bfsOrder));
+
+            // the components are contiguous in the BFS order but not in the dictionary order
+            assertTrue(isComponentContiguous(bfsOrder));
+            assertFalse(isComponentContiguous(dictionaryOrder));
+
+            // partitions keep the order
+            List<String> partition = new ArrayList<>(selector.getEntities(0, 2));
+            List<String> expected = new ArrayList<>(bfsOrder);
+            expected.retainAll(partition);
+            assertEquals(expected, partition);
+
+            selector.setEntityOrdering(EntityOrdering.NONE);
+            assertEquals(new HashSet<>(dictionaryOrder), selector.getEntities());
+        } finally {
+            selector.close();
+        }
+    }
+
+    @Test
+    void getOrderingFromString() {
+        assertEquals(EntityOrdering.BFS, EntityOrdering.getOrderingFromString(" BFS "));
+        assertEquals(EntityOrdering.DICTIONARY, EntityOrdering.getOrderingFromString("id"));
+        assertEquals(EntityOrdering.NONE, EntityOrdering.getOrderingFromString("none"));
+        assertNull(EntityOrdering.getOrderingFromString("rabbit"));
+        assertNull(EntityOrdering.getOrderingFromString(null));
+    }
+
+    /**
+     * @return True if the nodes with an even number come before or after all nodes with an odd number.
+     */
+    private static boolean isComponentContiguous(List<String> entities) {
+        int changes = 0;
+        for (int i = 1; i < entities.size(); i++) {
+            if (isEven(entities.get(i)) != isEven(entities.get(i - 1))) changes++;
+        }
+        return changes == 1;
+    }
+
+    private static boolean isEven(String entity) {
+        return Integer.parseInt(entity.substring(entity.length() - 1)) % 2 == 0;
+    }
+}
@@ -0,0 +1,125 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.dictionary.Dictionary;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdtGlobalIdMappingTest {
+
+
+    private static final File DIRECTORY = new File("./hdt_global_id_mapping_test");
+
+    private static List<File> hdtFiles;
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        hdtFiles = Arrays.asList(
+                createHdt("first", "<http://ex.org/A> <http://ex.org/p> <http://ex.org/B> .\n" +
+                        "<http://ex.org/B> <http://ex.org/p> <http://ex.org/C> .\n" +
+                        "<http://ex.org/A> <http://ex.org/label> \"aäb\" .\n"),
+                createHdt("second", "<http://ex.org/C> <http://ex.org/q> <http://ex.org/D> .\n" +
+                        "<http://ex.org/X> <http://ex.org/q> <http://ex.org/A> .\n" +
+                        "<http://ex.org/B> <http://ex.org/q> \"aäb\" .\n"));
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void mapping() throws IOException {
+        File mappingFile = new File(DIRECTORY, "mapping.map");
+        List<HdtSession> sessions = new ArrayList<>();
+        List<HDT> hdts = new ArrayList<>();
+        for (File file : hdtFiles) {
+            HdtSession session = HdtSession.acquire(file);
+            sessions.add(session);
+            hdts.add(session.getHdt());
+        }
+        try (HdtGlobalIdMapping mapping = HdtGlobalIdMapping.open(hdtFiles, hdts, mappingFile)) {
+            // A, B, C, D, X, and the literal
+            assertEquals(6, mapping.getNumberOfGlobalIds());
+
+            Map<String, Long> globalIds = new HashMap<>();
+            for (int file = 0; file < hdts.size(); file++) {
+                Dictionary dictionary = hdts.get(file).getDictionary();
+                for (TripleComponentRole role : new TripleComponentRole[]{TripleComponentRole.SUBJECT,
+                        TripleComponentRole.OBJECT}) {
+                    long size = role == TripleComponentRole.SUBJECT ? dictionary.getNsubjects() :
+                            dictionary.getNobjects();
+                    for (long localId = 1; localId <= size; localId++) {
+                        String term = dictionary.idToString(localId, role).toString();
+                        long globalId = mapping.toGlobal(file, localId, role);
+                        // equal terms share the global ID across files
+                        Long known = globalIds.putIfAbsent(term, globalId);
+                        if (known != null) assertEquals((long) known, globalId, term);
+                        assertEquals(localId, mapping.toLocal(file, globalId, role), term);
+
+                        // the occurrence decodes to the same term
+                        int occurrenceFile = mapping.getOccurrenceFile(globalId);
+                        assertEquals(term, hdts.get(occurrenceFile).getDictionary().idToString(
+                                mapping.getOccurrenceLocalId(globalId), mapping.getOccurrenceRole(globalId))
+                                .toString());
+                    }
+                }
+            }
+            assertEquals(6, globalIds.size());
+
+            // D does not occur in the first file, X is not an object in the second file
+            assertEquals(0, mapping.toLocal(0, globalIds.get("http://ex.org/D"), TripleComponentRole.OBJECT));
+            assertEquals(0, mapping.toLocal(1, globalIds.get("http://ex.org/X"), TripleComponentRole.OBJECT));
+        }
+
+        // the cached mapping is reused
+        long lastModified = mappingFile.lastModified();
+        assertTrue(mappingFile.setLastModified(lastModified - 10000));
+        HdtGlobalIdMapping.open(hdtFiles, hdts, mappingFile).close();
+        assertEquals(lastModified - 10000, mappingFile.lastModified());
+
+        // a changed HDT file invalidates the mapping
+        assertTrue(hdtFiles.get(1).setLastModified(hdtFiles.get(1).lastModified() - 10000));
+        try (HdtGlobalIdMapping mapping = HdtGlobalIdMapping.open(hdtFiles, hdts, mappingFile)) {
+            assertNotEquals(lastModified - 10000, mappingFile.lastModified());
+            assertEquals(6, mapping.getNumberOfGlobalIds());
+        }
+        for (HdtSession session : sessions) session.close();
+    }
+
+    @Test
+    void compare() {
+        assertTrue(HdtGlobalIdMapping.compare("a", "b") < 0);
+        assertTrue(HdtGlobalIdMapping.compare("ab", "a") > 0);
+        assertEquals(0, HdtGlobalIdMapping.compare("a", "a"));
+        // UTF-8 byte order: supplementary characters come after all other characters
+        assertTrue(HdtGlobalIdMapping.compare("😀", "�") > 0);
+        assertTrue(HdtGlobalIdMapping.compare("ä", "z") > 0);
+    }
+
+    private static File createHdt(String name, String nt) throws IOException, ParserException {
+        File ntFile = new File(DIRECTORY, name + ".nt");
+        FileUtils.writeStringToFile(ntFile, nt, StandardCharsets.UTF_8);
+        File result = new File(DIRECTORY, name + ".hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://ex.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(result.getAbsolutePath(), null);
+        }
+        return result;
+    }
+}
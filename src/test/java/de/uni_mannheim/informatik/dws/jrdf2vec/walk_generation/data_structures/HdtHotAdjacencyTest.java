@@ -0,0 +1,125 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.HdtWalkGenerator;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.enums.TripleComponentRole;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+import org.rdfhdt.hdt.triples.IteratorTripleID;
+import org.rdfhdt.hdt.triples.TripleID;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdtHotAdjacencyTest {
+
+
+    private static final File DIRECTORY = new File("./hdt_hot_adjacency_test");
+
+    private static final String NS = "http://ex.org/";
+
+    private static File hdtFile;
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        // a chain n0 -> n1 -> n2 -> n3 and a hub h pointing to all chain nodes
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            nt.append("<" + NS + "n" + i + "> <" + NS + "p> <" + NS + "n" + (i + 1) + "> .\n");
+        }
+        for (int i = 0; i < 4; i++) {
+            nt.append("<" + NS + "h> <" + NS + "q> <" + NS + "n" + i + "> .\n");
+        }
+        File ntFile = new File(DIRECTORY, "graph.nt");
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        hdtFile = new File(DIRECTORY, "graph.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), NS, RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void build() throws IOException {
+        try (HdtSession session = HdtSession.acquire(hdtFile)) {
+            HDT hdt = session.getHdt();
+            long hub = hdt.getDictionary().stringToId(NS + "h", TripleComponentRole.SUBJECT);
+            long n0 = hdt.getDictionary().stringToId(NS + "n0", TripleComponentRole.SUBJECT);
+
+            // only the hub (degree 4) fits
+            HdtHotAdjacency hot = HdtHotAdjacency.build(hdt, 100);
+            assertEquals(1, hot.getNumberOfNodes());
+            assertEquals(4, hot.getOutDegree(hub));
+            assertEquals(-1, hot.getOutDegree(n0));
+            assertNull(hot.getOutgoing(n0));
+            assertEquals(search(hdt, new TripleID(hub, 0, 0)), new HashSet<>(hot.getOutgoing(hub)));
+            assertTrue(hot.getSizeInBytes() <= 100);
+
+            // everything fits
+            hot = HdtHotAdjacency.build(hdt, 1024 * 1024);
+            assertEquals(5, hot.getNumberOfNodes());
+            assertEquals(14, hot.getNumberOfEdges());
+            for (String node : Arrays.asList("n0", "n1", "n2", "n3")) {
+                long object = hdt.getDictionary().stringToId(NS + node, TripleComponentRole.OBJECT);
+                assertEquals(search(hdt, new TripleID(0, 0, object)), new HashSet<>(hot.getIncoming(object)));
+                assertEquals(hot.getInDegree(object), hot.getIncoming(object).size());
+            }
+            assertEquals(search(hdt, new TripleID(n0, 0, 0)), new HashSet<>(hot.getOutgoing(n0)));
+            assertEquals(hot.getOutgoing(n0).get(0), hot.getOutgoing(n0, 0));
+
+            // no budget
+            assertEquals(0, HdtHotAdjacency.build(hdt, 0).getNumberOfNodes());
+        }
+    }
+
+    @Test
+    void generatorWithHotTier() throws IOException {
+        HdtWalkGenerator generator = new HdtWalkGenerator(hdtFile);
+        try {
+            generator.setHotTierBudget(1024 * 1024);
+            assertNotNull(generator.getHotAdjacency());
+            List<String> walks = generator.generateRandomWalksForEntity(NS + "n0", 10, 2);
+            assertEquals(10, walks.size());
+            for (String walk : walks) {
+                assertEquals(NS + "n0 " + NS + "p " + NS + "n1 " + NS + "p " + NS + "n2", walk);
+            }
+
+            // capped hub lookups are sampled from the hot tier
+            generator.setMaxDegree(2);
+            for (String walk : generator.generateRandomWalksForEntity(NS + "h", 10, 1)) {
+                assertTrue(walk.startsWith(NS + "h " + NS + "q " + NS + "n"));
+            }
+
+            generator.setHotTierBudget(0);
+            assertNull(generator.getHotAdjacency());
+        } finally {
+            generator.close();
+        }
+    }
+
+    private static Set<TripleID> search(HDT hdt, TripleID pattern) {
+        Set<TripleID> result = new HashSet<>();
+        IteratorTripleID iterator = hdt.getTriples().search(pattern);
+        while (iterator.hasNext()) {
+            TripleID triple = iterator.next();
+            result.add(new TripleID(triple.getSubject(), triple.getPredicate(), triple.getObject()));
+        }
+        return result;
+    }
+}
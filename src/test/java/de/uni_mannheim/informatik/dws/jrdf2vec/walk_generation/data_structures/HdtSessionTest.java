@@ -0,0 +1,116 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.HdtEntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.HdtWalkGenerator;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HdtSessionTest {
+
+
+    private static final File DIRECTORY = new File("./hdt_session_test");
+
+    private static File hdtFile;
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        hdtFile = createHdt("graph", 20);
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void sharedSession() throws IOException {
+        HdtWalkGenerator generator = new HdtWalkGenerator(hdtFile);
+        HdtEntitySelector selector = new HdtEntitySelector(hdtFile.getAbsolutePath());
+        try (HdtSession session = HdtSession.acquire(hdtFile)) {
+            // generator and selector work on the same mapping
+            assertSame(session, generator.getSession());
+            assertSame(session.getHdt(), generator.getHdt());
+            assertEquals(21, selector.getEntities().size());
+
+            // the path of the index file is mapped to the HDT file
+            try (HdtSession sameSession = HdtSession.acquire(HdtSession.getIndexFile(hdtFile))) {
+                assertSame(session, sameSession);
+            }
+            generator.close();
+            selector.close();
+            // still referenced by this session
+            assertEquals(20, session.getHdt().getTriples().getNumberOfElements());
+        }
+
+        // all references released: a new session is opened
+        try (HdtSession session = HdtSession.acquire(hdtFile)) {
+            assertNotSame(generator.getHdt(), session.getHdt());
+        }
+    }
+
+    @Test
+    void buildIndices() throws IOException, ParserException {
+        File first = createHdt("first", 5);
+        File second = createHdt("second", 7);
+        assertFalse(HdtSession.isIndexUpToDate(first));
+
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        assertTrue(HdtSession.buildIndices(Arrays.asList(first, second), 2, messages::add));
+        assertTrue(HdtSession.isIndexUpToDate(first));
+        assertTrue(HdtSession.isIndexUpToDate(second));
+
+        // an index that is older than the HDT file is rebuilt
+        File index = HdtSession.getIndexFile(first);
+        assertTrue(index.setLastModified(first.lastModified() - 10000));
+        assertFalse(HdtSession.isIndexUpToDate(first));
+        assertTrue(HdtSession.buildIndex(first, null));
+        assertTrue(HdtSession.isIndexUpToDate(first));
+
+        assertFalse(HdtSession.buildIndex(new File(DIRECTORY, "does_not_exist.hdt"), null));
+    }
+
+    @Test
+    void progressMessage() {
+        Instant start = Instant.parse("2020-01-01T00:00:00Z");
+        assertEquals("graph.hdt: 25.0% (Creating index) - estimated time remaining: 0:03:00",
+                HdtSession.ProgressReporter.format("graph.hdt", 25, "Creating index", start,
+                        start.plusSeconds(60)));
+        assertEquals("graph.hdt: 100.0%", HdtSession.ProgressReporter.format("graph.hdt", 100, null, start,
+                start.plusSeconds(60)));
+    }
+
+    private static File createHdt(String name, int numberOfTriples) throws IOException, ParserException {
+        File ntFile = new File(DIRECTORY, name + ".nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < numberOfTriples; i++) {
+            nt.append("<http://example.org/S").append(i).append("> <http://example.org/p> <http://example.org/S")
+                    .append(i + 1).append("> .\n");
+        }
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        File result = new File(DIRECTORY, name + ".hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://example.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(result.getAbsolutePath(), null);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralArenaTest {
+
+
+    @Test
+    void add() {
+        LiteralArena arena = new LiteralArena();
+        assertTrue(arena.add("A", "label", "hello world"));
+        assertTrue(arena.add("A", "label", "größe"));
+        assertTrue(arena.add("A", "comment", "hello world"));
+        assertTrue(arena.add("B", "label", "hello world"));
+
+        // duplicate
+        assertFalse(arena.add("A", "label", "hello world"));
+        assertEquals(4, arena.size());
+
+        Map<String, Set<String>> literals = arena.getLiterals("A");
+        assertEquals(2, literals.size());
+        assertEquals(2, literals.get("label").size());
+        assertTrue(literals.get("label").contains("größe"));
+        assertTrue(literals.get("comment").contains("hello world"));
+        assertNull(arena.getLiterals("C"));
+
+        List<String> streamed = new ArrayList<>();
+        arena.forEachLiteral("A", (predicate, literal) -> streamed.add(predicate + "|" + literal));
+        assertEquals(3, streamed.size());
+        assertEquals("label|hello world", streamed.get(0));
+
+        assertTrue(arena.containsSubject("B"));
+        assertFalse(arena.containsSubject("C"));
+        assertEquals(2, arena.getSubjects().size());
+    }
+
+    @Test
+    void pages() {
+        LiteralArena arena = new LiteralArena();
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < LiteralArena.PAGE_SIZE / 8 + 1; i++) large.append("abcdefgh");
+        String largeLiteral = large.toString();
+
+        // many small literals (page growth and record growth) and one literal that exceeds a page
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(arena.add("S" + (i % 100), "p", "literal " + i));
+        }
+        assertTrue(arena.add("S0", "large", largeLiteral));
+        assertTrue(arena.add("S0", "p", "after large"));
+        assertEquals(10002, arena.size());
+        assertTrue(arena.getNumberOfBytes() > LiteralArena.PAGE_SIZE);
+
+        Map<String, Set<String>> literals = arena.getLiterals("S0");
+        assertEquals(largeLiteral, literals.get("large").iterator().next());
+        assertEquals(101, literals.get("p").size());
+        assertTrue(literals.get("p").contains("literal 9900"));
+        assertTrue(literals.get("p").contains("after large"));
+        assertEquals(100, arena.getLiterals("S42").get("p").size());
+    }
+}
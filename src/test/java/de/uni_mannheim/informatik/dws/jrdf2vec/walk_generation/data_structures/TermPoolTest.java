@@ -0,0 +1,112 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.NtMemoryWalkGenerator;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators.NxMemoryWalkGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermPoolTest {
+
+
+    @Test
+    void canonicalize() {
+        TermPool pool = new TermPool();
+        String a = pool.canonicalize("http://ex.org/a");
+        assertSame(a, pool.canonicalize(new String("http://ex.org/a")));
+        assertNotSame(a, pool.canonicalize("http://ex.org/b"));
+        assertNull(pool.canonicalize(null));
+
+        assertEquals(0, pool.getId("http://ex.org/a"));
+        assertEquals(1, pool.getId("http://ex.org/b"));
+        assertEquals(2, pool.getId("http://ex.org/c"));
+        assertEquals(3, pool.size());
+        assertEquals("http://ex.org/b", pool.getTerm(1));
+        assertEquals(1, pool.lookup("http://ex.org/b"));
+        assertEquals(TermPool.NOT_FOUND, pool.lookup("http://ex.org/d"));
+        assertEquals(3, pool.size());
+
+        // the pool grows
+        for (int i = 0; i < 5000; i++) assertEquals("term_" + i, pool.canonicalize("term_" + i));
+        assertEquals(5003, pool.size());
+        for (int i = 0; i < 5000; i++) assertEquals(i + 3, pool.lookup(new String("term_" + i)));
+        assertEquals(0, pool.lookup("http://ex.org/a"));
+    }
+
+    @Test
+    void collidingHashCodes() {
+        // "Aa" and "BB" have the same hash code
+        TermPool pool = new TermPool();
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(0, pool.getId("Aa"));
+        assertEquals(1, pool.getId("BB"));
+        assertEquals(2, pool.getId("AaBB"));
+        assertEquals(3, pool.getId("BBAa"));
+        assertEquals(0, pool.lookup(new String("Aa")));
+        assertEquals(1, pool.lookup(new String("BB")));
+        assertEquals(3, pool.lookup("BBAa"));
+        assertEquals(TermPool.NOT_FOUND, pool.lookup("AaAa"));
+        assertEquals(4, pool.size());
+    }
+
+    @Test
+    void concurrentIds() throws Exception {
+        TermPool pool = new TermPool();
+        int numberOfTerms = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<int[]>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                int[] ids = new int[numberOfTerms];
+                for (int i = 0; i < numberOfTerms; i++) ids[i] = pool.getId("term_" + i);
+                return ids;
+            }));
+        }
+        int[] expected = futures.get(0).get();
+        for (Future<int[]> future : futures) assertArrayEquals(expected, future.get());
+        executor.shutdown();
+
+        // dense and unique
+        assertEquals(numberOfTerms, pool.size());
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < numberOfTerms; i++) {
+            ids.add(expected[i]);
+            assertEquals("term_" + i, pool.getTerm(expected[i]));
+        }
+        assertEquals(numberOfTerms, ids.size());
+    }
+
+    @Test
+    void parsersShareTerms() {
+        File file = Util.loadFile("pizza.owl.nt");
+        assertNotNull(file);
+        assertCanonical(new NtMemoryWalkGenerator(file).getData());
+        assertCanonical(new NxMemoryWalkGenerator(file).getData());
+        assertCanonical(TripleDataSetMemory.parseNtFile(file));
+    }
+
+    /**
+     * Every term of the data set must be the canonical instance of its term pool.
+     */
+    private static void assertCanonical(TripleDataSetMemory data) {
+        TermPool pool = data.getTermPool();
+        assertTrue(data.getObjectTripleSize() > 0);
+        for (Triple triple : data.getAllObjectTriples()) {
+            for (String term : new String[]{triple.subject, triple.predicate, triple.object}) {
+                int id = pool.lookup(term);
+                assertNotEquals(TermPool.NOT_FOUND, id);
+                assertSame(pool.getTerm(id), term);
+            }
+        }
+    }
+}
@@ -4,9 +4,7 @@ import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -214,4 +212,260 @@ class TripleDataSetMemoryTest {
         assertEquals(20, tds.getObjectNodes().size());
         assertEquals(9, tds.getUniqueObjectTriplePredicates().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void maxDegree() {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        for (int i = 0; i < 100; i++) {
+            ds.addObjectTriple("S" + i, "type", "Hub");
+        }
+        ds.addObjectTriple("Hub", "P", "O");
+        assertEquals(100, ds.getObjectTriplesInvolvingObject("Hub").size());
+
+        ds.setMaxDegree(10);
+        assertEquals(10, ds.getMaxDegree());
+        assertEquals(100, ds.getNumberOfObjectTriplesInvolvingObject("Hub"));
+        assertEquals(1, ds.getNumberOfObjectTriplesInvolvingSubject("Hub"));
+        assertEquals(0, ds.getNumberOfObjectTriplesInvolvingSubject("Unknown"));
+
+        // hub: sample without duplicates, all sampled triples exist
+        Set<Triple> seen = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            List<Triple> sample = ds.getObjectTriplesInvolvingObject("Hub");
+            assertEquals(10, sample.size());
+            assertEquals(10, new HashSet<>(sample).size());
+            for (Triple triple : sample) {
+                assertEquals("Hub", triple.object);
+            }
+            seen.addAll(sample);
+        }
+        // every edge can be reached
+        assertEquals(100, seen.size());
+
+        // no hub: all triples
+        assertEquals(1, ds.getObjectTriplesInvolvingSubject("Hub").size());
+
+        // the sample reflects triples added later
+        ds.addObjectTriple("S100", "type", "Hub");
+        assertEquals(101, ds.getNumberOfObjectTriplesInvolvingObject("Hub"));
+        boolean isNewTripleDrawn = false;
+        for (int i = 0; i < 1000 && !isNewTripleDrawn; i++) {
+            isNewTripleDrawn = ds.getObjectTriplesInvolvingObject("Hub").contains(new Triple("S100", "type", "Hub"));
+        }
+        assertTrue(isNewTripleDrawn);
+
+        // disable
+        ds.setMaxDegree(TripleDataSetMemory.NO_DEGREE_LIMIT);
+        assertEquals(101, ds.getObjectTriplesInvolvingObject("Hub").size());
+    }
+
+    @Test
+    void edgeArrays() {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        ds.addObjectTriple("A", "P1", "B");
+        ds.addObjectTriple("A", "P2", "C");
+        ds.addObjectTriple("A", "P2", "D");
+        ds.addObjectTriple("E", "P1", "B");
+
+        assertEquals(3, ds.getNumberOfObjectTriplesInvolvingSubject("A"));
+        assertEquals(2, ds.getNumberOfObjectTriplesInvolvingObject("B"));
+        assertEquals(0, ds.getNumberOfObjectTriplesInvolvingObject("A"));
+
+        // read-only views
+        List<Triple> edges = ds.getObjectTriplesInvolvingSubject("A");
+        assertThrows(UnsupportedOperationException.class, () -> edges.add(new Triple("A", "P3", "X")));
+        assertThrows(UnsupportedOperationException.class, () -> edges.remove(0));
+
+        Set<Triple> indexed = new HashSet<>();
+        for (int i = 0; i < ds.getNumberOfObjectTriplesInvolvingSubject("A"); i++) {
+            indexed.add(ds.getObjectTripleInvolvingSubject("A", i));
+        }
+        assertEquals(new HashSet<>(edges), indexed);
+        assertEquals("B", ds.getObjectTripleInvolvingObject("B", 0).object);
+
+        // random access
+        Set<Triple> drawn = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            drawn.add(ds.getRandomObjectTripleInvolvingSubject("A"));
+        }
+        assertEquals(3, drawn.size());
+        assertNull(ds.getRandomObjectTripleInvolvingSubject("B"));
+        assertNull(ds.getRandomObjectTripleInvolvingObject("A"));
+
+        // removal keeps the arrays consistent
+        ds.removeObjectTriple(new Triple("A", "P1", "B"));
+        assertEquals(2, ds.getNumberOfObjectTriplesInvolvingSubject("A"));
+        assertEquals(1, ds.getNumberOfObjectTriplesInvolvingObject("B"));
+        assertFalse(ds.getObjectTriplesInvolvingSubject("A").contains(new Triple("A", "P1", "B")));
+        ds.removeObjectTriple(new Triple("E", "P1", "B"));
+        assertNull(ds.getObjectTriplesInvolvingObject("B"));
+        assertNull(ds.getRandomObjectTripleInvolvingObject("B"));
+    }
+
+    @Test
+    void removeManyObjectTriples() {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        List<Triple> triples = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            Triple triple = new Triple("S" + random.nextInt(20), "P" + random.nextInt(3), "S" + random.nextInt(30));
+            if (!triples.contains(triple)) triples.add(triple);
+            ds.addObjectTriple(triple);
+        }
+        Collections.shuffle(triples, random);
+        List<Triple> removed = triples.subList(0, triples.size() / 2);
+        List<Triple> kept = triples.subList(triples.size() / 2, triples.size());
+        for (Triple triple : removed) {
+            ds.removeObjectTriple(triple);
+        }
+        assertEquals(new HashSet<>(kept), ds.getAllObjectTriples());
+        for (int i = 0; i < 30; i++) {
+            String node = "S" + i;
+            Set<Triple> expectedOut = new HashSet<>();
+            Set<Triple> expectedIn = new HashSet<>();
+            for (Triple triple : kept) {
+                if (triple.subject.equals(node)) expectedOut.add(triple);
+                if (triple.object.equals(node)) expectedIn.add(triple);
+            }
+            assertEquals(expectedOut.isEmpty() ? null : expectedOut, toSet(ds.getObjectTriplesInvolvingSubject(node)));
+            assertEquals(expectedIn.isEmpty() ? null : expectedIn, toSet(ds.getObjectTriplesInvolvingObject(node)));
+            for (int p = 0; p < 3; p++) {
+                Set<Triple> withPredicate = ds.getObjectTriplesWithSubjectPredicate(node, "P" + p);
+                if (withPredicate != null) {
+                    for (Triple triple : withPredicate) assertEquals("P" + p, triple.predicate);
+                    assertTrue(expectedOut.containsAll(withPredicate));
+                }
+            }
+        }
+        for (int p = 0; p < 3; p++) {
+            String predicate = "P" + p;
+            long expected = kept.stream().filter(triple -> triple.predicate.equals(predicate)).count();
+            List<Triple> withPredicate = ds.getObjectTriplesInvolvingPredicate(predicate);
+            assertEquals(expected, withPredicate == null ? 0 : withPredicate.size());
+        }
+
+        // the edge arrays are consistent for the frozen structure as well
+        ds.freeze();
+        assertEquals(new HashSet<>(kept), new HashSet<>(ds.getAllObjectTriples()));
+    }
+
+    @Test
+    void freeze() {
+        TripleDataSetMemory ds = new TripleDataSetMemory();
+        TripleDataSetMemory reference = new TripleDataSetMemory();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String subject = "S" + random.nextInt(100);
+            String predicate = "P" + random.nextInt(5);
+            String object = "S" + random.nextInt(150);
+            ds.addObjectTriple(subject, predicate, object);
+            reference.addObjectTriple(subject, predicate, object);
+        }
+        ds.addDatatypeTriple("S1", "label", "text");
+        ds.freeze();
+        assertTrue(ds.isFrozen());
+        assertFalse(reference.isFrozen());
+
+        assertEquals(reference.getObjectTripleSize(), ds.getObjectTripleSize());
+        assertEquals(reference.getAllObjectTriples(), ds.getAllObjectTriples());
+        assertEquals(reference.getAllObjectTriples(), new HashSet<>(ds.getAllObjectTriples()));
+        assertEquals(reference.getUniqueObjectTripleSubjects(), ds.getUniqueObjectTripleSubjects());
+        assertEquals(reference.getUniqueObjectTripleObjects(), ds.getUniqueObjectTripleObjects());
+        assertEquals(reference.getUniqueObjectTripleSubjects(), new HashSet<>(ds.getUniqueObjectTripleSubjects()));
+        assertEquals(reference.getUniqueObjectTriplePredicates(), ds.getUniqueObjectTriplePredicates());
+        assertEquals(1, ds.getDatatypeTripleSize());
+
+        for (int i = 0; i < 160; i++) {
+            String node = "S" + i;
+            assertEquals(toSet(reference.getObjectTriplesInvolvingSubject(node)),
+                    toSet(ds.getObjectTriplesInvolvingSubject(node)));
+            assertEquals(toSet(reference.getObjectTriplesInvolvingObject(node)),
+                    toSet(ds.getObjectTriplesInvolvingObject(node)));
+            int degree = ds.getNumberOfObjectTriplesInvolvingSubject(node);
+            assertEquals(reference.getNumberOfObjectTriplesInvolvingSubject(node), degree);
+            assertEquals(reference.getNumberOfObjectTriplesInvolvingObject(node),
+                    ds.getNumberOfObjectTriplesInvolvingObject(node));
+
+            // the edges of a node are sorted by predicate and object
+            TermPool pool = ds.getTermPool();
+            for (int index = 1; index < degree; index++) {
+                Triple previous = ds.getObjectTripleInvolvingSubject(node, index - 1);
+                Triple current = ds.getObjectTripleInvolvingSubject(node, index);
+                int comparison = Integer.compare(pool.lookup(previous.predicate), pool.lookup(current.predicate));
+                if (comparison == 0) {
+                    comparison = Integer.compare(pool.lookup(previous.object), pool.lookup(current.object));
+                }
+                assertTrue(comparison < 0);
+            }
+            if (degree > 0) assertNotNull(ds.getRandomObjectTripleInvolvingSubject(node));
+            else assertNull(ds.getRandomObjectTripleInvolvingSubject(node));
+
+            // the ID accessors read the same edges without creating triples
+            int id = ds.getNodeId(node);
+            assertEquals(degree, ds.getOutDegree(id));
+            assertEquals(ds.getNumberOfObjectTriplesInvolvingObject(node), ds.getInDegree(id));
+            for (int index = 0; index < degree; index++) {
+                Triple edge = ds.getObjectTripleInvolvingSubject(node, index);
+                assertEquals(edge.predicate, ds.getTerm(ds.getOutPredicateId(id, index)));
+                assertEquals(edge.object, ds.getTerm(ds.getOutObjectId(id, index)));
+            }
+            for (int index = 0; index < ds.getInDegree(id); index++) {
+                Triple edge = ds.getObjectTripleInvolvingObject(node, index);
+                assertEquals(edge.predicate, ds.getTerm(ds.getInPredicateId(id, index)));
+                assertEquals(edge.subject, ds.getTerm(ds.getInSubjectId(id, index)));
+            }
+            int randomIndex = ds.getRandomEdgeIndex(id, true);
+            assertTrue(degree > 0 ? randomIndex >= 0 && randomIndex < degree : randomIndex == -1);
+
+            for (int p = 0; p < 6; p++) {
+                assertEquals(reference.getObjectTriplesWithSubjectPredicate(node, "P" + p),
+                        ds.getObjectTriplesWithSubjectPredicate(node, "P" + p));
+                assertEquals(reference.getObjectTriplesWithPredicateObject("P" + p, node),
+                        ds.getObjectTriplesWithPredicateObject("P" + p, node));
+            }
+        }
+        assertNull(ds.getObjectTriplesInvolvingSubject("unknown"));
+        assertEquals(0, ds.getNumberOfObjectTriplesInvolvingObject("unknown"));
+        assertEquals(TermPool.NOT_FOUND, ds.getNodeId("unknown"));
+        assertEquals(0, ds.getOutDegree(TermPool.NOT_FOUND));
+        assertEquals(-1, ds.getRandomEdgeIndex(TermPool.NOT_FOUND, false));
+        assertThrows(IllegalStateException.class, () -> reference.getOutDegree(0));
+
+        // membership tests search the term IDs
+        for (Triple triple : reference.getAllObjectTriples()) {
+            Triple copy = new Triple(new String(triple.subject), new String(triple.predicate),
+                    new String(triple.object));
+            assertTrue(ds.getAllObjectTriples().contains(copy));
+            assertTrue(ds.getObjectTriplesWithSubjectPredicate(triple.subject, triple.predicate).contains(copy));
+            assertTrue(ds.getObjectTriplesWithPredicateObject(triple.predicate, triple.object).contains(copy));
+            assertFalse(ds.getObjectTriplesWithSubjectPredicate(triple.subject, triple.predicate)
+                    .contains(new Triple(triple.subject, triple.predicate, "unknown")));
+            assertFalse(ds.getObjectTriplesWithPredicateObject(triple.predicate, triple.object)
+                    .contains(new Triple(triple.subject, "P9", triple.object)));
+        }
+        for (int p = 0; p < 6; p++) {
+            assertEquals(toSet(reference.getObjectTriplesInvolvingPredicate("P" + p)),
+                    toSet(ds.getObjectTriplesInvolvingPredicate("P" + p)));
+        }
+
+        // the structure is immutable
+        Triple triple = ds.getAllObjectTriples().iterator().next();
+        assertTrue(ds.getAllObjectTriples().contains(triple));
+        assertFalse(ds.getAllObjectTriples().contains(new Triple("S1", "P9", "S2")));
+        ds.addObjectTriple("X", "Y", "Z");
+        ds.removeObjectTriple(triple);
+        assertEquals(reference.getObjectTripleSize(), ds.getObjectTripleSize());
+        assertThrows(UnsupportedOperationException.class,
+                () -> ds.getObjectTriplesInvolvingSubject(triple.subject).remove(0));
+
+        // the degree cap still applies
+        ds.setMaxDegree(2);
+        for (String subject : ds.getUniqueObjectTripleSubjects()) {
+            assertTrue(ds.getObjectTriplesInvolvingSubject(subject).size() <= 2);
+        }
+    }
+
+    private static Set<Triple> toSet(List<Triple> triples) {
+        return triples == null ? null : new HashSet<>(triples);
+    }
+}
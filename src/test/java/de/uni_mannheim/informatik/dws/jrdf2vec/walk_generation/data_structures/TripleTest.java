@@ -20,8 +20,21 @@ class TripleTest {
     @Test
     void testHashCode() {
         Triple t1 = new Triple("A", "B", "C");
-        Triple t2 = new Triple("C", "B", "A");
+        Triple t2 = new Triple(new String("A"), new String("B"), new String("C"));
         assertTrue(t1.hashCode() == t2.hashCode());
 
+        // the position of a term matters
+        assertNotEquals(t1.hashCode(), new Triple("C", "B", "A").hashCode());
+
+    }
+
+    @Test
+    void nullTerms() {
+        NullPointerException e = assertThrows(NullPointerException.class, () -> new Triple(null, "B", "C"));
+        assertEquals("subject", e.getMessage());
+        e = assertThrows(NullPointerException.class, () -> new Triple("A", null, "C"));
+        assertEquals("predicate", e.getMessage());
+        e = assertThrows(NullPointerException.class, () -> new Triple("A", "B", null));
+        assertEquals("object", e.getMessage());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.distributed;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkCoordinatorTest {
+
+
+    private static final File WALK_DIRECTORY = new File("./distributed_walks_test");
+
+    @Test
+    void distributedWalkGeneration() throws Exception {
+        FileUtils.deleteDirectory(WALK_DIRECTORY);
+        File graph = loadFile("dummyGraph.nt");
+        Set<String> allEntities = new WalkGenerationManager(graph).entitySelector.getEntities();
+
+        int numberOfWorkers = 3;
+        try (WalkCoordinator coordinator = new WalkCoordinator(numberOfWorkers, 0)) {
+            assertTrue(coordinator.start());
+            assertTrue(coordinator.getPort() > 0);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < numberOfWorkers; i++) {
+                WalkWorker worker = new WalkWorker(i, numberOfWorkers,
+                        InetAddress.getLoopbackAddress().getHostAddress(), coordinator.getPort(),
+                        coordinator.getRunToken());
+                worker.setReportingInterval(10);
+                Thread thread = new Thread(() -> worker.generateWalks(new WalkGenerationManager(graph),
+                        WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 1, 10, 3, 5, WALK_DIRECTORY));
+                threads.add(thread);
+                thread.start();
+            }
+            assertTrue(coordinator.awaitCompletion(2, TimeUnit.MINUTES));
+            for (Thread thread : threads) thread.join();
+
+            long processed = coordinator.getProcessedEntities();
+            assertEquals(allEntities.size(), processed);
+            for (WalkCoordinator.WorkerStatus status : coordinator.getWorkerStatus().values()) {
+                assertEquals(WalkCoordinator.WorkerState.DONE, status.getState());
+            }
+        }
+
+        // every worker wrote its own shard and no entity was processed twice
+        Map<String, String> entityToFile = new HashMap<>();
+        File[] files = WALK_DIRECTORY.listFiles();
+        assertNotNull(files);
+        for (File file : files) {
+            assertTrue(file.getName().startsWith("walk_file_w"));
+            for (String line : Util.readLinesFromGzippedFile(file)) {
+                String entity = line.split(" ")[0];
+                String previous = entityToFile.put(entity, file.getName());
+                assertTrue(previous == null || previous.equals(file.getName()));
+            }
+        }
+        assertTrue(allEntities.containsAll(entityToFile.keySet()));
+    }
+
+    @Test
+    void handleMessage() {
+        WalkCoordinator coordinator = new WalkCoordinator(2, 0);
+        String token = coordinator.getRunToken();
+        Object connection0 = new Object();
+        Object connection1 = new Object();
+        assertEquals(-1, coordinator.handleMessage("HELLO", connection0));
+        assertEquals(-1, coordinator.handleMessage("HELLO 5 2 " + token, connection0));
+        assertEquals(-1, coordinator.handleMessage("HELLO 0 2", connection0));
+        assertEquals(-1, coordinator.handleMessage("HELLO 0 2 wrong_token", connection0));
+        assertEquals(WalkCoordinator.WorkerState.WAITING, coordinator.getWorkerStatus().get(0).getState());
+
+        // messages are only accepted after the registration
+        assertEquals(-1, coordinator.handleMessage("DONE 0 10 100", connection0));
+        assertEquals(0, coordinator.handleMessage("HELLO 0 2 " + token, connection0));
+        assertEquals(WalkCoordinator.WorkerState.RUNNING, coordinator.getWorkerStatus().get(0).getState());
+        assertEquals(0, coordinator.handleMessage("PROGRESS 0 5 10 50", connection0));
+        assertEquals(5, coordinator.getWorkerStatus().get(0).getProcessedEntities());
+        assertEquals(10, coordinator.getWorkerStatus().get(0).getTotalEntities());
+
+        // a connection can only report for the worker that registered on it
+        assertEquals(-1, coordinator.handleMessage("FAILED 1 out of memory", connection0));
+        assertEquals(1, coordinator.handleMessage("HELLO 1 2 " + token, connection1));
+        assertEquals(1, coordinator.handleMessage("FAILED 1 out of memory", connection1));
+        assertEquals(WalkCoordinator.WorkerState.FAILED, coordinator.getWorkerStatus().get(1).getState());
+        assertEquals("out of memory", coordinator.getWorkerStatus().get(1).getMessage());
+        assertEquals(-1, coordinator.handleMessage("HELLO 1 2 " + token, connection1));
+        assertEquals(0, coordinator.handleMessage("DONE 0 10 100", connection0));
+        assertFalse(coordinator.awaitCompletion(1, TimeUnit.SECONDS));
+        coordinator.close();
+    }
+
+    @Test
+    void reconnect() {
+        WalkCoordinator coordinator = new WalkCoordinator(1, 0);
+        String token = coordinator.getRunToken();
+        Object lostConnection = new Object();
+        Object newConnection = new Object();
+        assertEquals(0, coordinator.handleMessage("HELLO 0 1 " + token, lostConnection));
+        coordinator.connectionLost(0, lostConnection);
+        assertEquals(WalkCoordinator.WorkerState.DISCONNECTED, coordinator.getWorkerStatus().get(0).getState());
+
+        // the worker registers again; late messages of the lost connection are ignored
+        assertEquals(0, coordinator.handleMessage("HELLO 0 1 " + token, newConnection));
+        assertEquals(WalkCoordinator.WorkerState.RUNNING, coordinator.getWorkerStatus().get(0).getState());
+        assertEquals(-1, coordinator.handleMessage("FAILED 0 stale", lostConnection));
+        coordinator.connectionLost(0, lostConnection);
+        assertEquals(WalkCoordinator.WorkerState.RUNNING, coordinator.getWorkerStatus().get(0).getState());
+        assertEquals(0, coordinator.handleMessage("DONE 0 10 100", newConnection));
+        assertTrue(coordinator.awaitCompletion(1, TimeUnit.SECONDS));
+        coordinator.close();
+
+        // a worker that does not register again in time fails
+        coordinator = new WalkCoordinator(1, 0);
+        coordinator.setReconnectTimeout(10);
+        assertEquals(0, coordinator.handleMessage("HELLO 0 1 " + coordinator.getRunToken(), lostConnection));
+        coordinator.connectionLost(0, lostConnection);
+        assertFalse(coordinator.awaitCompletion(1, TimeUnit.MINUTES));
+        assertEquals(WalkCoordinator.WorkerState.FAILED, coordinator.getWorkerStatus().get(0).getState());
+        coordinator.close();
+    }
+
+    @Test
+    void runTokenFile(@TempDir File directory) throws IOException {
+        WalkCoordinator coordinator = new WalkCoordinator(1, 0);
+        File runTokenFile = new File(directory, "walks_run_token");
+        FileUtils.writeStringToFile(runTokenFile, "stale", "UTF-8");
+        assertTrue(coordinator.writeRunTokenFile(runTokenFile));
+        assertEquals(coordinator.getRunToken(), WalkWorker.readRunToken(runTokenFile));
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------",
+                    PosixFilePermissions.toString(Files.getPosixFilePermissions(runTokenFile.toPath())));
+        }
+        assertEquals(0, coordinator.handleMessage("HELLO 0 1 " + WalkWorker.readRunToken(runTokenFile),
+                new Object()));
+        coordinator.close();
+
+        assertNull(WalkWorker.readRunToken(new File(directory, "missing")));
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        try {
+            FileUtils.deleteDirectory(WALK_DIRECTORY);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+}
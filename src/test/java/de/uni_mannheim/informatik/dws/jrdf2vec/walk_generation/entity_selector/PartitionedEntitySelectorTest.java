@@ -0,0 +1,53 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedEntitySelectorTest {
+
+
+    @Test
+    void getEntities() {
+        Set<String> entities = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            entities.add("http://example.com/entity_" + i);
+        }
+        EntitySelector selector = () -> entities;
+
+        int numberOfPartitions = 4;
+        Set<String> union = new HashSet<>();
+        int total = 0;
+        for (int partition = 0; partition < numberOfPartitions; partition++) {
+            Set<String> partitionEntities = new PartitionedEntitySelector(selector, partition, numberOfPartitions)
+                    .getEntities();
+            assertTrue(partitionEntities.size() > 100, "Partitions are not balanced.");
+            total += partitionEntities.size();
+            union.addAll(partitionEntities);
+        }
+        assertEquals(entities.size(), total, "Partitions are not disjoint.");
+        assertEquals(entities, union, "Partitions do not cover all entities.");
+    }
+
+    @Test
+    void invalidPartition() {
+        Set<String> entities = new HashSet<>();
+        entities.add("A");
+        entities.add("B");
+        assertEquals(entities, new PartitionedEntitySelector(() -> entities, 3, 2).getEntities());
+    }
+
+    @Test
+    void getPartition() {
+        // must be stable across JVMs
+        assertEquals(PartitionedEntitySelector.getPartition("http://example.com/A", 7),
+                PartitionedEntitySelector.getPartition(new String("http://example.com/A"), 7));
+        for (int i = 0; i < 100; i++) {
+            int partition = PartitionedEntitySelector.getPartition("e" + i, 3);
+            assertTrue(partition >= 0 && partition < 3);
+        }
+    }
+}
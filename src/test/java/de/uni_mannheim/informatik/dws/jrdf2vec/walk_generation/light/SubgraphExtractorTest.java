@@ -0,0 +1,112 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.light;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubgraphExtractorTest {
+
+
+    private static final File DIRECTORY = new File("./subgraph_extractor_test");
+
+    private static final String NT = "<http://ex.org/A> <http://ex.org/p> <http://ex.org/B> .\n" +
+            "<http://ex.org/B> <http://ex.org/p> <http://ex.org/C> .\n" +
+            "<http://ex.org/C> <http://ex.org/p> <http://ex.org/D> .\n" +
+            "<http://ex.org/E> <http://ex.org/p> <http://ex.org/A> .\n" +
+            "<http://ex.org/F> <http://ex.org/p> <http://ex.org/E> .\n" +
+            "<http://ex.org/A> <http://ex.org/q> <http://ex.org/E> .\n" +
+            "<http://ex.org/X> <http://ex.org/p> <http://ex.org/Y> .\n" +
+            "<http://ex.org/A> <http://ex.org/label> \"Node A\"@en .\n" +
+            "<http://ex.org/B> <http://ex.org/label> \"Node B\"@en .\n";
+
+    private static File ntFile;
+
+    private static File hdtFile;
+
+    @BeforeAll
+    static void setup() throws Exception {
+        DIRECTORY.mkdirs();
+        ntFile = new File(DIRECTORY, "graph.nt");
+        FileUtils.writeStringToFile(ntFile, NT, StandardCharsets.UTF_8);
+        hdtFile = new File(DIRECTORY, "graph.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://ex.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void extractBidirectional() throws IOException {
+        for (File graph : new File[]{ntFile, hdtFile}) {
+            File subgraph = new File(DIRECTORY, "bidirectional_" + graph.getName() + ".nt");
+            SubgraphExtractor extractor = new SubgraphExtractor(graph);
+            assertEquals(5, extractor.extract(Collections.singleton("http://ex.org/A"), 2, true, subgraph));
+            // all triples incident to A, B, and E (nodes within one hop of A); C -> D and X -> Y are not reachable
+            assertEquals(new HashSet<>(Arrays.asList(
+                    "<http://ex.org/A> <http://ex.org/p> <http://ex.org/B> .",
+                    "<http://ex.org/E> <http://ex.org/p> <http://ex.org/A> .",
+                    "<http://ex.org/A> <http://ex.org/q> <http://ex.org/E> .",
+                    "<http://ex.org/B> <http://ex.org/p> <http://ex.org/C> .",
+                    "<http://ex.org/F> <http://ex.org/p> <http://ex.org/E> ."
+            )), readLines(subgraph), graph.getName());
+        }
+    }
+
+    @Test
+    void extractForward() throws IOException {
+        for (File graph : new File[]{ntFile, hdtFile}) {
+            File subgraph = new File(DIRECTORY, "forward_" + graph.getName() + ".nt");
+            SubgraphExtractor extractor = new SubgraphExtractor(graph);
+            extractor.setIncludeDatatypeTriples(true);
+            assertEquals(5, extractor.extract(Collections.singleton("http://ex.org/A"), 2, false, subgraph));
+            Set<String> lines = readLines(subgraph);
+            assertTrue(lines.contains("<http://ex.org/A> <http://ex.org/label> \"Node A\"@en ."), graph.getName());
+            assertTrue(lines.contains("<http://ex.org/E> <http://ex.org/p> <http://ex.org/A> ."), graph.getName());
+            assertTrue(lines.contains("<http://ex.org/B> <http://ex.org/p> <http://ex.org/C> ."), graph.getName());
+            // datatype triples are only kept for the entities
+            assertFalse(lines.contains("<http://ex.org/B> <http://ex.org/label> \"Node B\"@en ."), graph.getName());
+        }
+    }
+
+    @Test
+    void extractForWalks() {
+        File subgraph = new File(DIRECTORY, "walks.nt");
+        assertEquals(subgraph, SubgraphExtractor.extractForWalks(ntFile, Collections.singleton("http://ex.org/A"),
+                WalkGenerationMode.MID_WALKS, 2, false, subgraph));
+
+        // error case: no entities -> the complete graph is used
+        assertEquals(ntFile, SubgraphExtractor.extractForWalks(ntFile, new HashSet<>(),
+                WalkGenerationMode.MID_WALKS, 2, false, subgraph));
+
+        assertTrue(SubgraphExtractor.isBidirectional(WalkGenerationMode.MID_WALKS));
+        assertFalse(SubgraphExtractor.isBidirectional(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE));
+        assertEquals(4, SubgraphExtractor.getRequiredHops(WalkGenerationMode.MID_WALKS, 4));
+        assertEquals(5, SubgraphExtractor.getRequiredHops(WalkGenerationMode.EXPERIMENTAL_MID_TYPE_WALKS_DUPLICATE_FREE, 4));
+    }
+
+    private static Set<String> readLines(File file) throws IOException {
+        Set<String> result = new HashSet<>();
+        for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) result.add(line.trim());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.metrics;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkMetricsTest {
+
+
+    private static final File WALK_DIRECTORY = new File("./metrics_walks_test");
+
+    private static final File METRICS_FILE = new File("./metrics_test.json");
+
+    private static final File PROMETHEUS_FILE = new File("./metrics_test.prom");
+
+    @Test
+    void histogram() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getMean());
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+        assertEquals(101, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(5050.0 / 101, histogram.getMean(), 0.0001);
+
+        // percentiles are reported as upper bound of the power-of-two bucket
+        long p50 = histogram.getPercentile(0.5);
+        assertTrue(p50 >= 50 && p50 <= 127, "Unexpected median bucket: " + p50);
+        assertTrue(histogram.getPercentile(1.0) >= 100);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void walkGeneration() throws IOException {
+        FileUtils.deleteDirectory(WALK_DIRECTORY);
+        WalkMetrics metrics = WalkMetrics.getInstance();
+        WalkMetricsReporter reporter = new WalkMetricsReporter(METRICS_FILE, 3600);
+        reporter.start();
+        try {
+            metrics.reset();
+            WalkGenerationManager manager = new WalkGenerationManager(loadFile("dummyGraph.nt"));
+            int numberOfEntities = manager.entitySelector.getEntities().size();
+            manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 5, 3, WALK_DIRECTORY);
+            manager.close();
+
+            assertEquals(numberOfEntities, metrics.getProcessedEntities());
+            assertTrue(metrics.getWrittenWalks() > 0);
+            assertTrue(metrics.getWalkCharacters() > 0);
+            assertTrue(metrics.getCompressedBytes() > 0);
+            assertEquals(0, metrics.getWriterWaitingThreads());
+            assertEquals(0, metrics.getQueueDepth());
+            assertNotNull(metrics.getHopLatencyHistogram("memory"));
+            assertTrue(metrics.getHopLatencyHistogram("memory").getCount() > 0);
+            assertTrue(metrics.getMaxCandidates().get("memory") > 0);
+
+            reporter.stop();
+            assertTrue(METRICS_FILE.exists());
+            String json = FileUtils.readFileToString(METRICS_FILE, StandardCharsets.UTF_8);
+            assertTrue(json.contains("\"entities\": " + numberOfEntities));
+            assertTrue(json.contains("\"memory\""));
+
+            new WalkMetricsReporter(PROMETHEUS_FILE, 1).writeMetrics();
+            String prometheus = FileUtils.readFileToString(PROMETHEUS_FILE, StandardCharsets.UTF_8);
+            assertTrue(prometheus.contains("jrdf2vec_entities_total " + numberOfEntities));
+            assertTrue(prometheus.contains("generator=\"memory\""));
+        } finally {
+            reporter.stop();
+            WalkMetrics.setEnabled(false);
+        }
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        try {
+            FileUtils.deleteDirectory(WALK_DIRECTORY);
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        METRICS_FILE.delete();
+        PROMETHEUS_FILE.delete();
+    }
+}
@@ -0,0 +1,202 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.training;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.uni_mannheim.informatik.dws.jrdf2vec.RDF2Vec;
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.Gensim;
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.VocabularyCounts;
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecConfiguration;
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.Word2VecType;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.getPathOfResource;
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the polling of asynchronous training jobs against a stub of the python server, i.e., without a python
+ * installation. The stub reports the job as running a few times before it reports the final status; if an export
+ * file is requested, the stub writes it when the job is polled for the first time. The python side of the job
+ * handling is covered by {@link GensimTest} (which requires the python server).
+ */
+class GensimJobPollingTest {
+
+
+    private static final String JOB_ID = "0123456789abcdef";
+
+    private static final String TRAINING_FILE_PATH = getPathOfResource("testInputForWord2Vec.txt");
+
+    private HttpServer server;
+
+    /**
+     * Status values that the stub returns one after another for the job; the last one is repeated.
+     */
+    private final List<String> statusSequence = new ArrayList<>();
+
+    /**
+     * Status values returned by the stub so far.
+     */
+    private final List<String> returnedStatus = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Headers of the last training request.
+     */
+    private final Map<String, String> trainingHeaders = Collections.synchronizedMap(new HashMap<>());
+
+    private static final File PIPELINE_DIRECTORY = new File("./gensim_pipeline_test");
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        String version = getServerScriptVersion();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/server-version", exchange -> respond(exchange, version));
+        server.createContext("/train-word2vec-async", exchange -> {
+            for (String header : new String[]{"model_path", "vocabulary_file", "export_file"}) {
+                String value = exchange.getRequestHeaders().getFirst(header);
+                if (value != null) trainingHeaders.put(header, value);
+            }
+            respond(exchange, JOB_ID);
+        });
+        server.createContext("/job-status", exchange -> {
+            String status;
+            if (!JOB_ID.equals(exchange.getRequestHeaders().getFirst("job_id"))) {
+                status = "UNKNOWN";
+            } else {
+                synchronized (statusSequence) {
+                    status = statusSequence.size() > 1 ? statusSequence.remove(0) : statusSequence.get(0);
+                }
+                String exportFile = trainingHeaders.get("export_file");
+                if (exportFile != null && returnedStatus.isEmpty()) {
+                    writeWord2VecBinary(new File(exportFile));
+                }
+                returnedStatus.add(status);
+            }
+            respond(exchange, status);
+        });
+        server.start();
+        Gensim.shutDown();
+        Gensim.setPort(server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopStubServer() throws IOException {
+        Gensim.shutDown();
+        server.stop(0);
+        FileUtils.deleteDirectory(PIPELINE_DIRECTORY);
+    }
+
+    @Test
+    void pollUntilSucceeded() throws Exception {
+        statusSequence.add("RUNNING");
+        statusSequence.add("RUNNING");
+        statusSequence.add("SUCCEEDED");
+        Gensim gensim = Gensim.getInstance();
+        Future<Boolean> training = gensim.trainWord2VecModelAsync("./stub.kv", TRAINING_FILE_PATH,
+                new Word2VecConfiguration(Word2VecType.SG));
+        assertTrue(training.get(1, TimeUnit.MINUTES));
+        assertEquals(3, returnedStatus.size());
+        assertEquals("SUCCEEDED", returnedStatus.get(2));
+        assertEquals("UNKNOWN", gensim.getJobStatus("not_a_job"));
+    }
+
+    @Test
+    void pollUntilFailed() throws Exception {
+        statusSequence.add("RUNNING");
+        statusSequence.add("FAILED");
+        Future<Boolean> training = Gensim.getInstance().trainWord2VecModelAsync("./stub.kv", TRAINING_FILE_PATH,
+                new Word2VecConfiguration(Word2VecType.SG));
+        assertFalse(training.get(1, TimeUnit.MINUTES));
+        assertEquals(2, returnedStatus.size());
+    }
+
+    @Test
+    void pipelinedTrainingExportsWhileTheModelIsSaved() throws Exception {
+        statusSequence.add("RUNNING");
+        statusSequence.add("RUNNING");
+        statusSequence.add("SUCCEEDED");
+        PIPELINE_DIRECTORY.mkdirs();
+        RDF2Vec rdf2vec = new RDF2Vec(loadFile("dummyGraph.nt"), PIPELINE_DIRECTORY);
+        rdf2vec.setPipelined(true);
+        rdf2vec.setNumberOfThreads(1);
+        rdf2vec.setNumberOfWalksPerEntity(5);
+        rdf2vec.setDepth(2);
+        rdf2vec.train();
+
+        // the job got the vocabulary of the walks and the export file next to the walks
+        assertEquals(new File(PIPELINE_DIRECTORY, VocabularyCounts.FILE_NAME).getAbsolutePath(),
+                trainingHeaders.get("vocabulary_file"));
+        File binaryFile = new File(PIPELINE_DIRECTORY, "vectors.bin");
+        assertEquals(binaryFile.getAbsolutePath(), trainingHeaders.get("export_file"));
+
+        // the binary file was converted while the job was still running (it is removed afterwards)
+        assertFalse(binaryFile.exists());
+        List<String> lines = FileUtils.readLines(new File(PIPELINE_DIRECTORY, "vectors.txt"), StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("A "), lines.get(0));
+        assertTrue(lines.get(1).startsWith("B "), lines.get(1));
+        assertEquals(3, returnedStatus.size());
+        assertFalse(rdf2vec.getRequiredTimeForLastOverlappedExportString().startsWith("<"));
+        assertFalse(rdf2vec.getRequiredTimeForLastExportString().startsWith("<"));
+    }
+
+    /**
+     * Writes a word2vec binary file with two vectors; like the python server, the file appears only when complete.
+     */
+    private static void writeWord2VecBinary(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temporaryFile)) {
+            out.write("2 1\n".getBytes(StandardCharsets.UTF_8));
+            for (String word : new String[]{"A", "B"}) {
+                out.write((word + " ").getBytes(StandardCharsets.UTF_8));
+                buffer.clear();
+                buffer.putFloat(0.5f);
+                out.write(buffer.array());
+                out.write('\n');
+            }
+        }
+        assertTrue(temporaryFile.renameTo(file));
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * @return The version that {@link Gensim} expects from a reusable server (SHA-256 of the server script).
+     */
+    private static String getServerScriptVersion() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream stream = Gensim.class.getResourceAsStream("/python_server.py")) {
+            assertNotNull(stream);
+            byte[] buffer = new byte[4096];
+            int readBytes;
+            while ((readBytes = stream.read(buffer)) > 0) {
+                digest.update(buffer, 0, readBytes);
+            }
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest()) {
+            result.append(String.format("%02x", b));
+        }
+        return result.toString();
+    }
+}
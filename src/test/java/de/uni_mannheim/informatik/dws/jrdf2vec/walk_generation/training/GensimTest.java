@@ -20,12 +20,19 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.deleteFile;
 import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.getNumberOfLines;
 import static org.junit.jupiter.api.Assertions.*;
 
 
+/**
+ * Tests against the python server. They require a python installation with the packages of
+ * {@code requirements.txt} (in particular gensim and flask); the polling of training jobs is also tested without
+ * python in {@link GensimJobPollingTest}.
+ */
 class GensimTest {
 
 
@@ -303,6 +310,37 @@ class GensimTest {
         deleteFile(vectorFile);
     }
 
+    @Test
+    void keepServerRunning() {
+        Gensim.setKeepServerRunning(true);
+        Gensim.release();
+        // the server is reused, i.e., the instance is still the same
+        assertSame(gensim, Gensim.getInstance());
+        Gensim.setKeepServerRunning(false);
+    }
+
+    @Test
+    void trainWord2VecModelAsync() throws Exception {
+        String testFilePath = getPathOfResource("testInputForWord2Vec.txt");
+        String vectorFilePath = "./freudeWord2vec_async.kv";
+        Future<Boolean> training = gensim.trainWord2VecModelAsync(vectorFilePath, testFilePath,
+                new Word2VecConfiguration(Word2VecType.SG));
+
+        // the server answers while the job is running
+        assertEquals("UNKNOWN", gensim.getJobStatus("not_a_job"));
+        assertTrue(training.get(5, TimeUnit.MINUTES));
+
+        File vectorFile = new File(vectorFilePath);
+        File modelFile = new File(vectorFilePath.substring(0, vectorFilePath.length() - 3));
+        assertTrue(vectorFile.exists(), "No vector file was written.");
+        assertTrue(modelFile.exists(), "No model file was written.");
+        assertTrue(gensim.isInVocabulary("Freude", vectorFilePath));
+
+        // cleaning up
+        deleteFile(modelFile);
+        deleteFile(vectorFile);
+    }
+
     @Test
     void trainWord2VecModelCBOW() {
         String testFilePath = getPathOfResource("testInputForWord2Vec.txt");
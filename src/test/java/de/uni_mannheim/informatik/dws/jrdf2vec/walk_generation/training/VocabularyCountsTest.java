@@ -0,0 +1,160 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.training;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.training.VocabularyCounts;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static de.uni_mannheim.informatik.dws.jrdf2vec.util.Util.loadFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VocabularyCountsTest {
+
+
+    private static final File DIRECTORY = new File("./vocabulary_counts_test");
+
+    @BeforeAll
+    static void setUp() {
+        DIRECTORY.mkdirs();
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void addWalk() {
+        VocabularyCounts counts = new VocabularyCounts();
+        counts.addWalk("A p B q A");
+        counts.addWalk("B");
+        assertEquals(2, counts.getNumberOfWalks());
+        assertEquals(2, counts.getCount("A"));
+        assertEquals(2, counts.getCount("B"));
+        assertEquals(1, counts.getCount("p"));
+        assertEquals(0, counts.getCount("C"));
+        assertEquals(4, counts.size());
+    }
+
+    @Test
+    void writeRead() {
+        VocabularyCounts counts = new VocabularyCounts();
+        counts.addWalk("<http://ex.org/A> <http://ex.org/p> größe");
+        counts.add("<http://ex.org/A>", 41);
+        File file = new File(DIRECTORY, VocabularyCounts.FILE_NAME);
+        assertTrue(counts.write(file));
+
+        VocabularyCounts read = VocabularyCounts.read(file);
+        assertNotNull(read);
+        assertEquals(1, read.getNumberOfWalks());
+        assertEquals(42, read.getCount("<http://ex.org/A>"));
+        assertEquals(1, read.getCount("größe"));
+        assertEquals(counts.getTokens(), read.getTokens());
+
+        assertNull(VocabularyCounts.read(new File(DIRECTORY, "does_not_exist.vocab")));
+    }
+
+    @Test
+    void countDuringWalkGeneration() throws IOException {
+        File walkDirectory = new File(DIRECTORY, "generated_walks");
+        walkDirectory.mkdirs();
+        // a walk file of an earlier run is counted from disk
+        File previousFile = writeGzippedWalks(new File(walkDirectory, "walk_file_99.txt.gz"), "X y Z", "X");
+        // files that are not walk files of the manager are ignored
+        writeGzippedWalks(new File(walkDirectory, "walk_file_w1_0.txt.gz"), "Other shard");
+        writeGzippedWalks(new File(walkDirectory, "merged_walks.txt.gz"), "Merged walks");
+        FileUtils.writeStringToFile(new File(walkDirectory, "notes.txt"), "Notes", StandardCharsets.UTF_8);
+
+        WalkGenerationManager manager = new WalkGenerationManager(loadFile("dummyGraph.nt"));
+        manager.setVocabularyCounting(true);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 3, 10, 4, walkDirectory);
+        manager.close();
+
+        File vocabularyFile = manager.getVocabularyFile();
+        assertNotNull(vocabularyFile);
+        assertEquals(new File(walkDirectory, VocabularyCounts.FILE_NAME), vocabularyFile);
+        assertNotNull(manager.getRequiredTimeForVocabularyString());
+
+        // the counts of the walk threads must match the counts of the written files
+        VocabularyCounts expected = new VocabularyCounts();
+        File[] files = walkDirectory.listFiles((directory, name) -> name.matches("walk_file_[0-9]+\\.txt\\.gz"));
+        assertNotNull(files);
+        assertTrue(files.length > 1);
+        for (File file : files) {
+            VocabularyCounts fileCounts = VocabularyCounts.countWalkFile(file);
+            assertNotNull(fileCounts, file.getName());
+            expected.addAll(fileCounts);
+        }
+        assertTrue(previousFile.exists());
+        VocabularyCounts actual = VocabularyCounts.read(vocabularyFile);
+        assertNotNull(actual);
+        assertTrue(actual.getNumberOfWalks() > 2);
+        assertEquals(expected.getNumberOfWalks(), actual.getNumberOfWalks());
+        assertEquals(expected.getTokens(), actual.getTokens());
+        for (String token : expected.getTokens()) {
+            assertEquals(expected.getCount(token), actual.getCount(token), token);
+        }
+        assertEquals(2, actual.getCount("X"));
+        assertEquals(0, actual.getCount("Other"));
+        assertEquals(0, actual.getCount("Merged"));
+        assertEquals(0, actual.getCount("Notes"));
+    }
+
+    @Test
+    void countTextWalksNextToWalks() {
+        File walkDirectory = new File(DIRECTORY, "generated_text_walks");
+        WalkGenerationManager manager = new WalkGenerationManager(loadFile("dummyGraph_with_labels.nt"), true, true);
+        manager.setVocabularyCounting(true);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 5, 3, 5, walkDirectory);
+
+        // the vocabulary of the walks and the text walks is written next to them
+        File vocabularyFile = manager.getVocabularyFile();
+        assertEquals(new File(walkDirectory, VocabularyCounts.FILE_NAME), vocabularyFile);
+        VocabularyCounts expected = new VocabularyCounts();
+        File[] files = walkDirectory.listFiles((directory, name) -> name.endsWith(".txt.gz"));
+        assertNotNull(files);
+        for (File file : files) {
+            VocabularyCounts fileCounts = VocabularyCounts.countWalkFile(file);
+            assertNotNull(fileCounts, file.getName());
+            expected.addAll(fileCounts);
+        }
+        VocabularyCounts actual = VocabularyCounts.read(vocabularyFile);
+        assertNotNull(actual);
+        assertEquals(expected.getNumberOfWalks(), actual.getNumberOfWalks());
+        assertEquals(expected.getTokens(), actual.getTokens());
+        for (String token : expected.getTokens()) {
+            assertEquals(expected.getCount(token), actual.getCount(token), token);
+        }
+        assertTrue(actual.getCount("gedichte") > 0);
+        assertTrue(actual.getCount("P7") > 0);
+    }
+
+    @Test
+    void prune() {
+        VocabularyCounts counts = new VocabularyCounts();
+        counts.addWalk("A B A C A B");
+        assertEquals(1, counts.prune(2));
+        assertEquals(2, counts.size());
+        assertEquals(0, counts.getCount("C"));
+        assertEquals(3, counts.getCount("A"));
+        assertEquals(1, counts.getNumberOfWalks());
+    }
+
+    private static File writeGzippedWalks(File file, String... walks) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)),
+                StandardCharsets.UTF_8)) {
+            for (String walk : walks) {
+                writer.write(walk);
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+}
@@ -1,10 +1,13 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
 import org.rdfhdt.hdt.exceptions.NotFoundException;
 import org.rdfhdt.hdt.hdt.HDT;
 import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
 import org.rdfhdt.hdt.triples.IteratorTripleString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +16,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -240,4 +244,162 @@ class HdtWalkGeneratorTest {
         assertTrue(list_1.equals(list_2));
         assertFalse(list_1.equals(list_3));
     }
-}
\ No newline at end of file
+
+    @Test
+    void maxDegree() throws Exception {
+        // hub graph: 200 subjects point to <http://example.org/Hub>
+        File directory = new File("./hdt_max_degree_test");
+        directory.mkdirs();
+        File ntFile = new File(directory, "hub.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            nt.append("<http://example.org/S").append(i).append("> <http://example.org/type> <http://example.org/Hub> .\n");
+            nt.append("<http://example.org/S").append(i).append("> <http://example.org/knows> <http://example.org/S")
+                    .append((i + 1) % 200).append("> .\n");
+        }
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        File hdtFile = new File(directory, "hub.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://example.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+
+        try {
+            HdtWalkGenerator parser = new HdtWalkGenerator(hdtFile);
+            assertEquals(IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT, parser.getMaxDegree());
+            parser.setMaxDegree(3);
+            assertEquals(3, parser.getMaxDegree());
+
+            String hub = "http://example.org/Hub";
+            Set<String> reachedSubjects = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                List<String> walk = parser.generateMidWalkForEntity(hub, 1);
+                // the hub has no successors
+                if (walk.size() == 1) continue;
+                assertEquals(3, walk.size(), "Walk: " + walk);
+                assertEquals("http://example.org/type", walk.get(1));
+                assertEquals(hub, walk.get(2));
+                IteratorTripleString iterator = parser.getHdt().search(walk.get(0), walk.get(1), walk.get(2));
+                assertTrue(iterator.hasNext());
+                reachedSubjects.add(walk.get(0));
+            }
+            // the predecessors are sampled anew on every hop
+            assertTrue(reachedSubjects.size() > 100, "Only " + reachedSubjects.size() + " subjects reached.");
+
+            // the weighting uses the actual degree (200 predecessors vs. 2 successors of S0)
+            List<String> weightedWalks = parser.generateWeightedMidWalksForEntity("http://example.org/S0", 50, 1);
+            assertFalse(weightedWalks.isEmpty());
+
+            parser.setMaxDegree(0);
+            assertEquals(IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT, parser.getMaxDegree());
+            parser.getHdt().close();
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    void generateTextWalksForEntity() throws Exception {
+        File directory = new File("./hdt_text_walk_test");
+        directory.mkdirs();
+        File ntFile = new File(directory, "text.nt");
+        String nt = "<http://example.org/A> <http://example.org/label> \"Hello World!\"@en .\n" +
+                "<http://example.org/A> <http://example.org/comment> \"One two three four five\" .\n" +
+                "<http://example.org/A> <http://example.org/value> \"1.5\"^^<http://www.w3.org/2001/XMLSchema#double> .\n" +
+                "<http://example.org/A> <http://example.org/knows> <http://example.org/B> .\n" +
+                "<http://example.org/B> <http://example.org/knows> <http://example.org/A> .\n";
+        FileUtils.writeStringToFile(ntFile, nt, StandardCharsets.UTF_8);
+        File hdtFile = new File(directory, "text.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://example.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+
+        try {
+            HdtWalkGenerator parser = new HdtWalkGenerator(hdtFile);
+            List<String> walks = parser.generateTextWalksForEntity("http://example.org/A", 4);
+            assertEquals(5, walks.size(), "Walks: " + walks);
+            assertTrue(walks.contains("http://example.org/A http://example.org/label hello world"));
+            assertTrue(walks.contains("http://example.org/A http://example.org/comment one two"));
+            assertTrue(walks.contains("http://example.org/A http://example.org/comment three four"));
+            assertTrue(walks.contains("http://example.org/A http://example.org/comment five"));
+            assertTrue(walks.contains("http://example.org/A http://example.org/value 15"));
+
+            // no literals
+            assertTrue(parser.generateTextWalksForEntity("http://example.org/B", 4).isEmpty());
+            // unknown entity
+            assertTrue(parser.generateTextWalksForEntity("http://example.org/C", 4).isEmpty());
+            parser.getHdt().close();
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    void walkFilter() throws Exception {
+        File directory = new File("./hdt_walk_filter_test");
+        directory.mkdirs();
+        File ntFile = new File(directory, "filter.nt");
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            nt.append("<http://example.org/A> <http://example.org/knows> <http://example.org/B").append(i).append("> .\n");
+            nt.append("<http://example.org/A> <http://www.w3.org/2002/07/owl#sameAs> <http://example.org/S")
+                    .append(i).append("> .\n");
+            nt.append("<http://example.org/B").append(i)
+                    .append("> <http://www.w3.org/ns/prov#wasDerivedFrom> <http://example.org/A> .\n");
+        }
+        nt.append("<http://example.org/A> <http://example.org/label> \"hello\" .\n");
+        nt.append("<http://example.org/A> <http://example.org/comment> \"world\" .\n");
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        File hdtFile = new File(directory, "filter.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), "http://example.org/", RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+
+        try {
+            HdtWalkGenerator parser = new HdtWalkGenerator(hdtFile);
+            parser.setWalkFilter(new WalkFilter()
+                    .excludePredicate("http://www.w3.org/2002/07/owl#sameAs")
+                    .excludeNamespace("http://www.w3.org/ns/prov#")
+                    .excludePredicate("http://example.org/comment"));
+            String entity = "http://example.org/A";
+            for (int maxDegree : new int[]{IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT, 3}) {
+                parser.setMaxDegree(maxDegree);
+                for (long hotTier : new long[]{0, 1024 * 1024}) {
+                    parser.setHotTierBudget(hotTier);
+                    List<String> walks = new ArrayList<>(parser.generateRandomWalksForEntity(entity, 50, 3));
+                    walks.addAll(parser.generateMidWalksForEntity(entity, 50, 3));
+                    walks.addAll(parser.generateWeightedMidWalksForEntity(entity, 50, 3));
+                    assertFalse(walks.isEmpty());
+                    for (String walk : walks) {
+                        assertFalse(walk.contains("http://example.org/comment"), walk);
+                        assertFalse(walk.contains("sameAs"), walk);
+                        assertFalse(walk.contains("wasDerivedFrom"), walk);
+                    }
+                    // B0 has only filtered edges
+                    assertTrue(parser.generateRandomWalksForEntity("http://example.org/B0", 10, 3).isEmpty());
+                }
+            }
+            List<String> textWalks = parser.generateTextWalksForEntity(entity, 4);
+            assertEquals(1, textWalks.size(), "Walks: " + textWalks);
+            assertTrue(textWalks.get(0).contains("hello"));
+
+            parser.getWalkFilter().setExcludeLiterals(true);
+            assertTrue(parser.generateTextWalksForEntity(entity, 4).isEmpty());
+
+            // no filter
+            parser.setWalkFilter(null);
+            parser.setMaxDegree(IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT);
+            parser.setHotTierBudget(0);
+            boolean isSameAsWalked = false;
+            for (String walk : parser.generateRandomWalksForEntity(entity, 200, 1)) {
+                isSameAsWalked |= walk.contains("sameAs");
+            }
+            assertTrue(isSameAsWalked);
+            parser.getHdt().close();
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.util.Util;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockstepWalkerTest {
+
+
+    private static final File DIRECTORY = new File("./lockstep_walker_test");
+
+    private static final String NS = "http://ex.org/";
+
+    private static File ntFile;
+
+    private static File hdtFile;
+
+    /**
+     * The triples of the graph as "subject predicate object".
+     */
+    private static final Set<String> TRIPLES = new HashSet<>();
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        // a chain n0 -> n1 -> n2 -> n3 and a hub h pointing to all chain nodes
+        StringBuilder nt = new StringBuilder();
+        for (int i = 0; i < 3; i++) addTriple(nt, "n" + i, "p", "n" + (i + 1));
+        for (int i = 0; i < 4; i++) addTriple(nt, "h", "q", "n" + i);
+        ntFile = new File(DIRECTORY, "graph.nt");
+        FileUtils.writeStringToFile(ntFile, nt.toString(), StandardCharsets.UTF_8);
+        hdtFile = new File(DIRECTORY, "graph.hdt");
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), NS, RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(hdtFile.getAbsolutePath(), null);
+        }
+    }
+
+    private static void addTriple(StringBuilder nt, String subject, String predicate, String object) {
+        nt.append("<").append(NS).append(subject).append("> <").append(NS).append(predicate).append("> <")
+                .append(NS).append(object).append("> .\n");
+        TRIPLES.add(NS + subject + " " + NS + predicate + " " + NS + object);
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void hdtWalks() throws IOException {
+        HdtWalkGenerator generator = new HdtWalkGenerator(hdtFile);
+        try {
+            assertWalks(generator);
+        } finally {
+            generator.close();
+        }
+    }
+
+    @Test
+    void memoryWalks() {
+        assertWalks(new NtMemoryWalkGenerator(ntFile));
+    }
+
+    private static void assertWalks(ILockstepWalkCapability generator) {
+        List<String> entities = Arrays.asList(NS + "n0", NS + "n3", NS + "h", NS + "unknown");
+        Map<String, List<String>> walks = generator.generateRandomWalksForEntitiesInLockstep(entities, 20, 3);
+        assertEquals(entities, new ArrayList<>(walks.keySet()));
+
+        // the chain is deterministic
+        assertEquals(20, walks.get(NS + "n0").size());
+        for (String walk : walks.get(NS + "n0")) {
+            assertEquals(NS + "n0 " + NS + "p " + NS + "n1 " + NS + "p " + NS + "n2 " + NS + "p " + NS + "n3", walk);
+        }
+
+        // no successors
+        assertTrue(walks.get(NS + "n3").isEmpty());
+        assertTrue(walks.get(NS + "unknown").isEmpty());
+
+        assertEquals(20, walks.get(NS + "h").size());
+        for (String walk : walks.get(NS + "h")) {
+            assertTrue(walk.startsWith(NS + "h "));
+            assertValidPath(walk);
+        }
+
+        walks = generator.generateMidWalksForEntitiesInLockstep(entities, 20, 4);
+        assertFalse(walks.get(NS + "n3").isEmpty());
+        assertTrue(walks.get(NS + "unknown").isEmpty());
+        for (Map.Entry<String, List<String>> entry : walks.entrySet()) {
+            for (String walk : entry.getValue()) {
+                assertTrue(Arrays.asList(walk.split(" ")).contains(entry.getKey()));
+                assertValidPath(walk);
+            }
+        }
+    }
+
+    private static void assertValidPath(String walk) {
+        String[] tokens = walk.split(" ");
+        assertEquals(1, tokens.length % 2);
+        for (int i = 0; i + 2 < tokens.length; i += 2) {
+            assertTrue(TRIPLES.contains(tokens[i] + " " + tokens[i + 1] + " " + tokens[i + 2]), walk);
+        }
+    }
+
+    @Test
+    void lockstepManager() throws IOException {
+        File walkDirectory = new File(DIRECTORY, "walks");
+        WalkGenerationManager manager = new WalkGenerationManager(hdtFile);
+        manager.setLockstepWalking(true);
+        manager.setLockstepWalksInFlight(10);
+        manager.generateWalks(WalkGenerationMode.RANDOM_WALKS, 2, 5, 3, walkDirectory);
+        manager.close();
+
+        List<String> lines = new ArrayList<>();
+        File[] walkFiles = walkDirectory.listFiles();
+        assertNotNull(walkFiles);
+        for (File file : walkFiles) lines.addAll(Util.readLinesFromGzippedFile(file));
+        // n0, n1, n2 and h have successors
+        assertEquals(20, lines.size());
+        for (String line : lines) assertValidPath(line);
+    }
+}
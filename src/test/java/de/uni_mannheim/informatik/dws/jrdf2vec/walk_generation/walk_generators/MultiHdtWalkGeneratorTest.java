@@ -0,0 +1,201 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationManager;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkGenerationMode;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.rdfhdt.hdt.enums.RDFNotation;
+import org.rdfhdt.hdt.exceptions.ParserException;
+import org.rdfhdt.hdt.hdt.HDT;
+import org.rdfhdt.hdt.hdt.HDTManager;
+import org.rdfhdt.hdt.options.HDTSpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiHdtWalkGeneratorTest {
+
+
+    private static final File DIRECTORY = new File("./multi_hdt_walk_generator_test");
+
+    private static final String NS = "http://ex.org/";
+
+    /**
+     * The union of both files (subject, predicate, object).
+     */
+    private static final Set<String> UNION = new HashSet<>(Arrays.asList(
+            NS + "A " + NS + "p " + NS + "B",
+            NS + "B " + NS + "p " + NS + "C",
+            NS + "C " + NS + "q " + NS + "D",
+            NS + "B " + NS + "q " + NS + "E",
+            NS + "X " + NS + "r " + NS + "A"));
+
+    private static MultiHdtWalkGenerator generator;
+
+    @BeforeAll
+    static void setUp() throws IOException, ParserException {
+        DIRECTORY.mkdirs();
+        createHdt("first", "<http://ex.org/A> <http://ex.org/p> <http://ex.org/B> .\n" +
+                "<http://ex.org/B> <http://ex.org/p> <http://ex.org/C> .\n" +
+                "<http://ex.org/A> <http://ex.org/label> \"Alpha beta\" .\n");
+        createHdt("second", "<http://ex.org/C> <http://ex.org/q> <http://ex.org/D> .\n" +
+                "<http://ex.org/B> <http://ex.org/q> <http://ex.org/E> .\n" +
+                "<http://ex.org/X> <http://ex.org/r> <http://ex.org/A> .\n");
+        generator = new MultiHdtWalkGenerator(DIRECTORY);
+    }
+
+    @AfterAll
+    static void cleanUp() throws IOException {
+        generator.close();
+        FileUtils.deleteDirectory(DIRECTORY);
+    }
+
+    @Test
+    void getEntities() {
+        Set<String> entities = generator.getEntities();
+        assertEquals(7, entities.size());
+        assertTrue(entities.contains(NS + "X"));
+        assertTrue(entities.contains(NS + "D"));
+        assertTrue(entities.contains("\"Alpha beta\""));
+        assertEquals(0, generator.getGlobalId(NS + "unknown"));
+        assertTrue(new File(DIRECTORY, MultiHdtWalkGenerator.MAPPING_FILE_NAME).isFile());
+    }
+
+    @Test
+    void generateDuplicateFreeRandomWalksForEntity() {
+        // the walks cross the files: A -p-> B (first) -q-> E (second)
+        List<String> walks = generator.generateDuplicateFreeRandomWalksForEntity(NS + "A", 100, 3);
+        assertEquals(3, walks.size());
+        assertTrue(walks.contains(NS + "A " + NS + "p " + NS + "B " + NS + "p " + NS + "C " + NS + "q " + NS + "D"));
+        assertTrue(walks.contains(NS + "A " + NS + "p " + NS + "B " + NS + "q " + NS + "E"));
+        assertTrue(walks.contains(NS + "A " + NS + "label \"Alpha beta\""));
+
+        assertEquals(1, generator.generateDuplicateFreeRandomWalksForEntity(NS + "A", 1, 3).size());
+        assertTrue(generator.generateDuplicateFreeRandomWalksForEntity(NS + "D", 10, 3).isEmpty());
+    }
+
+    @Test
+    void generateRandomWalksForEntity() {
+        List<String> walks = generator.generateRandomWalksForEntity(NS + "B", 20, 2);
+        assertEquals(20, walks.size());
+        for (String walk : walks) {
+            assertValidWalk(walk);
+            assertTrue(walk.startsWith(NS + "B "));
+        }
+    }
+
+    @Test
+    void generateMidWalksForEntity() {
+        Set<String> walks = new HashSet<>(generator.generateMidWalksForEntity(NS + "B", 100, 3));
+        for (String walk : walks) {
+            assertValidWalk(walk);
+            assertTrue(walk.contains(NS + "B"));
+        }
+        // predecessors are found in the second file
+        assertTrue(walks.stream().anyMatch(walk -> walk.startsWith(NS + "X ")));
+
+        for (String walk : generator.generateMidWalksForEntityDuplicateFree(NS + "C", 10, 3)) {
+            assertValidWalk(walk);
+        }
+        for (String walk : generator.generateWeightedMidWalksForEntity(NS + "C", 10, 3)) {
+            assertValidWalk(walk);
+        }
+    }
+
+    @Test
+    void maxDegree() {
+        generator.setMaxDegree(1);
+        try {
+            assertEquals(1, generator.generateDuplicateFreeRandomWalksForEntity(NS + "B", 100, 1).size());
+        } finally {
+            generator.setMaxDegree(IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT);
+        }
+        assertEquals(2, generator.generateDuplicateFreeRandomWalksForEntity(NS + "B", 100, 1).size());
+    }
+
+    @Test
+    void generateTextWalksForEntity() {
+        List<String> walks = generator.generateTextWalksForEntity(NS + "A", 10);
+        assertEquals(1, walks.size());
+        assertTrue(walks.get(0).startsWith(NS + "A " + NS + "label "));
+        assertTrue(generator.generateTextWalksForEntity(NS + "X", 10).isEmpty());
+    }
+
+    @Test
+    void walkFilter() {
+        // q occurs only in the second file, label only in the first one
+        generator.setWalkFilter(new WalkFilter().excludePredicate(NS + "q").excludePredicate(NS + "label"));
+        try {
+            for (int maxDegree : new int[]{IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT, 1}) {
+                generator.setMaxDegree(maxDegree);
+                List<String> walks = new ArrayList<>(generator.generateRandomWalksForEntity(NS + "B", 20, 3));
+                walks.addAll(generator.generateDuplicateFreeRandomWalksForEntity(NS + "B", 20, 3));
+                walks.addAll(generator.generateMidWalksForEntity(NS + "B", 20, 3));
+                walks.addAll(generator.generateWeightedMidWalksForEntity(NS + "B", 20, 3));
+                assertFalse(walks.isEmpty());
+                for (String walk : walks) {
+                    assertValidWalk(walk);
+                    assertFalse(walk.contains(NS + "q"), walk);
+                }
+                // C has only filtered edges
+                assertTrue(generator.generateRandomWalksForEntity(NS + "C", 10, 2).isEmpty());
+                assertEquals(Collections.singletonList(NS + "B " + NS + "p " + NS + "C"),
+                        generator.generateDuplicateFreeRandomWalksForEntity(NS + "B", 10, 2));
+            }
+            assertTrue(generator.generateTextWalksForEntity(NS + "A", 10).isEmpty());
+
+            generator.setWalkFilter(new WalkFilter().excludePredicate(NS + "q"));
+            assertEquals(1, generator.generateTextWalksForEntity(NS + "A", 10).size());
+            generator.getWalkFilter().setExcludeLiterals(true);
+            assertTrue(generator.generateTextWalksForEntity(NS + "A", 10).isEmpty());
+        } finally {
+            generator.setWalkFilter(null);
+            generator.setMaxDegree(IDegreeCappingWalkGenerator.NO_DEGREE_LIMIT);
+        }
+        assertFalse(generator.generateRandomWalksForEntity(NS + "C", 10, 2).isEmpty());
+    }
+
+    @Test
+    void walkGenerationManager() {
+        File walkDirectory = new File(DIRECTORY.getParentFile(), "multi_hdt_walks");
+        try {
+            WalkGenerationManager manager = new WalkGenerationManager(DIRECTORY);
+            assertTrue(manager.getWalkGenerator() instanceof MultiHdtWalkGenerator);
+            manager.generateWalks(WalkGenerationMode.RANDOM_WALKS_DUPLICATE_FREE, 2, 10, 2, walkDirectory);
+            manager.close();
+            File[] walkFiles = walkDirectory.listFiles();
+            assertNotNull(walkFiles);
+            assertTrue(walkFiles.length > 0);
+        } finally {
+            FileUtils.deleteQuietly(walkDirectory);
+        }
+    }
+
+    /**
+     * Every hop of the walk must be a triple of the union.
+     */
+    private static void assertValidWalk(String walk) {
+        String[] tokens = walk.split(" ");
+        assertEquals(1, tokens.length % 2, walk);
+        for (int i = 0; i + 2 < tokens.length; i += 2) {
+            String triple = tokens[i] + " " + tokens[i + 1] + " " + tokens[i + 2];
+            assertTrue(UNION.contains(triple), triple);
+        }
+    }
+
+    private static void createHdt(String name, String nt) throws IOException, ParserException {
+        File ntFile = new File(DIRECTORY, name + ".nt");
+        FileUtils.writeStringToFile(ntFile, nt, StandardCharsets.UTF_8);
+        try (HDT hdt = HDTManager.generateHDT(ntFile.getAbsolutePath(), NS, RDFNotation.NTRIPLES,
+                new HDTSpecification(), null)) {
+            hdt.saveToHDT(new File(DIRECTORY, name + ".hdt").getAbsolutePath(), null);
+        }
+    }
+}
@@ -225,6 +225,40 @@ class NtMemoryWalkGeneratorTest {
         assertEquals(3, maxLengh);
     }
 
+    @Test
+    void generateWalksOnFrozenData(){
+        NtMemoryWalkGenerator parser = new NtMemoryWalkGenerator(loadFile("dummyGraph_3.nt").getAbsolutePath());
+        parser.getData().freeze();
+
+        // random walks are built from term IDs
+        List<String> randomWalks = parser.generateRandomWalksForEntity("A", 50, 8);
+        assertEquals(50, randomWalks.size());
+        for (String walk : randomWalks) {
+            assertTrue(walk.equals("A P4 E P5 D") || walk.equals("A P4 E P6 F") || walk.equals("A P1 B P2 C P3 D"),
+                    walk);
+        }
+        assertEquals(3, new HashSet<>(randomWalks).size());
+        for (String walk : parser.generateRandomWalksForEntity("Z", 10, 1)) {
+            assertTrue(walk.matches("Z P7 Y[1-5]"), walk);
+        }
+        assertTrue(parser.generateRandomWalksForEntity("D", 10, 3).isEmpty());
+        assertTrue(parser.generateRandomWalksForEntity("unknown", 10, 3).isEmpty());
+
+        // every hop of a mid walk is an edge of the graph
+        Set<Triple> triples = parser.getData().getAllObjectTriples();
+        for (int i = 0; i < 50; i++) {
+            List<String> walk = parser.generateMidWalkForEntity("C", 4);
+            assertTrue(walk.contains("C"));
+            assertEquals(1, walk.size() % 2);
+            assertTrue(walk.size() <= 9);
+            for (int j = 2; j < walk.size(); j += 2) {
+                assertTrue(triples.contains(new Triple(walk.get(j - 2), walk.get(j - 1), walk.get(j))),
+                        walk.toString());
+            }
+        }
+        assertEquals(1, parser.generateMidWalkForEntity("unknown", 4).size());
+    }
+
     @Test
     void generateMidWalksForEntity(){
         try {
@@ -0,0 +1,105 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.Triple;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.EntitySelector;
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.entity_selector.MemoryEntitySelector;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.riot.Lang;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RiotMemoryWalkGeneratorTest {
+
+
+    private static final String PIZZA = "http://www.co-ode.org/ontologies/pizza/pizza.owl#";
+
+    @Test
+    void readTurtle() {
+        assertPizza(new RiotMemoryWalkGenerator(loadFile("pizza.ttl"), Lang.TTL, false));
+        // language determined by the file extension
+        assertPizza(new RiotMemoryWalkGenerator(loadFile("pizza.ttl"), false));
+    }
+
+    @Test
+    void readRdfXml() {
+        assertPizza(new RiotMemoryWalkGenerator(loadFile("pizza.owl.xml"), Lang.RDFXML, false));
+    }
+
+    @Test
+    void readDatatypeTriples() {
+        RiotMemoryWalkGenerator generator = new RiotMemoryWalkGenerator(loadFile("pizza.ttl"), Lang.TTL, false);
+        assertNull(generator.getData().getDatatypeTuplesForSubject(PIZZA + "AmericanHot"));
+
+        generator = new RiotMemoryWalkGenerator(loadFile("pizza.ttl"), Lang.TTL, true);
+        Map<String, Set<String>> tuples = generator.getData().getDatatypeTuplesForSubject(PIZZA + "AmericanHot");
+        assertTrue(tuples.containsKey("http://www.w3.org/2004/02/skos/core#altLabel"));
+        assertTrue(tuples.get("http://www.w3.org/2004/02/skos/core#altLabel").contains("american hot"));
+
+        // no literal must appear as object triple
+        for (Triple triple : generator.getData().getObjectTriplesInvolvingSubject(PIZZA + "AmericanHot")) {
+            assertNotEquals("http://www.w3.org/2004/02/skos/core#altLabel", triple.predicate);
+        }
+    }
+
+    @Test
+    void notExistingFile() {
+        RiotMemoryWalkGenerator generator = new RiotMemoryWalkGenerator(new File("./does_not_exist.ttl"), false);
+        assertEquals(0, generator.getDataSize());
+    }
+
+    @Test
+    void parseSingleFile() {
+        File turtleFile = loadFile("pizza.ttl");
+        File ntFile = new File(turtleFile.getParentFile(), "pizza.nt");
+        // the file may be left over from earlier versions that converted the file to N-Triples
+        ntFile.delete();
+        Pair<IWalkGenerator, EntitySelector> result = WalkGeneratorManager.parseSingleFile(turtleFile, false);
+        assertTrue(result.getValue0() instanceof RiotMemoryWalkGenerator);
+        assertTrue(result.getValue1() instanceof MemoryEntitySelector);
+        assertTrue(result.getValue1().getEntities().contains(PIZZA + "AmericanHot"));
+
+        // no intermediate file
+        assertFalse(ntFile.exists());
+    }
+
+    private static void assertPizza(RiotMemoryWalkGenerator generator) {
+        assertTrue(generator.getData().getObjectTripleSize() > 100);
+        List<Triple> triples = generator.getData().getObjectTriplesInvolvingSubject(PIZZA + "ArtichokeTopping");
+        boolean found = false;
+        for (Triple triple : triples) {
+            assertEquals(PIZZA + "ArtichokeTopping", triple.subject);
+            if (triple.predicate.equals("http://www.w3.org/2000/01/rdf-schema#subClassOf")
+                    && triple.object.equals(PIZZA + "VegetableTopping")) {
+                found = true;
+            }
+        }
+        assertTrue(found);
+        assertFalse(generator.generateRandomWalksForEntity(PIZZA + "AmericanHot", 10, 4).isEmpty());
+    }
+
+    /**
+     * Helper function to load files in class path that contain spaces.
+     * @param fileName Name of the file.
+     * @return File in case of success, else null.
+     */
+    private File loadFile(String fileName){
+        try {
+            File result =  FileUtils.toFile(this.getClass().getClassLoader().getResource(fileName).toURI().toURL());
+            assertTrue(result.exists(), "Required resource not available.");
+            return result;
+        } catch (URISyntaxException | MalformedURLException exception){
+            exception.printStackTrace();
+            fail("Could not load file.");
+            return null;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
 
+import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.base.WalkFilter;
 import de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.data_structures.Triple;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.tdb.TDB;
+import org.apache.jena.tdb.TDBFactory;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -100,4 +108,68 @@ class TdbWalkGeneratorTest {
         // test error case
         assertNotNull(walkGenerator.getForwardTriples("ERROR_URL"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void walkFilter(@TempDir File tdbDirectory) {
+        String subClassOf = "http://www.w3.org/2000/01/rdf-schema#subClassOf";
+        String entity = "http://www.co-ode.org/ontologies/pizza/pizza.owl#VegetableTopping";
+        TdbWalkGenerator filteringWalkGenerator = new TdbWalkGenerator(createPizzaTdb(tdbDirectory).getAbsolutePath());
+        try {
+            filteringWalkGenerator.setWalkFilter(new WalkFilter().excludePredicate(subClassOf));
+            for (Triple triple : filteringWalkGenerator.getForwardTriples(entity)) {
+                assertNotEquals(subClassOf, triple.predicate);
+            }
+            for (Triple triple : filteringWalkGenerator.getBackwardTriples(entity)) {
+                assertNotEquals(subClassOf, triple.predicate);
+            }
+            List<String> walks = new ArrayList<>(filteringWalkGenerator.generateMidWalksForEntity(entity, 50, 3));
+            walks.addAll(filteringWalkGenerator.generateWeightedMidWalksForEntity(entity, 50, 3));
+            walks.addAll(filteringWalkGenerator.generateDuplicateFreeRandomWalksForEntity(entity, 50, 3));
+            for (String walk : walks) {
+                assertFalse(walk.contains(subClassOf), walk);
+            }
+
+            filteringWalkGenerator.setWalkFilter(null);
+            boolean isSubClassOfWalked = false;
+            for (Triple triple : filteringWalkGenerator.getBackwardTriples(entity)) {
+                isSubClassOfWalked |= subClassOf.equals(triple.predicate);
+            }
+            assertTrue(isSubClassOfWalked);
+        } finally {
+            filteringWalkGenerator.close();
+        }
+    }
+
+    @Test
+    void generateTextWalksForEntity(@TempDir File tdbDirectory) {
+        TdbWalkGenerator textWalkGenerator = new TdbWalkGenerator(createPizzaTdb(tdbDirectory).getAbsolutePath());
+        try {
+            String american = "http://www.co-ode.org/ontologies/pizza/pizza.owl#American";
+            List<String> walks = textWalkGenerator.generateTextWalksForEntity(american, 5);
+            assertTrue(walks.contains(american + " http://www.w3.org/2000/01/rdf-schema#label americana"), "Walks: " + walks);
+            assertTrue(walks.contains(american + " http://www.w3.org/2004/02/skos/core#altLabel american pizza"));
+            for (String walk : walks) {
+                assertTrue(walk.startsWith(american + " "));
+                assertTrue(walk.split(" ").length <= 5);
+            }
+            assertTrue(textWalkGenerator.generateTextWalksForEntity("http://www.co-ode.org/ontologies/pizza/pizza.owl#DoesNotExist", 5).isEmpty());
+        } finally {
+            textWalkGenerator.close();
+        }
+    }
+
+    /**
+     * Build a TDB store of the pizza ontology so that the test does not depend on the indices of pizza_tdb. The store
+     * is released afterwards, i.e., the walk generator opens it anew.
+     *
+     * @param tdbDirectory The (empty) directory of the store.
+     * @return The directory of the store.
+     */
+    private static File createPizzaTdb(File tdbDirectory) {
+        Dataset dataset = TDBFactory.createDataset(tdbDirectory.getAbsolutePath());
+        RDFDataMgr.read(dataset.getDefaultModel(), loadFile("pizza.owl.nt").getAbsolutePath());
+        TDB.sync(dataset);
+        TDBFactory.release(dataset);
+        return tdbDirectory;
+    }
+}
@@ -0,0 +1,60 @@
+package de.uni_mannheim.informatik.dws.jrdf2vec.walk_generation.walk_generators;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextNormalizerTest {
+
+
+    @Test
+    void apply() {
+        TextNormalizer normalizer = new TextNormalizer();
+        assertEquals("hello world", normalizer.apply("\"Hello World!\"@de ."));
+        assertEquals("hello world", normalizer.apply("\"Hello World!\"@en"));
+        assertEquals("151", normalizer.apply("\"1.51\"^^<http://www.w3.org/2001/XMLSchema#double> . "));
+        assertEquals("größe über äpfel", normalizer.apply("Größe Über Äpfel"));
+        assertEquals("already normalized", normalizer.apply("already normalized"));
+        assertEquals("", normalizer.apply("!?"));
+        assertNull(normalizer.apply(null));
+
+        // no annotation: the mail address is kept
+        assertEquals("mailexampleorg", normalizer.apply("mail@example.org"));
+    }
+
+    @Test
+    void tokenize() {
+        TextNormalizer normalizer = new TextNormalizer();
+        assertEquals(Arrays.asList("the", "quick", "fox"), normalizer.tokenize("\"The quick - fox\"@en ."));
+        assertTrue(normalizer.tokenize("").isEmpty());
+
+        TextNormalizer stopwordNormalizer = new TextNormalizer(TextNormalizer.WHITESPACE_TOKENIZER,
+                TextNormalizer.DEFAULT_STOPWORDS);
+        assertEquals(Arrays.asList("quick", "fox"), stopwordNormalizer.tokenize("\"The quick - fox\"@en ."));
+
+        // custom tokenizer
+        TextNormalizer characterNormalizer = new TextNormalizer(text -> {
+            List<String> result = new java.util.ArrayList<>();
+            for (char c : text.replace(" ", "").toCharArray()) result.add(String.valueOf(c));
+            return result;
+        }, null);
+        assertEquals(Arrays.asList("a", "b", "c"), characterNormalizer.tokenize("A b C"));
+    }
+
+    @Test
+    void getTokenIds() {
+        TextNormalizer normalizer = new TextNormalizer();
+        int[] ids = normalizer.getTokenIds("\"Hello World hello\"@en .");
+        assertEquals(3, ids.length);
+        assertEquals(ids[0], ids[2]);
+        assertNotEquals(ids[0], ids[1]);
+        assertEquals(2, normalizer.getVocabularySize());
+        assertEquals("hello", normalizer.getToken(ids[0]));
+        assertEquals("world", normalizer.getToken(ids[1]));
+        assertNull(normalizer.getToken(42));
+        assertEquals(ids[1], normalizer.getTokenId("world"));
+    }
+}